@@ -0,0 +1,559 @@
+package comp3506.assn1.adts;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A thread safe bounded cube that moves its planes between representations as traffic changes:
+ * 		- TREE: a BoundedCube (kd-tree), the general purpose choice for sparse airspace.
+ * 		- HASH: a BoundedCube with its cell index enabled, when most reads are exact position lookups.
+ * 		- GRID: a DenseGridCube, when the cube is small enough and a large share of its cells is occupied.
+ *
+ * Every ADAPT_INTERVAL operations the writer that completes the interval checks the occupancy ratio
+ * (positions / cells) and the query mix (exact position reads against range queries) since the last check,
+ * and migrates if another representation fits better. Enter and exit thresholds differ, so a cube near a
+ * boundary does not switch back and forth.
+ *
+ * Readers hold a shared read lock, writers hold this object's monitor and then the write lock. A migration
+ * holds only the monitor: other writers wait, but readers carry on against the old representation while the
+ * new one is built, which is then published through a volatile field. Readers count themselves in LongAdders,
+ * so concurrent reads do not all contend on one counter. Each switch is recorded in the metrics
+ * (see getSwitchCount, getLastSwitchNanos and getTotalSwitchNanos).
+ *
+ * Memory Efficiency: that of the current representation, twice that during a migration.
+ *
+ * @author Peter Baldry
+ * @param <T> The type of element held in the data structure.
+ */
+public class AdaptiveCube<T> implements Cube<T> {
+
+	/**
+	 * The representations an AdaptiveCube can hold its planes in.
+	 */
+	public enum Representation {
+		TREE, HASH, GRID
+	}
+
+	/* operations between checks of the policy */
+	private static final int ADAPT_INTERVAL = 4096;
+	/* largest cube held as a grid (one reference per cell, 32MB) */
+	private static final long MAX_GRID_CELLS = 1 << 22;
+	private static final double GRID_ENTER_OCCUPANCY = 0.10;
+	private static final double GRID_EXIT_OCCUPANCY = 0.05;
+	private static final double HASH_ENTER_EXACT_SHARE = 0.75;
+	private static final double HASH_EXIT_EXACT_SHARE = 0.5;
+
+	private final int cubeLength;
+	private final int cubeBreadth;
+	private final int cubeHeight;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private volatile Cube<T> backend;
+	private volatile Representation representation;
+
+	private final LongAdder exactReads = new LongAdder();
+	private final LongAdder rangeReads = new LongAdder();
+	private long writesSinceCheck;
+
+	private volatile int switchCount;
+	private volatile long lastSwitchNanos;
+	private volatile long totalSwitchNanos;
+	private volatile int lastSwitchPlanes;
+
+	/**
+	 * AdaptiveCube Constructor, the cube starts as a TREE.
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @throws IllegalArgumentException if provided dimension sizes are not positive.
+	 */
+	public AdaptiveCube(int length, int breadth, int height) throws IllegalArgumentException {
+		backend = new BoundedCube<T>(length, breadth, height);
+		representation = Representation.TREE;
+		cubeLength = length;
+		cubeBreadth = breadth;
+		cubeHeight = height;
+	}
+
+	/**
+	 * Private helper class, gathers every plane visited (with its position) into growing arrays.
+	 * @author Peter Baldry
+	 * @param <T> The type of element gathered.
+	 */
+	private static class PlaneCollector<T> implements CellVisitor<T> {
+		int[] xs = new int[16];
+		int[] ys = new int[16];
+		int[] zs = new int[16];
+		T[] elements = newElementArray(16);
+		int size = 0;
+
+		@Override
+		public void visit(int x, int y, int z, T element) {
+			if (size == elements.length) {
+				xs = Arrays.copyOf(xs, size * 2);
+				ys = Arrays.copyOf(ys, size * 2);
+				zs = Arrays.copyOf(zs, size * 2);
+				elements = Arrays.copyOf(elements, size * 2);
+			}
+			xs[size] = x;
+			ys[size] = y;
+			zs[size] = z;
+			elements[size] = element;
+			size += 1;
+		}
+
+		/**
+		 * Trims the arrays to the number of planes gathered.
+		 */
+		public void trim() {
+			xs = Arrays.copyOf(xs, size);
+			ys = Arrays.copyOf(ys, size);
+			zs = Arrays.copyOf(zs, size);
+			elements = Arrays.copyOf(elements, size);
+		}
+
+		/**
+		 * Private helper method, creates a generic array of elements.
+		 * @param size length of the array
+		 * @return an empty array
+		 */
+		@SuppressWarnings("unchecked")
+		private static <T> T[] newElementArray(int size) {
+			return (T[]) new Object[size];
+		}
+	}
+
+	/**
+	 * Private helper method, determines if valid input coordinates
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @throws IndexOutOfBoundsException if coordinates are negative or outside cube.
+	 */
+	private void indexBoundException(int x, int y, int z) {
+		CubeSupport.checkPosition(x, y, z, cubeLength, cubeBreadth, cubeHeight);
+	}
+
+	/**
+	 * Private helper method, called by a writer (holding the monitor, not the write lock) once its change is made.
+	 * Checks the policy once every ADAPT_INTERVAL operations.
+	 */
+	private void writeDone() {
+		writesSinceCheck += 1;
+		if (writesSinceCheck + exactReads.sum() + rangeReads.sum() >= ADAPT_INTERVAL) {
+			adapt();
+		}
+	}
+
+	/**
+	 * Checks the occupancy and the query mix since the last check, and migrates to the representation that
+	 * fits them best (if that is not the current one). Called automatically as writes are made; may also be
+	 * called directly (eg. by a maintenance thread while the cube is only being read).
+	 * Run-time complexity: O(1) if no switch is needed, otherwise that of migrateTo
+	 */
+	public synchronized void adapt() {
+		// a read counted while the adders are reset may be missed, which only blurs the query mix
+		long exact = exactReads.sumThenReset();
+		long range = rangeReads.sumThenReset();
+		writesSinceCheck = 0;
+		Representation target = chooseRepresentation(getOccupancy(), exact, range);
+		if (target != representation) {
+			migrateTo(target);
+		}
+	}
+
+	/**
+	 * Private helper method, the policy: a grid once enough of a small cube is occupied, otherwise a hashed
+	 * tree while exact position reads dominate, otherwise a plain tree.
+	 * @param occupancy occupied positions / cells
+	 * @param exact exact position reads since the last check
+	 * @param range range queries since the last check
+	 * @return the representation to use
+	 */
+	private Representation chooseRepresentation(double occupancy, long exact, long range) {
+		if ((long) cubeLength * cubeBreadth * cubeHeight <= MAX_GRID_CELLS) {
+			double threshold = (representation == Representation.GRID) ? GRID_EXIT_OCCUPANCY : GRID_ENTER_OCCUPANCY;
+			if (occupancy >= threshold) {
+				return Representation.GRID;
+			}
+		}
+		if (exact + range == 0) {
+			// no reads to go on => keep the current tree, or leave the grid for a plain tree
+			return (representation == Representation.GRID) ? Representation.TREE : representation;
+		}
+		double exactShare = (double) exact / (exact + range);
+		double threshold = (representation == Representation.HASH) ? HASH_EXIT_EXACT_SHARE : HASH_ENTER_EXACT_SHARE;
+		return (exactShare >= threshold) ? Representation.HASH : Representation.TREE;
+	}
+
+	/**
+	 * Moves every plane into a new representation (planes at one position keep their order).
+	 * Writers wait until the switch is complete; readers are not blocked, reading the old representation
+	 * until the new one is published.
+	 * Run-time complexity: O(nlogn + p) to or between trees, O(v + p) to or from a grid (v = number of cells)
+	 * @param target the representation to move to
+	 * @throws IllegalArgumentException if target is GRID and the cube has too many cells for a grid.
+	 */
+	public synchronized void migrateTo(Representation target) throws IllegalArgumentException {
+		if ((target == Representation.GRID) && ((long) cubeLength * cubeBreadth * cubeHeight > MAX_GRID_CELLS)) {
+			throw new IllegalArgumentException();
+		}
+		long start = System.nanoTime();
+		// writers are held off by this object's monitor, so the old representation cannot change while it is read
+		PlaneCollector<T> planes = new PlaneCollector<T>();
+		backend.forEachInRange(0, 0, 0, cubeLength - 1, cubeBreadth - 1, cubeHeight - 1, planes);
+		planes.trim();
+		Cube<T> rebuilt;
+		if (target == Representation.GRID) {
+			rebuilt = new DenseGridCube<T>(cubeLength, cubeBreadth, cubeHeight);
+			rebuilt.addAll(planes.xs, planes.ys, planes.zs, planes.elements);
+		} else {
+			BoundedCube<T> tree = BoundedCube.bulkLoad(cubeLength, cubeBreadth, cubeHeight,
+					planes.xs, planes.ys, planes.zs, planes.elements);
+			if (target == Representation.HASH) {
+				tree.enableCellIndex();
+			}
+			rebuilt = tree;
+		}
+		backend = rebuilt;
+		representation = target;
+		long elapsed = System.nanoTime() - start;
+		switchCount += 1;
+		lastSwitchNanos = elapsed;
+		totalSwitchNanos += elapsed;
+		lastSwitchPlanes = planes.size;
+	}
+
+	/**
+	 * Adds an element to a specified position.
+	 * Run-time complexity: that of the current representation (plus an occasional migration)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param element plane to be added
+	 * @throws IndexOutOfBoundsException if coordinates are negative or outside cube.
+	 */
+	@Override
+	public synchronized void add(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		lock.writeLock().lock();
+		try {
+			backend.add(x, y, z, element);
+		} finally {
+			lock.writeLock().unlock();
+		}
+		writeDone();
+	}
+
+	/**
+	 * Adds a batch of elements, each at the matching position of the coordinate arrays, under one hold of
+	 * the write lock (readers see none or all of the batch).
+	 * Run-time complexity: that of addAll in the current representation
+	 * @param xs x coordinate of each element
+	 * @param ys y coordinate of each element
+	 * @param zs z coordinate of each element
+	 * @param elements planes to be added
+	 * @throws IndexOutOfBoundsException if any coordinates are negative or outside cube (nothing is added).
+	 * @throws IllegalArgumentException if the arrays differ in length.
+	 */
+	@Override
+	public synchronized void addAll(int[] xs, int[] ys, int[] zs, T[] elements)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		lock.writeLock().lock();
+		try {
+			backend.addAll(xs, ys, zs, elements);
+		} finally {
+			lock.writeLock().unlock();
+		}
+		writeDone();
+	}
+
+	/**
+	 * Gets the oldest element (plane) from specified position.
+	 * Run-time complexity: that of the current representation
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return oldest plane at the position, null if there are none
+	 * @throws IndexOutOfBoundsException if coordinates are out of cube bounds
+	 */
+	@Override
+	public T get(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		exactReads.increment();
+		lock.readLock().lock();
+		try {
+			return backend.get(x, y, z);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets all the elements at a specified position. The queue returned is a copy taken under the read lock
+	 * (the live queue cannot be handed out safely), so changing it does not change the cube.
+	 * Run-time complexity: that of the current representation, plus O(q)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return copy of the planes at the position, null if there are none
+	 * @throws IndexOutOfBoundsException if coordinates are out of cube bounds
+	 */
+	@Override
+	public IterableQueue<T> getAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		exactReads.increment();
+		lock.readLock().lock();
+		try {
+			IterableQueue<T> found = backend.getAll(x, y, z);
+			if ((found == null) || (found.size() == 0)) {
+				return null;
+			}
+			IterableQueue<T> copy = new TraversableQueue<T>();
+			Iterator<T> planeIterator = found.iterator();
+			for (int i = found.size(); i > 0; i--) {
+				copy.enqueue(planeIterator.next());
+			}
+			return copy;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Visits every plane at a specified position, oldest first, without copying the queue. The read lock is
+	 * held while visiting, so the visitor must not change this cube. Counts as an exact read.
+	 * Run-time complexity: that of the current representation, plus O(q)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param visitor called for each plane at the position
+	 * @throws IndexOutOfBoundsException if coordinates are out of cube bounds
+	 */
+	@Override
+	public void forEachAt(int x, int y, int z, CellVisitor<? super T> visitor) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		exactReads.increment();
+		lock.readLock().lock();
+		try {
+			backend.forEachAt(x, y, z, visitor);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Determines if there are multiple elements at a particular position.
+	 * Run-time complexity: that of the current representation
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return true if multiple elements at position, false if 0 or 1 elements at position
+	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 */
+	@Override
+	public boolean isMultipleElementsAt(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		exactReads.increment();
+		lock.readLock().lock();
+		try {
+			return backend.isMultipleElementsAt(x, y, z);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes element/plane from specified position in cube.
+	 * Run-time complexity: that of the current representation
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param element plane to be removed (matched by hash code)
+	 * @return true if removed correctly, false if not
+	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 */
+	@Override
+	public synchronized boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		boolean removed;
+		lock.writeLock().lock();
+		try {
+			removed = backend.remove(x, y, z, element);
+		} finally {
+			lock.writeLock().unlock();
+		}
+		writeDone();
+		return removed;
+	}
+
+	/**
+	 * Moves an element (plane) from one position to another under one hold of the write lock
+	 * (readers see the plane at exactly one of the positions).
+	 * Run-time complexity: that of the current representation
+	 * @param element plane to be moved (matched by hash code, as in remove)
+	 * @param fromX x coordinate of the old position
+	 * @param fromY y coordinate of the old position
+	 * @param fromZ z coordinate of the old position
+	 * @param toX x coordinate of the new position
+	 * @param toY y coordinate of the new position
+	 * @param toZ z coordinate of the new position
+	 * @return true if the plane was moved, false if it was not at the old position (nothing changes)
+	 * @throws IndexOutOfBoundsException if either position is outside cube.
+	 */
+	@Override
+	public synchronized boolean move(T element, int fromX, int fromY, int fromZ, int toX, int toY, int toZ)
+			throws IndexOutOfBoundsException {
+		indexBoundException(fromX, fromY, fromZ);
+		indexBoundException(toX, toY, toZ);
+		boolean moved;
+		lock.writeLock().lock();
+		try {
+			moved = backend.move(element, fromX, fromY, fromZ, toX, toY, toZ);
+		} finally {
+			lock.writeLock().unlock();
+		}
+		writeDone();
+		return moved;
+	}
+
+	/**
+	 * Removes all planes from a specified position in cube.
+	 * Run-time complexity: that of the current representation
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 */
+	@Override
+	public synchronized void removeAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		lock.writeLock().lock();
+		try {
+			backend.removeAll(x, y, z);
+		} finally {
+			lock.writeLock().unlock();
+		}
+		writeDone();
+	}
+
+	/**
+	 * Gets all the planes inside an axis aligned box (see forEachInRange).
+	 * Run-time complexity: that of the current representation
+	 * @param minX lowest x coordinate
+	 * @param minY lowest y coordinate
+	 * @param minZ lowest z coordinate
+	 * @param maxX highest x coordinate
+	 * @param maxY highest y coordinate
+	 * @param maxZ highest z coordinate
+	 * @return queue of every plane in the box, empty if there are none
+	 * @throws IndexOutOfBoundsException if either corner is outside cube.
+	 * @throws IllegalArgumentException if a minimum is greater than its maximum.
+	 */
+	@Override
+	public IterableQueue<T> getRange(int minX, int minY, int minZ, int maxX, int maxY, int maxZ)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		IterableQueue<T> found = new TraversableQueue<T>();
+		forEachInRange(minX, minY, minZ, maxX, maxY, maxZ, CubeSupport.enqueueInto(found));
+		return found;
+	}
+
+	/**
+	 * Visits every plane inside an axis aligned box along with its position. The read lock is held while
+	 * visiting, so the visitor sees one consistent state (and must not change this cube).
+	 * Run-time complexity: that of the current representation
+	 * @param minX lowest x coordinate
+	 * @param minY lowest y coordinate
+	 * @param minZ lowest z coordinate
+	 * @param maxX highest x coordinate
+	 * @param maxY highest y coordinate
+	 * @param maxZ highest z coordinate
+	 * @param visitor called for each plane in the box
+	 * @throws IndexOutOfBoundsException if either corner is outside cube.
+	 * @throws IllegalArgumentException if a minimum is greater than its maximum.
+	 */
+	@Override
+	public void forEachInRange(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, CellVisitor<? super T> visitor)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		rangeReads.increment();
+		lock.readLock().lock();
+		try {
+			backend.forEachInRange(minX, minY, minZ, maxX, maxY, maxZ, visitor);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Clears all the planes from the cube (the representation is kept until the next check).
+	 * Run-time complexity: that of the current representation
+	 */
+	@Override
+	public synchronized void clear() {
+		lock.writeLock().lock();
+		try {
+			backend.clear();
+		} finally {
+			lock.writeLock().unlock();
+		}
+		writeDone();
+	}
+
+	/**
+	 * Run-time complexity: O(1)
+	 * @return the representation currently holding the planes
+	 */
+	public Representation getRepresentation() {
+		return representation;
+	}
+
+	/**
+	 * Share of the cube's cells holding at least one plane.
+	 * Run-time complexity: O(1)
+	 * @return occupied positions / (length * breadth * height)
+	 */
+	public double getOccupancy() {
+		Cube<T> current = backend;
+		int positions;
+		if (current instanceof DenseGridCube) {
+			positions = ((DenseGridCube<T>) current).getNodeCount();
+		} else {
+			positions = ((BoundedCube<T>) current).getNodeCount();
+		}
+		return (double) positions / ((double) cubeLength * cubeBreadth * cubeHeight);
+	}
+
+	/**
+	 * Run-time complexity: O(1)
+	 * @return number of migrations between representations so far
+	 */
+	public int getSwitchCount() {
+		return switchCount;
+	}
+
+	/**
+	 * Run-time complexity: O(1)
+	 * @return time taken by the last migration in nanoseconds (0 if there has been none)
+	 */
+	public long getLastSwitchNanos() {
+		return lastSwitchNanos;
+	}
+
+	/**
+	 * Run-time complexity: O(1)
+	 * @return time taken by all migrations so far in nanoseconds
+	 */
+	public long getTotalSwitchNanos() {
+		return totalSwitchNanos;
+	}
+
+	/**
+	 * Run-time complexity: O(1)
+	 * @return number of planes moved by the last migration
+	 */
+	public int getLastSwitchPlanes() {
+		return lastSwitchPlanes;
+	}
+
+}
@@ -0,0 +1,1054 @@
+package comp3506.assn1.adts;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A bounded cube backed by the same 3D binary search tree (kd-tree) as BoundedCube, but with the tree
+ * nodes stored in parallel primitive arrays instead of one object per node.
+ * Node i is described by xs[i], ys[i], zs[i] (its position), lefts[i] and rights[i] (indices of its
+ * children, NIL if none), and tails[i] and sizes[i] (a handle to the planes at that position and how many
+ * there are). Deleted nodes are kept on a free list (linked through lefts) and reused by later adds.
+ *
+ * The planes of every position share one pooled element store: slot s holds a plane in slotElements[s] and
+ * the next slot of its position in slotNext[s]. Each position's slots form a circular list entered at its
+ * tail (so the oldest plane is slotNext[tail]); freed slots are kept on a free list linked through slotNext.
+ *
+ * Behaviour matches BoundedCube (same splitting rule, scapegoat rebalancing and deletion), so the two
+ * can be swapped behind the Cube interface. getAll hands out a live view of a position's slots (see 
+ * PositionQueue) in place of BoundedCube's queue object.
+ *
+ * Memory Efficiency: O(n) (NOTE: n = number of positions in the cube = number of tree nodes)
+ * 						   Each node costs seven ints, against an object header, two references, three 
+ * 						   ints and a queue object for a BoundedCube TreeNode. Each plane costs one 
+ * 						   reference and one int in the element store, against a queue node object.
+ *
+ * @author Peter Baldry
+ * @param <T> The type of element held in the data structure.
+ */
+public class ArrayBoundedCube<T> implements Cube<T> {
+	private static final int NIL = -1;
+	private static final int INITIAL_CAPACITY = 16;
+	private static final double BALANCE_ALPHA = 0.7;
+	private static final double LOG_INVERSE_ALPHA = Math.log(1 / BALANCE_ALPHA);
+
+	private int cubeLength;
+	private int cubeBreadth;
+	private int cubeHeight;
+
+	private int[] xs;
+	private int[] ys;
+	private int[] zs;
+	private int[] lefts;
+	private int[] rights;
+	private int[] tails;
+	private int[] sizes;
+	private int[] generations;
+	private int epoch;
+	private int rootNode = NIL;
+	private int freeNode = NIL;
+	private int usedNodes;
+
+	private Object[] slotElements;
+	private int[] slotNext;
+	private int freeSlot = NIL;
+	private int usedSlots;
+
+	private int nodeCount;
+	private int maxNodeCount;
+	private int rebuildCount;
+	private int[] insertPath = new int[32];
+
+	/**
+	 * ArrayBoundedCube Constructor
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @throws IllegalArgumentException if provided dimension sizes are not positive.
+	 */
+	public ArrayBoundedCube(int length, int breadth, int height) throws IllegalArgumentException {
+		if ((length <= 0) || (breadth <= 0) || (height <=0)) {
+			throw new IllegalArgumentException();
+		}
+		cubeLength = length;
+		cubeBreadth = breadth;
+		cubeHeight = height;
+		allocateArrays(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Private helper method, (re)creates empty node arrays and an empty element store.
+	 * @param capacity number of nodes (and planes) the arrays can hold
+	 */
+	private void allocateArrays(int capacity) {
+		xs = new int[capacity];
+		ys = new int[capacity];
+		zs = new int[capacity];
+		lefts = new int[capacity];
+		rights = new int[capacity];
+		tails = new int[capacity];
+		sizes = new int[capacity];
+		generations = new int[capacity];
+		slotElements = new Object[capacity];
+		slotNext = new int[capacity];
+	}
+
+	/**
+	 * Private helper method, takes a node from the free list (or the end of the arrays, growing them if full).
+	 * Run-time complexity: amortised O(1)
+	 * @param x x coordinate of the node
+	 * @param y y coordinate of the node
+	 * @param z z coordinate of the node
+	 * @return index of the new node
+	 */
+	private int newNode(int x, int y, int z) {
+		int node;
+		if (freeNode != NIL) {
+			node = freeNode;
+			freeNode = lefts[node];
+		} else {
+			if (usedNodes == xs.length) {
+				int capacity = xs.length * 2;
+				xs = Arrays.copyOf(xs, capacity);
+				ys = Arrays.copyOf(ys, capacity);
+				zs = Arrays.copyOf(zs, capacity);
+				lefts = Arrays.copyOf(lefts, capacity);
+				rights = Arrays.copyOf(rights, capacity);
+				tails = Arrays.copyOf(tails, capacity);
+				sizes = Arrays.copyOf(sizes, capacity);
+				generations = Arrays.copyOf(generations, capacity);
+			}
+			node = usedNodes++;
+		}
+		xs[node] = x;
+		ys[node] = y;
+		zs[node] = z;
+		lefts[node] = NIL;
+		rights[node] = NIL;
+		tails[node] = NIL;
+		sizes[node] = 0;
+		return node;
+	}
+
+	/**
+	 * Private helper method, returns a node (and any planes it still holds) to the free lists.
+	 * Run-time complexity: O(q)
+	 * @param node index of the node
+	 */
+	private void freeNode(int node) {
+		releaseQueue(node);
+		// views of the position handed out by getAll are now stale
+		generations[node] += 1;
+		rights[node] = NIL;
+		lefts[node] = freeNode;
+		freeNode = node;
+	}
+
+	/**
+	 * Private helper method, adds a plane to the back of a node's queue, taking a slot from the free list 
+	 * (or the end of the element store, growing it if full).
+	 * Run-time complexity: amortised O(1)
+	 * @param node index of the node
+	 * @param element plane to be added
+	 */
+	private void enqueue(int node, T element) {
+		int slot;
+		if (freeSlot != NIL) {
+			slot = freeSlot;
+			freeSlot = slotNext[slot];
+		} else {
+			if (usedSlots == slotElements.length) {
+				int capacity = slotElements.length * 2;
+				slotElements = Arrays.copyOf(slotElements, capacity);
+				slotNext = Arrays.copyOf(slotNext, capacity);
+			}
+			slot = usedSlots++;
+		}
+		slotElements[slot] = element;
+		int tail = tails[node];
+		if (tail == NIL) {
+			slotNext[slot] = slot;
+		} else {
+			slotNext[slot] = slotNext[tail];
+			slotNext[tail] = slot;
+		}
+		tails[node] = slot;
+		sizes[node] += 1;
+	}
+
+	/**
+	 * Private helper method, the oldest plane held at a node.
+	 * @param node index of the node (holding at least one plane)
+	 * @return the plane at the front of the node's queue
+	 */
+	@SuppressWarnings("unchecked")
+	private T peek(int node) {
+		return (T) slotElements[slotNext[tails[node]]];
+	}
+
+	/**
+	 * Private helper method, removes the oldest plane at a node with the same hash code as element.
+	 * Run-time complexity: O(q)
+	 * @param node index of the node
+	 * @param element plane to be removed
+	 * @return true if a plane was removed
+	 */
+	private boolean removeFromQueue(int node, T element) {
+		int tail = tails[node];
+		int previous = tail;
+		for (int i = sizes[node]; i > 0; i--) {
+			int slot = slotNext[previous];
+			if (slotElements[slot].hashCode() == element.hashCode()) {
+				if (sizes[node] == 1) {
+					tails[node] = NIL;
+				} else {
+					slotNext[previous] = slotNext[slot];
+					if (slot == tail) {
+						tails[node] = previous;
+					}
+				}
+				sizes[node] -= 1;
+				freeSlot(slot);
+				return true;
+			}
+			previous = slot;
+		}
+		return false;
+	}
+
+	/**
+	 * Private helper method, empties a node's queue, returning its slots to the free list.
+	 * Run-time complexity: O(q)
+	 * @param node index of the node
+	 */
+	private void releaseQueue(int node) {
+		int slot = tails[node];
+		for (int i = sizes[node]; i > 0; i--) {
+			int next = slotNext[slot];
+			freeSlot(slot);
+			slot = next;
+		}
+		tails[node] = NIL;
+		sizes[node] = 0;
+	}
+
+	/**
+	 * Private helper method, returns a slot of the element store to the free list.
+	 * @param slot index of the slot
+	 */
+	private void freeSlot(int slot) {
+		slotElements[slot] = null;
+		slotNext[slot] = freeSlot;
+		freeSlot = slot;
+	}
+
+	/**
+	 * Private helper method, visits every plane at a node, oldest first.
+	 * Run-time complexity: O(q)
+	 * @param node index of the node
+	 * @param visitor called for each plane
+	 */
+	@SuppressWarnings("unchecked")
+	private void visitQueue(int node, CellVisitor<? super T> visitor) {
+		int x = xs[node];
+		int y = ys[node];
+		int z = zs[node];
+		int slot = (tails[node] == NIL) ? NIL : slotNext[tails[node]];
+		for (int i = sizes[node]; i > 0; i--) {
+			int next = slotNext[slot];
+			visitor.visit(x, y, z, (T) slotElements[slot]);
+			slot = next;
+		}
+	}
+
+	/**
+	 * Private helper method for getting the value to be compared at each node (x, then y, then z, repeating).
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param depth the depth of the tree
+	 * @return value to be compared at that depth.
+	 */
+	private int getSplittingValueByDepth(int x, int y, int z, int depth) {
+		int level = depth % 3;
+		if (level == 0) return x;
+		else if (level == 1) return y;
+		else return z;
+	}
+
+	/**
+	 * Private helper method, splitting value of a node at a depth.
+	 * @param node index of the node
+	 * @param depth the depth
+	 * @return the node's coordinate on the splitting axis of the depth
+	 */
+	private int splittingValue(int node, int depth) {
+		return getSplittingValueByDepth(xs[node], ys[node], zs[node], depth);
+	}
+
+	/**
+	 * Private helper method, determines if valid input coordinates
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @throws IndexOutOfBoundsException if coordinates are negative or outside cube.
+	 */
+	private void indexBoundException(int x, int y, int z) {
+		CubeSupport.checkPosition(x, y, z, cubeLength, cubeBreadth, cubeHeight);
+	}
+
+	/**
+	 * Private helper method, finds the node at a position.
+	 * Run-time complexity: O(logn)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return index of the node at the position, NIL if there is none
+	 */
+	private int findNode(int x, int y, int z) {
+		int node = rootNode;
+		int depth = 0;
+		while (node != NIL) {
+			if ((xs[node] == x) && (ys[node] == y) && (zs[node] == z)) {
+				return node;
+			}
+			if (getSplittingValueByDepth(x, y, z, depth) <= splittingValue(node, depth)) {
+				node = lefts[node];
+			} else {
+				node = rights[node];
+			}
+			depth += 1;
+		}
+		return NIL;
+	}
+
+	/**
+	 * Adds an element to a specified position.
+	 * Run-time complexity: amortised O(logn) (the tree is kept alpha weight balanced, see BoundedCube)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param element plane to be added
+	 * @throws IndexOutOfBoundsException if coordinates are negative or outside cube.
+	 */
+	@Override
+	public void add(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		if (rootNode == NIL) {
+			rootNode = newNode(x, y, z);
+			enqueue(rootNode, element);
+			nodeCount = 1;
+			maxNodeCount = Math.max(maxNodeCount, 1);
+			return;
+		}
+		int node = rootNode;
+		int depth = 0;
+		while (true) {
+			if ((xs[node] == x) && (ys[node] == y) && (zs[node] == z)) {
+				enqueue(node, element);
+				return;
+			}
+			recordPath(node, depth);
+			boolean goLeft = getSplittingValueByDepth(x, y, z, depth) <= splittingValue(node, depth);
+			int child = goLeft ? lefts[node] : rights[node];
+			if (child == NIL) {
+				child = newNode(x, y, z);
+				enqueue(child, element);
+				if (goLeft) {
+					lefts[node] = child;
+				} else {
+					rights[node] = child;
+				}
+				nodeAdded(child, depth + 1);
+				return;
+			}
+			node = child;
+			depth += 1;
+		}
+	}
+
+	/**
+	 * Adds a batch of elements, each at the matching position of the coordinate arrays.
+	 * Every position is checked before anything is added. Elements sharing a position keep their batch order.
+	 * Run-time complexity: amortised O(blogn), b = batch size
+	 * @param xs x coordinate of each element
+	 * @param ys y coordinate of each element
+	 * @param zs z coordinate of each element
+	 * @param elements planes to be added
+	 * @throws IndexOutOfBoundsException if any coordinates are negative or outside cube (nothing is added).
+	 * @throws IllegalArgumentException if the arrays differ in length.
+	 */
+	@Override
+	public void addAll(int[] xs, int[] ys, int[] zs, T[] elements) 
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		CubeSupport.addEach(this, xs, ys, zs, elements, cubeLength, cubeBreadth, cubeHeight);
+	}
+
+	/**
+	 * Private helper method, remembers the node visited at a depth while inserting.
+	 * @param node index of the node visited
+	 * @param depth depth of the node
+	 */
+	private void recordPath(int node, int depth) {
+		if (depth >= insertPath.length) {
+			insertPath = Arrays.copyOf(insertPath, insertPath.length * 2);
+		}
+		insertPath[depth] = node;
+	}
+
+	/**
+	 * Private helper method, called once a new node has been linked into the tree.
+	 * Rebuilds the lowest alpha unbalanced ancestor if the new node is too deep.
+	 * Run-time complexity: O(1) when the depth bound holds, otherwise O(m) for a scapegoat subtree of m nodes
+	 * @param newNode index of the node that was added
+	 * @param depth depth of the new node
+	 */
+	private void nodeAdded(int newNode, int depth) {
+		nodeCount += 1;
+		maxNodeCount = Math.max(maxNodeCount, nodeCount);
+		if (depth <= Math.floor(Math.log(nodeCount) / LOG_INVERSE_ALPHA)) {
+			return;
+		}
+		int child = newNode;
+		int childSize = 1;
+		for (int i = depth - 1; i >= 0; i--) {
+			int parent = insertPath[i];
+			int sibling = (lefts[parent] == child) ? rights[parent] : lefts[parent];
+			int parentSize = 1 + childSize + subtreeSize(sibling);
+			if (childSize > BALANCE_ALPHA * parentSize) {
+				int rebuilt = rebuildSubtree(parent, i);
+				if (i == 0) {
+					rootNode = rebuilt;
+				} else if (lefts[insertPath[i - 1]] == parent) {
+					lefts[insertPath[i - 1]] = rebuilt;
+				} else {
+					rights[insertPath[i - 1]] = rebuilt;
+				}
+				return;
+			}
+			child = parent;
+			childSize = parentSize;
+		}
+	}
+
+	/**
+	 * Private helper method, counts the nodes in a subtree.
+	 * Run-time complexity: O(m), m = number of nodes in the subtree
+	 * @param node index of the subtree root
+	 * @return number of nodes in the subtree
+	 */
+	private int subtreeSize(int node) {
+		if (node == NIL) {
+			return 0;
+		}
+		return 1 + subtreeSize(lefts[node]) + subtreeSize(rights[node]);
+	}
+
+	/**
+	 * Private helper method, copies the index of every node of a subtree into an array.
+	 * @param node index of the subtree root
+	 * @param nodes array to fill
+	 * @param index next free slot in the array
+	 * @return next free slot after the subtree has been copied
+	 */
+	private int collectSubtree(int node, int[] nodes, int index) {
+		if (node == NIL) {
+			return index;
+		}
+		nodes[index] = node;
+		index = collectSubtree(lefts[node], nodes, index + 1);
+		return collectSubtree(rights[node], nodes, index);
+	}
+
+	/**
+	 * Private helper method, rebuilds a subtree balanced around the coordinate median,
+	 * freeing any positions whose queues have been emptied.
+	 * Run-time complexity: O(mlogm), m = number of nodes in the subtree
+	 * @param node index of the subtree root
+	 * @param depth depth of the subtree root
+	 * @return index of the rebuilt subtree's root (NIL if every position was empty)
+	 */
+	private int rebuildSubtree(int node, int depth) {
+		int[] nodes = new int[subtreeSize(node)];
+		collectSubtree(node, nodes, 0);
+		int occupied = 0;
+		for (int i = 0; i < nodes.length; i++) {
+			if (sizes[nodes[i]] > 0) {
+				nodes[occupied++] = nodes[i];
+			} else {
+				freeNode(nodes[i]);
+			}
+		}
+		nodeCount -= nodes.length - occupied;
+		rebuildCount += 1;
+		return buildBalanced(nodes, 0, occupied - 1, depth);
+	}
+
+	/**
+	 * Private helper method, links nodes[lo..hi] into a balanced kd-tree starting at the given depth.
+	 * Run-time complexity: O(mlogm) (expected), m = hi - lo + 1
+	 * @param nodes node indices (reordered in place)
+	 * @param lo lowest index (inclusive)
+	 * @param hi highest index (inclusive)
+	 * @param depth depth of the subtree root
+	 * @return index of the subtree root, NIL if lo > hi
+	 */
+	private int buildBalanced(int[] nodes, int lo, int hi, int depth) {
+		if (lo > hi) {
+			return NIL;
+		}
+		int split = selectSplit(nodes, lo, hi, depth);
+		int node = nodes[split];
+		lefts[node] = buildBalanced(nodes, lo, split - 1, depth + 1);
+		rights[node] = buildBalanced(nodes, split + 1, hi, depth + 1);
+		return node;
+	}
+
+	/**
+	 * Private helper method, three way quickselect of the median on the splitting axis of the depth.
+	 * Every node before the returned index has a smaller or equal value, every node after it a greater one.
+	 * Run-time complexity: O(m) (expected), m = hi - lo + 1
+	 * @param nodes node indices to order
+	 * @param lo lowest index (inclusive)
+	 * @param hi highest index (inclusive)
+	 * @param depth depth deciding the splitting axis
+	 * @return index (into nodes) of the splitting node
+	 */
+	private int selectSplit(int[] nodes, int lo, int hi, int depth) {
+		int median = (lo + hi) >>> 1;
+		while (lo < hi) {
+			int pivot = splittingValue(nodes[(lo + hi) >>> 1], depth);
+			int lessThan = lo;
+			int greaterThan = hi;
+			int i = lo;
+			while (i <= greaterThan) {
+				int value = splittingValue(nodes[i], depth);
+				if (value < pivot) {
+					swap(nodes, lessThan++, i++);
+				} else if (value > pivot) {
+					swap(nodes, i, greaterThan--);
+				} else {
+					i++;
+				}
+			}
+			if (median < lessThan) {
+				hi = lessThan - 1;
+			} else if (median > greaterThan) {
+				lo = greaterThan + 1;
+			} else {
+				return greaterThan;
+			}
+		}
+		return median;
+	}
+
+	/**
+	 * Private helper method, swaps two entries of an int array.
+	 * @param nodes the array
+	 * @param i first index
+	 * @param j second index
+	 */
+	private void swap(int[] nodes, int i, int j) {
+		int temp = nodes[i];
+		nodes[i] = nodes[j];
+		nodes[j] = temp;
+	}
+
+	/**
+	 * Gets the oldest element (plane) from specified position.
+	 * Run-time complexity: O(logn)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return oldest plane at the position, null if there are none
+	 * @throws IndexOutOfBoundsException if coordinates are out of cube bounds
+	 */
+	@Override
+	public T get(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		int node = findNode(x, y, z);
+		if ((node == NIL) || (sizes[node] == 0)) {
+			return null;
+		}
+		return peek(node);
+	}
+
+	/**
+	 * Gets all the elements (in the form of an iterablequeue) at a specified position.
+	 * As with BoundedCube the queue is live: it reads and writes the position's slots in the element store, 
+	 * so planes added or removed through the cube show up in it and planes enqueued or dequeued through it 
+	 * change the cube. Once the position is deleted the view is empty (see PositionQueue).
+	 * Run-time complexity: O(logn)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return a live view of the planes at the position, null if the position is not in the tree
+	 * @throws IndexOutOfBoundsException if coordinates are out of cube bounds
+	 */
+	@Override
+	public IterableQueue<T> getAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		int node = findNode(x, y, z);
+		if (node == NIL) {
+			return null;
+		}
+		return new PositionQueue(node);
+	}
+	
+	/**
+	 * Private inner class, the live queue of one position returned by getAll. It holds no planes itself, only the 
+	 * node index along with the node's generation and the cube's epoch when it was created: freeing the node 
+	 * bumps its generation and clear bumps the epoch, so a view of a deleted position can never read a reused node.
+	 * @author Peter Baldry
+	 */
+	private class PositionQueue implements IterableQueue<T> {
+		private final int node;
+		private final int generation;
+		private final int createdEpoch;
+		
+		/**
+		 * PositionQueue constructor
+		 * @param node index of a node in the tree
+		 */
+		public PositionQueue(int node) {
+			this.node = node;
+			this.generation = generations[node];
+			this.createdEpoch = epoch;
+		}
+		
+		/**
+		 * Run-time complexity: O(1)
+		 * @return true if the position is still in the tree
+		 */
+		private boolean isLive() {
+			return (createdEpoch == epoch) && (generations[node] == generation);
+		}
+		
+		/**
+		 * Adds a plane to the back of the position's queue.
+		 * Run-time complexity: amortised O(1)
+		 * @param element plane to be added
+		 * @throws IllegalStateException if the position has since been deleted from the cube.
+		 */
+		@Override
+		public void enqueue(T element) throws IllegalStateException {
+			if (!isLive()) {
+				throw new IllegalStateException();
+			}
+			ArrayBoundedCube.this.enqueue(node, element);
+		}
+		
+		/**
+		 * Removes the oldest plane at the position (the position stays in the tree, as in BoundedCube).
+		 * Run-time complexity: O(1)
+		 * @return the oldest plane
+		 * @throws IndexOutOfBoundsException if there are no planes at the position.
+		 */
+		@Override
+		public T dequeue() throws IndexOutOfBoundsException {
+			if (size() == 0) {
+				throw new IndexOutOfBoundsException();
+			}
+			T element = peek(node);
+			int tail = tails[node];
+			int head = slotNext[tail];
+			if (head == tail) {
+				tails[node] = NIL;
+			} else {
+				slotNext[tail] = slotNext[head];
+			}
+			sizes[node] -= 1;
+			freeSlot(head);
+			return element;
+		}
+		
+		/**
+		 * Run-time complexity: O(1)
+		 * @return number of planes at the position, 0 once it has been deleted
+		 */
+		@Override
+		public int size() {
+			return isLive() ? sizes[node] : 0;
+		}
+		
+		/**
+		 * Iterates over the planes at the position, oldest first. The cube must not be changed during iteration.
+		 * Run-time complexity: O(1)
+		 * @return an iterator over the planes
+		 */
+		@Override
+		public Iterator<T> iterator() {
+			final int count = size();
+			return new Iterator<T>() {
+				private int slot = (count == 0) ? NIL : slotNext[tails[node]];
+				private int remaining = count;
+				
+				@Override
+				public boolean hasNext() {
+					return remaining > 0;
+				}
+				
+				@Override
+				@SuppressWarnings("unchecked")
+				public T next() {
+					if (remaining == 0) {
+						throw new NoSuchElementException();
+					}
+					T element = (T) slotElements[slot];
+					slot = slotNext[slot];
+					remaining -= 1;
+					return element;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Visits every plane at a specified position, oldest first. Nothing is allocated.
+	 * Run-time complexity: O(logn + q)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param visitor called for each plane at the position
+	 * @throws IndexOutOfBoundsException if coordinates are out of cube bounds
+	 */
+	@Override
+	public void forEachAt(int x, int y, int z, CellVisitor<? super T> visitor) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		int node = findNode(x, y, z);
+		if (node != NIL) {
+			visitQueue(node, visitor);
+		}
+	}
+
+	/**
+	 * Determines if there are multiple elements at a particular position.
+	 * Run-time complexity: O(logn)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return true if multiple elements at position, false if 0 or 1 elements at position
+	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 */
+	@Override
+	public boolean isMultipleElementsAt(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		int node = findNode(x, y, z);
+		return (node != NIL) && (sizes[node] > 1);
+	}
+
+	/**
+	 * Removes element/plane from specified position in cube, deleting the position once it is empty.
+	 * Run-time complexity: O(logn + q)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param element plane to be removed
+	 * @return true if removed correctly, false if not
+	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 */
+	@Override
+	public boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		int node = findNode(x, y, z);
+		if ((node == NIL) || !removeFromQueue(node, element)) {
+			return false;
+		}
+		if (sizes[node] == 0) {
+			deleteNode(node);
+		}
+		return true;
+	}
+
+	/**
+	 * Moves an element (plane) from one position to another, as remove followed by add in one call.
+	 * Run-time complexity: amortised O(logn + q)
+	 * @param element plane to be moved (matched by hash code, as in remove)
+	 * @param fromX x coordinate of the old position
+	 * @param fromY y coordinate of the old position
+	 * @param fromZ z coordinate of the old position
+	 * @param toX x coordinate of the new position
+	 * @param toY y coordinate of the new position
+	 * @param toZ z coordinate of the new position
+	 * @return true if the plane was moved, false if it was not at the old position (nothing changes)
+	 * @throws IndexOutOfBoundsException if either position is outside cube.
+	 */
+	@Override
+	public boolean move(T element, int fromX, int fromY, int fromZ, int toX, int toY, int toZ) 
+			throws IndexOutOfBoundsException {
+		indexBoundException(fromX, fromY, fromZ);
+		indexBoundException(toX, toY, toZ);
+		if (!remove(fromX, fromY, fromZ, element)) {
+			return false;
+		}
+		add(toX, toY, toZ, element);
+		return true;
+	}
+
+	/**
+	 * Removes all planes from a specified position in cube, and the position itself.
+	 * Run-time complexity: O(logn + q)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 */
+	@Override
+	public void removeAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		int node = findNode(x, y, z);
+		if (node == NIL) {
+			return;
+		}
+		releaseQueue(node);
+		deleteNode(node);
+	}
+
+	/**
+	 * Private helper method, physically deletes an empty position and frees its slot.
+	 * Run-time complexity: amortised O(logn)
+	 * @param node index of the node to delete
+	 */
+	private void deleteNode(int node) {
+		rootNode = unlink(rootNode, node, 0);
+		freeNode(node);
+		nodeCount -= 1;
+		if (nodeCount < BALANCE_ALPHA * maxNodeCount) {
+			compact();
+		}
+	}
+
+	/**
+	 * Private helper method, unlinks a node from a subtree (kd-tree deletion).
+	 * Run-time complexity: O(logn)
+	 * @param subtree index of the subtree root
+	 * @param target index of the node to unlink
+	 * @param depth depth of the subtree root
+	 * @return index of the subtree root once the node has been unlinked
+	 */
+	private int unlink(int subtree, int target, int depth) {
+		if (subtree == target) {
+			return replaceRoot(subtree, depth);
+		}
+		if (splittingValue(target, depth) <= splittingValue(subtree, depth)) {
+			lefts[subtree] = unlink(lefts[subtree], target, depth + 1);
+		} else {
+			rights[subtree] = unlink(rights[subtree], target, depth + 1);
+		}
+		return subtree;
+	}
+
+	/**
+	 * Private helper method, replaces a subtree root with the largest node on its splitting axis
+	 * from the left subtree (moving a lone right subtree to the left first).
+	 * Run-time complexity: O(logn)
+	 * @param node index of the subtree root to remove
+	 * @param depth depth of the node
+	 * @return index of the replacement node, NIL if the node was a leaf
+	 */
+	private int replaceRoot(int node, int depth) {
+		if ((lefts[node] == NIL) && (rights[node] == NIL)) {
+			return NIL;
+		}
+		if (lefts[node] == NIL) {
+			lefts[node] = rights[node];
+			rights[node] = NIL;
+		}
+		int replacement = maxOnAxis(lefts[node], depth + 1, depth);
+		int left = unlink(lefts[node], replacement, depth + 1);
+		lefts[replacement] = left;
+		rights[replacement] = rights[node];
+		return replacement;
+	}
+
+	/**
+	 * Private helper method, finds the node with the largest value on the splitting axis of axisDepth.
+	 * @param node index of the subtree root
+	 * @param depth depth of the node
+	 * @param axisDepth depth whose splitting axis is being compared
+	 * @return index of the node with the largest value on the axis, NIL for an empty subtree
+	 */
+	private int maxOnAxis(int node, int depth, int axisDepth) {
+		if (node == NIL) {
+			return NIL;
+		}
+		if ((depth % 3) == (axisDepth % 3)) {
+			if (rights[node] == NIL) {
+				return node;
+			}
+			return maxOnAxis(rights[node], depth + 1, axisDepth);
+		}
+		int best = node;
+		int leftBest = maxOnAxis(lefts[node], depth + 1, axisDepth);
+		int rightBest = maxOnAxis(rights[node], depth + 1, axisDepth);
+		if ((leftBest != NIL) && (splittingValue(leftBest, axisDepth) > splittingValue(best, axisDepth))) {
+			best = leftBest;
+		}
+		if ((rightBest != NIL) && (splittingValue(rightBest, axisDepth) > splittingValue(best, axisDepth))) {
+			best = rightBest;
+		}
+		return best;
+	}
+
+	/**
+	 * Gets all the planes inside an axis aligned box (see forEachInRange).
+	 * Run-time complexity: O(n^(2/3) + k) for a balanced tree, k = number of positions in the box
+	 * @param minX lowest x coordinate
+	 * @param minY lowest y coordinate
+	 * @param minZ lowest z coordinate
+	 * @param maxX highest x coordinate
+	 * @param maxY highest y coordinate
+	 * @param maxZ highest z coordinate
+	 * @return queue of every plane in the box, empty if there are none
+	 * @throws IndexOutOfBoundsException if either corner is outside cube.
+	 * @throws IllegalArgumentException if a minimum is greater than its maximum.
+	 */
+	@Override
+	public IterableQueue<T> getRange(int minX, int minY, int minZ, int maxX, int maxY, int maxZ)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		IterableQueue<T> found = new TraversableQueue<T>();
+		forEachInRange(minX, minY, minZ, maxX, maxY, maxZ, CubeSupport.enqueueInto(found));
+		return found;
+	}
+
+	/**
+	 * Visits every plane inside an axis aligned box along with its position.
+	 * Run-time complexity: O(n^(2/3) + k) for a balanced tree, k = number of positions in the box
+	 * @param minX lowest x coordinate
+	 * @param minY lowest y coordinate
+	 * @param minZ lowest z coordinate
+	 * @param maxX highest x coordinate
+	 * @param maxY highest y coordinate
+	 * @param maxZ highest z coordinate
+	 * @param visitor called for each plane in the box
+	 * @throws IndexOutOfBoundsException if either corner is outside cube.
+	 * @throws IllegalArgumentException if a minimum is greater than its maximum.
+	 */
+	@Override
+	public void forEachInRange(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, CellVisitor<? super T> visitor)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		indexBoundException(minX, minY, minZ);
+		indexBoundException(maxX, maxY, maxZ);
+		if ((minX > maxX) || (minY > maxY) || (minZ > maxZ)) {
+			throw new IllegalArgumentException();
+		}
+		rangeSearch(rootNode, 0, minX, minY, minZ, maxX, maxY, maxZ, visitor);
+	}
+
+	/**
+	 * Private helper method, visits every plane in a box below (and including) a node.
+	 * @param node index of the subtree root
+	 * @param depth depth of the node
+	 * @param minX lowest x coordinate
+	 * @param minY lowest y coordinate
+	 * @param minZ lowest z coordinate
+	 * @param maxX highest x coordinate
+	 * @param maxY highest y coordinate
+	 * @param maxZ highest z coordinate
+	 * @param visitor called for each plane in the box
+	 */
+	private void rangeSearch(int node, int depth, int minX, int minY, int minZ,
+			int maxX, int maxY, int maxZ, CellVisitor<? super T> visitor) {
+		while (node != NIL) {
+			int x = xs[node];
+			int y = ys[node];
+			int z = zs[node];
+			if ((x >= minX) && (x <= maxX) && (y >= minY) && (y <= maxY) && (z >= minZ) && (z <= maxZ)) {
+				visitQueue(node, visitor);
+			}
+			int treeNodeCompareValue = getSplittingValueByDepth(x, y, z, depth);
+			boolean searchLeft = getSplittingValueByDepth(minX, minY, minZ, depth) <= treeNodeCompareValue;
+			boolean searchRight = getSplittingValueByDepth(maxX, maxY, maxZ, depth) > treeNodeCompareValue;
+			depth += 1;
+			if (searchLeft && searchRight) {
+				rangeSearch(lefts[node], depth, minX, minY, minZ, maxX, maxY, maxZ, visitor);
+				node = rights[node];
+			} else if (searchLeft) {
+				node = lefts[node];
+			} else {
+				node = rights[node];
+			}
+		}
+	}
+
+	/**
+	 * Clears all the planes from the cube, releasing the node arrays.
+	 * Run-time complexity: O(1)
+	 */
+	@Override
+	public void clear() {
+		allocateArrays(INITIAL_CAPACITY);
+		epoch += 1;
+		rootNode = NIL;
+		freeNode = NIL;
+		usedNodes = 0;
+		freeSlot = NIL;
+		usedSlots = 0;
+		nodeCount = 0;
+		maxNodeCount = 0;
+	}
+
+	/**
+	 * Removes every empty position and rebuilds the remaining positions into a balanced tree.
+	 * Run-time complexity: O(nlogn)
+	 * @return number of empty positions removed
+	 */
+	public int compact() {
+		int before = nodeCount;
+		if (rootNode != NIL) {
+			rootNode = rebuildSubtree(rootNode, 0);
+		}
+		maxNodeCount = nodeCount;
+		return before - nodeCount;
+	}
+
+	/**
+	 * Number of positions (tree nodes) currently held in the tree.
+	 * Run-time complexity: O(1)
+	 * @return number of tree nodes
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Number of node slots allocated in the arrays (in use or on the free list).
+	 * Run-time complexity: O(1)
+	 * @return capacity of the node arrays
+	 */
+	public int getNodeCapacity() {
+		return xs.length;
+	}
+
+	/**
+	 * Number of partial (scapegoat) rebuilds and compactions performed.
+	 * Run-time complexity: O(1)
+	 * @return number of subtree rebuilds
+	 */
+	public int getRebuildCount() {
+		return rebuildCount;
+	}
+
+	/**
+	 * Depth of the deepest node in the tree (the root is depth 0, an empty tree is -1).
+	 * Run-time complexity: O(n)
+	 * @return current maximum depth of the tree
+	 */
+	public int getMaxDepth() {
+		return maxDepth(rootNode);
+	}
+
+	/**
+	 * Private helper method, height of a subtree.
+	 * @param node index of the subtree root
+	 * @return height of the subtree, -1 for an empty subtree
+	 */
+	private int maxDepth(int node) {
+		if (node == NIL) {
+			return -1;
+		}
+		return 1 + Math.max(maxDepth(lefts[node]), maxDepth(rights[node]));
+	}
+
+}
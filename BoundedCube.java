@@ -1,6 +1,25 @@
 package comp3506.assn1.adts;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import comp3506.assn1.adts.CubeMetrics.Operation;
 
 /**
  * A three-dimensional data structure that holds items in a positional relationship to each other.
@@ -17,28 +36,78 @@ import java.util.Iterator;
  * 		p = number of planes
  * 		q = number of planes in one position
  * 	
+ * BoundedCube is not thread safe (no traversal state is shared between calls, but adds and removes relink 
+ * nodes without synchronization). Use ConcurrentBoundedCube when threads share a cube.
  * 
  * @author Peter Baldry
  * @param <T> The type of element held in the data structure.
  */
 public class BoundedCube<T> implements Cube<T> {
-	private TreeNode currentNode;
 	private TreeNode rootNode;
 	private int cubeLength;
 	private int cubeBreadth;
 	private int cubeHeight;
-
+	private int nodeCount;
+	private int maxNodeCount;
+	private int rebuildCount;
+	private long rebuiltNodes;
+	private TreeNode[] insertPath = newNodeArray(32);
+	private CellIndex cellIndex;
+	private ElementIndex elementIndex;
+	private NeighbourHeap spareHeap;
+	private CubeMetrics metrics;
+	private int traversedNodes;
+	private long[] operationStarts;
+	private int[] enclosingNodes;
+	private int operationDepth;
+	
+	/* a subtree is 'alpha weight balanced' if neither child holds more than BALANCE_ALPHA of its nodes.
+	 * Insertions deeper than log(n) base (1/BALANCE_ALPHA) trigger a partial rebuild (scapegoat tree).
+	 */
+	private static final double BALANCE_ALPHA = 0.7;
+	private static final double LOG_INVERSE_ALPHA = Math.log(1 / BALANCE_ALPHA);
+	
+	/* positions are interleaved into one Morton (Z-order) key: bit 3i is bit i of x, bit 3i+1 of y and bit 3i+2 of z.
+	 * Masking two keys down to one axis's bits compares them on that axis, so traversals never need to branch on the axis.
+	 */
+	private static final int MORTON_BITS = 21;
+	private static final long X_MASK = 0x1249249249249249L;
+	private static final long Y_MASK = X_MASK << 1;
+	private static final long Z_MASK = X_MASK << 2;
+	private static final long[] AXIS_MASKS = {X_MASK, Y_MASK, Z_MASK};
+	
+	/* parallel queries stop forking once a subtree holds about this many nodes */
+	private static final int PARALLEL_THRESHOLD = 8192;
+	
+	/* a batch of at least this fraction of the tree's positions may be merged into the tree by addAll, 
+	 * rebuilding it balanced, instead of being inserted one plane at a time */
+	private static final double MERGE_BATCH_FRACTION = 0.25;
+	
+	/* nearest keeps its heap for the next query unless it was sized for more than this many positions */
+	private static final int MAX_SPARE_HEAP = 1024;
+	
+	/* snapshots start with a tag ("BCUB") and format version; each position is written as its child flags, its 
+	 * coordinates packed 21 bits each into one long, and its queue length followed by the encoded planes.
+	 */
+	private static final int SNAPSHOT_MAGIC = 0x42435542;
+	private static final int SNAPSHOT_VERSION = 1;
+	private static final int SNAPSHOT_BUFFER = 1 << 16;
+	private static final int HAS_LEFT = 1;
+	private static final int HAS_RIGHT = 2;
+	private static final long COORDINATE_MASK = (1L << MORTON_BITS) - 1;
+	
 	/**
 	 * Private inner class representing a node on a tree
 	 *  @author Peter Baldry
 	 */
-	private class TreeNode {
+	private class TreeNode implements CubeCell<T> {
 		TreeNode leftNode;
 		TreeNode rightNode;
 		int x;
 		int y;
 		int z;
-		IterableQueue<T> nodeQueue = new TraversableQueue<T>();
+		long key;
+		TraversableQueue<T> nodeQueue = new TraversableQueue<T>();
 		
 		/**
 		 * TreeNode constructor
@@ -53,6 +122,7 @@ public class BoundedCube<T> implements Cube<T> {
 			this.x = xCo;
 			this.y = yCo; 
 			this.z = zCo; 
+			this.key = mortonKey(xCo, yCo, zCo);
 			this.leftNode = leftNodeNext;
 			this.rightNode = rightNodeNext;	
 		}
@@ -70,6 +140,80 @@ public class BoundedCube<T> implements Cube<T> {
 			//constant
 		}
 		
+		@Override
+		public int getX() {
+			return x;
+		}
+		
+		@Override
+		public int getY() {
+			return y;
+		}
+		
+		@Override
+		public int getZ() {
+			return z;
+		}
+		
+		@Override
+		public IterableQueue<T> getElements() {
+			return nodeQueue;
+		}
+		
+	}
+	
+	/**
+	 * An element paired with the position it is held at, used to bulk load a cube.
+	 * @author Peter Baldry
+	 * @param <T> The type of element.
+	 */
+	public static class Entry<T> {
+		private final int x;
+		private final int y;
+		private final int z;
+		private final T element;
+		
+		/**
+		 * Entry constructor
+		 * @param x x coordinate of the element
+		 * @param y y coordinate of the element
+		 * @param z z coordinate of the element
+		 * @param element the element
+		 */
+		public Entry(int x, int y, int z, T element) {
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.element = element;
+		}
+		
+		/**
+		 * @return x coordinate of the element
+		 */
+		public int getX() {
+			return x;
+		}
+		
+		/**
+		 * @return y coordinate of the element
+		 */
+		public int getY() {
+			return y;
+		}
+		
+		/**
+		 * @return z coordinate of the element
+		 */
+		public int getZ() {
+			return z;
+		}
+		
+		/**
+		 * @return the element
+		 */
+		public T getElement() {
+			return element;
+		}
 	}
 	
 	/**
@@ -77,12 +221,16 @@ public class BoundedCube<T> implements Cube<T> {
 	 * @param length  Maximum size in the 'x' dimension.
 	 * @param breadth Maximum size in the 'y' dimension.
 	 * @param height  Maximum size in the 'z' dimension.
-	 * @throws IllegalArgumentException if provided dimension sizes are not positive.
+	 * @throws IllegalArgumentException if provided dimension sizes are not positive, or larger than 2^21 
+	 * 		   (each coordinate must fit in 21 bits of a Morton key).
 	 */ 
 	public BoundedCube(int length, int breadth, int height) throws IllegalArgumentException {
 		if ((length <= 0) || (breadth <= 0) || (height <=0)) {
 			throw new IllegalArgumentException();
 		}
+		if ((length > (1 << MORTON_BITS)) || (breadth > (1 << MORTON_BITS)) || (height > (1 << MORTON_BITS))) {
+			throw new IllegalArgumentException();
+		}
 		cubeLength = length;
 		cubeBreadth = breadth;
 		cubeHeight = height;
@@ -94,7 +242,335 @@ public class BoundedCube<T> implements Cube<T> {
 		 * complexities (see analysis and corresponding methods for more).
 		 */
 		rootNode = new TreeNode(length/2,breadth/2,height/2, null, null, null);
-		currentNode = rootNode;
+		nodeCount = 1;
+		maxNodeCount = 1;
+	}
+	
+	/**
+	 * Builds a BoundedCube from a batch of positions in one pass, rather than adding them one at a time.
+	 * The tree is built balanced by splitting on the median of each level's axis, and all elements sharing 
+	 * a position are grouped into one queue (in the order they appear in the batch).
+	 * Run-time complexity: O(nlogn), n = number of elements in the batch
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @param xs x coordinate of each element
+	 * @param ys y coordinate of each element
+	 * @param zs z coordinate of each element
+	 * @param elements the elements (planes) to add
+	 * @return a balanced BoundedCube holding every element of the batch
+	 * @throws IllegalArgumentException if dimension sizes are not positive or the arrays differ in length.
+	 * @throws IndexOutOfBoundsException if any coordinates are negative or outside cube.
+	 */
+	public static <T> BoundedCube<T> bulkLoad(int length, int breadth, int height, 
+			int[] xs, int[] ys, int[] zs, T[] elements) throws IllegalArgumentException, IndexOutOfBoundsException {
+		if ((xs.length != elements.length) || (ys.length != elements.length) || (zs.length != elements.length)) {
+			throw new IllegalArgumentException();
+		}
+		BoundedCube<T> cube = new BoundedCube<T>(length, breadth, height);
+		cube.loadBalanced(xs, ys, zs, elements, elements.length, null);
+		return cube;
+	}
+	
+	/**
+	 * Builds a BoundedCube from a batch of positions as bulkLoad does, but sorts the batch, groups it into 
+	 * positions and builds the subtrees as fork-join tasks in a pool. Each subtree is split on exactly the median 
+	 * the sequential build would choose, so the tree produced is identical to bulkLoad's. 
+	 * Not every step splits: the last merges of the sort and the median selections at the top levels of the 
+	 * tree each scan their whole range in one task, O(n) steps that no number of workers shortens, so the 
+	 * build does not scale linearly with cores (see BulkLoadBenchmark).
+	 * Run-time complexity: O(nlogn) work, O(n) span, n = number of elements in the batch
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @param xs x coordinate of each element
+	 * @param ys y coordinate of each element
+	 * @param zs z coordinate of each element
+	 * @param elements the elements (planes) to add
+	 * @param pool the pool to build in
+	 * @return a balanced BoundedCube holding every element of the batch
+	 * @throws IllegalArgumentException if dimension sizes are not positive or the arrays differ in length.
+	 * @throws IndexOutOfBoundsException if any coordinates are negative or outside cube.
+	 */
+	public static <T> BoundedCube<T> bulkLoad(int length, int breadth, int height, 
+			int[] xs, int[] ys, int[] zs, T[] elements, ForkJoinPool pool) 
+			throws IllegalArgumentException, IndexOutOfBoundsException {
+		if ((xs.length != elements.length) || (ys.length != elements.length) || (zs.length != elements.length)) {
+			throw new IllegalArgumentException();
+		}
+		BoundedCube<T> cube = new BoundedCube<T>(length, breadth, height);
+		cube.loadBalanced(xs, ys, zs, elements, elements.length, pool);
+		return cube;
+	}
+	
+	/**
+	 * Builds a BoundedCube from a batch of entries in one pass (see bulkLoad with coordinate arrays).
+	 * Run-time complexity: O(nlogn), n = number of entries
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @param entries the positioned elements to add
+	 * @return a balanced BoundedCube holding every entry
+	 * @throws IllegalArgumentException if dimension sizes are not positive.
+	 * @throws IndexOutOfBoundsException if any coordinates are negative or outside cube.
+	 */
+	public static <T> BoundedCube<T> bulkLoad(int length, int breadth, int height, 
+			Iterable<Entry<T>> entries) throws IllegalArgumentException, IndexOutOfBoundsException {
+		BoundedCube<T> cube = new BoundedCube<T>(length, breadth, height);
+		int size = 0;
+		int[] xs = new int[16];
+		int[] ys = new int[16];
+		int[] zs = new int[16];
+		Object[] elements = new Object[16];
+		for (Entry<T> entry : entries) {
+			if (size == elements.length) {
+				xs = Arrays.copyOf(xs, size * 2);
+				ys = Arrays.copyOf(ys, size * 2);
+				zs = Arrays.copyOf(zs, size * 2);
+				elements = Arrays.copyOf(elements, size * 2);
+			}
+			xs[size] = entry.x;
+			ys[size] = entry.y;
+			zs[size] = entry.z;
+			elements[size] = entry.element;
+			size += 1;
+		}
+		cube.loadBalanced(xs, ys, zs, elements, size, null);
+		return cube;
+	}
+	
+	/**
+	 * Private helper method, replaces the tree with a balanced tree built from a batch.
+	 * Run-time complexity: O(nlogn), n = size
+	 * @param xs x coordinates
+	 * @param ys y coordinates
+	 * @param zs z coordinates
+	 * @param elements the elements, each added at the matching coordinates
+	 * @param size number of entries in use in the arrays
+	 * @param pool pool to sort, group and build in, null to do all three in this thread
+	 * @throws IndexOutOfBoundsException if any coordinates are negative or outside cube.
+	 */
+	private void loadBalanced(int[] xs, int[] ys, int[] zs, Object[] elements, int size, ForkJoinPool pool) {
+		for (int i = 0; i < size; i++) {
+			indexBoundException(xs[i], ys[i], zs[i]);
+		}
+		int[] order = new int[size];
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+		}
+		// stable sort => elements sharing a position end up next to each other, still in batch order
+		if (pool == null) {
+			sortByPosition(order, new int[size], 0, size, xs, ys, zs);
+		} else {
+			pool.invoke(new SortTask(order, new int[size], 0, size, xs, ys, zs));
+		}
+		
+		TreeNode[] nodes = newNodeArray(size);
+		int distinct;
+		if ((pool == null) || (size <= PARALLEL_THRESHOLD)) {
+			distinct = groupPositions(order, 0, size, xs, ys, zs, elements, nodes, 0);
+		} else {
+			distinct = groupInParallel(order, xs, ys, zs, elements, nodes, pool);
+		}
+		if (pool == null) {
+			rootNode = buildBalanced(nodes, 0, distinct - 1, 0);
+		} else {
+			rootNode = pool.invoke(new BuildTask(nodes, keysOf(nodes, 0, distinct - 1), 0, distinct - 1, 0));
+		}
+		nodeCount = distinct;
+		maxNodeCount = distinct;
+		if (cellIndex != null) {
+			cellIndex.clear();
+			for (int i = 0; i < distinct; i++) {
+				cellIndex.put(nodes[i]);
+			}
+		}
+	}
+	
+	/**
+	 * Private helper method, turns a run of sorted entries into tree nodes: one node for each distinct position, 
+	 * holding that position's elements in batch order. The run must not start part way through a position.
+	 * Run-time complexity: O(m), m = to - from
+	 * @param order entry indices, sorted by position
+	 * @param from lowest index of the run (inclusive)
+	 * @param to highest index of the run (exclusive)
+	 * @param xs x coordinates
+	 * @param ys y coordinates
+	 * @param zs z coordinates
+	 * @param elements the elements, each added at the matching coordinates
+	 * @param nodes array the new nodes are written to
+	 * @param offset index in nodes of the run's first node
+	 * @return number of nodes created
+	 */
+	@SuppressWarnings("unchecked")
+	private int groupPositions(int[] order, int from, int to, int[] xs, int[] ys, int[] zs, Object[] elements, 
+			TreeNode[] nodes, int offset) {
+		int next = offset;
+		TreeNode last = null;
+		for (int i = from; i < to; i++) {
+			int entry = order[i];
+			if ((last == null) || !last.isEquals(xs[entry], ys[entry], zs[entry])) {
+				last = new TreeNode(xs[entry], ys[entry], zs[entry], null, null, null);
+				nodes[next++] = last;
+			}
+			enqueue(last, (T) elements[entry]);
+		}
+		return next - offset;
+	}
+	
+	/**
+	 * Private helper method, counts the distinct positions in a run of sorted entries (see groupPositions).
+	 * Run-time complexity: O(m), m = to - from
+	 * @param order entry indices, sorted by position
+	 * @param from lowest index of the run (inclusive)
+	 * @param to highest index of the run (exclusive)
+	 * @param xs x coordinates
+	 * @param ys y coordinates
+	 * @param zs z coordinates
+	 * @return number of distinct positions
+	 */
+	private static int countPositions(int[] order, int from, int to, int[] xs, int[] ys, int[] zs) {
+		int count = 0;
+		for (int i = from; i < to; i++) {
+			if ((i == from) || (comparePositions(order[i - 1], order[i], xs, ys, zs) != 0)) {
+				count += 1;
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * Private helper method, groupPositions over the whole batch in a pool. The sorted entries are cut into 
+	 * chunks of about PARALLEL_THRESHOLD, each boundary moved forward to the start of a position so no position 
+	 * is split. The chunks' positions are counted in parallel, the counts give each chunk the index of its first 
+	 * node, and the chunks then create their nodes in parallel: the nodes come out exactly as groupPositions 
+	 * would create them. The cube must be new (no element index), so enqueue touches only the chunk's nodes.
+	 * Run-time complexity: O(n) work, n = number of entries
+	 * @param order entry indices, sorted by position
+	 * @param xs x coordinates
+	 * @param ys y coordinates
+	 * @param zs z coordinates
+	 * @param elements the elements, each added at the matching coordinates
+	 * @param nodes array the new nodes are written to
+	 * @param pool the pool to group in
+	 * @return number of nodes created
+	 */
+	private int groupInParallel(int[] order, int[] xs, int[] ys, int[] zs, Object[] elements, TreeNode[] nodes, 
+			ForkJoinPool pool) {
+		int size = order.length;
+		int chunks = (size + PARALLEL_THRESHOLD - 1) / PARALLEL_THRESHOLD;
+		int[] bounds = new int[chunks + 1];
+		for (int c = 1; c < chunks; c++) {
+			int bound = Math.max(bounds[c - 1], (int) ((long) c * size / chunks));
+			while ((bound < size) && (comparePositions(order[bound - 1], order[bound], xs, ys, zs) == 0)) {
+				bound += 1;
+			}
+			bounds[c] = bound;
+		}
+		bounds[chunks] = size;
+		int[] offsets = new int[chunks];
+		pool.invoke(new GroupTask(order, xs, ys, zs, elements, nodes, bounds, offsets, 0, chunks, false));
+		int distinct = 0;
+		for (int c = 0; c < chunks; c++) {
+			int count = offsets[c];
+			offsets[c] = distinct;
+			distinct += count;
+		}
+		pool.invoke(new GroupTask(order, xs, ys, zs, elements, nodes, bounds, offsets, 0, chunks, true));
+		return distinct;
+	}
+	
+	/**
+	 * Private helper method, stable merge sort of entry indices by (x, y, z) position.
+	 * Run-time complexity: O(nlogn), n = hi - lo
+	 * @param order entry indices to sort
+	 * @param scratch working space, at least as long as order
+	 * @param lo lowest index (inclusive)
+	 * @param hi highest index (exclusive)
+	 * @param xs x coordinates
+	 * @param ys y coordinates
+	 * @param zs z coordinates
+	 */
+	private static void sortByPosition(int[] order, int[] scratch, int lo, int hi, int[] xs, int[] ys, int[] zs) {
+		if (hi - lo < 2) {
+			return;
+		}
+		int mid = (lo + hi) >>> 1;
+		sortByPosition(order, scratch, lo, mid, xs, ys, zs);
+		sortByPosition(order, scratch, mid, hi, xs, ys, zs);
+		mergeByPosition(order, scratch, lo, mid, hi, xs, ys, zs);
+	}
+	
+	/**
+	 * Private helper method, merges two sorted runs of entry indices, order[lo..mid) and order[mid..hi), 
+	 * taking from the first run on ties (so the sort is stable).
+	 * Run-time complexity: O(n), n = hi - lo
+	 * @param order entry indices, the two runs sorted
+	 * @param scratch working space, at least as long as order
+	 * @param lo lowest index of the first run (inclusive)
+	 * @param mid lowest index of the second run
+	 * @param hi highest index of the second run (exclusive)
+	 * @param xs x coordinates
+	 * @param ys y coordinates
+	 * @param zs z coordinates
+	 */
+	private static void mergeByPosition(int[] order, int[] scratch, int lo, int mid, int hi, int[] xs, int[] ys, int[] zs) {
+		int left = lo;
+		int right = mid;
+		for (int i = lo; i < hi; i++) {
+			if ((right >= hi) || ((left < mid) && (comparePositions(order[left], order[right], xs, ys, zs) <= 0))) {
+				scratch[i] = order[left++];
+			} else {
+				scratch[i] = order[right++];
+			}
+		}
+		System.arraycopy(scratch, lo, order, lo, hi - lo);
+	}
+	
+	/**
+	 * Private helper method, orders two entries by x, then y, then z.
+	 * @param a first entry index
+	 * @param b second entry index
+	 * @param xs x coordinates
+	 * @param ys y coordinates
+	 * @param zs z coordinates
+	 * @return negative, zero or positive as entry a is before, at or after entry b
+	 */
+	private static int comparePositions(int a, int b, int[] xs, int[] ys, int[] zs) {
+		if (xs[a] != xs[b]) {
+			return Integer.compare(xs[a], xs[b]);
+		} else if (ys[a] != ys[b]) {
+			return Integer.compare(ys[a], ys[b]);
+		} else {
+			return Integer.compare(zs[a], zs[b]);
+		}
+	}
+	
+	/**
+	 * Private helper method, interleaves a position into its Morton (Z-order) key.
+	 * Run-time complexity: O(1)
+	 * @param x x coordinate (at most 21 bits)
+	 * @param y y coordinate (at most 21 bits)
+	 * @param z z coordinate (at most 21 bits)
+	 * @return the Morton key of the position
+	 */
+	private static long mortonKey(int x, int y, int z) {
+		return spreadBits(x) | (spreadBits(y) << 1) | (spreadBits(z) << 2);
+	}
+	
+	/**
+	 * Private helper method, spreads the low 21 bits of a value out so there are two zero bits between each.
+	 * @param value the value
+	 * @return the value's bits at every third position
+	 */
+	private static long spreadBits(int value) {
+		long bits = value & 0x1fffffL;
+		bits = (bits | (bits << 32)) & 0x1f00000000ffffL;
+		bits = (bits | (bits << 16)) & 0x1f0000ff0000ffL;
+		bits = (bits | (bits << 8)) & 0x100f00f00f00f00fL;
+		bits = (bits | (bits << 4)) & 0x10c30c30c30c30c3L;
+		bits = (bits | (bits << 2)) & 0x1249249249249249L;
+		return bits;
 	}
 	
 	/**
@@ -128,50 +604,57 @@ public class BoundedCube<T> implements Cube<T> {
 	
 	/**
 	 * Private helper method for adding an element to tree.
+	 * If the new position ends up deeper than the alpha weighted depth bound, the subtree rooted at the
+	 * lowest unbalanced ancestor (the 'scapegoat', the first found walking back up from the new position) 
+	 * is rebuilt around the coordinate median.
+	 * Run-time complexity: amortised O(logn) 
 	 * @param x x coordinate input
 	 * @param y y coordinate input
 	 * @param z z coordinate input
 	 * @param element element to place
 	 * @param currentNode the currentNode (usually parentNode)
 	 * @param depth the starting depth (usually 0)
+	 * @return the node now holding the element
 	 */
-	private void placeOnTree(int x, int y, int z, T element, TreeNode currentNode, int depth) {
-		//traverses tree - o(logn) time for reasonably balanced tree, o(n) time for completely unbalanced tree
+	private TreeNode placeOnTree(int x, int y, int z, T element, TreeNode currentNode, int depth) {
+		long key = mortonKey(x, y, z);
+		//traverses tree - o(logn) time as the tree is kept alpha weight balanced
 		while (currentNode != null) {
 			
 			// if we have a direct match - add it to the queue
-			if (currentNode.isEquals(x, y, z)) {
-				currentNode.nodeQueue.enqueue(element);
-				break;
+			if (currentNode.key == key) {
+				enqueue(currentNode, element);
+				countTraversal(depth + 1);
+				return currentNode;
 			}
+			recordPath(currentNode, depth);
 			
 			/* otherwise we need to move down the tree splitting on a 
-			  plane (mathematics plane, not airplane!) normal to either x, y, z*/
-			int treeNodeCompareValue = getSplittingValueByDepth(
-					currentNode.x,
-					currentNode.y,
-					currentNode.z,
-					depth
-				);
-			int inputCompareValue = getSplittingValueByDepth(x, y, z, depth);
+			  plane (mathematics plane, not airplane!) normal to either x, y, z.
+			  Masking both Morton keys down to one axis's bits orders them by that axis alone.*/
+			long axisMask = AXIS_MASKS[depth % 3];
 			
-			if (inputCompareValue <= treeNodeCompareValue) {
+			if ((key & axisMask) <= (currentNode.key & axisMask)) {
 				if (currentNode.leftNode == null) {
 					// setup left node with new element
-					currentNode.leftNode = new TreeNode(x, y, z, null, null, currentNode);
-					currentNode.leftNode.nodeQueue.enqueue(element);
-					
-					break;
+					TreeNode newNode = new TreeNode(x, y, z, null, null, currentNode);
+					enqueue(newNode, element);
+					currentNode.leftNode = newNode;
+					countTraversal(depth + 1);
+					nodeAdded(newNode, depth + 1);
+					return newNode;
 				} else {
 					currentNode = currentNode.leftNode;
 				}
 			} else {
 				if (currentNode.rightNode == null) {
 					// setup right node with new element
-					currentNode.rightNode = new TreeNode(x, y, z, null, null, currentNode);
-					currentNode.rightNode.nodeQueue.enqueue(element);
-					
-					break;
+					TreeNode newNode = new TreeNode(x, y, z, null, null, currentNode);
+					enqueue(newNode, element);
+					currentNode.rightNode = newNode;
+					countTraversal(depth + 1);
+					nodeAdded(newNode, depth + 1);
+					return newNode;
 				} else {
 					currentNode = currentNode.rightNode;
 				}
@@ -179,269 +662,2469 @@ public class BoundedCube<T> implements Cube<T> {
 				
 			depth += 1;
 		}
+		return null;
 	}
 	
 	/**
-	 * Private helper method, determines if valid input coordinates
-	 * @param x x coordinate
-	 * @param y y coordinate
-	 * @param z z coordinate
-	 * @throws IndexOutOfBoundsException if coordinates are negative or outside cube.
+	 * Private helper method, adds a plane to the back of a node's queue (and to the element index if enabled).
+	 * Run-time complexity: O(1) (amortised O(1) expected with the element index)
+	 * @param node the node
+	 * @param element plane to be added
 	 */
-	private void indexBoundException(int x, int y, int z) {
-		if ((x < 0) || (y < 0) || (z < 0 )) {
-			throw new IndexOutOfBoundsException();
-		} else if ((x >= cubeLength) || (y >= cubeBreadth) || (z >= cubeHeight)) {
-			throw new IndexOutOfBoundsException();
-		} 
+	private void enqueue(TreeNode node, T element) {
+		if (elementIndex == null) {
+			node.nodeQueue.enqueue(element);
+		} else {
+			elementIndex.put(node, node.nodeQueue.enqueueNode(element));
+		}
 	}
 	
 	/**
-	 * Adds an element to a specified position.
-	 * Run-time complexity: Dominantly O(logn) [1], worst O(n) - if no elements are in the tree yet or tree is completely one sided
-	 * Calls placeOnTree which is O(logn) complexity.
-	 * 
-	 *  Normal Balanced Tree O(logn) time complexity    |       Unbalanced Tree (o(n)) time worst case
-	 *               *                                  |                  *
-	 *             /   \                                |                 /
-   	 *            *     *                               |                * 
-	 *          /  \   /  \                             |               /
-	 *         *    * *    *                            |              *
-	 *       /  \  /\ /\  / \                           |             / 
-	 *      *    **  ** **   *                          |            *
-	 * See Analysis for more
-	 * @param x x coordinate
-	 * @param y y coordinate
-	 * @param z z coordinate
-	 * @param element plane to be added
-	 * @throws IndexOutOfBoundsException if coordinates are negative or outside cube.
+	 * Private helper method, called once a plane has left a queue, drops its element index entry (if enabled).
+	 * Run-time complexity: O(1) expected
+	 * @param element the plane that was removed
 	 */
-	@Override
-	public void add(int x, int y, int z, T element) throws IndexOutOfBoundsException {
-		indexBoundException(x,y,z);
-		currentNode = rootNode;
-		// O(logn) complexity
-		placeOnTree(x, y, z, element, currentNode, 0);
+	private void elementRemoved(T element) {
+		if (elementIndex != null) {
+			elementIndex.purge(element);
+		}
 	}
 	
 	/**
-	 * Gets the oldest element (plane) from specified position.
-	 * Run-time complexity: Dominantly O(logn) [1], worst O(n) - if no elements are in the tree yet or tree is completely one sided
-	 * @param x x coordinate
-	 * @param y y coordinate
-	 * @param z z coordinate
-	 * @throws IndexOutOfBoundsException
-	 * 
+	 * Private helper method, remembers the node visited at a depth while inserting.
+	 * Run-time complexity: O(1) (amortised, the path array only grows with the tree depth)
+	 * @param node node visited
+	 * @param depth depth of the node
 	 */
-	@Override
-	public T get(int x, int y, int z) throws IndexOutOfBoundsException {
-		indexBoundException(x,y,z);
-		int depth = 0;
-		T element = null;
-		currentNode = rootNode;
-		//traverses tree - o(logn) time for reasonably balanced tree, o(n) time for completely unbalanced tree
-		while (currentNode != null) {
-			int treeNodeCompareValue = getSplittingValueByDepth(
-					currentNode.x,
-					currentNode.y,
-					currentNode.z,
-					depth
-				);
-			int inputCompareValue = getSplittingValueByDepth(x, y, z, depth);
-			if (currentNode.isEquals(x, y, z)) {
-				//constant, gets oldest element, one iteration always
-				return currentNode.nodeQueue.iterator().next();
-			}
-			if (inputCompareValue <= treeNodeCompareValue) {
-				currentNode = currentNode.leftNode;
-			} else {
-				currentNode = currentNode.rightNode;
-			} 
-			depth += 1;
+	private void recordPath(TreeNode node, int depth) {
+		if (depth >= insertPath.length) {
+			TreeNode[] largerPath = newNodeArray(insertPath.length * 2);
+			System.arraycopy(insertPath, 0, largerPath, 0, insertPath.length);
+			insertPath = largerPath;
 		}
-		return element;
+		insertPath[depth] = node;
 	}
 	
 	/**
-	 * Gets all the elements (in the form of an iterablequeue) at a specified position.
-	 * Run-time complexity: Dominantly O(logn) [1], worst O(n) - if no elements are in the tree yet or tree is completely one sided
-	 * @param x x coordinate
-	 * @param y y coordinate
-	 * @param z z coordinate
-	 * @throws IndexOutOfBoundsException if coordinates are out of cube bounds
+	 * Private helper method, called once a new node has been linked into the tree.
+	 * Walks back up the insertion path looking for a scapegoat when the new node is too deep.
+	 * Run-time complexity: O(1) when the depth bound holds, otherwise O(m) for a scapegoat subtree of m nodes
+	 * @param newNode the node that was added
+	 * @param depth depth of the new node
 	 */
-	@Override
-	public IterableQueue<T> getAll(int x, int y, int z) throws IndexOutOfBoundsException {
-		indexBoundException(x,y,z);
-		int depth = 0;
-		currentNode = rootNode;
-		//traverses tree - o(logn) time for reasonably balanced tree, o(n) time for completely unbalanced tree
-		while (currentNode != null) {
-			int treeNodeCompareValue = getSplittingValueByDepth(
-					currentNode.x,
-					currentNode.y,
-					currentNode.z,
-					depth
-				);
-			int inputCompareValue = getSplittingValueByDepth(x, y, z, depth);
-			if (currentNode.isEquals(x, y, z)) {
-				//constant
-				return currentNode.nodeQueue;
-					
+	private void nodeAdded(TreeNode newNode, int depth) {
+		if (cellIndex != null) {
+			cellIndex.put(newNode);
+		}
+		nodeCount += 1;
+		maxNodeCount = Math.max(maxNodeCount, nodeCount);
+		if (depth <= Math.floor(Math.log(nodeCount) / LOG_INVERSE_ALPHA)) {
+			return;
+		}
+		TreeNode child = newNode;
+		int childSize = 1;
+		for (int i = depth - 1; i >= 0; i--) {
+			TreeNode parent = insertPath[i];
+			TreeNode sibling = (parent.leftNode == child) ? parent.rightNode : parent.leftNode;
+			int parentSize = 1 + childSize + subtreeSize(sibling);
+			if (childSize > BALANCE_ALPHA * parentSize) {
+				rebuildSubtree(parent, i);
+				return;
 			}
-			if (inputCompareValue <= treeNodeCompareValue) {
-				currentNode = currentNode.leftNode;
-			} else {
-				currentNode = currentNode.rightNode;
-			} 
-			depth += 1;
+			child = parent;
+			childSize = parentSize;
 		}
-		return currentNode.nodeQueue;
 	}
 	
 	/**
-	 * Determines if there are multiple elements at a particular position.
-	 * Run-time complexity: Dominantly O(logn) [1], worst O(n) - if no elements are in the tree yet or tree is completely one sided
-	 * @param x x coordinate
-	 * @param y y coordinate
-	 * @param z z coordinate
-	 * @return true if multiple elements at position, false if 0 or 1 elements at position
-	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 * Private helper method, counts the nodes in a subtree.
+	 * Run-time complexity: O(m), m = number of nodes in the subtree
+	 * @param node root of the subtree
+	 * @return number of nodes in the subtree
 	 */
-	@Override
-	public boolean isMultipleElementsAt(int x, int y, int z) throws IndexOutOfBoundsException {
-		indexBoundException(x,y,z);
-		int depth = 0;
-		currentNode = rootNode;
-		//traverses tree - o(logn) time for reasonably balanced tree, o(n) time for completely unbalanced tree
-		while (currentNode != null) {
-			int treeNodeCompareValue = getSplittingValueByDepth(
-					currentNode.x,
-					currentNode.y,
-					currentNode.z,
-					depth
-				); 
-			int inputCompareValue = getSplittingValueByDepth(x, y, z, depth);
-			if (currentNode.isEquals(x, y, z)) {
-				//constant query
-				if (currentNode.nodeQueue.size() > 1) {
-					return true;
-				} else {
-					return false;
-				}
-			}
-			if (inputCompareValue <= treeNodeCompareValue) {
-				currentNode = currentNode.leftNode;
-			} else if (inputCompareValue > treeNodeCompareValue) {
-				currentNode = currentNode.rightNode;
-			} 
-			depth += 1;
+	private int subtreeSize(TreeNode node) {
+		if (node == null) {
+			return 0;
 		}
-		return false;
+		return 1 + subtreeSize(node.leftNode) + subtreeSize(node.rightNode);
 	}
-		
+	
 	/**
-	 * Removes element/plane from specified position in cube
-	 * Run-time complexity: Dominantly O(logn) [1], worst O(n) - if no elements are in the tree yet or tree is completely one sided
-	 * 						NOTE: We then search through at worst q elements in the queue at the position as well, 
-	 * 							  which is O(q) complexity. 
-	 * @param x x coordinate
-	 * @param y y coordinate
-	 * @param z z coordinate
-	 * @param element plane to be removed
-	 * @throws IndexOutOfBoundsException if invalid coordinates.
-	 * @return true if removed correctly, false if not
+	 * Private helper method, rebuilds a subtree in place so it is balanced around the coordinate median.
+	 * Run-time complexity: O(mlogm), m = number of nodes in the subtree
+	 * @param node root of the subtree to rebuild
+	 * @param depth depth of the subtree root (insertPath[depth - 1] must be its parent)
 	 */
-	@Override
-	public boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException {
-		indexBoundException(x,y,z);
-		int depth = 0;
-		currentNode = rootNode;
-		//traverses tree - o(logn) time for reasonably balanced tree, o(n) time for completely unbalanced tree
-		while (currentNode != null) {
-			int treeNodeCompareValue = getSplittingValueByDepth(
-					currentNode.x,
-					currentNode.y,
-					currentNode.z,
-					depth
-				);
-			int inputCompareValue = getSplittingValueByDepth(x, y, z, depth);
-			if (currentNode.isEquals(x, y, z)) {
-				Iterator<T> nodeIterator = currentNode.nodeQueue.iterator();
-				//at worst O(q) time complexity
-				while (nodeIterator.hasNext()) {
-					T nodeElement = nodeIterator.next();
-					if (nodeElement.hashCode() == element.hashCode()) {
-						nodeIterator.remove();
-						return true; 
-					}
-				}
-					
-			}
-			if (inputCompareValue <= treeNodeCompareValue) {
-				currentNode = currentNode.leftNode;
-			} else if (inputCompareValue > treeNodeCompareValue) {
-				currentNode = currentNode.rightNode;
-			} 
-			depth += 1;
+	private void rebuildSubtree(TreeNode node, int depth) {
+		TreeNode[] nodes = newNodeArray(subtreeSize(node));
+		collectSubtree(node, nodes, 0);
+		// opportunistic compaction, positions whose queues have been emptied are dropped from the rebuilt subtree
+		int occupied = dropEmptyNodes(nodes);
+		TreeNode rebuilt = buildBalanced(nodes, 0, occupied - 1, depth);
+		if (depth == 0) {
+			rootNode = rebuilt;
+		} else if (insertPath[depth - 1].leftNode == node) {
+			insertPath[depth - 1].leftNode = rebuilt;
+		} else {
+			insertPath[depth - 1].rightNode = rebuilt;
 		}
-		
-		
-		return false;
+		rebuildCount += 1;
+		rebuiltNodes += nodes.length;
 	}
 	
 	/**
-	 * Removes all planes from a specified position in cube
-	 * Run-time complexity: Dominantly O(logn) [1], worst O(n) - if no elements are in the tree yet or tree is completely one sided
-	 * 						NOTE: We then search through q elements in the queue at the found position as well, 
-	 * 							  which is O(q) complexity. 
-	 * @param x x coordinate
-	 * @param y y coordinate
-	 * @param z z coordinate
-	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 * Private helper method, moves the nodes that still hold planes to the front of an array.
+	 * Run-time complexity: O(m), m = length of the array
+	 * @param nodes the nodes (reordered in place)
+	 * @return number of occupied nodes, now held in nodes[0..return-1]
 	 */
-	@Override
-	public void removeAll(int x, int y, int z) throws IndexOutOfBoundsException {
-		indexBoundException(x,y,z);
-		indexBoundException(x,y,z);
-		int depth = 0;
-		currentNode = rootNode;
-		//traverses tree - o(logn) time for reasonably balanced tree, o(n) time for completely unbalanced tree
-		while (currentNode != null) {
-			int treeNodeCompareValue = getSplittingValueByDepth(
-					currentNode.x,
-					currentNode.y,
-					currentNode.z,
-					depth
-				);
-			int inputCompareValue = getSplittingValueByDepth(x, y, z, depth);
-			if (currentNode.isEquals(x, y, z)) {
-				Iterator<T> nodeIterator = currentNode.nodeQueue.iterator();
-				//O(q) time complexity
-				while (nodeIterator.hasNext()) {
-					nodeIterator.next();
-					nodeIterator.remove();
-				}
-					
+	private int dropEmptyNodes(TreeNode[] nodes) {
+		int occupied = 0;
+		for (int i = 0; i < nodes.length; i++) {
+			if (nodes[i].nodeQueue.size() > 0) {
+				nodes[occupied++] = nodes[i];
+			} else if (cellIndex != null) {
+				cellIndex.remove(nodes[i].key);
 			}
-			if (inputCompareValue <= treeNodeCompareValue) {
-				currentNode = currentNode.leftNode;
-			} else if (inputCompareValue > treeNodeCompareValue) {
-				currentNode = currentNode.rightNode;
-			} 
-			depth += 1;
 		}
-		
+		nodeCount -= nodes.length - occupied;
+		return occupied;
 	}
 	
 	/**
-	 * Clears all the planes from the cube (tree).
-	 * Run-time complexity: O(1);
+	 * Private helper method, unlinks a node from a subtree (kd-tree deletion).
+	 * Finds the node by following its coordinates down from the subtree root.
+	 * Run-time complexity: O(logn)
+	 * @param subtree root of the subtree holding the node
+	 * @param target the node to unlink
+	 * @param depth depth of the subtree root
+	 * @return root of the subtree once the node has been unlinked
 	 */
-	@Override
-	public void clear() {
-		//constant
-		rootNode = null;
+	private TreeNode unlink(TreeNode subtree, TreeNode target, int depth) {
+		if (subtree == target) {
+			return replaceRoot(subtree, depth);
+		}
+		long axisMask = AXIS_MASKS[depth % 3];
+		if ((target.key & axisMask) <= (subtree.key & axisMask)) {
+			subtree.leftNode = unlink(subtree.leftNode, target, depth + 1);
+		} else {
+			subtree.rightNode = unlink(subtree.rightNode, target, depth + 1);
+		}
+		return subtree;
+	}
+	
+	/**
+	 * Private helper method, removes the root of a subtree by promoting the node with the largest value 
+	 * on the root's splitting axis from its left subtree. A root with only a right subtree first moves that 
+	 * subtree to the left (everything is less than or equal to its maximum, so the ordering still holds).
+	 * Run-time complexity: O(logn)
+	 * @param node root of the subtree, to be removed
+	 * @param depth depth of the node
+	 * @return the node that replaces it (null if it was a leaf)
+	 */
+	private TreeNode replaceRoot(TreeNode node, int depth) {
+		if ((node.leftNode == null) && (node.rightNode == null)) {
+			return null;
+		}
+		if (node.leftNode == null) {
+			node.leftNode = node.rightNode;
+			node.rightNode = null;
+		}
+		TreeNode replacement = maxOnAxis(node.leftNode, depth + 1, depth);
+		TreeNode left = unlink(node.leftNode, replacement, depth + 1);
+		replacement.leftNode = left;
+		replacement.rightNode = node.rightNode;
+		node.leftNode = null;
+		node.rightNode = null;
+		return replacement;
+	}
+	
+	/**
+	 * Private helper method, finds the node with the largest value on the splitting axis of axisDepth.
+	 * Only the right subtree needs searching at levels that split on that same axis.
+	 * Run-time complexity: O(n^(2/3)) for a balanced tree
+	 * @param node root of the subtree to search
+	 * @param depth depth of the node
+	 * @param axisDepth depth whose splitting axis is being compared
+	 * @return node with the largest value on the axis, null for an empty subtree
+	 */
+	private TreeNode maxOnAxis(TreeNode node, int depth, int axisDepth) {
+		if (node == null) {
+			return null;
+		}
+		if ((depth % 3) == (axisDepth % 3)) {
+			if (node.rightNode == null) {
+				return node;
+			}
+			return maxOnAxis(node.rightNode, depth + 1, axisDepth);
+		}
+		TreeNode best = node;
+		TreeNode leftBest = maxOnAxis(node.leftNode, depth + 1, axisDepth);
+		TreeNode rightBest = maxOnAxis(node.rightNode, depth + 1, axisDepth);
+		if ((leftBest != null) && (splittingValue(leftBest, axisDepth) > splittingValue(best, axisDepth))) {
+			best = leftBest;
+		}
+		if ((rightBest != null) && (splittingValue(rightBest, axisDepth) > splittingValue(best, axisDepth))) {
+			best = rightBest;
+		}
+		return best;
+	}
+	
+	/**
+	 * Private helper method, physically deletes a position once its queue is empty.
+	 * If deletions have shrunk the tree well below its largest size, the whole tree is compacted.
+	 * Run-time complexity: amortised O(logn)
+	 * @param node the (empty) node to delete
+	 */
+	private void deleteNode(TreeNode node) {
+		rootNode = unlink(rootNode, node, 0);
+		if (cellIndex != null) {
+			cellIndex.remove(node.key);
+		}
+		nodeCount -= 1;
+		if (nodeCount < BALANCE_ALPHA * maxNodeCount) {
+			compact();
+		}
+	}
+	
+	/**
+	 * Private helper method, copies every node of a subtree into an array.
+	 * Run-time complexity: O(m), m = number of nodes in the subtree
+	 * @param node root of the subtree
+	 * @param nodes array to fill
+	 * @param index next free index in the array
+	 * @return next free index after the subtree has been copied
+	 */
+	private int collectSubtree(TreeNode node, TreeNode[] nodes, int index) {
+		if (node == null) {
+			return index;
+		}
+		nodes[index] = node;
+		index = collectSubtree(node.leftNode, nodes, index + 1);
+		return collectSubtree(node.rightNode, nodes, index);
+	}
+	
+	/**
+	 * Private helper method, links nodes[lo..hi] into a balanced kd-tree starting at the given depth.
+	 * The median on the splitting axis becomes the subtree root; nodes sharing the median's splitting 
+	 * value go left so the 'left is less than or equal' ordering used by every traversal still holds.
+	 * Run-time complexity: O(mlogm) (expected), m = hi - lo + 1
+	 * @param nodes the nodes to link (reordered in place)
+	 * @param lo lowest index (inclusive)
+	 * @param hi highest index (inclusive)
+	 * @param depth depth of the subtree root
+	 * @return root of the balanced subtree, or null if lo > hi
+	 */
+	private TreeNode buildBalanced(TreeNode[] nodes, int lo, int hi, int depth) {
+		return buildBalanced(nodes, keysOf(nodes, lo, hi), lo, hi, depth);
+	}
+	
+	/**
+	 * Private helper method, buildBalanced with each node's Morton key copied alongside it (see selectSplit).
+	 * Run-time complexity: O(mlogm) (expected), m = hi - lo + 1
+	 * @param nodes the nodes to link (reordered in place)
+	 * @param keys keys[i] is the Morton key of nodes[i] (reordered with the nodes)
+	 * @param lo lowest index (inclusive)
+	 * @param hi highest index (inclusive)
+	 * @param depth depth of the subtree root
+	 * @return root of the balanced subtree, or null if lo > hi
+	 */
+	private TreeNode buildBalanced(TreeNode[] nodes, long[] keys, int lo, int hi, int depth) {
+		if (lo > hi) {
+			return null;
+		}
+		int split = selectSplit(nodes, keys, lo, hi, depth);
+		TreeNode node = nodes[split];
+		node.leftNode = buildBalanced(nodes, keys, lo, split - 1, depth + 1);
+		node.rightNode = buildBalanced(nodes, keys, split + 1, hi, depth + 1);
+		return node;
+	}
+	
+	/**
+	 * Private helper method, copies the Morton keys of nodes[lo..hi] into an array indexed like the nodes.
+	 * Run-time complexity: O(m), m = hi - lo + 1
+	 * @param nodes the nodes
+	 * @param lo lowest index (inclusive)
+	 * @param hi highest index (inclusive)
+	 * @return array with keys[i] = nodes[i].key for lo <= i <= hi
+	 */
+	private long[] keysOf(TreeNode[] nodes, int lo, int hi) {
+		long[] keys = new long[Math.max(hi + 1, 0)];
+		for (int i = lo; i <= hi; i++) {
+			keys[i] = nodes[i].key;
+		}
+		return keys;
+	}
+	
+	/**
+	 * Private static class, sorts a run of entry indices by position, sorting the two halves as separate tasks 
+	 * down to runs of PARALLEL_THRESHOLD entries (see sortByPosition).
+	 * @author Peter Baldry
+	 */
+	private static class SortTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int[] order;
+		private final int[] scratch;
+		private final int lo;
+		private final int hi;
+		private final int[] xs;
+		private final int[] ys;
+		private final int[] zs;
+		
+		/**
+		 * SortTask constructor
+		 * @param order entry indices to sort
+		 * @param scratch working space, at least as long as order
+		 * @param lo lowest index (inclusive)
+		 * @param hi highest index (exclusive)
+		 * @param xs x coordinates
+		 * @param ys y coordinates
+		 * @param zs z coordinates
+		 */
+		public SortTask(int[] order, int[] scratch, int lo, int hi, int[] xs, int[] ys, int[] zs) {
+			this.order = order;
+			this.scratch = scratch;
+			this.lo = lo;
+			this.hi = hi;
+			this.xs = xs;
+			this.ys = ys;
+			this.zs = zs;
+		}
+		
+		/**
+		 * Sorts the run.
+		 */
+		@Override
+		protected void compute() {
+			if (hi - lo <= PARALLEL_THRESHOLD) {
+				sortByPosition(order, scratch, lo, hi, xs, ys, zs);
+				return;
+			}
+			int mid = (lo + hi) >>> 1;
+			invokeAll(new SortTask(order, scratch, lo, mid, xs, ys, zs), new SortTask(order, scratch, mid, hi, xs, ys, zs));
+			mergeByPosition(order, scratch, lo, mid, hi, xs, ys, zs);
+		}
+	}
+	
+	/**
+	 * Private inner class, counts the positions of a range of chunks (see groupInParallel), or creates their nodes, 
+	 * splitting the range in half down to single chunks. Chunks cover disjoint entries and write disjoint parts 
+	 * of the node array.
+	 * @author Peter Baldry
+	 */
+	private class GroupTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int[] order;
+		private final int[] xs;
+		private final int[] ys;
+		private final int[] zs;
+		private final Object[] elements;
+		private final TreeNode[] nodes;
+		private final int[] bounds;
+		private final int[] offsets;
+		private final int lo;
+		private final int hi;
+		private final boolean create;
+		
+		/**
+		 * GroupTask constructor
+		 * @param order entry indices, sorted by position
+		 * @param xs x coordinates
+		 * @param ys y coordinates
+		 * @param zs z coordinates
+		 * @param elements the elements, each added at the matching coordinates
+		 * @param nodes array the new nodes are written to
+		 * @param bounds chunk c covers order[bounds[c]..bounds[c + 1])
+		 * @param offsets receives each chunk's count of positions, or holds the index of each chunk's first node
+		 * @param lo lowest chunk (inclusive)
+		 * @param hi highest chunk (exclusive)
+		 * @param create false to count positions, true to create the nodes
+		 */
+		public GroupTask(int[] order, int[] xs, int[] ys, int[] zs, Object[] elements, TreeNode[] nodes, 
+				int[] bounds, int[] offsets, int lo, int hi, boolean create) {
+			this.order = order;
+			this.xs = xs;
+			this.ys = ys;
+			this.zs = zs;
+			this.elements = elements;
+			this.nodes = nodes;
+			this.bounds = bounds;
+			this.offsets = offsets;
+			this.lo = lo;
+			this.hi = hi;
+			this.create = create;
+		}
+		
+		/**
+		 * Counts or creates the chunks' positions.
+		 */
+		@Override
+		protected void compute() {
+			if (hi - lo > 1) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new GroupTask(order, xs, ys, zs, elements, nodes, bounds, offsets, lo, mid, create), 
+						new GroupTask(order, xs, ys, zs, elements, nodes, bounds, offsets, mid, hi, create));
+			} else if (create) {
+				groupPositions(order, bounds[lo], bounds[lo + 1], xs, ys, zs, elements, nodes, offsets[lo]);
+			} else {
+				offsets[lo] = countPositions(order, bounds[lo], bounds[lo + 1], xs, ys, zs);
+			}
+		}
+	}
+	
+	/**
+	 * Private inner class, builds a balanced subtree as buildBalanced does, building the two halves 
+	 * as separate tasks down to PARALLEL_THRESHOLD nodes. The halves are disjoint ranges of the array, 
+	 * so the tasks never touch the same nodes.
+	 * @author Peter Baldry
+	 */
+	private class BuildTask extends RecursiveTask<TreeNode> {
+		private static final long serialVersionUID = 1L;
+		private final TreeNode[] nodes;
+		private final long[] keys;
+		private final int lo;
+		private final int hi;
+		private final int depth;
+		
+		/**
+		 * BuildTask constructor
+		 * @param nodes the nodes to build from
+		 * @param keys keys[i] is the Morton key of nodes[i]
+		 * @param lo lowest index (inclusive)
+		 * @param hi highest index (inclusive)
+		 * @param depth depth of the subtree's root
+		 */
+		public BuildTask(TreeNode[] nodes, long[] keys, int lo, int hi, int depth) {
+			this.nodes = nodes;
+			this.keys = keys;
+			this.lo = lo;
+			this.hi = hi;
+			this.depth = depth;
+		}
+		
+		/**
+		 * Builds the subtree.
+		 * @return root of the subtree, null if the range is empty
+		 */
+		@Override
+		protected TreeNode compute() {
+			if (hi - lo + 1 <= PARALLEL_THRESHOLD) {
+				return buildBalanced(nodes, keys, lo, hi, depth);
+			}
+			int split = selectSplit(nodes, keys, lo, hi, depth);
+			TreeNode node = nodes[split];
+			BuildTask left = new BuildTask(nodes, keys, lo, split - 1, depth + 1);
+			left.fork();
+			node.rightNode = new BuildTask(nodes, keys, split + 1, hi, depth + 1).compute();
+			node.leftNode = left.join();
+			return node;
+		}
+	}
+	
+	/**
+	 * Private helper method, partially orders nodes[lo..hi] on the splitting axis of the depth 
+	 * (quickselect) so that the returned index holds the median value, every node before it 
+	 * has a smaller or equal value and every node after it has a strictly greater value.
+	 * Values are compared as Morton keys masked to the axis (as the traversals do), read from a key array 
+	 * moved along with the nodes, so the scans never have to follow a node reference.
+	 * Run-time complexity: O(m) (expected), m = hi - lo + 1
+	 * @param nodes the nodes to order
+	 * @param keys keys[i] is the Morton key of nodes[i] (reordered with the nodes)
+	 * @param lo lowest index (inclusive)
+	 * @param hi highest index (inclusive)
+	 * @param depth depth deciding the splitting axis
+	 * @return index of the splitting node
+	 */
+	private int selectSplit(TreeNode[] nodes, long[] keys, int lo, int hi, int depth) {
+		long axisMask = AXIS_MASKS[depth % 3];
+		int median = (lo + hi) >>> 1;
+		int left = lo;
+		int right = hi;
+		// Hoare partitioning, until keys[lo..median - 1] <= keys[median] <= keys[median + 1..hi]
+		while (left < right) {
+			long pivot = keys[(left + right) >>> 1] & axisMask;
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while ((keys[i] & axisMask) < pivot) {
+					i++;
+				}
+				while ((keys[j] & axisMask) > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					swap(nodes, keys, i++, j--);
+				}
+			}
+			if (median <= j) {
+				right = j;
+			} else if (median >= i) {
+				left = i;
+			} else {
+				break;
+			}
+		}
+		// gather the nodes after the median sharing its value next to it, the last of them splits
+		long value = keys[median] & axisMask;
+		int split = median;
+		for (int i = median + 1; i <= hi; i++) {
+			if ((keys[i] & axisMask) == value) {
+				swap(nodes, keys, ++split, i);
+			}
+		}
+		return split;
+	}
+	
+	/**
+	 * Private helper method, splitting value of a node at a depth.
+	 * @param node the node
+	 * @param depth the depth
+	 * @return the node's coordinate on the splitting axis of the depth
+	 */
+	private int splittingValue(TreeNode node, int depth) {
+		return getSplittingValueByDepth(node.x, node.y, node.z, depth);
+	}
+	
+	/**
+	 * Private helper method, creates an array of tree nodes (TreeNode is generic so cannot be created directly).
+	 * @param size length of the array
+	 * @return an empty array of tree nodes
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private TreeNode[] newNodeArray(int size) {
+		return (TreeNode[]) new BoundedCube.TreeNode[size];
+	}
+	
+	/**
+	 * Private helper method, creates an array of element index entries (generic for the same reason as TreeNode).
+	 * @param size length of the array
+	 * @return an empty array of entries
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private ElementEntry[] newEntryArray(int size) {
+		return (ElementEntry[]) new BoundedCube.ElementEntry[size];
+	}
+	
+	/**
+	 * Private helper method, swaps two entries of a node array and of its key array.
+	 * @param nodes the nodes
+	 * @param keys the nodes' keys
+	 * @param i first index
+	 * @param j second index
+	 */
+	private void swap(TreeNode[] nodes, long[] keys, int i, int j) {
+		TreeNode temp = nodes[i];
+		nodes[i] = nodes[j];
+		nodes[j] = temp;
+		long key = keys[i];
+		keys[i] = keys[j];
+		keys[j] = key;
+	}
+	
+	/**
+	 * Private helper method, determines if valid input coordinates
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @throws IndexOutOfBoundsException if coordinates are negative or outside cube.
+	 */
+	private void indexBoundException(int x, int y, int z) {
+		CubeSupport.checkPosition(x, y, z, cubeLength, cubeBreadth, cubeHeight);
+	}
+	
+	/**
+	 * Adds an element to a specified position.
+	 * Run-time complexity: O(logn) (amortised, the tree is kept alpha weight balanced: an add that lands too deep 
+	 * rebuilds the scapegoat subtree, see placeOnTree)
+	 * See Analysis for more
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param element plane to be added
+	 * @throws IndexOutOfBoundsException if coordinates are negative or outside cube.
+	 */
+	@Override
+	public void add(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		int operation = startOperation();
+		addUnchecked(x, y, z, element);
+		endOperation(Operation.ADD, operation);
+	}
+	
+	/**
+	 * Private helper method, adds a plane at a position already checked to be inside the cube.
+	 * Run-time complexity: amortised O(logn)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param element plane to be added
+	 */
+	private void addUnchecked(int x, int y, int z, T element) {
+		if (rootNode == null) {
+			// cube has been cleared, the first position added becomes the root
+			rootNode = new TreeNode(x, y, z, null, null, null);
+			enqueue(rootNode, element);
+			if (cellIndex != null) {
+				cellIndex.put(rootNode);
+			}
+			nodeCount = 1;
+			maxNodeCount = Math.max(maxNodeCount, 1);
+			return;
+		}
+		// O(logn) complexity
+		placeOnTree(x, y, z, element, rootNode, 0);
+	}
+	
+	/**
+	 * Adds a batch of elements, each at the matching position of the coordinate arrays, in batch order.
+	 * Every position is checked before anything is added, so a bad position leaves the cube unchanged.
+	 * A run of consecutive elements at one position (several planes in one cell) costs a single traversal:
+	 * the node found for the first is reused for the rest, as nodes are never removed while adding.
+	 * For a batch of at least a quarter as many planes as the tree has positions, once the scapegoat rebuilds 
+	 * it has caused have rebuilt more nodes than the tree and batch hold together (a clustered or sorted batch 
+	 * landing in a sparse part of the tree), the rest of the batch is merged in and the whole tree rebuilt 
+	 * balanced once instead (see mergeBatch). A batch spread evenly over the tree causes few rebuilds and is 
+	 * never merged: inserting it one plane at a time is cheaper than a rebuild.
+	 * Either way the planes at each position end up in the same order as adding them one at a time.
+	 * Run-time complexity: amortised O(rlogn + b), b = batch size, r = number of runs of one position
+	 * 						(O(blogb + (n + b)log(n + b)) expected for a large batch)
+	 * @param xs x coordinate of each element
+	 * @param ys y coordinate of each element
+	 * @param zs z coordinate of each element
+	 * @param elements planes to be added
+	 * @throws IndexOutOfBoundsException if any coordinates are negative or outside cube (nothing is added).
+	 * @throws IllegalArgumentException if the arrays differ in length.
+	 */
+	@Override
+	public void addAll(int[] xs, int[] ys, int[] zs, T[] elements) 
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		CubeSupport.checkBatch(xs, ys, zs, elements, cubeLength, cubeBreadth, cubeHeight);
+		// nodes the scapegoat rebuilds of this batch may rebuild before merging the rest is cheaper
+		long rebuildBudget = Long.MAX_VALUE;
+		if (elements.length >= MERGE_BATCH_FRACTION * nodeCount) {
+			rebuildBudget = rebuiltNodes + nodeCount + elements.length;
+		}
+		TreeNode last = null;
+		for (int i = 0; i < elements.length; i++) {
+			if ((last != null) && last.isEquals(xs[i], ys[i], zs[i])) {
+				enqueue(last, elements[i]);
+			} else if (rootNode == null) {
+				addUnchecked(xs[i], ys[i], zs[i], elements[i]);
+				last = rootNode;
+			} else {
+				last = placeOnTree(xs[i], ys[i], zs[i], elements[i], rootNode, 0);
+				if (rebuiltNodes > rebuildBudget) {
+					mergeBatch(xs, ys, zs, elements, i + 1);
+					return;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Private helper method, adds a large batch by merging it with the tree's nodes and rebuilding the whole tree
+	 * around coordinate medians, as bulkLoad does. Positions are looked up in a hash table of the tree's nodes 
+	 * (the cell index if enabled, otherwise one built for the batch) rather than down the tree, so the batch 
+	 * costs no traversals. Positions already in the tree keep their node (and so their live queue and element 
+	 * index entries), new positions get a node each, and every plane is enqueued in batch order. Positions left 
+	 * empty by earlier removes are dropped by the rebuild.
+	 * Run-time complexity: O((n + b)log(n + b)) (expected), b = batch size
+	 * @param xs x coordinate of each element (all within the cube)
+	 * @param ys y coordinate of each element
+	 * @param zs z coordinate of each element
+	 * @param elements planes to be added
+	 * @param from index of the first element still to be added
+	 */
+	private void mergeBatch(int[] xs, int[] ys, int[] zs, T[] elements, int from) {
+		TreeNode[] nodes = newNodeArray(subtreeSize(rootNode) + elements.length - from);
+		int count = collectSubtree(rootNode, nodes, 0);
+		CellIndex positions = cellIndex;
+		if (positions == null) {
+			positions = new CellIndex();
+			for (int i = 0; i < count; i++) {
+				positions.put(nodes[i]);
+			}
+		}
+		TreeNode last = null;
+		for (int i = from; i < elements.length; i++) {
+			if ((last == null) || !last.isEquals(xs[i], ys[i], zs[i])) {
+				last = positions.get(mortonKey(xs[i], ys[i], zs[i]));
+				if (last == null) {
+					last = new TreeNode(xs[i], ys[i], zs[i], null, null, null);
+					nodes[count++] = last;
+					positions.put(last);
+				}
+			}
+			enqueue(last, elements[i]);
+		}
+		nodes = Arrays.copyOf(nodes, count);
+		nodeCount = count;
+		int occupied = dropEmptyNodes(nodes);
+		rootNode = buildBalanced(nodes, 0, occupied - 1, 0);
+		maxNodeCount = nodeCount;
+		rebuildCount += 1;
+	}
+	
+	/**
+	 * Private helper method, finds the node holding a position by following its Morton key down the tree.
+	 * Run-time complexity: O(logn)
+	 * @param key Morton key of the position
+	 * @return the node at the position, null if the position is not in the tree
+	 */
+	private TreeNode findNode(long key) {
+		if (cellIndex != null) {
+			// O(1) expected
+			TreeNode found = cellIndex.get(key);
+			if (found != null) {
+				cellIndex.hits.increment();
+			} else {
+				cellIndex.misses.increment();
+			}
+			return found;
+		}
+		TreeNode node = rootNode;
+		int depth = 0;
+		//traverses tree - o(logn) time as the tree is kept alpha weight balanced
+		while (node != null) {
+			if (node.key == key) {
+				countTraversal(depth + 1);
+				return node;
+			}
+			long axisMask = AXIS_MASKS[depth % 3];
+			if ((key & axisMask) <= (node.key & axisMask)) {
+				node = node.leftNode;
+			} else {
+				node = node.rightNode;
+			}
+			depth += 1;
+		}
+		countTraversal(depth);
+		return null;
+	}
+	
+	/**
+	 * Gets the oldest element (plane) from specified position.
+	 * Run-time complexity: O(logn) (amortised, the tree is kept alpha weight balanced)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @throws IndexOutOfBoundsException
+	 * 
+	 */
+	@Override
+	public T get(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		int operation = startOperation();
+		TreeNode node = findNode(mortonKey(x, y, z));
+		//constant, gets oldest element
+		T found = (node == null) ? null : node.nodeQueue.peek();
+		endOperation(Operation.GET, operation);
+		return found;
+	}
+	
+	/**
+	 * Gets all the elements (in the form of an iterablequeue) at a specified position.
+	 * The queue is the position's live queue, so changing it changes the cube.
+	 * Run-time complexity: O(logn) (amortised, the tree is kept alpha weight balanced)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return the live queue of planes at the position, null if the position is not in the tree
+	 * @throws IndexOutOfBoundsException if coordinates are out of cube bounds
+	 */
+	@Override
+	public IterableQueue<T> getAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		int operation = startOperation();
+		TreeNode node = findNode(mortonKey(x, y, z));
+		endOperation(Operation.GET, operation);
+		if (node == null) {
+			return null;
+		}
+		//constant
+		return node.nodeQueue;
+	}
+	
+	/**
+	 * Visits every plane at a specified position, oldest first. Nothing is allocated.
+	 * Run-time complexity: O(logn + q) (amortised, the tree is kept alpha weight balanced)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param visitor called for each plane at the position
+	 * @throws IndexOutOfBoundsException if coordinates are out of cube bounds
+	 */
+	@Override
+	public void forEachAt(int x, int y, int z, CellVisitor<? super T> visitor) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		int operation = startOperation();
+		TreeNode node = findNode(mortonKey(x, y, z));
+		if (node != null) {
+			visitQueue(node, visitor);
+		}
+		endOperation(Operation.GET, operation);
+	}
+	
+	/**
+	 * Determines if there are multiple elements at a particular position.
+	 * Run-time complexity: O(logn) (amortised, the tree is kept alpha weight balanced)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return true if multiple elements at position, false if 0 or 1 elements at position
+	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 */
+	@Override
+	public boolean isMultipleElementsAt(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		int operation = startOperation();
+		TreeNode node = findNode(mortonKey(x, y, z));
+		endOperation(Operation.GET, operation);
+		//constant query
+		return (node != null) && (node.nodeQueue.size() > 1);
+	}
+		
+	/**
+	 * Removes element/plane from specified position in cube
+	 * Run-time complexity: O(logn) (amortised, the tree is kept alpha weight balanced)
+	 * 						NOTE: We then search through at worst q elements in the queue at the position as well, 
+	 * 							  which is O(q) complexity. 
+	 * If this was the last plane at the position, the position is deleted from the tree.
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param element plane to be removed
+	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 * @return true if removed correctly, false if not
+	 */
+	@Override
+	public boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		int operation = startOperation();
+		TreeNode node = findNode(mortonKey(x, y, z));
+		boolean removed = (node != null) && removeFromQueue(node, element);
+		if (removed && (node.nodeQueue.size() == 0)) {
+			// last plane at this position => remove the position from the tree
+			deleteNode(node);
+		}
+		endOperation(Operation.REMOVE, operation);
+		return removed;
+	}
+	
+	/**
+	 * Private helper method, removes the first plane in a node's queue with the element's hash code.
+	 * Run-time complexity: O(q)
+	 * @param node the node
+	 * @param element plane to be removed
+	 * @return true if a plane was removed
+	 */
+	private boolean removeFromQueue(TreeNode node, T element) {
+		Iterator<T> nodeIterator = node.nodeQueue.iterator();
+		//at worst O(q) time complexity
+		while (nodeIterator.hasNext()) {
+			T nodeElement = nodeIterator.next();
+			if (nodeElement.hashCode() == element.hashCode()) {
+				nodeIterator.remove();
+				elementRemoved(nodeElement);
+				return true; 
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Removes all planes from a specified position in cube
+	 * Run-time complexity: O(logn) (amortised, the tree is kept alpha weight balanced)
+	 * 						NOTE: We then search through q elements in the queue at the found position as well, 
+	 * 							  which is O(q) complexity. 
+	 * The (now empty) position is then deleted from the tree.
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 */
+	@Override
+	public void removeAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		int operation = startOperation();
+		TreeNode node = findNode(mortonKey(x, y, z));
+		if (node != null) {
+			//O(q) time complexity
+			while (node.nodeQueue.size() > 0) {
+				elementRemoved(node.nodeQueue.dequeue());
+			}
+			// position is now empty => remove it from the tree
+			deleteNode(node);
+		}
+		endOperation(Operation.REMOVE, operation);
+	}
+	
+	/**
+	 * Moves an element (plane) from one position to another, as remove followed by add in one call.
+	 * The walk down to the old position also narrows the region of the cube routed through each node. 
+	 * When the plane is alone at its old position, the new position lies in the same region and is empty, 
+	 * and the node is a leaf (or the move keeps its splitting coordinate), the node is simply given the 
+	 * new coordinates: a short move costs one traversal, with no unlink, rebalancing or new node.
+	 * Run-time complexity: O(logn + q), amortised
+	 * @param element plane to be moved (matched by hash code, as in remove)
+	 * @param fromX x coordinate of the old position
+	 * @param fromY y coordinate of the old position
+	 * @param fromZ z coordinate of the old position
+	 * @param toX x coordinate of the new position
+	 * @param toY y coordinate of the new position
+	 * @param toZ z coordinate of the new position
+	 * @return true if the plane was moved, false if it was not at the old position (nothing changes)
+	 * @throws IndexOutOfBoundsException if either position is outside cube.
+	 */
+	@Override
+	public boolean move(T element, int fromX, int fromY, int fromZ, int toX, int toY, int toZ) 
+			throws IndexOutOfBoundsException {
+		indexBoundException(fromX, fromY, fromZ);
+		indexBoundException(toX, toY, toZ);
+		int operation = startOperation();
+		boolean moved = moveChecked(element, fromX, fromY, fromZ, toX, toY, toZ);
+		endOperation(Operation.MOVE, operation);
+		return moved;
+	}
+	
+	/**
+	 * Private helper method, moves a plane between two positions already checked to be inside the cube 
+	 * (see move).
+	 * Run-time complexity: O(logn + q), amortised
+	 * @param element plane to be moved
+	 * @param fromX x coordinate of the old position
+	 * @param fromY y coordinate of the old position
+	 * @param fromZ z coordinate of the old position
+	 * @param toX x coordinate of the new position
+	 * @param toY y coordinate of the new position
+	 * @param toZ z coordinate of the new position
+	 * @return true if the plane was moved
+	 */
+	private boolean moveChecked(T element, int fromX, int fromY, int fromZ, int toX, int toY, int toZ) {
+		long fromKey = mortonKey(fromX, fromY, fromZ);
+		long toKey = mortonKey(toX, toY, toZ);
+		int lowX = 0;
+		int lowY = 0;
+		int lowZ = 0;
+		int highX = cubeLength - 1;
+		int highY = cubeBreadth - 1;
+		int highZ = cubeHeight - 1;
+		TreeNode node = rootNode;
+		int depth = 0;
+		while ((node != null) && (node.key != fromKey)) {
+			int split = splittingValue(node, depth);
+			boolean goLeft = getSplittingValueByDepth(fromX, fromY, fromZ, depth) <= split;
+			switch (depth % 3) {
+			case 0:
+				if (goLeft) {
+					highX = split;
+				} else {
+					lowX = split + 1;
+				}
+				break;
+			case 1:
+				if (goLeft) {
+					highY = split;
+				} else {
+					lowY = split + 1;
+				}
+				break;
+			default:
+				if (goLeft) {
+					highZ = split;
+				} else {
+					lowZ = split + 1;
+				}
+			}
+			node = goLeft ? node.leftNode : node.rightNode;
+			depth += 1;
+		}
+		countTraversal((node == null) ? depth : depth + 1);
+		if ((node == null) || (node.nodeQueue.size() == 0)) {
+			return false;
+		}
+		if (fromKey == toKey) {
+			TraversableQueue<T>.Node queueNode = node.nodeQueue.headNode();
+			for (int i = node.nodeQueue.size(); i > 0; i--) {
+				if (queueNode.nodeElement.hashCode() == element.hashCode()) {
+					return true;
+				}
+				queueNode = queueNode.nextNode;
+			}
+			return false;
+		}
+		
+		boolean inRegion = (toX >= lowX) && (toX <= highX) && (toY >= lowY) && (toY <= highY) 
+				&& (toZ >= lowZ) && (toZ <= highZ);
+		boolean keepsSplit = ((node.leftNode == null) && (node.rightNode == null)) 
+				|| (getSplittingValueByDepth(toX, toY, toZ, depth) == splittingValue(node, depth));
+		if (inRegion && keepsSplit && (node.nodeQueue.size() == 1) 
+				&& (node.nodeQueue.peek().hashCode() == element.hashCode()) && (findNode(toKey) == null)) {
+			// every traversal to the new position reaches this node, and its subtree stays ordered => relabel it
+			elementRemoved(node.nodeQueue.dequeue());
+			enqueue(node, element);
+			if (cellIndex != null) {
+				cellIndex.remove(fromKey);
+			}
+			node.x = toX;
+			node.y = toY;
+			node.z = toZ;
+			node.key = toKey;
+			if (cellIndex != null) {
+				cellIndex.put(node);
+			}
+			return true;
+		}
+		if (!removeFromQueue(node, element)) {
+			return false;
+		}
+		if (node.nodeQueue.size() == 0) {
+			deleteNode(node);
+		}
+		addUnchecked(toX, toY, toZ, element);
+		return true;
+	}
+	
+	/**
+	 * Gets all the planes inside an axis aligned box (see forEachInRange).
+	 * Run-time complexity: O(n^(2/3) + k) for a balanced tree, k = number of positions in the box
+	 * @param minX lowest x coordinate
+	 * @param minY lowest y coordinate
+	 * @param minZ lowest z coordinate
+	 * @param maxX highest x coordinate
+	 * @param maxY highest y coordinate
+	 * @param maxZ highest z coordinate
+	 * @return queue of every plane in the box, empty if there are none
+	 * @throws IndexOutOfBoundsException if either corner is outside cube.
+	 * @throws IllegalArgumentException if a minimum is greater than its maximum.
+	 */
+	@Override
+	public IterableQueue<T> getRange(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) 
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		IterableQueue<T> found = new TraversableQueue<T>();
+		forEachInRange(minX, minY, minZ, maxX, maxY, maxZ, CubeSupport.enqueueInto(found));
+		return found;
+	}
+	
+	/**
+	 * Visits every plane inside an axis aligned box along with its position.
+	 * Subtrees are skipped whenever the box lies entirely on one side of a node's splitting plane.
+	 * Run-time complexity: O(n^(2/3) + k) for a balanced tree, k = number of positions in the box
+	 * @param minX lowest x coordinate
+	 * @param minY lowest y coordinate
+	 * @param minZ lowest z coordinate
+	 * @param maxX highest x coordinate
+	 * @param maxY highest y coordinate
+	 * @param maxZ highest z coordinate
+	 * @param visitor called for each plane in the box
+	 * @throws IndexOutOfBoundsException if either corner is outside cube.
+	 * @throws IllegalArgumentException if a minimum is greater than its maximum.
+	 */
+	@Override
+	public void forEachInRange(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, CellVisitor<? super T> visitor) 
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		indexBoundException(minX, minY, minZ);
+		indexBoundException(maxX, maxY, maxZ);
+		if ((minX > maxX) || (minY > maxY) || (minZ > maxZ)) {
+			throw new IllegalArgumentException();
+		}
+		int operation = startOperation();
+		countTraversal(rangeSearch(rootNode, 0, minX, minY, minZ, maxX, maxY, maxZ, visitor));
+		endOperation(Operation.RANGE, operation);
+	}
+	
+	/**
+	 * Private helper method, visits every plane in a box below (and including) a node.
+	 * @param node root of the subtree to search
+	 * @param depth depth of the node
+	 * @param minX lowest x coordinate
+	 * @param minY lowest y coordinate
+	 * @param minZ lowest z coordinate
+	 * @param maxX highest x coordinate
+	 * @param maxY highest y coordinate
+	 * @param maxZ highest z coordinate
+	 * @param visitor called for each plane in the box
+	 * @return number of nodes visited
+	 */
+	private int rangeSearch(TreeNode node, int depth, int minX, int minY, int minZ, 
+			int maxX, int maxY, int maxZ, CellVisitor<? super T> visitor) {
+		int visited = 0;
+		while (node != null) {
+			visited += 1;
+			if ((node.x >= minX) && (node.x <= maxX) && (node.y >= minY) && (node.y <= maxY) 
+					&& (node.z >= minZ) && (node.z <= maxZ)) {
+				visitQueue(node, visitor);
+			}
+			int treeNodeCompareValue = splittingValue(node, depth);
+			boolean searchLeft = getSplittingValueByDepth(minX, minY, minZ, depth) <= treeNodeCompareValue;
+			boolean searchRight = getSplittingValueByDepth(maxX, maxY, maxZ, depth) > treeNodeCompareValue;
+			depth += 1;
+			if (searchLeft && searchRight) {
+				// box straddles the splitting plane, search left recursively and continue down the right
+				visited += rangeSearch(node.leftNode, depth, minX, minY, minZ, maxX, maxY, maxZ, visitor);
+				node = node.rightNode;
+			} else if (searchLeft) {
+				node = node.leftNode;
+			} else {
+				node = node.rightNode;
+			}
+		}
+		return visited;
+	}
+	
+	/**
+	 * Private helper method, visits every plane queued at a node.
+	 * Run-time complexity: O(q)
+	 * @param node the node
+	 * @param visitor called for each plane at the node
+	 */
+	private void visitQueue(TreeNode node, CellVisitor<? super T> visitor) {
+		node.nodeQueue.visitAll(node.x, node.y, node.z, visitor);
+	}
+	
+	/**
+	 * Gets the planes in the k positions closest to a point, nearest position first (see the visitor form).
+	 * Run-time complexity: O(klogk + logn) (expected, for a balanced tree and evenly spread positions)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param k number of occupied positions to return
+	 * @return queue of every plane held in the k nearest occupied positions, nearest first
+	 * @throws IndexOutOfBoundsException if coordinates are outside cube.
+	 * @throws IllegalArgumentException if k is not positive.
+	 */
+	public IterableQueue<T> nearest(int x, int y, int z, int k) 
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		IterableQueue<T> found = new TraversableQueue<T>();
+		nearest(x, y, z, k, CubeSupport.enqueueInto(found));
+		return found;
+	}
+	
+	/**
+	 * Visits the planes in the k occupied positions closest (Euclidean distance) to a point, nearest position first. 
+	 * Candidates are kept in a bounded max heap; a subtree on the far side of a splitting plane is only searched 
+	 * if the plane is closer than the k'th best position found so far (branch and bound). The heap is kept 
+	 * and reused by the next query, so repeated queries allocate nothing. The heap never holds more than the number
+	 * of positions in the tree, so a k far larger than the tree costs no more than k = n.
+	 * Run-time complexity: O(klogk + logn) (expected, for a balanced tree and evenly spread positions)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param k number of occupied positions to visit
+	 * @param visitor called for each plane in the k nearest positions
+	 * @throws IndexOutOfBoundsException if coordinates are outside cube.
+	 * @throws IllegalArgumentException if k is not positive.
+	 */
+	public void nearest(int x, int y, int z, int k, CellVisitor<? super T> visitor) 
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		indexBoundException(x, y, z);
+		if (k <= 0) {
+			throw new IllegalArgumentException();
+		}
+		int operation = startOperation();
+		if (nodeCount == 0) {
+			endOperation(Operation.NEAREST, operation);
+			return;
+		}
+		// there are never more than nodeCount positions to keep
+		int limit = Math.min(k, nodeCount);
+		// take the spare heap while in use, so a visitor calling back into nearest gets its own
+		NeighbourHeap heap = spareHeap;
+		spareHeap = null;
+		if ((heap == null) || (heap.nodes.length < limit)) {
+			heap = new NeighbourHeap(limit);
+		}
+		heap.reset(limit);
+		countTraversal(nearestSearch(rootNode, 0, x, y, z, heap));
+		int found = heap.sortNearestFirst();
+		for (int i = 0; i < found; i++) {
+			visitQueue(heap.nodes[i], visitor);
+		}
+		heap.release(found);
+		if (heap.nodes.length <= MAX_SPARE_HEAP) {
+			spareHeap = heap;
+		}
+		endOperation(Operation.NEAREST, operation);
+	}
+	
+	/**
+	 * Private helper method, offers every occupied position below a node to the heap, 
+	 * skipping far subtrees that cannot hold anything closer than the heap's current worst.
+	 * @param node root of the subtree to search
+	 * @param depth depth of the node
+	 * @param x x coordinate of the query point
+	 * @param y y coordinate of the query point
+	 * @param z z coordinate of the query point
+	 * @param heap the k best positions found so far
+	 * @return number of nodes visited
+	 */
+	private int nearestSearch(TreeNode node, int depth, int x, int y, int z, NeighbourHeap heap) {
+		if (node == null) {
+			return 0;
+		}
+		if (node.nodeQueue.size() > 0) {
+			heap.offer(node, squaredDistance(node, x, y, z));
+		}
+		int treeNodeCompareValue = splittingValue(node, depth);
+		int inputCompareValue = getSplittingValueByDepth(x, y, z, depth);
+		TreeNode nearSide;
+		TreeNode farSide;
+		long planeDistance;
+		if (inputCompareValue <= treeNodeCompareValue) {
+			nearSide = node.leftNode;
+			farSide = node.rightNode;
+			// everything right of the plane is strictly greater than the splitting value
+			planeDistance = (long) treeNodeCompareValue + 1 - inputCompareValue;
+		} else {
+			nearSide = node.rightNode;
+			farSide = node.leftNode;
+			planeDistance = (long) inputCompareValue - treeNodeCompareValue;
+		}
+		int visited = 1 + nearestSearch(nearSide, depth + 1, x, y, z, heap);
+		if (!heap.isFull() || (planeDistance * planeDistance < heap.worstDistance())) {
+			visited += nearestSearch(farSide, depth + 1, x, y, z, heap);
+		}
+		return visited;
+	}
+	
+	/**
+	 * Private helper method, squared Euclidean distance from a node to a point.
+	 * @param node the node
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return squared distance
+	 */
+	private long squaredDistance(TreeNode node, int x, int y, int z) {
+		long dx = (long) node.x - x;
+		long dy = (long) node.y - y;
+		long dz = (long) node.z - z;
+		return (dx * dx) + (dy * dy) + (dz * dz);
+	}
+	
+	/**
+	 * Bounded max heap of the k closest nodes found so far (furthest of them at the top).
+	 * @author Peter Baldry
+	 */
+	private class NeighbourHeap {
+		TreeNode[] nodes;
+		long[] distances;
+		int size = 0;
+		int limit;
+		
+		/**
+		 * NeighbourHeap constructor
+		 * @param capacity most nodes the heap can be asked to keep
+		 */
+		public NeighbourHeap(int capacity) {
+			nodes = newNodeArray(capacity);
+			distances = new long[capacity];
+			limit = capacity;
+		}
+		
+		/**
+		 * Empties the heap, ready to keep the k closest nodes of a new query.
+		 * Run-time complexity: O(1)
+		 * @param k number of nodes to keep, at most the capacity
+		 */
+		public void reset(int k) {
+			size = 0;
+			limit = k;
+		}
+		
+		/**
+		 * Run-time complexity: O(1)
+		 * @return true if the heap holds k nodes
+		 */
+		public boolean isFull() {
+			return size == limit;
+		}
+		
+		/**
+		 * Run-time complexity: O(1)
+		 * @return squared distance of the furthest node kept
+		 */
+		public long worstDistance() {
+			return distances[0];
+		}
+		
+		/**
+		 * Keeps a node if the heap is not yet full or it is closer than the furthest node kept.
+		 * Run-time complexity: O(logk)
+		 * @param node the candidate node
+		 * @param distance squared distance of the candidate
+		 */
+		public void offer(TreeNode node, long distance) {
+			if (size < limit) {
+				// sift up from the new last slot
+				int child = size++;
+				while (child > 0) {
+					int parent = (child - 1) / 2;
+					if (distances[parent] >= distance) {
+						break;
+					}
+					nodes[child] = nodes[parent];
+					distances[child] = distances[parent];
+					child = parent;
+				}
+				nodes[child] = node;
+				distances[child] = distance;
+			} else if (distance < distances[0]) {
+				siftDown(node, distance, size);
+			}
+		}
+		
+		/**
+		 * Places a node at the top of the heap and sifts it down into the first 'limit' slots.
+		 * Run-time complexity: O(logk)
+		 * @param node the node
+		 * @param distance squared distance of the node
+		 * @param limit number of heap slots in use
+		 */
+		private void siftDown(TreeNode node, long distance, int limit) {
+			int parent = 0;
+			while (true) {
+				int child = (2 * parent) + 1;
+				if (child >= limit) {
+					break;
+				}
+				if ((child + 1 < limit) && (distances[child + 1] > distances[child])) {
+					child += 1;
+				}
+				if (distances[child] <= distance) {
+					break;
+				}
+				nodes[parent] = nodes[child];
+				distances[parent] = distances[child];
+				parent = child;
+			}
+			nodes[parent] = node;
+			distances[parent] = distance;
+		}
+		
+		/**
+		 * Empties the heap by heap sorting it in place: the furthest node left is swapped to the end each step, 
+		 * leaving the nodes kept in nodes[0..count-1] ordered nearest first.
+		 * Run-time complexity: O(klogk)
+		 * @return count, the number of nodes kept
+		 */
+		public int sortNearestFirst() {
+			int count = size;
+			while (size > 0) {
+				TreeNode furthest = nodes[0];
+				long furthestDistance = distances[0];
+				size -= 1;
+				siftDown(nodes[size], distances[size], size);
+				nodes[size] = furthest;
+				distances[size] = furthestDistance;
+			}
+			return count;
+		}
+		
+		/**
+		 * Drops the heap's references to the nodes of the last query, so a kept heap does not hold 
+		 * deleted nodes in memory.
+		 * Run-time complexity: O(k)
+		 * @param count number of slots used by the last query
+		 */
+		public void release(int count) {
+			Arrays.fill(nodes, 0, count, null);
+		}
+	}
+	
+	/**
+	 * Gets the planes in every position within a (Euclidean) radius of a point (see the visitor form).
+	 * Run-time complexity: O(n^(2/3) + k) for a balanced tree, k = number of positions in the sphere
+	 * @param x x coordinate of the centre
+	 * @param y y coordinate of the centre
+	 * @param z z coordinate of the centre
+	 * @param radius the radius, in cells
+	 * @return queue of every plane within the radius, empty if there are none
+	 * @throws IndexOutOfBoundsException if the centre is outside cube.
+	 * @throws IllegalArgumentException if radius is negative.
+	 */
+	public IterableQueue<T> withinRadius(int x, int y, int z, int radius) 
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		IterableQueue<T> found = new TraversableQueue<T>();
+		withinRadius(x, y, z, radius, CubeSupport.enqueueInto(found));
+		return found;
+	}
+	
+	/**
+	 * Visits every plane whose position is within a (Euclidean) radius of a point, eg. for separation 
+	 * minimum checks. Subtrees whose splitting plane is further than the radius away are skipped, and 
+	 * nothing is allocated while searching.
+	 * Run-time complexity: O(n^(2/3) + k) for a balanced tree, k = number of positions in the sphere
+	 * @param x x coordinate of the centre
+	 * @param y y coordinate of the centre
+	 * @param z z coordinate of the centre
+	 * @param radius the radius, in cells
+	 * @param visitor called for each plane within the radius
+	 * @throws IndexOutOfBoundsException if the centre is outside cube.
+	 * @throws IllegalArgumentException if radius is negative.
+	 */
+	public void withinRadius(int x, int y, int z, int radius, CellVisitor<? super T> visitor) 
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		indexBoundException(x, y, z);
+		if (radius < 0) {
+			throw new IllegalArgumentException();
+		}
+		int operation = startOperation();
+		countTraversal(radiusSearch(rootNode, 0, x, y, z, (long) radius * radius, visitor));
+		endOperation(Operation.RADIUS, operation);
+	}
+	
+	/**
+	 * Private helper method, visits every plane within a squared distance of a point below a node.
+	 * @param node root of the subtree to search
+	 * @param depth depth of the node
+	 * @param x x coordinate of the centre
+	 * @param y y coordinate of the centre
+	 * @param z z coordinate of the centre
+	 * @param squaredRadius the radius squared
+	 * @param visitor called for each plane within the radius
+	 * @return number of nodes visited
+	 */
+	private int radiusSearch(TreeNode node, int depth, int x, int y, int z, long squaredRadius, 
+			CellVisitor<? super T> visitor) {
+		int visited = 0;
+		while (node != null) {
+			visited += 1;
+			if (squaredDistance(node, x, y, z) <= squaredRadius) {
+				visitQueue(node, visitor);
+			}
+			int treeNodeCompareValue = splittingValue(node, depth);
+			int inputCompareValue = getSplittingValueByDepth(x, y, z, depth);
+			// distance from the centre to the nearest position on the other side of the splitting plane
+			long planeDistance;
+			TreeNode nearSide;
+			TreeNode farSide;
+			if (inputCompareValue <= treeNodeCompareValue) {
+				nearSide = node.leftNode;
+				farSide = node.rightNode;
+				planeDistance = (long) treeNodeCompareValue + 1 - inputCompareValue;
+			} else {
+				nearSide = node.rightNode;
+				farSide = node.leftNode;
+				planeDistance = (long) inputCompareValue - treeNodeCompareValue;
+			}
+			depth += 1;
+			if (planeDistance * planeDistance <= squaredRadius) {
+				visited += radiusSearch(farSide, depth, x, y, z, squaredRadius, visitor);
+			}
+			node = nearSide;
+		}
+		return visited;
+	}
+	
+	/**
+	 * Gets all the planes inside an axis aligned box, splitting the search across a ForkJoinPool: where the box 
+	 * straddles a node's splitting plane the two subtrees are searched as separate tasks, down to subtrees of 
+	 * about PARALLEL_THRESHOLD nodes, which are searched sequentially. Each task gathers its own queue and the 
+	 * queues are spliced together in O(1) as tasks join, so results come back in the same order as getRange.
+	 * The cube must not be changed while the query runs.
+	 * Run-time complexity: O(n^(2/3) + k) work for a balanced tree, k = number of positions in the box
+	 * @param minX lowest x coordinate
+	 * @param minY lowest y coordinate
+	 * @param minZ lowest z coordinate
+	 * @param maxX highest x coordinate
+	 * @param maxY highest y coordinate
+	 * @param maxZ highest z coordinate
+	 * @param pool the pool to run the search in
+	 * @return queue of every plane in the box, empty if there are none
+	 * @throws IndexOutOfBoundsException if either corner is outside cube.
+	 * @throws IllegalArgumentException if a minimum is greater than its maximum.
+	 */
+	public IterableQueue<T> getRange(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, ForkJoinPool pool) 
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		indexBoundException(minX, minY, minZ);
+		indexBoundException(maxX, maxY, maxZ);
+		if ((minX > maxX) || (minY > maxY) || (minZ > maxZ)) {
+			throw new IllegalArgumentException();
+		}
+		return pool.invoke(new QueryTask(rootNode, 0, parallelDepth(), minX, minY, minZ, maxX, maxY, maxZ, 0, 0, 0, -1));
+	}
+	
+	/**
+	 * Gets the planes in every position within a (Euclidean) radius of a point, splitting the search across 
+	 * a ForkJoinPool (see the parallel getRange). Results come back in the same order as withinRadius.
+	 * The cube must not be changed while the query runs.
+	 * Run-time complexity: O(n^(2/3) + k) work for a balanced tree, k = number of positions in the sphere
+	 * @param x x coordinate of the centre
+	 * @param y y coordinate of the centre
+	 * @param z z coordinate of the centre
+	 * @param radius the radius, in cells
+	 * @param pool the pool to run the search in
+	 * @return queue of every plane within the radius, empty if there are none
+	 * @throws IndexOutOfBoundsException if the centre is outside cube.
+	 * @throws IllegalArgumentException if radius is negative.
+	 */
+	public IterableQueue<T> withinRadius(int x, int y, int z, int radius, ForkJoinPool pool) 
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		indexBoundException(x, y, z);
+		if (radius < 0) {
+			throw new IllegalArgumentException();
+		}
+		return pool.invoke(new QueryTask(rootNode, 0, parallelDepth(), 0, 0, 0, 0, 0, 0, x, y, z, (long) radius * radius));
+	}
+	
+	/**
+	 * Private helper method, depth above which parallel queries fork: the tree is kept alpha weight balanced, 
+	 * so a subtree at this depth holds about PARALLEL_THRESHOLD nodes.
+	 * @return depth at which tasks stop forking
+	 */
+	private int parallelDepth() {
+		int depth = 0;
+		for (int size = nodeCount; size > PARALLEL_THRESHOLD; size /= 2) {
+			depth += 1;
+		}
+		return depth;
+	}
+	
+	/**
+	 * Private inner class, a box query (squaredRadius negative) or radius query over one subtree, 
+	 * forking its two subtrees while above the fork depth.
+	 * @author Peter Baldry
+	 */
+	private class QueryTask extends RecursiveTask<TraversableQueue<T>> {
+		private static final long serialVersionUID = 1L;
+		private final TreeNode node;
+		private final int depth;
+		private final int forkDepth;
+		private final int minX;
+		private final int minY;
+		private final int minZ;
+		private final int maxX;
+		private final int maxY;
+		private final int maxZ;
+		private final int x;
+		private final int y;
+		private final int z;
+		private final long squaredRadius;
+		
+		/**
+		 * QueryTask constructor
+		 * @param node root of the subtree to search
+		 * @param depth depth of the node
+		 * @param forkDepth depth from which the subtree is searched sequentially
+		 * @param minX lowest x coordinate of the box
+		 * @param minY lowest y coordinate of the box
+		 * @param minZ lowest z coordinate of the box
+		 * @param maxX highest x coordinate of the box
+		 * @param maxY highest y coordinate of the box
+		 * @param maxZ highest z coordinate of the box
+		 * @param x x coordinate of the centre
+		 * @param y y coordinate of the centre
+		 * @param z z coordinate of the centre
+		 * @param squaredRadius the radius squared, negative for a box query
+		 */
+		public QueryTask(TreeNode node, int depth, int forkDepth, int minX, int minY, int minZ, 
+				int maxX, int maxY, int maxZ, int x, int y, int z, long squaredRadius) {
+			this.node = node;
+			this.depth = depth;
+			this.forkDepth = forkDepth;
+			this.minX = minX;
+			this.minY = minY;
+			this.minZ = minZ;
+			this.maxX = maxX;
+			this.maxY = maxY;
+			this.maxZ = maxZ;
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.squaredRadius = squaredRadius;
+		}
+		
+		/**
+		 * Private helper method, a task for one child of this task's node.
+		 * @param child the child
+		 * @return the task
+		 */
+		private QueryTask childTask(TreeNode child) {
+			return new QueryTask(child, depth + 1, forkDepth, minX, minY, minZ, maxX, maxY, maxZ, x, y, z, squaredRadius);
+		}
+		
+		/**
+		 * Searches the subtree, visiting its subtrees in the same order as the sequential search.
+		 * @return queue of the planes found
+		 */
+		@Override
+		protected TraversableQueue<T> compute() {
+			final TraversableQueue<T> found = new TraversableQueue<T>();
+			CellVisitor<T> collector = CubeSupport.enqueueInto(found);
+			if ((node == null) || (depth >= forkDepth)) {
+				if (squaredRadius < 0) {
+					rangeSearch(node, depth, minX, minY, minZ, maxX, maxY, maxZ, collector);
+				} else {
+					radiusSearch(node, depth, x, y, z, squaredRadius, collector);
+				}
+				return found;
+			}
+			TreeNode first = null;
+			TreeNode second = null;
+			int treeNodeCompareValue = splittingValue(node, depth);
+			if (squaredRadius < 0) {
+				if ((node.x >= minX) && (node.x <= maxX) && (node.y >= minY) && (node.y <= maxY) 
+						&& (node.z >= minZ) && (node.z <= maxZ)) {
+					visitQueue(node, collector);
+				}
+				if (getSplittingValueByDepth(minX, minY, minZ, depth) <= treeNodeCompareValue) {
+					first = node.leftNode;
+				}
+				if (getSplittingValueByDepth(maxX, maxY, maxZ, depth) > treeNodeCompareValue) {
+					second = node.rightNode;
+				}
+			} else {
+				if (squaredDistance(node, x, y, z) <= squaredRadius) {
+					visitQueue(node, collector);
+				}
+				int inputCompareValue = getSplittingValueByDepth(x, y, z, depth);
+				long planeDistance;
+				if (inputCompareValue <= treeNodeCompareValue) {
+					second = node.leftNode;
+					first = node.rightNode;
+					planeDistance = (long) treeNodeCompareValue + 1 - inputCompareValue;
+				} else {
+					second = node.rightNode;
+					first = node.leftNode;
+					planeDistance = (long) inputCompareValue - treeNodeCompareValue;
+				}
+				if (planeDistance * planeDistance > squaredRadius) {
+					first = null;
+				}
+			}
+			if ((first != null) && (second != null)) {
+				QueryTask firstTask = childTask(first);
+				firstTask.fork();
+				TraversableQueue<T> secondFound = childTask(second).compute();
+				found.append(firstTask.join());
+				found.append(secondFound);
+			} else if (first != null) {
+				found.append(childTask(first).compute());
+			} else if (second != null) {
+				found.append(childTask(second).compute());
+			}
+			return found;
+		}
+	}
+	
+	/**
+	 * Visits every plane in the cube in Z-order (Morton key order) of their positions, which keeps 
+	 * consecutive positions spatially close (eg. for batching work by region).
+	 * Run-time complexity: O(nlogn + p)
+	 * @param visitor called for each plane, positions in Z-order and planes in queue order
+	 */
+	public void forEachInZOrder(CellVisitor<? super T> visitor) {
+		TreeNode[] nodes = newNodeArray(subtreeSize(rootNode));
+		collectSubtree(rootNode, nodes, 0);
+		Arrays.sort(nodes, new Comparator<TreeNode>() {
+			@Override
+			public int compare(TreeNode a, TreeNode b) {
+				return Long.compare(a.key, b.key);
+			}
+		});
+		for (int i = 0; i < nodes.length; i++) {
+			visitQueue(nodes[i], visitor);
+		}
+	}
+	
+	/**
+	 * Streams every occupied position in the cube. The cells handed out are the tree's own nodes, so 
+	 * enumerating allocates nothing per cell. A parallel stream splits the work along subtrees of the tree 
+	 * (see cellSpliterator). The cube must not be modified while the stream is in use.
+	 * Run-time complexity: O(n) to consume, n = number of occupied positions
+	 * @return a stream of the occupied cells, in no particular order
+	 */
+	public Stream<CubeCell<T>> cells() {
+		return StreamSupport.stream(cellSpliterator(), false);
+	}
+	
+	/**
+	 * Creates a spliterator over every occupied position in the cube. It splits by handing off whole subtrees, 
+	 * so with the tree kept balanced each split takes about half the remaining cells. It is not SIZED: the tree 
+	 * may hold empty positions (the initial root, or queues emptied through getAll) that are skipped, so the 
+	 * node count is only an estimate. The cube must not be modified while the spliterator is in use.
+	 * Run-time complexity: O(1)
+	 * @return a spliterator over the occupied cells
+	 */
+	public Spliterator<CubeCell<T>> cellSpliterator() {
+		return new CellSpliterator(rootNode, nodeCount);
+	}
+	
+	/**
+	 * Private inner class, walks a set of subtrees in preorder with an explicit stack, reporting only 
+	 * positions that hold planes. stack[base..top) holds the subtrees still to be walked and singles[0..singleCount) 
+	 * holds roots kept back by earlier splits, visited on their own before the stack. trySplit hands off the 
+	 * subtree at base (the last the walk would reach), or, when only one subtree is left, keeps back its root 
+	 * and hands off its left child.
+	 * @author Peter Baldry
+	 */
+	private class CellSpliterator implements Spliterator<CubeCell<T>> {
+		private TreeNode[] stack;
+		private int base;
+		private int top;
+		private TreeNode[] singles;
+		private int singleCount;
+		private long estimate;
+		
+		/**
+		 * CellSpliterator constructor
+		 * @param root root of the subtree to walk, may be null
+		 * @param estimate estimated number of nodes in the subtree
+		 */
+		public CellSpliterator(TreeNode root, long estimate) {
+			this.stack = newNodeArray(32);
+			this.singles = newNodeArray(8);
+			if (root != null) {
+				stack[top++] = root;
+			}
+			this.estimate = estimate;
+		}
+		
+		/**
+		 * Visits the next occupied cell, if any, skipping empty positions.
+		 * Run-time complexity: O(1) amortised
+		 */
+		@Override
+		public boolean tryAdvance(Consumer<? super CubeCell<T>> action) {
+			while (true) {
+				TreeNode node;
+				if (singleCount > 0) {
+					node = singles[--singleCount];
+				} else if (top > base) {
+					node = stack[--top];
+					if (top + 2 > stack.length) {
+						stack = Arrays.copyOf(stack, stack.length * 2);
+					}
+					if (node.rightNode != null) {
+						stack[top++] = node.rightNode;
+					}
+					if (node.leftNode != null) {
+						stack[top++] = node.leftNode;
+					}
+				} else {
+					return false;
+				}
+				if (estimate > 0) {
+					estimate--;
+				}
+				if (node.nodeQueue.size() > 0) {
+					action.accept(node);
+					return true;
+				}
+			}
+		}
+		
+		/**
+		 * Hands off a subtree to a new spliterator.
+		 * Run-time complexity: O(1), or O(h) to walk down a chain of single children, h = height of the tree
+		 * @return a spliterator over the subtree, null if nothing is left to split off
+		 */
+		@Override
+		public Spliterator<CubeCell<T>> trySplit() {
+			TreeNode split = null;
+			if (top - base >= 2) {
+				split = stack[base++];
+			}
+			while ((split == null) && (top - base == 1)) {
+				// one subtree left => keep back its root, split its children
+				TreeNode node = stack[base];
+				if (singleCount == singles.length) {
+					singles = Arrays.copyOf(singles, singles.length * 2);
+				}
+				singles[singleCount++] = node;
+				if ((node.leftNode != null) && (node.rightNode != null)) {
+					split = node.leftNode;
+					stack[base] = node.rightNode;
+				} else if (node.leftNode != null) {
+					stack[base] = node.leftNode;
+				} else if (node.rightNode != null) {
+					stack[base] = node.rightNode;
+				} else {
+					top--;
+				}
+			}
+			if (split == null) {
+				return null;
+			}
+			estimate >>>= 1;
+			return new CellSpliterator(split, estimate);
+		}
+		
+		/**
+		 * @return estimated number of cells left
+		 */
+		@Override
+		public long estimateSize() {
+			return estimate;
+		}
+		
+		/**
+		 * @return DISTINCT | NONNULL
+		 */
+		@Override
+		public int characteristics() {
+			return DISTINCT | NONNULL;
+		}
+	}
+	
+	/**
+	 * Starts maintaining a hash index from each position (its Morton key) to its tree node alongside the tree.
+	 * Exact position operations (get, getAll, isMultipleElementsAt, remove, removeAll) then find their node 
+	 * in O(1) expected time instead of walking down from the root; the tree is still used for adds and 
+	 * spatial queries. Does nothing if the index is already enabled.
+	 * Run-time complexity: O(n)
+	 */
+	public void enableCellIndex() {
+		if (cellIndex != null) {
+			return;
+		}
+		cellIndex = new CellIndex();
+		TreeNode[] nodes = newNodeArray(subtreeSize(rootNode));
+		collectSubtree(rootNode, nodes, 0);
+		for (int i = 0; i < nodes.length; i++) {
+			cellIndex.put(nodes[i]);
+		}
+	}
+	
+	/**
+	 * Stops maintaining the hash index (see enableCellIndex) and releases its memory.
+	 * Run-time complexity: O(1)
+	 */
+	public void disableCellIndex() {
+		cellIndex = null;
+	}
+	
+	/**
+	 * Run-time complexity: O(1)
+	 * @return true if the hash index is enabled
+	 */
+	public boolean isCellIndexEnabled() {
+		return cellIndex != null;
+	}
+	
+	/**
+	 * Number of index lookups that found a position (0 if the index is disabled).
+	 * Run-time complexity: O(1)
+	 * @return index hits since the index was enabled
+	 */
+	public long getCellIndexHits() {
+		return (cellIndex == null) ? 0 : cellIndex.hits.sum();
+	}
+	
+	/**
+	 * Number of index lookups for a position not held in the cube (0 if the index is disabled).
+	 * Run-time complexity: O(1)
+	 * @return index misses since the index was enabled
+	 */
+	public long getCellIndexMisses() {
+		return (cellIndex == null) ? 0 : cellIndex.misses.sum();
+	}
+	
+	/**
+	 * Approximate memory used by the hash index: a long key and a node reference per slot (0 if disabled).
+	 * Run-time complexity: O(1)
+	 * @return approximate size of the index in bytes
+	 */
+	public long getCellIndexMemoryBytes() {
+		return (cellIndex == null) ? 0 : cellIndex.memoryBytes();
+	}
+	
+	/**
+	 * Hash table from Morton key to tree node (see LongKeyTable), counting its hits and misses.
+	 * get only reads the table. Hits and misses are counted by findNode in LongAdders, so readers sharing 
+	 * the cube under a read lock (eg. AdaptiveCube) neither lose counts nor contend on one counter.
+	 * @author Peter Baldry
+	 */
+	private class CellIndex extends LongKeyTable<TreeNode> {
+		/* approx. JVM cost of one slot: 8 bytes of key plus a (possibly compressed) reference */
+		private static final int SLOT_BYTES = 8 + 8;
+		final LongAdder hits = new LongAdder();
+		final LongAdder misses = new LongAdder();
+		
+		/**
+		 * Indexes a node under its key (replacing any node with the same key). Clearing the index keeps the statistics.
+		 * Run-time complexity: amortised O(1) expected
+		 * @param node the node
+		 */
+		public void put(TreeNode node) {
+			put(node.key, node);
+		}
+		
+		/**
+		 * Run-time complexity: O(1)
+		 * @return approximate size of the table in bytes
+		 */
+		public long memoryBytes() {
+			return (long) capacity() * SLOT_BYTES;
+		}
+	}
+	
+	/**
+	 * Starts maintaining a reverse index from each plane (matched by equals, not just hash code) to its tree node 
+	 * and queue node, so locate(element) and remove(element) run in O(1) expected time without being told the 
+	 * position. Planes are indexed as they are added through the cube; planes enqueued directly onto a queue 
+	 * returned by getAll are not indexed. Does nothing if the index is already enabled.
+	 * Run-time complexity: O(n + p)
+	 */
+	public void enableElementIndex() {
+		if (elementIndex != null) {
+			return;
+		}
+		elementIndex = new ElementIndex();
+		TreeNode[] nodes = newNodeArray(subtreeSize(rootNode));
+		collectSubtree(rootNode, nodes, 0);
+		for (int i = 0; i < nodes.length; i++) {
+			TraversableQueue<T>.Node queueNode = nodes[i].nodeQueue.headNode();
+			for (int j = nodes[i].nodeQueue.size(); j > 0; j--) {
+				elementIndex.put(nodes[i], queueNode);
+				queueNode = queueNode.nextNode;
+			}
+		}
+	}
+	
+	/**
+	 * Stops maintaining the element index (see enableElementIndex) and releases its memory.
+	 * Run-time complexity: O(1)
+	 */
+	public void disableElementIndex() {
+		elementIndex = null;
+	}
+	
+	/**
+	 * Run-time complexity: O(1)
+	 * @return true if the element index is enabled
+	 */
+	public boolean isElementIndexEnabled() {
+		return elementIndex != null;
+	}
+	
+	/**
+	 * Approximate memory used by the element index: a bucket reference per slot and one entry per plane 
+	 * (0 if disabled). The backward link each queue node carries for O(1) unlinking is not included, 
+	 * as every queue pays it whether or not the index is enabled.
+	 * Run-time complexity: O(1)
+	 * @return approximate size of the index in bytes
+	 */
+	public long getElementIndexMemoryBytes() {
+		return (elementIndex == null) ? 0 : elementIndex.memoryBytes();
+	}
+	
+	/**
+	 * Starts recording metrics for every add, get, getAll, forEachAt, isMultipleElementsAt, remove, removeAll, 
+	 * move, range, nearest and radius query: a latency histogram and a histogram of tree nodes visited per 
+	 * kind of operation (see CubeMetrics). Bulk loads, addAll and the parallel queries are not recorded. 
+	 * While disabled each operation pays only a null check. Does nothing if metrics are already enabled.
+	 * Run-time complexity: O(1)
+	 */
+	public void enableMetrics() {
+		if (metrics == null) {
+			metrics = new CubeMetrics();
+			operationStarts = new long[4];
+			enclosingNodes = new int[4];
+			operationDepth = 0;
+		}
+	}
+	
+	/**
+	 * Stops recording metrics and discards those recorded.
+	 * Run-time complexity: O(1)
+	 */
+	public void disableMetrics() {
+		metrics = null;
+		operationStarts = null;
+		enclosingNodes = null;
+	}
+	
+	/**
+	 * Run-time complexity: O(1)
+	 * @return true if metrics are being recorded
+	 */
+	public boolean isMetricsEnabled() {
+		return metrics != null;
+	}
+	
+	/**
+	 * Copies the metrics recorded since they were enabled.
+	 * Run-time complexity: O(1) (a fixed number of histograms are copied)
+	 * @return a snapshot of the metrics, unaffected by later operations, null if metrics are disabled
+	 */
+	public CubeMetrics getMetrics() {
+		return (metrics == null) ? null : metrics.snapshot();
+	}
+	
+	/**
+	 * Private helper method, starts timing an operation if metrics are enabled, saving its start time and the
+	 * value of traversedNodes it was started with. Operations run from a visitor (eg. nearest inside nearest) 
+	 * are saved above the operation they were called from.
+	 * Run-time complexity: O(1) (amortised, the saved operations only grow with the nesting depth)
+	 * @return the saved operation, to be passed to endOperation, 0 if metrics are disabled
+	 */
+	private int startOperation() {
+		if (metrics == null) {
+			return 0;
+		}
+		if (operationDepth + 1 >= operationStarts.length) {
+			operationStarts = Arrays.copyOf(operationStarts, operationStarts.length * 2);
+			enclosingNodes = Arrays.copyOf(enclosingNodes, enclosingNodes.length * 2);
+		}
+		operationDepth += 1;
+		operationStarts[operationDepth] = System.nanoTime();
+		enclosingNodes[operationDepth] = traversedNodes;
+		return operationDepth;
+	}
+	
+	/**
+	 * Private helper method, records an operation started by startOperation if metrics are enabled.
+	 * Nodes visited are counted from the value traversedNodes had when the operation started, which is then 
+	 * restored: an operation run from a visitor counts only its own nodes, and leaves the count of the 
+	 * operation it was called from as it was. Any operations saved above this one (left by a visitor that 
+	 * threw) are discarded. Operations started before metrics were enabled are not recorded.
+	 * Run-time complexity: O(1)
+	 * @param kind the kind of operation
+	 * @param operation the value returned by startOperation
+	 */
+	private void endOperation(Operation kind, int operation) {
+		if ((metrics == null) || (operation == 0) || (operation > operationDepth)) {
+			return;
+		}
+		metrics.record(kind, System.nanoTime() - operationStarts[operation], 
+				traversedNodes - enclosingNodes[operation]);
+		traversedNodes = enclosingNodes[operation];
+		operationDepth = operation - 1;
+	}
+	
+	/**
+	 * Private helper method, adds to the count of tree nodes visited by the current operation.
+	 * Run-time complexity: O(1)
+	 * @param nodes number of nodes visited
+	 */
+	private void countTraversal(int nodes) {
+		if (metrics != null) {
+			traversedNodes += nodes;
+		}
+	}
+	
+	/**
+	 * Finds the position of a plane without being told where it is.
+	 * Run-time complexity: O(1) expected with the element index, otherwise O(n + p)
+	 * @param element plane to look for (matched by equals)
+	 * @return the plane's position and the stored plane, null if the plane is not in the cube 
+	 * 		   (if an equal plane is held more than once, any one of them)
+	 */
+	public Entry<T> locate(T element) {
+		ElementEntry found = findElement(element);
+		if (found == null) {
+			return null;
+		}
+		return new Entry<T>(found.node.x, found.node.y, found.node.z, found.queueNode.nodeElement);
+	}
+	
+	/**
+	 * Removes a plane without being told its position. 
+	 * If this was the last plane at the position, the position is deleted from the tree.
+	 * Run-time complexity: O(1) expected with the element index (plus amortised O(logn) if the position 
+	 * 						is deleted), otherwise O(n + p)
+	 * @param element plane to be removed (matched by equals; if held more than once, any one of them)
+	 * @return true if removed, false if the plane is not in the cube
+	 */
+	public boolean remove(T element) {
+		ElementEntry found = findElement(element);
+		if (found == null) {
+			return false;
+		}
+		found.node.nodeQueue.unlinkNode(found.queueNode);
+		elementRemoved(found.queueNode.nodeElement);
+		if (found.node.nodeQueue.size() == 0) {
+			deleteNode(found.node);
+		}
+		return true;
+	}
+	
+	/**
+	 * Private helper method, finds the tree node and queue node holding a plane, 
+	 * through the element index if enabled, otherwise by searching every queue.
+	 * Run-time complexity: O(1) expected with the element index, otherwise O(n + p)
+	 * @param element plane to look for (matched by equals)
+	 * @return the nodes holding the plane, null if it is not in the cube
+	 */
+	private ElementEntry findElement(T element) {
+		if (elementIndex != null) {
+			return elementIndex.find(element);
+		}
+		TreeNode[] nodes = newNodeArray(subtreeSize(rootNode));
+		collectSubtree(rootNode, nodes, 0);
+		for (int i = 0; i < nodes.length; i++) {
+			TraversableQueue<T>.Node queueNode = nodes[i].nodeQueue.headNode();
+			for (int j = nodes[i].nodeQueue.size(); j > 0; j--) {
+				if (queueNode.nodeElement.equals(element)) {
+					return new ElementEntry(nodes[i], queueNode, null);
+				}
+				queueNode = queueNode.nextNode;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Private inner class, one plane in the element index: the tree node and queue node holding it.
+	 * @author Peter Baldry
+	 */
+	private class ElementEntry {
+		TreeNode node;
+		TraversableQueue<T>.Node queueNode;
+		ElementEntry nextEntry;
+		
+		/**
+		 * ElementEntry constructor
+		 * @param node the tree node holding the plane
+		 * @param queueNode the queue node holding the plane
+		 * @param nextEntry the next entry in the same bucket
+		 */
+		public ElementEntry(TreeNode node, TraversableQueue<T>.Node queueNode, ElementEntry nextEntry) {
+			this.node = node;
+			this.queueNode = queueNode;
+			this.nextEntry = nextEntry;
+		}
+		
+		/**
+		 * Determines whether the plane is still in the queue it was indexed in 
+		 * (it may have been taken out through the queue returned by getAll).
+		 * Run-time complexity: O(1)
+		 * @return true if the entry is still valid
+		 */
+		public boolean isLive() {
+			return node.nodeQueue.isLinked(queueNode);
+		}
+	}
+	
+	/**
+	 * Separate chaining hash table from plane to its ElementEntry, kept at most three quarters full.
+	 * Equal planes held more than once each get their own entry in the same chain. Entries whose plane has 
+	 * left its queue are dropped from a chain whenever the chain is searched, so planes removed through the 
+	 * queue returned by getAll are never reported (and cost memory only until their chain is next searched).
+	 * @author Peter Baldry
+	 */
+	private class ElementIndex {
+		private static final int INITIAL_CAPACITY = 16;
+		/* approx. JVM cost: a 16 byte object header plus three references per entry, one reference per bucket */
+		private static final int ENTRY_BYTES = 16 + 3 * 8;
+		private static final int BUCKET_BYTES = 8;
+		ElementEntry[] buckets;
+		int size = 0;
+		
+		/**
+		 * ElementIndex constructor
+		 */
+		public ElementIndex() {
+			buckets = newEntryArray(INITIAL_CAPACITY);
+		}
+		
+		/**
+		 * Private helper method, bucket of a plane (high hash bits folded in, as table sizes are powers of two).
+		 * @param element the plane
+		 * @return bucket index
+		 */
+		private int bucket(Object element) {
+			int hash = element.hashCode();
+			return (hash ^ (hash >>> 16)) & (buckets.length - 1);
+		}
+		
+		/**
+		 * Indexes a plane that has just been enqueued.
+		 * Run-time complexity: amortised O(1)
+		 * @param node the tree node holding the plane
+		 * @param queueNode the queue node holding the plane
+		 */
+		public void put(TreeNode node, TraversableQueue<T>.Node queueNode) {
+			if ((size + 1) * 4 > buckets.length * 3) {
+				resize(buckets.length * 2);
+			}
+			int i = bucket(queueNode.nodeElement);
+			buckets[i] = new ElementEntry(node, queueNode, buckets[i]);
+			size += 1;
+		}
+		
+		/**
+		 * Finds a live entry for a plane, dropping dead entries met on the way.
+		 * Run-time complexity: O(1) expected
+		 * @param element the plane (matched by equals)
+		 * @return the entry, null if the plane is not indexed
+		 */
+		public ElementEntry find(T element) {
+			purge(element);
+			for (ElementEntry entry = buckets[bucket(element)]; entry != null; entry = entry.nextEntry) {
+				if (entry.queueNode.nodeElement.equals(element)) {
+					return entry;
+				}
+			}
+			return null;
+		}
+		
+		/**
+		 * Drops every dead entry (see ElementEntry.isLive) from the chain a plane hashes to.
+		 * Run-time complexity: O(1) expected
+		 * @param element the plane
+		 */
+		public void purge(T element) {
+			int i = bucket(element);
+			ElementEntry previous = null;
+			for (ElementEntry entry = buckets[i]; entry != null; entry = entry.nextEntry) {
+				if (entry.isLive()) {
+					previous = entry;
+				} else {
+					if (previous == null) {
+						buckets[i] = entry.nextEntry;
+					} else {
+						previous.nextEntry = entry.nextEntry;
+					}
+					size -= 1;
+				}
+			}
+		}
+		
+		/**
+		 * Removes every entry.
+		 * Run-time complexity: O(1)
+		 */
+		public void clear() {
+			buckets = newEntryArray(INITIAL_CAPACITY);
+			size = 0;
+		}
+		
+		/**
+		 * Private helper method, rehashes every entry into a table of a new capacity.
+		 * Run-time complexity: O(capacity)
+		 * @param capacity new capacity (a power of two)
+		 */
+		private void resize(int capacity) {
+			ElementEntry[] oldBuckets = buckets;
+			buckets = newEntryArray(capacity);
+			for (int i = 0; i < oldBuckets.length; i++) {
+				ElementEntry entry = oldBuckets[i];
+				while (entry != null) {
+					ElementEntry next = entry.nextEntry;
+					int j = bucket(entry.queueNode.nodeElement);
+					entry.nextEntry = buckets[j];
+					buckets[j] = entry;
+					entry = next;
+				}
+			}
+		}
+		
+		/**
+		 * Run-time complexity: O(1)
+		 * @return approximate size of the table and its entries in bytes
+		 */
+		public long memoryBytes() {
+			return (long) buckets.length * BUCKET_BYTES + (long) size * ENTRY_BYTES;
+		}
+	}
+	
+	/**
+	 * Clears all the planes from the cube (tree).
+	 * Run-time complexity: O(1);
+	 */
+	@Override
+	public void clear() {
+		//constant
+		rootNode = null;
+		nodeCount = 0;
+		maxNodeCount = 0;
+		if (cellIndex != null) {
+			cellIndex.clear();
+		}
+		if (elementIndex != null) {
+			elementIndex.clear();
+		}
+	}
+	
+	/**
+	 * Compacts the tree: every position whose queue is empty (eg. emptied through the queue returned by getAll)
+	 * is removed and the remaining positions are rebuilt into a balanced tree.
+	 * This also runs automatically once deletions shrink the tree below alpha of its largest size.
+	 * Run-time complexity: O(nlogn)
+	 * @return number of empty positions removed
+	 */
+	public int compact() {
+		TreeNode[] nodes = newNodeArray(subtreeSize(rootNode));
+		collectSubtree(rootNode, nodes, 0);
+		int occupied = dropEmptyNodes(nodes);
+		rootNode = buildBalanced(nodes, 0, occupied - 1, 0);
+		nodeCount = occupied;
+		maxNodeCount = occupied;
+		rebuildCount += 1;
+		return nodes.length - occupied;
+	}
+	
+	/**
+	 * Writes the cube to a stream as a binary snapshot: a header holding the cube dimensions and node count, 
+	 * then every position in pre-order with its child flags, packed coordinates and queue of planes (each 
+	 * written by the codec, in queue order). Empty positions are written too, so readSnapshot rebuilds exactly 
+	 * this tree. Indexes and metrics are not written. The stream is flushed but not closed.
+	 * Run-time complexity: O(n + p)
+	 * @param out stream to write to
+	 * @param codec writes each plane
+	 * @throws IOException if the stream cannot be written.
+	 */
+	public void writeSnapshot(OutputStream out, ElementCodec<? super T> codec) throws IOException {
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, SNAPSHOT_BUFFER));
+		data.writeInt(SNAPSHOT_MAGIC);
+		data.writeInt(SNAPSHOT_VERSION);
+		data.writeInt(cubeLength);
+		data.writeInt(cubeBreadth);
+		data.writeInt(cubeHeight);
+		data.writeInt(nodeCount);
+		data.writeInt(maxNodeCount);
+		if (rootNode != null) {
+			writeSubtree(rootNode, data, codec);
+		}
+		data.flush();
+	}
+	
+	/**
+	 * Private helper method, writes a subtree in pre-order (see writeSnapshot).
+	 * Run-time complexity: O(m + p), m = number of nodes in the subtree, p = number of planes they hold
+	 * @param node root of the subtree (not null)
+	 * @param data stream to write to
+	 * @param codec writes each plane
+	 * @throws IOException if the stream cannot be written.
+	 */
+	private void writeSubtree(TreeNode node, DataOutputStream data, ElementCodec<? super T> codec) throws IOException {
+		int flags = ((node.leftNode != null) ? HAS_LEFT : 0) | ((node.rightNode != null) ? HAS_RIGHT : 0);
+		data.writeByte(flags);
+		data.writeLong(node.x | ((long) node.y << MORTON_BITS) | ((long) node.z << (2 * MORTON_BITS)));
+		int size = node.nodeQueue.size();
+		data.writeInt(size);
+		TraversableQueue<T>.Node queueNode = node.nodeQueue.headNode();
+		for (int i = size; i > 0; i--) {
+			codec.write(queueNode.nodeElement, data);
+			queueNode = queueNode.nextNode;
+		}
+		if (node.leftNode != null) {
+			writeSubtree(node.leftNode, data, codec);
+		}
+		if (node.rightNode != null) {
+			writeSubtree(node.rightNode, data, codec);
+		}
+	}
+	
+	/**
+	 * Reads a cube written by writeSnapshot in one sequential pass. Nodes are linked back into exactly the tree 
+	 * that was written, without comparing positions, so the snapshot is trusted to hold a valid tree; only 
+	 * the header, the node count and that every position lies inside the cube are checked. Indexes and 
+	 * metrics start disabled. The stream is read ahead through a buffer, so the snapshot should be the last 
+	 * thing in it; it is not closed.
+	 * Run-time complexity: O(n + p)
+	 * @param in stream to read from
+	 * @param codec reads each plane
+	 * @return the cube held in the snapshot
+	 * @throws IOException if the stream cannot be read or does not hold a valid snapshot.
+	 */
+	public static <T> BoundedCube<T> readSnapshot(InputStream in, ElementCodec<? extends T> codec) throws IOException {
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in, SNAPSHOT_BUFFER));
+		if ((data.readInt() != SNAPSHOT_MAGIC) || (data.readInt() != SNAPSHOT_VERSION)) {
+			throw new IOException("not a BoundedCube snapshot");
+		}
+		int length = data.readInt();
+		int breadth = data.readInt();
+		int height = data.readInt();
+		BoundedCube<T> cube;
+		try {
+			cube = new BoundedCube<T>(length, breadth, height);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("invalid snapshot dimensions", e);
+		}
+		int count = data.readInt();
+		int maxCount = data.readInt();
+		if ((count < 0) || (maxCount < count)) {
+			throw new IOException("invalid snapshot node count");
+		}
+		cube.nodeCount = 0;
+		cube.rootNode = (count > 0) ? cube.readSubtree(data, codec, count) : null;
+		if (cube.nodeCount != count) {
+			throw new IOException("invalid snapshot node count");
+		}
+		cube.maxNodeCount = maxCount;
+		return cube;
+	}
+	
+	/**
+	 * Private helper method, reads a subtree written by writeSubtree, counting its nodes in nodeCount.
+	 * Run-time complexity: O(m + p), m = number of nodes in the subtree, p = number of planes they hold
+	 * @param data stream to read from
+	 * @param codec reads each plane
+	 * @param count number of nodes the snapshot says it holds
+	 * @return root of the subtree
+	 * @throws IOException if the stream cannot be read or holds more nodes than count or a position outside the cube.
+	 */
+	private TreeNode readSubtree(DataInputStream data, ElementCodec<? extends T> codec, int count) throws IOException {
+		if (nodeCount == count) {
+			throw new IOException("invalid snapshot node count");
+		}
+		int flags = data.readUnsignedByte();
+		long packed = data.readLong();
+		int x = (int) (packed & COORDINATE_MASK);
+		int y = (int) ((packed >>> MORTON_BITS) & COORDINATE_MASK);
+		long z = packed >>> (2 * MORTON_BITS);
+		if ((x >= cubeLength) || (y >= cubeBreadth) || (z >= cubeHeight)) {
+			throw new IOException("snapshot position outside cube");
+		}
+		TreeNode node = new TreeNode(x, y, (int) z, null, null, null);
+		nodeCount += 1;
+		int size = data.readInt();
+		if (size < 0) {
+			throw new IOException("invalid snapshot queue length");
+		}
+		for (int i = 0; i < size; i++) {
+			node.nodeQueue.enqueue(codec.read(data));
+		}
+		if ((flags & HAS_LEFT) != 0) {
+			node.leftNode = readSubtree(data, codec, count);
+		}
+		if ((flags & HAS_RIGHT) != 0) {
+			node.rightNode = readSubtree(data, codec, count);
+		}
+		return node;
+	}
+	
+	/**
+	 * Number of positions (tree nodes) currently held in the tree.
+	 * Run-time complexity: O(1)
+	 * @return number of tree nodes
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+	
+	/**
+	 * Number of partial (scapegoat) rebuilds performed since the cube was created.
+	 * Run-time complexity: O(1)
+	 * @return number of subtree rebuilds
+	 */
+	public int getRebuildCount() {
+		return rebuildCount;
+	}
+	
+	/**
+	 * Depth of the deepest node in the tree (the root is depth 0, an empty tree is -1).
+	 * Run-time complexity: O(n)
+	 * @return current maximum depth of the tree
+	 */
+	public int getMaxDepth() {
+		return maxDepth(rootNode);
+	}
+	
+	/**
+	 * Private helper method, depth of the deepest node below (and including) a node.
+	 * @param node root of the subtree
+	 * @return height of the subtree, -1 for an empty subtree
+	 */
+	private int maxDepth(TreeNode node) {
+		if (node == null) {
+			return -1;
+		}
+		return 1 + Math.max(maxDepth(node.leftNode), maxDepth(node.rightNode));
 	}
 		
 	
@@ -472,7 +3155,9 @@ public class BoundedCube<T> implements Cube<T> {
  * 			n = p, ie. every cell has only one plane. To consider a practical memory problem with the OneSky applications, take a 20 * 20 * 20
  * 		    BoundedCube with only 1 plane added. This would only store 1 element in a 3D binary search tree. In a 3D array, you would have 
  * 			to store 20*20*20 = 8000 elements. This is a huge difference and scaled to larger cubes (like the Australian airspace), the 
- * 			tree remains memory efficient.
+ * 			tree remains memory efficient. When the last plane leaves a position, the position is deleted from the tree (its place is 
+ * 			taken by the largest node on the same splitting axis from its subtree), so the tree size tracks the cells occupied now rather 
+ * 			than every cell ever occupied. Positions emptied some other way (eg. through getAll) are dropped by compact and partial rebuilds.
  * 
  * 			Further, a traversable queue was used to hold the planes at a particular cell mainly due to its memory efficiency. It is able
  * 			to be efficiently dynamic by only having links between elements, which is, for q = number of planes in a queue, O(q) space
@@ -493,14 +3178,18 @@ public class BoundedCube<T> implements Cube<T> {
  *  		somewhat evenly spread across the cube (ie. half one side of the middle, half the other), the time complexity is optimal. [*] 
  *  		However, if the added planes are all on one side of a tree (ie on a (500, 500, 50) cube, adding lots of x<250, y<250, z<25
  *  		will result in an unbalanced tree. The very worst case is if each node is unbalanced such that every node only has a left node
- *  		(this is very rare on normal sized trees). However, even in this case, the time complexity can only reach O(n) worst case, which
- *  		is still not terrible.
+ *  		(this is very rare on normal sized trees). The tree is therefore kept alpha weight balanced [6]: an add that lands deeper than 
+ *  		log base 1/alpha of the number of positions rebuilds the lowest unbalanced subtree around its median, so even one sided 
+ *  		insertions cost amortised O(logn) and the depth stays O(logn). The one exception is heavy ties: positions sharing the median's
+ *  		splitting coordinate must all go left, so when an axis has only a handful of distinct values a rebuild cannot split evenly 
+ *  		and the depth can exceed the bound by a small factor (still far from the O(n) chain).
  *  
  * 		- Similar simulations and extensions
  * 			A kd tree is well known for its fast nearest neighbour search O(logn) [3]. Although this function is not applicable in the OneSky 
  * 			application, it is reasonable to suggest that similar and existing plane radar applications would require this functionality
  * 			and require it fast for safety concerns (ie. the main priority). This is where a hashmap would NOT be useful at all and further
- * 			why it wasn't used as the data structure for this bounded cube class.
+ * 			why it wasn't used as the data structure for this bounded cube class. The nearest methods provide this search (k nearest 
+ * 			occupied positions, using a bounded max heap and skipping subtrees whose splitting plane is further than the k'th best position).
  *  	
  * Several other data structures were considered:
  * 
@@ -533,4 +3222,5 @@ public class BoundedCube<T> implements Cube<T> {
  * [3] D. Lowe and M. Muja, Scalable Nearest Neighbor Algorithms for High Dimensional Data. 2014 [Online]. Available: https://ieeexplore.ieee.org/stamp/stamp.jsp?arnumber=6809191. [Accessed: 22- Aug- 2018]
  * [4] "HashMap (Java Platform SE 8 )", Docs.oracle.com, 2018. [Online]. Available: https://docs.oracle.com/javase/8/docs/api/java/util/HashMap.html. [Accessed: 24- Aug- 2018]
  * [5] "TreeMap (Java Platform SE 7 )", Docs.oracle.com, 2018. [Online]. Available: https://docs.oracle.com/javase/7/docs/api/java/util/TreeMap.html. [Accessed: 24- Aug- 2018]
+ * [6] I. Galperin and R. Rivest, "Scapegoat Trees", Proceedings of the Fourth Annual ACM-SIAM Symposium on Discrete Algorithms, pp. 165-174, 1993.
  */
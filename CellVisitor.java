@@ -0,0 +1,23 @@
+package comp3506.assn1.adts;
+
+
+/**
+ * Callback used by cube queries to hand back each element found along with its position.
+ * 
+ * @author Peter Baldry
+ *
+ * @param <T> The type of element visited.
+ */
+public interface CellVisitor<T> {
+	
+	/**
+	 * Called once for every element found by a query.
+	 * 
+	 * @param x X Coordinate of the position of the element.
+	 * @param y Y Coordinate of the position of the element.
+	 * @param z Z Coordinate of the position of the element.
+	 * @param element The element held at the position.
+	 */
+	void visit(int x, int y, int z, T element);
+	
+}
@@ -0,0 +1,433 @@
+package comp3506.assn1.adts;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A thread safe bounded cube for many concurrent readers and writers.
+ * The cube is split along x into stripes (slabs of whole x planes), each held in its own BoundedCube
+ * behind its own read/write lock. This is the same split a kd-tree makes at its root, so a stripe is
+ * a top-level subtree: operations on different stripes never contend, and any number of readers can
+ * share one stripe.
+ *
+ * Every operation is linearizable: single position operations hold one stripe lock, range queries hold
+ * the read locks of every stripe they cover (taken in ascending order, so they see one consistent state)
+ * and clear holds every write lock.
+ *
+ * Memory Efficiency: O(n + s) (NOTE: n = number of positions held, s = number of stripes)
+ *
+ * @author Peter Baldry
+ * @param <T> The type of element held in the data structure.
+ */
+public class ConcurrentBoundedCube<T> implements Cube<T> {
+	private static final int DEFAULT_STRIPES = 64;
+
+	private final int cubeLength;
+	private final int cubeBreadth;
+	private final int cubeHeight;
+	private final int stripeWidth;
+	private final BoundedCube<T>[] stripes;
+	private final ReentrantReadWriteLock[] locks;
+
+	/**
+	 * ConcurrentBoundedCube Constructor, with up to 64 stripes.
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @throws IllegalArgumentException if provided dimension sizes are not positive (or too large for a BoundedCube).
+	 */
+	public ConcurrentBoundedCube(int length, int breadth, int height) throws IllegalArgumentException {
+		this(length, breadth, height, DEFAULT_STRIPES);
+	}
+
+	/**
+	 * ConcurrentBoundedCube Constructor
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @param stripeCount Number of x stripes (locks) to split the cube into, at most length.
+	 * @throws IllegalArgumentException if provided dimension sizes or stripeCount are not positive.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public ConcurrentBoundedCube(int length, int breadth, int height, int stripeCount) throws IllegalArgumentException {
+		if ((length <= 0) || (breadth <= 0) || (height <=0) || (stripeCount <= 0)) {
+			throw new IllegalArgumentException();
+		}
+		cubeLength = length;
+		cubeBreadth = breadth;
+		cubeHeight = height;
+		stripeCount = Math.min(stripeCount, length);
+		stripeWidth = (length + stripeCount - 1) / stripeCount;
+		stripeCount = (length + stripeWidth - 1) / stripeWidth;
+		stripes = (BoundedCube<T>[]) new BoundedCube[stripeCount];
+		locks = new ReentrantReadWriteLock[stripeCount];
+		for (int i = 0; i < stripeCount; i++) {
+			stripes[i] = new BoundedCube<T>(length, breadth, height);
+			locks[i] = new ReentrantReadWriteLock();
+		}
+	}
+
+	/**
+	 * Private helper method, determines if valid input coordinates
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @throws IndexOutOfBoundsException if coordinates are negative or outside cube.
+	 */
+	private void indexBoundException(int x, int y, int z) {
+		CubeSupport.checkPosition(x, y, z, cubeLength, cubeBreadth, cubeHeight);
+	}
+
+	/**
+	 * Private helper method, the stripe holding an x coordinate.
+	 * @param x x coordinate
+	 * @return index of the stripe
+	 */
+	private int stripeOf(int x) {
+		return x / stripeWidth;
+	}
+
+	/**
+	 * Adds an element to a specified position.
+	 * Run-time complexity: amortised O(logn) (plus waiting for the stripe's write lock)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param element plane to be added
+	 * @throws IndexOutOfBoundsException if coordinates are negative or outside cube.
+	 */
+	@Override
+	public void add(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		int stripe = stripeOf(x);
+		locks[stripe].writeLock().lock();
+		try {
+			stripes[stripe].add(x, y, z, element);
+		} finally {
+			locks[stripe].writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds a batch of elements, each at the matching position of the coordinate arrays.
+	 * The batch is split by stripe and each stripe's share is added under one hold of its write lock,
+	 * so readers see a stripe's share all at once (but may see one stripe's share before another's).
+	 * Run-time complexity: O(b + s) plus BoundedCube.addAll for each stripe's share (b = batch size)
+	 * @param xs x coordinate of each element
+	 * @param ys y coordinate of each element
+	 * @param zs z coordinate of each element
+	 * @param elements planes to be added
+	 * @throws IndexOutOfBoundsException if any coordinates are negative or outside cube (nothing is added).
+	 * @throws IllegalArgumentException if the arrays differ in length.
+	 */
+	@Override
+	public void addAll(int[] xs, int[] ys, int[] zs, T[] elements) 
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		if ((xs.length != elements.length) || (ys.length != elements.length) || (zs.length != elements.length)) {
+			throw new IllegalArgumentException();
+		}
+		int[] counts = new int[stripes.length];
+		for (int i = 0; i < elements.length; i++) {
+			indexBoundException(xs[i], ys[i], zs[i]);
+			counts[stripeOf(xs[i])] += 1;
+		}
+		for (int stripe = 0; stripe < stripes.length; stripe++) {
+			if (counts[stripe] == 0) {
+				continue;
+			}
+			int[] stripeXs = new int[counts[stripe]];
+			int[] stripeYs = new int[counts[stripe]];
+			int[] stripeZs = new int[counts[stripe]];
+			T[] stripeElements = Arrays.copyOf(elements, counts[stripe]);
+			int next = 0;
+			for (int i = 0; (i < elements.length) && (next < counts[stripe]); i++) {
+				if (stripeOf(xs[i]) == stripe) {
+					stripeXs[next] = xs[i];
+					stripeYs[next] = ys[i];
+					stripeZs[next] = zs[i];
+					stripeElements[next] = elements[i];
+					next += 1;
+				}
+			}
+			locks[stripe].writeLock().lock();
+			try {
+				stripes[stripe].addAll(stripeXs, stripeYs, stripeZs, stripeElements);
+			} finally {
+				locks[stripe].writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * Gets the oldest element (plane) from specified position.
+	 * Run-time complexity: O(logn)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return oldest plane at the position, null if there are none
+	 * @throws IndexOutOfBoundsException if coordinates are out of cube bounds
+	 */
+	@Override
+	public T get(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		int stripe = stripeOf(x);
+		locks[stripe].readLock().lock();
+		try {
+			return stripes[stripe].get(x, y, z);
+		} finally {
+			locks[stripe].readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets all the elements at a specified position. The queue returned is a copy taken under the stripe's
+	 * lock (the live queue cannot be handed out safely), so changing it does not change the cube.
+	 * Run-time complexity: O(logn + q)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return copy of the planes at the position, null if there are none
+	 * @throws IndexOutOfBoundsException if coordinates are out of cube bounds
+	 */
+	@Override
+	public IterableQueue<T> getAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		int stripe = stripeOf(x);
+		locks[stripe].readLock().lock();
+		try {
+			IterableQueue<T> found = stripes[stripe].getAll(x, y, z);
+			if ((found == null) || (found.size() == 0)) {
+				return null;
+			}
+			IterableQueue<T> copy = new TraversableQueue<T>();
+			Iterator<T> nodeIterator = found.iterator();
+			for (int i = found.size(); i > 0; i--) {
+				copy.enqueue(nodeIterator.next());
+			}
+			return copy;
+		} finally {
+			locks[stripe].readLock().unlock();
+		}
+	}
+
+	/**
+	 * Visits every plane at a specified position, oldest first, without copying the queue. The stripe's read
+	 * lock is held while the visitor runs, so the visitor must not add to or remove from this cube.
+	 * Run-time complexity: O(logn + q)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param visitor called for each plane at the position
+	 * @throws IndexOutOfBoundsException if coordinates are out of cube bounds
+	 */
+	@Override
+	public void forEachAt(int x, int y, int z, CellVisitor<? super T> visitor) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		int stripe = stripeOf(x);
+		locks[stripe].readLock().lock();
+		try {
+			stripes[stripe].forEachAt(x, y, z, visitor);
+		} finally {
+			locks[stripe].readLock().unlock();
+		}
+	}
+
+	/**
+	 * Determines if there are multiple elements at a particular position.
+	 * Run-time complexity: O(logn)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return true if multiple elements at position, false if 0 or 1 elements at position
+	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 */
+	@Override
+	public boolean isMultipleElementsAt(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		int stripe = stripeOf(x);
+		locks[stripe].readLock().lock();
+		try {
+			return stripes[stripe].isMultipleElementsAt(x, y, z);
+		} finally {
+			locks[stripe].readLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes element/plane from specified position in cube.
+	 * Run-time complexity: O(logn + q)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param element plane to be removed
+	 * @return true if removed correctly, false if not
+	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 */
+	@Override
+	public boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		int stripe = stripeOf(x);
+		locks[stripe].writeLock().lock();
+		try {
+			return stripes[stripe].remove(x, y, z, element);
+		} finally {
+			locks[stripe].writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Moves an element (plane) from one position to another. The write locks of both stripes are held 
+	 * (taken in ascending order) so no reader sees the plane at both positions or at neither.
+	 * Run-time complexity: amortised O(logn + q) (plus waiting for the stripes' write locks)
+	 * @param element plane to be moved (matched by hash code, as in remove)
+	 * @param fromX x coordinate of the old position
+	 * @param fromY y coordinate of the old position
+	 * @param fromZ z coordinate of the old position
+	 * @param toX x coordinate of the new position
+	 * @param toY y coordinate of the new position
+	 * @param toZ z coordinate of the new position
+	 * @return true if the plane was moved, false if it was not at the old position (nothing changes)
+	 * @throws IndexOutOfBoundsException if either position is outside cube.
+	 */
+	@Override
+	public boolean move(T element, int fromX, int fromY, int fromZ, int toX, int toY, int toZ) 
+			throws IndexOutOfBoundsException {
+		indexBoundException(fromX, fromY, fromZ);
+		indexBoundException(toX, toY, toZ);
+		int from = stripeOf(fromX);
+		int to = stripeOf(toX);
+		if (from == to) {
+			locks[from].writeLock().lock();
+			try {
+				return stripes[from].move(element, fromX, fromY, fromZ, toX, toY, toZ);
+			} finally {
+				locks[from].writeLock().unlock();
+			}
+		}
+		int first = Math.min(from, to);
+		int second = Math.max(from, to);
+		locks[first].writeLock().lock();
+		locks[second].writeLock().lock();
+		try {
+			if (!stripes[from].remove(fromX, fromY, fromZ, element)) {
+				return false;
+			}
+			stripes[to].add(toX, toY, toZ, element);
+			return true;
+		} finally {
+			locks[second].writeLock().unlock();
+			locks[first].writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes all planes from a specified position in cube.
+	 * Run-time complexity: O(logn + q)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 */
+	@Override
+	public void removeAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		int stripe = stripeOf(x);
+		locks[stripe].writeLock().lock();
+		try {
+			stripes[stripe].removeAll(x, y, z);
+		} finally {
+			locks[stripe].writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets all the planes inside an axis aligned box, as one consistent snapshot.
+	 * Run-time complexity: O(s + k logn), s = stripes covered, k = number of positions in the box
+	 * @param minX lowest x coordinate
+	 * @param minY lowest y coordinate
+	 * @param minZ lowest z coordinate
+	 * @param maxX highest x coordinate
+	 * @param maxY highest y coordinate
+	 * @param maxZ highest z coordinate
+	 * @return queue of every plane in the box, empty if there are none
+	 * @throws IndexOutOfBoundsException if either corner is outside cube.
+	 * @throws IllegalArgumentException if a minimum is greater than its maximum.
+	 */
+	@Override
+	public IterableQueue<T> getRange(int minX, int minY, int minZ, int maxX, int maxY, int maxZ)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		IterableQueue<T> found = new TraversableQueue<T>();
+		forEachInRange(minX, minY, minZ, maxX, maxY, maxZ, CubeSupport.enqueueInto(found));
+		return found;
+	}
+
+	/**
+	 * Visits every plane inside an axis aligned box along with its position, as one consistent snapshot.
+	 * The read locks of the stripes covered are held while the visitor runs, so the visitor must not
+	 * add to or remove from this cube.
+	 * Run-time complexity: O(s + k logn), s = stripes covered, k = number of positions in the box
+	 * @param minX lowest x coordinate
+	 * @param minY lowest y coordinate
+	 * @param minZ lowest z coordinate
+	 * @param maxX highest x coordinate
+	 * @param maxY highest y coordinate
+	 * @param maxZ highest z coordinate
+	 * @param visitor called for each plane in the box
+	 * @throws IndexOutOfBoundsException if either corner is outside cube.
+	 * @throws IllegalArgumentException if a minimum is greater than its maximum.
+	 */
+	@Override
+	public void forEachInRange(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, CellVisitor<? super T> visitor)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		indexBoundException(minX, minY, minZ);
+		indexBoundException(maxX, maxY, maxZ);
+		if ((minX > maxX) || (minY > maxY) || (minZ > maxZ)) {
+			throw new IllegalArgumentException();
+		}
+		int first = stripeOf(minX);
+		int last = stripeOf(maxX);
+		// ascending lock order => no deadlock with other range queries or clear
+		for (int i = first; i <= last; i++) {
+			locks[i].readLock().lock();
+		}
+		try {
+			for (int i = first; i <= last; i++) {
+				stripes[i].forEachInRange(minX, minY, minZ, maxX, maxY, maxZ, visitor);
+			}
+		} finally {
+			for (int i = last; i >= first; i--) {
+				locks[i].readLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * Clears all the planes from the cube.
+	 * Run-time complexity: O(s), s = number of stripes
+	 */
+	@Override
+	public void clear() {
+		for (int i = 0; i < stripes.length; i++) {
+			locks[i].writeLock().lock();
+		}
+		try {
+			for (int i = 0; i < stripes.length; i++) {
+				stripes[i].clear();
+			}
+		} finally {
+			for (int i = stripes.length - 1; i >= 0; i--) {
+				locks[i].writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * Run-time complexity: O(1)
+	 * @return number of stripes (independently locked subtrees) the cube is split into
+	 */
+	public int getStripeCount() {
+		return stripes.length;
+	}
+
+}
@@ -22,6 +22,19 @@ public interface Cube<T> {
 	 */
 	void add(int x, int y, int z, T element) throws IndexOutOfBoundsException;
 	
+	/**
+	 * Add a batch of elements, element i at position (xs[i], ys[i], zs[i]).
+	 * Elements added at the same position keep their order in the batch.
+	 * 
+	 * @param xs X Coordinate of the position of each element.
+	 * @param ys Y Coordinate of the position of each element.
+	 * @param zs Z Coordinate of the position of each element.
+	 * @param elements The elements to be added.
+	 * @throws IndexOutOfBoundsException If any x, y or z coordinates are out of bounds (no element is added).
+	 * @throws IllegalArgumentException If the arrays are not all the same length.
+	 */
+	void addAll(int[] xs, int[] ys, int[] zs, T[] elements) throws IndexOutOfBoundsException, IllegalArgumentException;
+	
 	/**
 	 * Return the 'oldest' element at the indicated position.
 	 * 
@@ -35,6 +48,9 @@ public interface Cube<T> {
 	
 	/**
 	 * Return all the elements at the indicated position.
+	 * Single threaded implementations return the position's live queue (changes to the cube show up in it, and 
+	 * enqueue and dequeue on it change the cube); thread safe and persistent implementations cannot hand that out 
+	 * safely and return a copy instead. Each implementation states which it returns.
 	 * 
 	 * @param x X Coordinate of the position of the element(s).
 	 * @param y Y Coordinate of the position of the element(s).
@@ -44,6 +60,17 @@ public interface Cube<T> {
 	 */
 	IterableQueue<T> getAll(int x, int y, int z) throws IndexOutOfBoundsException;
 	
+	/**
+	 * Visit all the elements at the indicated position, oldest first, without building a queue of them.
+	 * 
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @param visitor Called once for each element at the position (never, if there are none).
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	void forEachAt(int x, int y, int z, CellVisitor<? super T> visitor) throws IndexOutOfBoundsException;
+	
 	/**
 	 * Indicates whether there are more than one elements at the indicated position.
 	 * 
@@ -67,6 +94,21 @@ public interface Cube<T> {
 	 */
 	boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException;
 	
+	/**
+	 * Moves the specified element from one position to another (remove followed by add, in one operation).
+	 * 
+	 * @param element The element to be moved.
+	 * @param fromX X Coordinate of the position the element is at.
+	 * @param fromY Y Coordinate of the position the element is at.
+	 * @param fromZ Z Coordinate of the position the element is at.
+	 * @param toX X Coordinate of the position to move the element to.
+	 * @param toY Y Coordinate of the position to move the element to.
+	 * @param toZ Z Coordinate of the position to move the element to.
+	 * @return true if the element was moved, false if it was not at the first position (nothing is changed).
+	 * @throws IndexOutOfBoundsException If either position is out of bounds.
+	 */
+	boolean move(T element, int fromX, int fromY, int fromZ, int toX, int toY, int toZ) throws IndexOutOfBoundsException;
+	
 	/**
 	 * Removes all elements at the indicated position.
 	 * 
@@ -77,6 +119,38 @@ public interface Cube<T> {
 	 */
 	void removeAll(int x, int y, int z) throws IndexOutOfBoundsException;
 	
+	/**
+	 * Return all the elements held in an axis aligned box (corners inclusive).
+	 * 
+	 * @param minX Lowest X Coordinate of the box.
+	 * @param minY Lowest Y Coordinate of the box.
+	 * @param minZ Lowest Z Coordinate of the box.
+	 * @param maxX Highest X Coordinate of the box.
+	 * @param maxY Highest Y Coordinate of the box.
+	 * @param maxZ Highest Z Coordinate of the box.
+	 * @return An IterableQueue of all elements in the box (empty if there are none).
+	 * @throws IndexOutOfBoundsException If either corner is out of bounds.
+	 * @throws IllegalArgumentException If a minimum coordinate is greater than the matching maximum.
+	 */
+	IterableQueue<T> getRange(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) 
+			throws IndexOutOfBoundsException, IllegalArgumentException;
+	
+	/**
+	 * Visit every element held in an axis aligned box (corners inclusive), along with its position.
+	 * 
+	 * @param minX Lowest X Coordinate of the box.
+	 * @param minY Lowest Y Coordinate of the box.
+	 * @param minZ Lowest Z Coordinate of the box.
+	 * @param maxX Highest X Coordinate of the box.
+	 * @param maxY Highest Y Coordinate of the box.
+	 * @param maxZ Highest Z Coordinate of the box.
+	 * @param visitor Called once for each element in the box.
+	 * @throws IndexOutOfBoundsException If either corner is out of bounds.
+	 * @throws IllegalArgumentException If a minimum coordinate is greater than the matching maximum.
+	 */
+	void forEachInRange(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, CellVisitor<? super T> visitor) 
+			throws IndexOutOfBoundsException, IllegalArgumentException;
+	
 	/**
 	 * Removes all elements stored in the cube.
 	 */
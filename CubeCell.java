@@ -0,0 +1,35 @@
+package comp3506.assn1.adts;
+
+
+/**
+ * An occupied position in a cube, handed out when enumerating a cube's contents: the position's coordinates 
+ * and the queue of elements held there. A cell is a view of the cube, not a copy, so it is only valid until 
+ * the cube is next modified.
+ * 
+ * @author Peter Baldry
+ *
+ * @param <T> The type of element held in the cell.
+ */
+public interface CubeCell<T> {
+	
+	/**
+	 * @return X Coordinate of the position.
+	 */
+	int getX();
+	
+	/**
+	 * @return Y Coordinate of the position.
+	 */
+	int getY();
+	
+	/**
+	 * @return Z Coordinate of the position.
+	 */
+	int getZ();
+	
+	/**
+	 * @return The elements held at the position, in the order they were added (never empty).
+	 */
+	IterableQueue<T> getElements();
+	
+}
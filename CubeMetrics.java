@@ -0,0 +1,140 @@
+package comp3506.assn1.adts;
+
+/**
+ * Per-operation metrics gathered by a cube with metrics enabled (see BoundedCube.enableMetrics): for each kind 
+ * of operation, a histogram of latencies in nanoseconds and a histogram of the number of tree nodes visited. 
+ * Each histogram's count is the number of operations of that kind. Visitor queries time the visitor too.
+ *
+ * Memory Efficiency: O(1) (NOTE: two fixed size histograms per operation, about 110KB in all)
+ *
+ * CubeMetrics is not thread safe.
+ *
+ * @author Peter Baldry
+ */
+public class CubeMetrics {
+	
+	/**
+	 * The kinds of operation measured.
+	 */
+	public enum Operation {
+		/** add */
+		ADD,
+		/** get, getAll, forEachAt and isMultipleElementsAt */
+		GET,
+		/** remove and removeAll */
+		REMOVE,
+		/** move */
+		MOVE,
+		/** getRange and forEachInRange */
+		RANGE,
+		/** nearest */
+		NEAREST,
+		/** withinRadius */
+		RADIUS
+	}
+	
+	private Histogram[] latencies;
+	private Histogram[] nodesVisited;
+	
+	/**
+	 * CubeMetrics constructor, creates empty metrics.
+	 */
+	public CubeMetrics() {
+		int operations = Operation.values().length;
+		latencies = new Histogram[operations];
+		nodesVisited = new Histogram[operations];
+		for (int i = 0; i < operations; i++) {
+			latencies[i] = new Histogram();
+			nodesVisited[i] = new Histogram();
+		}
+	}
+	
+	/**
+	 * Private constructor, copies other metrics.
+	 * @param other the metrics to copy
+	 */
+	private CubeMetrics(CubeMetrics other) {
+		latencies = new Histogram[other.latencies.length];
+		nodesVisited = new Histogram[other.nodesVisited.length];
+		for (int i = 0; i < latencies.length; i++) {
+			latencies[i] = other.latencies[i].copy();
+			nodesVisited[i] = other.nodesVisited[i].copy();
+		}
+	}
+	
+	/**
+	 * Records one operation.
+	 * Run-time complexity: O(1)
+	 * @param operation the kind of operation
+	 * @param nanos how long it took
+	 * @param nodes number of tree nodes it visited
+	 */
+	void record(Operation operation, long nanos, int nodes) {
+		latencies[operation.ordinal()].record(Math.max(0, nanos));
+		nodesVisited[operation.ordinal()].record(nodes);
+	}
+	
+	/**
+	 * Run-time complexity: O(1)
+	 * @param operation the kind of operation
+	 * @return number of operations of that kind recorded
+	 */
+	public long getCount(Operation operation) {
+		return latencies[operation.ordinal()].getCount();
+	}
+	
+	/**
+	 * Run-time complexity: O(1)
+	 * @param operation the kind of operation
+	 * @return histogram of latencies of that kind of operation, in nanoseconds
+	 */
+	public Histogram getLatency(Operation operation) {
+		return latencies[operation.ordinal()];
+	}
+	
+	/**
+	 * Run-time complexity: O(1)
+	 * @param operation the kind of operation
+	 * @return histogram of the number of tree nodes each operation of that kind visited
+	 */
+	public Histogram getNodesVisited(Operation operation) {
+		return nodesVisited[operation.ordinal()];
+	}
+	
+	/**
+	 * Forgets every operation recorded.
+	 * Run-time complexity: O(1)
+	 */
+	public void reset() {
+		for (int i = 0; i < latencies.length; i++) {
+			latencies[i].reset();
+			nodesVisited[i].reset();
+		}
+	}
+	
+	/**
+	 * Copies the metrics, so they can be read while the cube keeps recording.
+	 * Run-time complexity: O(1)
+	 * @return an independent copy
+	 */
+	public CubeMetrics snapshot() {
+		return new CubeMetrics(this);
+	}
+	
+	/**
+	 * Run-time complexity: O(1)
+	 * @return one line per kind of operation recorded, giving its latencies and nodes visited
+	 */
+	@Override
+	public String toString() {
+		StringBuilder lines = new StringBuilder();
+		for (Operation operation : Operation.values()) {
+			if (getCount(operation) > 0) {
+				lines.append(operation).append(": ns ").append(getLatency(operation))
+						.append(" | nodes ").append(getNodesVisited(operation)).append('\n');
+			}
+		}
+		return lines.toString();
+	}
+	
+}
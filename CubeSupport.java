@@ -0,0 +1,139 @@
+package comp3506.assn1.adts;
+
+import java.util.Iterator;
+
+/**
+ * Checks and queue helpers shared by the Cube implementations, so each states its bounds and plane matching
+ * rules once: coordinates outside the cube throw IndexOutOfBoundsException, and remove and move match a plane
+ * by hash code.
+ *
+ * @author Peter Baldry
+ */
+final class CubeSupport {
+
+	/**
+	 * CubeSupport is never instantiated.
+	 */
+	private CubeSupport() {
+	}
+
+	/**
+	 * Determines if valid input coordinates.
+	 * Run-time complexity: O(1)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param length size of the cube in the 'x' dimension
+	 * @param breadth size of the cube in the 'y' dimension
+	 * @param height size of the cube in the 'z' dimension
+	 * @throws IndexOutOfBoundsException if coordinates are negative or outside cube.
+	 */
+	static void checkPosition(int x, int y, int z, int length, int breadth, int height) {
+		if ((x < 0) || (y < 0) || (z < 0 )) {
+			throw new IndexOutOfBoundsException();
+		} else if ((x >= length) || (y >= breadth) || (z >= height)) {
+			throw new IndexOutOfBoundsException();
+		}
+	}
+
+	/**
+	 * Checks a batch for addAll before anything is added: the arrays must match in length and every position
+	 * must be inside the cube.
+	 * Run-time complexity: O(b), b = batch size
+	 * @param xs x coordinate of each element
+	 * @param ys y coordinate of each element
+	 * @param zs z coordinate of each element
+	 * @param elements planes to be added
+	 * @param length size of the cube in the 'x' dimension
+	 * @param breadth size of the cube in the 'y' dimension
+	 * @param height size of the cube in the 'z' dimension
+	 * @throws IndexOutOfBoundsException if any coordinates are negative or outside cube.
+	 * @throws IllegalArgumentException if the arrays differ in length.
+	 */
+	static void checkBatch(int[] xs, int[] ys, int[] zs, Object[] elements, int length, int breadth, int height) {
+		if ((xs.length != elements.length) || (ys.length != elements.length) || (zs.length != elements.length)) {
+			throw new IllegalArgumentException();
+		}
+		for (int i = 0; i < elements.length; i++) {
+			checkPosition(xs[i], ys[i], zs[i], length, breadth, height);
+		}
+	}
+
+	/**
+	 * Adds a batch one element at a time, after checking all of it (see checkBatch), for cubes with nothing
+	 * cheaper than repeated adds. Elements sharing a position keep their batch order.
+	 * Run-time complexity: O(b) adds, b = batch size
+	 * @param cube the cube to add to
+	 * @param xs x coordinate of each element
+	 * @param ys y coordinate of each element
+	 * @param zs z coordinate of each element
+	 * @param elements planes to be added
+	 * @param length size of the cube in the 'x' dimension
+	 * @param breadth size of the cube in the 'y' dimension
+	 * @param height size of the cube in the 'z' dimension
+	 * @throws IndexOutOfBoundsException if any coordinates are negative or outside cube (nothing is added).
+	 * @throws IllegalArgumentException if the arrays differ in length.
+	 */
+	static <T> void addEach(Cube<T> cube, int[] xs, int[] ys, int[] zs, T[] elements,
+			int length, int breadth, int height) {
+		checkBatch(xs, ys, zs, elements, length, breadth, height);
+		for (int i = 0; i < elements.length; i++) {
+			cube.add(xs[i], ys[i], zs[i], elements[i]);
+		}
+	}
+
+	/**
+	 * Removes the first plane in a queue with the element's hash code.
+	 * Run-time complexity: O(q)
+	 * @param planes the queue
+	 * @param element plane to be removed
+	 * @return true if a plane was removed
+	 */
+	static <T> boolean removeFromQueue(TraversableQueue<T> planes, T element) {
+		Iterator<T> planeIterator = planes.iterator();
+		for (int i = planes.size(); i > 0; i--) {
+			if (planeIterator.next().hashCode() == element.hashCode()) {
+				planeIterator.remove();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determines if a queue holds a plane with the element's hash code (a move to the same position
+	 * succeeds exactly when it does, and changes nothing).
+	 * Run-time complexity: O(q)
+	 * @param planes the queue, null for an empty position
+	 * @param element plane to look for
+	 * @return true if a plane in the queue has the element's hash code
+	 */
+	static <T> boolean holds(IterableQueue<T> planes, T element) {
+		if (planes == null) {
+			return false;
+		}
+		Iterator<T> planeIterator = planes.iterator();
+		for (int i = planes.size(); i > 0; i--) {
+			if (planeIterator.next().hashCode() == element.hashCode()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A visitor that enqueues every plane it is given, for the queries that return a queue of planes.
+	 * Run-time complexity: O(1)
+	 * @param found queue the planes are added to
+	 * @return the visitor
+	 */
+	static <T> CellVisitor<T> enqueueInto(final IterableQueue<T> found) {
+		return new CellVisitor<T>() {
+			@Override
+			public void visit(int x, int y, int z, T element) {
+				found.enqueue(element);
+			}
+		};
+	}
+
+}
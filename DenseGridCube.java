@@ -0,0 +1,347 @@
+package comp3506.assn1.adts;
+
+import java.util.Arrays;
+
+/**
+ * A bounded cube backed by a flat array with one slot per cell, for small or heavily occupied volumes
+ * (eg. an approach corridor) where the O(length * breadth * height) memory is affordable.
+ * Cell (x, y, z) is slot x + length * (y + breadth * z), so cells along x are adjacent in memory.
+ * A slot holds the queue of planes at that cell, allocated when the first plane arrives and released
+ * when the last leaves, so every exact position operation is O(1) with no tree to walk.
+ *
+ * Bounds and exceptions match BoundedCube, so the two can be swapped behind the Cube interface.
+ *
+ * Memory Efficiency: O(v + n) (NOTE: v = length * breadth * height = number of cells,
+ * 								 n = number of occupied cells)
+ * 						   One reference per cell, plus a queue per occupied cell.
+ *
+ * DenseGridCube is not thread safe.
+ *
+ * @author Peter Baldry
+ * @param <T> The type of element held in the data structure.
+ */
+public class DenseGridCube<T> implements Cube<T> {
+	private int cubeLength;
+	private int cubeBreadth;
+	private int cubeHeight;
+	private Object[] cells;
+	private int positionCount;
+
+	/**
+	 * DenseGridCube Constructor
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @throws IllegalArgumentException if provided dimension sizes are not positive, or there are too many
+	 * 		   cells for one array.
+	 */
+	public DenseGridCube(int length, int breadth, int height) throws IllegalArgumentException {
+		if ((length <= 0) || (breadth <= 0) || (height <= 0)) {
+			throw new IllegalArgumentException();
+		}
+		if ((long) length * breadth * height > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException();
+		}
+		cubeLength = length;
+		cubeBreadth = breadth;
+		cubeHeight = height;
+		cells = new Object[length * breadth * height];
+	}
+
+	/**
+	 * Private helper method, determines if valid input coordinates
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @throws IndexOutOfBoundsException if coordinates are negative or outside cube.
+	 */
+	private void indexBoundException(int x, int y, int z) {
+		CubeSupport.checkPosition(x, y, z, cubeLength, cubeBreadth, cubeHeight);
+	}
+
+	/**
+	 * Private helper method, the slot of a cell (coordinates must already be checked).
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return index of the cell in the array
+	 */
+	private int slot(int x, int y, int z) {
+		return x + cubeLength * (y + cubeBreadth * z);
+	}
+
+	/**
+	 * Private helper method, the planes held in a slot.
+	 * @param slot index of the cell
+	 * @return the cell's queue, null if the cell is empty
+	 */
+	@SuppressWarnings("unchecked")
+	private TraversableQueue<T> queue(int slot) {
+		return (TraversableQueue<T>) cells[slot];
+	}
+
+	/**
+	 * Adds an element to a specified position.
+	 * Run-time complexity: O(1)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param element plane to be added
+	 * @throws IndexOutOfBoundsException if coordinates are negative or outside cube.
+	 */
+	@Override
+	public void add(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		int slot = slot(x, y, z);
+		TraversableQueue<T> planes = queue(slot);
+		if (planes == null) {
+			planes = new TraversableQueue<T>();
+			cells[slot] = planes;
+			positionCount += 1;
+		}
+		planes.enqueue(element);
+	}
+
+	/**
+	 * Adds a batch of elements, each at the matching position of the coordinate arrays.
+	 * Every position is checked before anything is added. Elements sharing a position keep their batch order.
+	 * Run-time complexity: O(b), b = batch size
+	 * @param xs x coordinate of each element
+	 * @param ys y coordinate of each element
+	 * @param zs z coordinate of each element
+	 * @param elements planes to be added
+	 * @throws IndexOutOfBoundsException if any coordinates are negative or outside cube (nothing is added).
+	 * @throws IllegalArgumentException if the arrays differ in length.
+	 */
+	@Override
+	public void addAll(int[] xs, int[] ys, int[] zs, T[] elements)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		CubeSupport.addEach(this, xs, ys, zs, elements, cubeLength, cubeBreadth, cubeHeight);
+	}
+
+	/**
+	 * Gets the oldest element (plane) from specified position.
+	 * Run-time complexity: O(1)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return the oldest plane at the position, null if there is none
+	 * @throws IndexOutOfBoundsException if coordinates are out of cube bounds
+	 */
+	@Override
+	public T get(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		TraversableQueue<T> planes = queue(slot(x, y, z));
+		if (planes == null) {
+			return null;
+		}
+		return planes.peek();
+	}
+
+	/**
+	 * Gets all the elements (in the form of an iterablequeue) at a specified position.
+	 * The queue is the position's live queue, so changing it changes the cube.
+	 * Run-time complexity: O(1)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return the live queue of planes at the position, null if there are none
+	 * @throws IndexOutOfBoundsException if coordinates are out of cube bounds
+	 */
+	@Override
+	public IterableQueue<T> getAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		return queue(slot(x, y, z));
+	}
+
+	/**
+	 * Visits every plane at a specified position, oldest first. Nothing is allocated.
+	 * Run-time complexity: O(q)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param visitor called for each plane at the position
+	 * @throws IndexOutOfBoundsException if coordinates are out of cube bounds
+	 */
+	@Override
+	public void forEachAt(int x, int y, int z, CellVisitor<? super T> visitor) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		TraversableQueue<T> planes = queue(slot(x, y, z));
+		if (planes != null) {
+			planes.visitAll(x, y, z, visitor);
+		}
+	}
+
+	/**
+	 * Determines if there are multiple elements at a particular position.
+	 * Run-time complexity: O(1)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return true if multiple elements at position, false if 0 or 1 elements at position
+	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 */
+	@Override
+	public boolean isMultipleElementsAt(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		TraversableQueue<T> planes = queue(slot(x, y, z));
+		return (planes != null) && (planes.size() > 1);
+	}
+
+	/**
+	 * Removes element/plane from specified position in cube.
+	 * If this was the last plane at the position, the cell's queue is released.
+	 * Run-time complexity: O(q)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param element plane to be removed (matched by hash code)
+	 * @return true if removed correctly, false if not
+	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 */
+	@Override
+	public boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		int slot = slot(x, y, z);
+		TraversableQueue<T> planes = queue(slot);
+		if ((planes == null) || !CubeSupport.removeFromQueue(planes, element)) {
+			return false;
+		}
+		if (planes.size() == 0) {
+			cells[slot] = null;
+			positionCount -= 1;
+		}
+		return true;
+	}
+
+	/**
+	 * Moves an element (plane) from one position to another, as remove followed by add.
+	 * Run-time complexity: O(q)
+	 * @param element plane to be moved (matched by hash code, as in remove)
+	 * @param fromX x coordinate of the old position
+	 * @param fromY y coordinate of the old position
+	 * @param fromZ z coordinate of the old position
+	 * @param toX x coordinate of the new position
+	 * @param toY y coordinate of the new position
+	 * @param toZ z coordinate of the new position
+	 * @return true if the plane was moved, false if it was not at the old position (nothing changes)
+	 * @throws IndexOutOfBoundsException if either position is outside cube.
+	 */
+	@Override
+	public boolean move(T element, int fromX, int fromY, int fromZ, int toX, int toY, int toZ)
+			throws IndexOutOfBoundsException {
+		indexBoundException(fromX, fromY, fromZ);
+		indexBoundException(toX, toY, toZ);
+		if ((fromX == toX) && (fromY == toY) && (fromZ == toZ)) {
+			return CubeSupport.holds(queue(slot(fromX, fromY, fromZ)), element);
+		}
+		if (!remove(fromX, fromY, fromZ, element)) {
+			return false;
+		}
+		add(toX, toY, toZ, element);
+		return true;
+	}
+
+	/**
+	 * Removes all planes from a specified position in cube.
+	 * Run-time complexity: O(1)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 */
+	@Override
+	public void removeAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		int slot = slot(x, y, z);
+		if (cells[slot] != null) {
+			cells[slot] = null;
+			positionCount -= 1;
+		}
+	}
+
+	/**
+	 * Gets all the planes inside an axis aligned box (see forEachInRange).
+	 * Run-time complexity: O(b + k), b = number of cells in the box, k = number of planes in the box
+	 * @param minX lowest x coordinate
+	 * @param minY lowest y coordinate
+	 * @param minZ lowest z coordinate
+	 * @param maxX highest x coordinate
+	 * @param maxY highest y coordinate
+	 * @param maxZ highest z coordinate
+	 * @return queue of every plane in the box, empty if there are none
+	 * @throws IndexOutOfBoundsException if either corner is outside cube.
+	 * @throws IllegalArgumentException if a minimum is greater than its maximum.
+	 */
+	@Override
+	public IterableQueue<T> getRange(int minX, int minY, int minZ, int maxX, int maxY, int maxZ)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		IterableQueue<T> found = new TraversableQueue<T>();
+		forEachInRange(minX, minY, minZ, maxX, maxY, maxZ, CubeSupport.enqueueInto(found));
+		return found;
+	}
+
+	/**
+	 * Visits every plane inside an axis aligned box along with its position, scanning each row of the box
+	 * along x (contiguous slots).
+	 * Run-time complexity: O(b + k), b = number of cells in the box, k = number of planes in the box
+	 * @param minX lowest x coordinate
+	 * @param minY lowest y coordinate
+	 * @param minZ lowest z coordinate
+	 * @param maxX highest x coordinate
+	 * @param maxY highest y coordinate
+	 * @param maxZ highest z coordinate
+	 * @param visitor called for each plane in the box
+	 * @throws IndexOutOfBoundsException if either corner is outside cube.
+	 * @throws IllegalArgumentException if a minimum is greater than its maximum.
+	 */
+	@Override
+	public void forEachInRange(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, CellVisitor<? super T> visitor)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		indexBoundException(minX, minY, minZ);
+		indexBoundException(maxX, maxY, maxZ);
+		if ((minX > maxX) || (minY > maxY) || (minZ > maxZ)) {
+			throw new IllegalArgumentException();
+		}
+		for (int z = minZ; z <= maxZ; z++) {
+			for (int y = minY; y <= maxY; y++) {
+				int rowStart = slot(0, y, z);
+				for (int x = minX; x <= maxX; x++) {
+					TraversableQueue<T> planes = queue(rowStart + x);
+					if (planes != null) {
+						planes.visitAll(x, y, z, visitor);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Clears all the planes from the cube.
+	 * Run-time complexity: O(v)
+	 */
+	@Override
+	public void clear() {
+		Arrays.fill(cells, null);
+		positionCount = 0;
+	}
+
+	/**
+	 * Number of occupied cells.
+	 * Run-time complexity: O(1)
+	 * @return number of positions holding at least one plane
+	 */
+	public int getNodeCount() {
+		return positionCount;
+	}
+
+	/**
+	 * Approximate memory used by the cell array: one reference per cell (queues not included).
+	 * Run-time complexity: O(1)
+	 * @return approximate size of the array in bytes
+	 */
+	public long getGridMemoryBytes() {
+		return (long) cells.length * 8;
+	}
+
+}
@@ -0,0 +1,37 @@
+package comp3506.assn1.adts;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+
+/**
+ * Writes elements to and reads them back from a binary stream, for cube snapshots 
+ * (see BoundedCube.writeSnapshot and BoundedCube.readSnapshot).
+ * read must consume exactly the bytes write produced for the element.
+ * 
+ * @author Peter Baldry
+ *
+ * @param <T> The type of element encoded.
+ */
+public interface ElementCodec<T> {
+	
+	/**
+	 * Writes one element.
+	 * 
+	 * @param element The element to write.
+	 * @param out The stream to write to.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	void write(T element, DataOutput out) throws IOException;
+	
+	/**
+	 * Reads one element written by write.
+	 * 
+	 * @param in The stream to read from.
+	 * @return The element read.
+	 * @throws IOException if the stream cannot be read or does not hold an element.
+	 */
+	T read(DataInput in) throws IOException;
+	
+}
@@ -0,0 +1,187 @@
+package comp3506.assn1.adts;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of non-negative long values (eg. latencies in nanoseconds) held in a fixed number of buckets, 
+ * in the style of an HDR histogram: values below 16 each get their own bucket, and every power of two range 
+ * above that is split into 16 equal buckets. Any recorded value is reported to within 1/16 (6.25%) of itself, 
+ * and recording is O(1) with no allocation.
+ *
+ * Memory Efficiency: O(1) (NOTE: 976 counters, about 8KB, whatever values are recorded)
+ *
+ * Histogram is not thread safe.
+ *
+ * @author Peter Baldry
+ */
+public class Histogram {
+	
+	/* each power of two range [2^e, 2^(e+1)) is split into 2^SUB_BUCKET_BITS buckets */
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS + SUB_BUCKETS;
+	
+	private long[] counts;
+	private long totalCount;
+	private long minValue;
+	private long maxValue;
+	private long sum;
+	
+	/**
+	 * Histogram constructor, creates an empty histogram.
+	 */
+	public Histogram() {
+		counts = new long[BUCKET_COUNT];
+		reset();
+	}
+	
+	/**
+	 * Private constructor, copies another histogram.
+	 * @param other the histogram to copy
+	 */
+	private Histogram(Histogram other) {
+		counts = other.counts.clone();
+		totalCount = other.totalCount;
+		minValue = other.minValue;
+		maxValue = other.maxValue;
+		sum = other.sum;
+	}
+	
+	/**
+	 * Records one occurrence of a value.
+	 * Run-time complexity: O(1)
+	 * @param value the value
+	 * @throws IllegalArgumentException if value is negative.
+	 */
+	public void record(long value) throws IllegalArgumentException {
+		if (value < 0) {
+			throw new IllegalArgumentException();
+		}
+		counts[bucketOf(value)] += 1;
+		totalCount += 1;
+		sum += value;
+		minValue = Math.min(minValue, value);
+		maxValue = Math.max(maxValue, value);
+	}
+	
+	/**
+	 * Private helper method, finds the bucket a value is counted in.
+	 * Run-time complexity: O(1)
+	 * @param value the value (not negative)
+	 * @return the bucket index
+	 */
+	private static int bucketOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+		// value >>> shift lies in [SUB_BUCKETS, 2 * SUB_BUCKETS)
+		return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) - SUB_BUCKETS);
+	}
+	
+	/**
+	 * Private helper method, the largest value counted in a bucket.
+	 * Run-time complexity: O(1)
+	 * @param bucket the bucket index
+	 * @return the highest value the bucket covers
+	 */
+	private static long highestValueOf(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+		long subBucket = (bucket & (SUB_BUCKETS - 1)) + SUB_BUCKETS;
+		return ((subBucket + 1) << shift) - 1;
+	}
+	
+	/**
+	 * Gets the value below or at which a percentage of the recorded values fall, reported as the highest 
+	 * value of its bucket (so at most 6.25% above the exact percentile) but never above the maximum recorded.
+	 * Run-time complexity: O(1) (at most 976 buckets are scanned)
+	 * @param percentile the percentage, 0 to 100 (eg. 99.9)
+	 * @return the value at the percentile, 0 if nothing has been recorded
+	 * @throws IllegalArgumentException if percentile is outside 0 to 100.
+	 */
+	public long getValueAtPercentile(double percentile) throws IllegalArgumentException {
+		if (!((percentile >= 0) && (percentile <= 100))) {
+			throw new IllegalArgumentException();
+		}
+		if (totalCount == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil((percentile / 100) * totalCount));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(highestValueOf(i), maxValue);
+			}
+		}
+		return maxValue;
+	}
+	
+	/**
+	 * Run-time complexity: O(1)
+	 * @return the number of values recorded
+	 */
+	public long getCount() {
+		return totalCount;
+	}
+	
+	/**
+	 * Run-time complexity: O(1)
+	 * @return the smallest value recorded, 0 if nothing has been recorded
+	 */
+	public long getMin() {
+		return (totalCount == 0) ? 0 : minValue;
+	}
+	
+	/**
+	 * Run-time complexity: O(1)
+	 * @return the largest value recorded, 0 if nothing has been recorded
+	 */
+	public long getMax() {
+		return (totalCount == 0) ? 0 : maxValue;
+	}
+	
+	/**
+	 * Run-time complexity: O(1)
+	 * @return the mean of the values recorded, 0 if nothing has been recorded
+	 */
+	public double getMean() {
+		return (totalCount == 0) ? 0 : (double) sum / totalCount;
+	}
+	
+	/**
+	 * Forgets every value recorded.
+	 * Run-time complexity: O(1) (976 counters are cleared)
+	 */
+	public void reset() {
+		Arrays.fill(counts, 0);
+		totalCount = 0;
+		minValue = Long.MAX_VALUE;
+		maxValue = 0;
+		sum = 0;
+	}
+	
+	/**
+	 * Copies the histogram, eg. to read it while the original keeps recording.
+	 * Run-time complexity: O(1) (976 counters are copied)
+	 * @return an independent copy
+	 */
+	public Histogram copy() {
+		return new Histogram(this);
+	}
+	
+	/**
+	 * Run-time complexity: O(1)
+	 * @return count, mean and the 50th, 99th and 99.9th percentiles and maximum
+	 */
+	@Override
+	public String toString() {
+		return "count=" + totalCount + " mean=" + String.format("%.1f", getMean()) 
+				+ " p50=" + getValueAtPercentile(50) + " p99=" + getValueAtPercentile(99) 
+				+ " p99.9=" + getValueAtPercentile(99.9) + " max=" + getMax();
+	}
+	
+}
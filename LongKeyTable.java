@@ -0,0 +1,170 @@
+package comp3506.assn1.adts;
+
+/**
+ * Open addressing (linear probing) hash table from a primitive long key to a value, so lookups never box.
+ * Keys are spread by Fibonacci hashing, so neighbouring keys (eg. Z-order or coarse grid neighbours) do not
+ * share a probe run. Kept at most half full; deletions shift later entries back so no tombstones are needed.
+ * get only reads the table, so any number of readers may share it while no one writes.
+ *
+ * Used by BoundedCube's cell index (Morton key to tree node) and SpatialHashCube (bucket key to bucket).
+ *
+ * Memory Efficiency: O(capacity), a long key and a reference per slot, capacity at most 4 * size (once grown).
+ *
+ * @author Peter Baldry
+ * @param <V> The type of value held in the table.
+ */
+class LongKeyTable<V> {
+	private static final int INITIAL_CAPACITY = 16;
+
+	private long[] keys;
+	private Object[] values;
+	private int size;
+
+	/**
+	 * LongKeyTable constructor, an empty table.
+	 */
+	LongKeyTable() {
+		clear();
+	}
+
+	/**
+	 * Private helper method, home slot of a key.
+	 * @param key the key
+	 * @return slot index
+	 */
+	private int slot(long key) {
+		return (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(keys.length)));
+	}
+
+	/**
+	 * Finds the value for a key.
+	 * Run-time complexity: O(1) expected
+	 * @param key the key
+	 * @return the value, null if the key is not held
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		int mask = keys.length - 1;
+		for (int i = slot(key); values[i] != null; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				return (V) values[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Holds a value under a key (replacing any value the key already has).
+	 * Run-time complexity: amortised O(1) expected
+	 * @param key the key
+	 * @param value the value (not null)
+	 */
+	public void put(long key, V value) {
+		if ((size + 1) * 2 > keys.length) {
+			resize(keys.length * 2);
+		}
+		int mask = keys.length - 1;
+		int i = slot(key);
+		while (values[i] != null) {
+			if (keys[i] == key) {
+				values[i] = value;
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		keys[i] = key;
+		values[i] = value;
+		size += 1;
+	}
+
+	/**
+	 * Removes a key, shifting back any later entries of the same probe run.
+	 * Run-time complexity: O(1) expected
+	 * @param key the key
+	 */
+	public void remove(long key) {
+		int mask = keys.length - 1;
+		int i = slot(key);
+		while (values[i] != null && keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+		if (values[i] == null) {
+			return;
+		}
+		size -= 1;
+		int gap = i;
+		int j = (i + 1) & mask;
+		while (values[j] != null) {
+			int home = slot(keys[j]);
+			// move the entry into the gap if its home slot is not between the gap and its current slot
+			if (((j - home) & mask) >= ((j - gap) & mask)) {
+				keys[gap] = keys[j];
+				values[gap] = values[j];
+				gap = j;
+			}
+			j = (j + 1) & mask;
+		}
+		values[gap] = null;
+	}
+
+	/**
+	 * Removes every key, returning the table to its initial capacity.
+	 * Run-time complexity: O(1)
+	 */
+	public void clear() {
+		keys = new long[INITIAL_CAPACITY];
+		values = new Object[INITIAL_CAPACITY];
+		size = 0;
+	}
+
+	/**
+	 * Private helper method, rehashes every entry into a table of a new capacity.
+	 * Run-time complexity: O(capacity)
+	 * @param capacity new capacity (a power of two)
+	 */
+	private void resize(int capacity) {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		keys = new long[capacity];
+		values = new Object[capacity];
+		int mask = capacity - 1;
+		for (int i = 0; i < oldValues.length; i++) {
+			if (oldValues[i] != null) {
+				int j = slot(oldKeys[i]);
+				while (values[j] != null) {
+					j = (j + 1) & mask;
+				}
+				keys[j] = oldKeys[i];
+				values[j] = oldValues[i];
+			}
+		}
+	}
+
+	/**
+	 * Run-time complexity: O(1)
+	 * @return number of keys held
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Run-time complexity: O(1)
+	 * @return number of slots (a power of two), for walking the table with valueAt
+	 */
+	public int capacity() {
+		return keys.length;
+	}
+
+	/**
+	 * The value held in a slot, for visiting every value without looking up keys.
+	 * Run-time complexity: O(1)
+	 * @param slot index of the slot, from 0 to capacity() - 1
+	 * @return the value, null if the slot is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public V valueAt(int slot) {
+		return (V) values[slot];
+	}
+
+}
@@ -0,0 +1,782 @@
+package comp3506.assn1.adts;
+
+import java.util.Arrays;
+
+/**
+ * A bounded cube backed by an octree over the cube's length, breadth and height.
+ * Each octant covers an axis aligned box of cells. A leaf octant holds a bucket of up to leafCapacity positions
+ * (stored in parallel arrays, each position with its queue of planes); once a leaf holds more it is subdivided
+ * at the midpoint of each axis into eight children, created only for the octants that are actually occupied.
+ * When removals bring an octant down to half the leaf capacity its subtree is merged back into one leaf.
+ *
+ * Unlike BoundedCube, the shape does not depend on the order positions are added and the depth is bounded by
+ * log2 of the largest dimension, so dense clusters (eg. terminal areas) subdivide only where they are while
+ * sparse airspace stays in a few large leaves.
+ *
+ * Memory Efficiency: O(n) (NOTE: n = number of positions in the cube)
+ * 						   Octants are only created where positions exist, at most one per position per level.
+ *
+ * NOTE: For all memory and time complexities in this class:
+ * 		n = number of positions in the cube
+ * 		d = depth of the octree (at most log2 of the largest dimension)
+ * 		c = leaf capacity
+ * 		q = number of planes in one position
+ *
+ * OctreeCube is not thread safe.
+ *
+ * @author Peter Baldry
+ * @param <T> The type of element held in the data structure.
+ */
+public class OctreeCube<T> implements Cube<T> {
+	private static final int DEFAULT_LEAF_CAPACITY = 8;
+	private static final int INITIAL_BUCKET_SIZE = 4;
+	/* every subdivision halves the octant on each axis, so no octant is deeper than 31 below the root */
+	private static final int MAX_DEPTH = 32;
+
+	private int cubeLength;
+	private int cubeBreadth;
+	private int cubeHeight;
+	private int leafCapacity;
+	private OctantNode rootNode;
+	private int positionCount;
+	private int octantCount;
+	private OctantNode[] path = newOctantArray(MAX_DEPTH);
+	private int pathDepth;
+
+	/**
+	 * Private inner class representing an octant (a node of the octree)
+	 * @author Peter Baldry
+	 */
+	private class OctantNode {
+		int minX;
+		int minY;
+		int minZ;
+		int maxX;
+		int maxY;
+		int maxZ;
+		/* number of positions held in this octant, for a leaf also the number of bucket entries in use */
+		int positions;
+		/* the eight children (null where unoccupied), null for a leaf */
+		OctantNode[] children;
+		int[] xs;
+		int[] ys;
+		int[] zs;
+		Object[] queues;
+
+		/**
+		 * OctantNode constructor, creates an empty leaf
+		 * @param minX lowest x coordinate covered
+		 * @param minY lowest y coordinate covered
+		 * @param minZ lowest z coordinate covered
+		 * @param maxX highest x coordinate covered
+		 * @param maxY highest y coordinate covered
+		 * @param maxZ highest z coordinate covered
+		 */
+		public OctantNode(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+			this.minX = minX;
+			this.minY = minY;
+			this.minZ = minZ;
+			this.maxX = maxX;
+			this.maxY = maxY;
+			this.maxZ = maxZ;
+			allocateBucket(INITIAL_BUCKET_SIZE);
+		}
+
+		/**
+		 * Run-time complexity: O(1)
+		 * @return true if this octant is a leaf (holds a bucket rather than children)
+		 */
+		public boolean isLeaf() {
+			return children == null;
+		}
+
+		/**
+		 * (Re)creates an empty bucket.
+		 * @param size number of positions the bucket can hold before growing
+		 */
+		public void allocateBucket(int size) {
+			xs = new int[size];
+			ys = new int[size];
+			zs = new int[size];
+			queues = new Object[size];
+			positions = 0;
+		}
+
+		/**
+		 * Which child covers a position: bit 0 is set above the x midpoint, bit 1 above the y midpoint
+		 * and bit 2 above the z midpoint.
+		 * Run-time complexity: O(1)
+		 * @param x x coordinate
+		 * @param y y coordinate
+		 * @param z z coordinate
+		 * @return index of the child (0 to 7)
+		 */
+		public int childIndex(int x, int y, int z) {
+			int index = 0;
+			if (x > ((minX + maxX) >>> 1)) {
+				index |= 1;
+			}
+			if (y > ((minY + maxY) >>> 1)) {
+				index |= 2;
+			}
+			if (z > ((minZ + maxZ) >>> 1)) {
+				index |= 4;
+			}
+			return index;
+		}
+
+		/**
+		 * Gets a child, creating it (as an empty leaf) if the octant is not yet occupied.
+		 * Run-time complexity: O(1)
+		 * @param index index of the child (see childIndex)
+		 * @return the child
+		 */
+		public OctantNode child(int index) {
+			if (children[index] == null) {
+				int midX = (minX + maxX) >>> 1;
+				int midY = (minY + maxY) >>> 1;
+				int midZ = (minZ + maxZ) >>> 1;
+				children[index] = new OctantNode(
+						((index & 1) == 0) ? minX : midX + 1,
+						((index & 2) == 0) ? minY : midY + 1,
+						((index & 4) == 0) ? minZ : midZ + 1,
+						((index & 1) == 0) ? midX : maxX,
+						((index & 2) == 0) ? midY : maxY,
+						((index & 4) == 0) ? midZ : maxZ);
+				octantCount += 1;
+			}
+			return children[index];
+		}
+
+		/**
+		 * Finds a position in this leaf's bucket.
+		 * Run-time complexity: O(c)
+		 * @param x x coordinate
+		 * @param y y coordinate
+		 * @param z z coordinate
+		 * @return index of the position in the bucket, -1 if it is not held
+		 */
+		public int find(int x, int y, int z) {
+			for (int i = 0; i < positions; i++) {
+				if ((xs[i] == x) && (ys[i] == y) && (zs[i] == z)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Adds a position (with its queue) to the end of this leaf's bucket, growing the bucket if full.
+		 * Run-time complexity: amortised O(1)
+		 * @param x x coordinate
+		 * @param y y coordinate
+		 * @param z z coordinate
+		 * @param queue planes at the position
+		 */
+		public void append(int x, int y, int z, Object queue) {
+			if (positions == xs.length) {
+				int size = xs.length * 2;
+				xs = Arrays.copyOf(xs, size);
+				ys = Arrays.copyOf(ys, size);
+				zs = Arrays.copyOf(zs, size);
+				queues = Arrays.copyOf(queues, size);
+			}
+			xs[positions] = x;
+			ys[positions] = y;
+			zs[positions] = z;
+			queues[positions] = queue;
+			positions += 1;
+		}
+
+		/**
+		 * Removes a position from this leaf's bucket (the last position takes its place).
+		 * Run-time complexity: O(1)
+		 * @param index index of the position in the bucket
+		 */
+		public void removeAt(int index) {
+			int last = positions - 1;
+			xs[index] = xs[last];
+			ys[index] = ys[last];
+			zs[index] = zs[last];
+			queues[index] = queues[last];
+			queues[last] = null;
+			positions -= 1;
+		}
+
+		/**
+		 * Determines if this octant overlaps an axis aligned box.
+		 * Run-time complexity: O(1)
+		 * @param minX lowest x coordinate of the box
+		 * @param minY lowest y coordinate of the box
+		 * @param minZ lowest z coordinate of the box
+		 * @param maxX highest x coordinate of the box
+		 * @param maxY highest y coordinate of the box
+		 * @param maxZ highest z coordinate of the box
+		 * @return true if at least one cell is in both
+		 */
+		public boolean overlaps(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+			return (minX <= this.maxX) && (maxX >= this.minX) && (minY <= this.maxY) && (maxY >= this.minY)
+					&& (minZ <= this.maxZ) && (maxZ >= this.minZ);
+		}
+
+	}
+
+	/**
+	 * OctreeCube Constructor, leaves are subdivided once they hold more than 8 positions.
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @throws IllegalArgumentException if provided dimension sizes are not positive.
+	 */
+	public OctreeCube(int length, int breadth, int height) throws IllegalArgumentException {
+		this(length, breadth, height, DEFAULT_LEAF_CAPACITY);
+	}
+
+	/**
+	 * OctreeCube Constructor
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @param leafCapacity number of positions a leaf holds before it is subdivided
+	 * @throws IllegalArgumentException if provided dimension sizes or the leaf capacity are not positive.
+	 */
+	public OctreeCube(int length, int breadth, int height, int leafCapacity) throws IllegalArgumentException {
+		if ((length <= 0) || (breadth <= 0) || (height <= 0) || (leafCapacity <= 0)) {
+			throw new IllegalArgumentException();
+		}
+		cubeLength = length;
+		cubeBreadth = breadth;
+		cubeHeight = height;
+		this.leafCapacity = leafCapacity;
+		clear();
+	}
+
+	/**
+	 * Private helper method, creates an array of octants (OctantNode is generic so cannot be created directly).
+	 * @param size length of the array
+	 * @return an empty array of octants
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private OctantNode[] newOctantArray(int size) {
+		return (OctantNode[]) new OctreeCube.OctantNode[size];
+	}
+
+	/**
+	 * Private helper method, the planes held at a position of a leaf.
+	 * @param leaf the leaf
+	 * @param index index of the position in the leaf's bucket
+	 * @return the position's queue
+	 */
+	@SuppressWarnings("unchecked")
+	private TraversableQueue<T> queue(OctantNode leaf, int index) {
+		return (TraversableQueue<T>) leaf.queues[index];
+	}
+
+	/**
+	 * Private helper method, determines if valid input coordinates
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @throws IndexOutOfBoundsException if coordinates are negative or outside cube.
+	 */
+	private void indexBoundException(int x, int y, int z) {
+		CubeSupport.checkPosition(x, y, z, cubeLength, cubeBreadth, cubeHeight);
+	}
+
+	/**
+	 * Private helper method, finds the leaf covering a position without creating any octants.
+	 * Run-time complexity: O(d)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return the leaf, null if the octant covering the position is unoccupied
+	 */
+	private OctantNode findLeaf(int x, int y, int z) {
+		OctantNode node = rootNode;
+		while ((node != null) && !node.isLeaf()) {
+			node = node.children[node.childIndex(x, y, z)];
+		}
+		return node;
+	}
+
+	/**
+	 * Private helper method, walks down to the leaf covering a position, remembering the octants passed
+	 * in path[0..pathDepth-1].
+	 * Run-time complexity: O(d)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param create true to create the leaf if the octant is unoccupied
+	 * @return the leaf, null if it is unoccupied and create is false
+	 */
+	private OctantNode descend(int x, int y, int z, boolean create) {
+		OctantNode node = rootNode;
+		pathDepth = 0;
+		while (!node.isLeaf()) {
+			path[pathDepth++] = node;
+			int index = node.childIndex(x, y, z);
+			if (create) {
+				node = node.child(index);
+			} else if (node.children[index] == null) {
+				return null;
+			} else {
+				node = node.children[index];
+			}
+		}
+		return node;
+	}
+
+	/**
+	 * Adds an element to a specified position.
+	 * If this gives a leaf more than leafCapacity positions, the leaf is subdivided.
+	 * Run-time complexity: O(d + c) (amortised, a subdivision costs O(c) per level it descends)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param element plane to be added
+	 * @throws IndexOutOfBoundsException if coordinates are negative or outside cube.
+	 */
+	@Override
+	public void add(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		OctantNode leaf = descend(x, y, z, true);
+		int index = leaf.find(x, y, z);
+		if (index >= 0) {
+			queue(leaf, index).enqueue(element);
+			return;
+		}
+		TraversableQueue<T> newQueue = new TraversableQueue<T>();
+		newQueue.enqueue(element);
+		leaf.append(x, y, z, newQueue);
+		for (int i = 0; i < pathDepth; i++) {
+			path[i].positions += 1;
+		}
+		positionCount += 1;
+		if (leaf.positions > leafCapacity) {
+			subdivide(leaf);
+		}
+	}
+
+	/**
+	 * Adds a batch of elements, each at the matching position of the coordinate arrays.
+	 * Every position is checked before anything is added. Elements sharing a position keep their batch order.
+	 * Run-time complexity: O(b(d + c)), b = batch size
+	 * @param xs x coordinate of each element
+	 * @param ys y coordinate of each element
+	 * @param zs z coordinate of each element
+	 * @param elements planes to be added
+	 * @throws IndexOutOfBoundsException if any coordinates are negative or outside cube (nothing is added).
+	 * @throws IllegalArgumentException if the arrays differ in length.
+	 */
+	@Override
+	public void addAll(int[] xs, int[] ys, int[] zs, T[] elements)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		CubeSupport.addEach(this, xs, ys, zs, elements, cubeLength, cubeBreadth, cubeHeight);
+	}
+
+	/**
+	 * Private helper method, turns an over full leaf into an octant with children, moving each position into
+	 * the child covering it. Children that are still over full are subdivided in turn (a leaf of more than
+	 * one position always covers more than one cell, so this ends).
+	 * Run-time complexity: O(c) per level subdivided
+	 * @param leaf the leaf to subdivide
+	 */
+	private void subdivide(OctantNode leaf) {
+		int[] xs = leaf.xs;
+		int[] ys = leaf.ys;
+		int[] zs = leaf.zs;
+		Object[] queues = leaf.queues;
+		int positions = leaf.positions;
+		leaf.xs = null;
+		leaf.ys = null;
+		leaf.zs = null;
+		leaf.queues = null;
+		leaf.children = newOctantArray(8);
+		for (int i = 0; i < positions; i++) {
+			leaf.child(leaf.childIndex(xs[i], ys[i], zs[i])).append(xs[i], ys[i], zs[i], queues[i]);
+		}
+		for (int i = 0; i < 8; i++) {
+			if ((leaf.children[i] != null) && (leaf.children[i].positions > leafCapacity)) {
+				subdivide(leaf.children[i]);
+			}
+		}
+	}
+
+	/**
+	 * Private helper method, removes an (empty) position from the leaf found by the last descend.
+	 * The highest octant on the path left with at most half the leaf capacity is merged back into a leaf;
+	 * otherwise a leaf left empty is unlinked from its parent.
+	 * Run-time complexity: O(d + c)
+	 * @param leaf the leaf holding the position
+	 * @param index index of the position in the leaf's bucket
+	 */
+	private void positionRemoved(OctantNode leaf, int index) {
+		leaf.removeAt(index);
+		positionCount -= 1;
+		for (int i = 0; i < pathDepth; i++) {
+			path[i].positions -= 1;
+		}
+		for (int i = 0; i < pathDepth; i++) {
+			if (path[i].positions <= leafCapacity / 2) {
+				merge(path[i]);
+				return;
+			}
+		}
+		if ((leaf.positions == 0) && (pathDepth > 0)) {
+			OctantNode parent = path[pathDepth - 1];
+			for (int i = 0; i < 8; i++) {
+				if (parent.children[i] == leaf) {
+					parent.children[i] = null;
+					octantCount -= 1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Private helper method, merges an octant's subtree back into a single leaf.
+	 * Run-time complexity: O(m), m = number of octants and positions in the subtree
+	 * @param node the octant (keeps its position count)
+	 */
+	private void merge(OctantNode node) {
+		OctantNode[] children = node.children;
+		node.children = null;
+		node.allocateBucket(Math.max(node.positions, INITIAL_BUCKET_SIZE));
+		for (int i = 0; i < 8; i++) {
+			if (children[i] != null) {
+				gather(children[i], node);
+			}
+		}
+	}
+
+	/**
+	 * Private helper method, appends every position of a subtree to a leaf's bucket, discarding the subtree's octants.
+	 * Run-time complexity: O(m), m = number of octants and positions in the subtree
+	 * @param node root of the subtree
+	 * @param leaf the leaf to fill
+	 */
+	private void gather(OctantNode node, OctantNode leaf) {
+		octantCount -= 1;
+		if (node.isLeaf()) {
+			for (int i = 0; i < node.positions; i++) {
+				leaf.append(node.xs[i], node.ys[i], node.zs[i], node.queues[i]);
+			}
+			return;
+		}
+		for (int i = 0; i < 8; i++) {
+			if (node.children[i] != null) {
+				gather(node.children[i], leaf);
+			}
+		}
+	}
+
+	/**
+	 * Gets the oldest element (plane) from specified position.
+	 * Run-time complexity: O(d + c)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return the oldest plane at the position, null if there is none
+	 * @throws IndexOutOfBoundsException if coordinates are out of cube bounds
+	 */
+	@Override
+	public T get(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		OctantNode leaf = findLeaf(x, y, z);
+		if (leaf == null) {
+			return null;
+		}
+		int index = leaf.find(x, y, z);
+		if (index < 0) {
+			return null;
+		}
+		return queue(leaf, index).peek();
+	}
+
+	/**
+	 * Gets all the elements (in the form of an iterablequeue) at a specified position.
+	 * The queue is the position's live queue, so changing it changes the cube.
+	 * Run-time complexity: O(d + c)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return the live queue of planes at the position, null if there are none
+	 * @throws IndexOutOfBoundsException if coordinates are out of cube bounds
+	 */
+	@Override
+	public IterableQueue<T> getAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		OctantNode leaf = findLeaf(x, y, z);
+		if (leaf == null) {
+			return null;
+		}
+		int index = leaf.find(x, y, z);
+		if (index < 0) {
+			return null;
+		}
+		return queue(leaf, index);
+	}
+
+	/**
+	 * Visits every plane at a specified position, oldest first. Nothing is allocated.
+	 * Run-time complexity: O(d + c + q)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param visitor called for each plane at the position
+	 * @throws IndexOutOfBoundsException if coordinates are out of cube bounds
+	 */
+	@Override
+	public void forEachAt(int x, int y, int z, CellVisitor<? super T> visitor) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		OctantNode leaf = findLeaf(x, y, z);
+		if (leaf == null) {
+			return;
+		}
+		int index = leaf.find(x, y, z);
+		if (index >= 0) {
+			queue(leaf, index).visitAll(x, y, z, visitor);
+		}
+	}
+
+	/**
+	 * Determines if there are multiple elements at a particular position.
+	 * Run-time complexity: O(d + c)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return true if multiple elements at position, false if 0 or 1 elements at position
+	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 */
+	@Override
+	public boolean isMultipleElementsAt(int x, int y, int z) throws IndexOutOfBoundsException {
+		IterableQueue<T> planes = getAll(x, y, z);
+		return (planes != null) && (planes.size() > 1);
+	}
+
+	/**
+	 * Removes element/plane from specified position in cube.
+	 * If this was the last plane at the position, the position is removed from its leaf.
+	 * Run-time complexity: O(d + c + q)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param element plane to be removed (matched by hash code)
+	 * @return true if removed correctly, false if not
+	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 */
+	@Override
+	public boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		OctantNode leaf = descend(x, y, z, false);
+		if (leaf == null) {
+			return false;
+		}
+		int index = leaf.find(x, y, z);
+		if ((index < 0) || !CubeSupport.removeFromQueue(queue(leaf, index), element)) {
+			return false;
+		}
+		if (queue(leaf, index).size() == 0) {
+			positionRemoved(leaf, index);
+		}
+		return true;
+	}
+
+	/**
+	 * Moves an element (plane) from one position to another, as remove followed by add.
+	 * Run-time complexity: O(d + c + q)
+	 * @param element plane to be moved (matched by hash code, as in remove)
+	 * @param fromX x coordinate of the old position
+	 * @param fromY y coordinate of the old position
+	 * @param fromZ z coordinate of the old position
+	 * @param toX x coordinate of the new position
+	 * @param toY y coordinate of the new position
+	 * @param toZ z coordinate of the new position
+	 * @return true if the plane was moved, false if it was not at the old position (nothing changes)
+	 * @throws IndexOutOfBoundsException if either position is outside cube.
+	 */
+	@Override
+	public boolean move(T element, int fromX, int fromY, int fromZ, int toX, int toY, int toZ)
+			throws IndexOutOfBoundsException {
+		indexBoundException(fromX, fromY, fromZ);
+		indexBoundException(toX, toY, toZ);
+		if ((fromX == toX) && (fromY == toY) && (fromZ == toZ)) {
+			return CubeSupport.holds(getAll(fromX, fromY, fromZ), element);
+		}
+		if (!remove(fromX, fromY, fromZ, element)) {
+			return false;
+		}
+		add(toX, toY, toZ, element);
+		return true;
+	}
+
+	/**
+	 * Removes all planes from a specified position in cube.
+	 * Run-time complexity: O(d + c + q)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 */
+	@Override
+	public void removeAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		OctantNode leaf = descend(x, y, z, false);
+		if (leaf == null) {
+			return;
+		}
+		int index = leaf.find(x, y, z);
+		if (index < 0) {
+			return;
+		}
+		TraversableQueue<T> planes = queue(leaf, index);
+		while (planes.size() > 0) {
+			planes.dequeue();
+		}
+		positionRemoved(leaf, index);
+	}
+
+	/**
+	 * Gets all the planes inside an axis aligned box (see forEachInRange).
+	 * Run-time complexity: O(o + k), o = number of octants overlapping the box, k = number of positions in them
+	 * @param minX lowest x coordinate
+	 * @param minY lowest y coordinate
+	 * @param minZ lowest z coordinate
+	 * @param maxX highest x coordinate
+	 * @param maxY highest y coordinate
+	 * @param maxZ highest z coordinate
+	 * @return queue of every plane in the box, empty if there are none
+	 * @throws IndexOutOfBoundsException if either corner is outside cube.
+	 * @throws IllegalArgumentException if a minimum is greater than its maximum.
+	 */
+	@Override
+	public IterableQueue<T> getRange(int minX, int minY, int minZ, int maxX, int maxY, int maxZ)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		IterableQueue<T> found = new TraversableQueue<T>();
+		forEachInRange(minX, minY, minZ, maxX, maxY, maxZ, CubeSupport.enqueueInto(found));
+		return found;
+	}
+
+	/**
+	 * Visits every plane inside an axis aligned box along with its position.
+	 * Only octants overlapping the box are entered.
+	 * Run-time complexity: O(o + k), o = number of octants overlapping the box, k = number of positions in them
+	 * @param minX lowest x coordinate
+	 * @param minY lowest y coordinate
+	 * @param minZ lowest z coordinate
+	 * @param maxX highest x coordinate
+	 * @param maxY highest y coordinate
+	 * @param maxZ highest z coordinate
+	 * @param visitor called for each plane in the box
+	 * @throws IndexOutOfBoundsException if either corner is outside cube.
+	 * @throws IllegalArgumentException if a minimum is greater than its maximum.
+	 */
+	@Override
+	public void forEachInRange(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, CellVisitor<? super T> visitor)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		indexBoundException(minX, minY, minZ);
+		indexBoundException(maxX, maxY, maxZ);
+		if ((minX > maxX) || (minY > maxY) || (minZ > maxZ)) {
+			throw new IllegalArgumentException();
+		}
+		rangeSearch(rootNode, minX, minY, minZ, maxX, maxY, maxZ, visitor);
+	}
+
+	/**
+	 * Private helper method, visits every plane in a box below (and including) an octant.
+	 * @param node the octant
+	 * @param minX lowest x coordinate
+	 * @param minY lowest y coordinate
+	 * @param minZ lowest z coordinate
+	 * @param maxX highest x coordinate
+	 * @param maxY highest y coordinate
+	 * @param maxZ highest z coordinate
+	 * @param visitor called for each plane in the box
+	 */
+	private void rangeSearch(OctantNode node, int minX, int minY, int minZ,
+			int maxX, int maxY, int maxZ, CellVisitor<? super T> visitor) {
+		if ((node == null) || !node.overlaps(minX, minY, minZ, maxX, maxY, maxZ)) {
+			return;
+		}
+		if (!node.isLeaf()) {
+			for (int i = 0; i < 8; i++) {
+				rangeSearch(node.children[i], minX, minY, minZ, maxX, maxY, maxZ, visitor);
+			}
+			return;
+		}
+		for (int i = 0; i < node.positions; i++) {
+			int x = node.xs[i];
+			int y = node.ys[i];
+			int z = node.zs[i];
+			if ((x >= minX) && (x <= maxX) && (y >= minY) && (y <= maxY) && (z >= minZ) && (z <= maxZ)) {
+				queue(node, i).visitAll(x, y, z, visitor);
+			}
+		}
+	}
+
+	/**
+	 * Clears all the planes from the cube, leaving a single empty leaf covering it.
+	 * Run-time complexity: O(1)
+	 */
+	@Override
+	public void clear() {
+		rootNode = new OctantNode(0, 0, 0, cubeLength - 1, cubeBreadth - 1, cubeHeight - 1);
+		positionCount = 0;
+		octantCount = 1;
+	}
+
+	/**
+	 * Number of positions currently held in the cube.
+	 * Run-time complexity: O(1)
+	 * @return number of positions
+	 */
+	public int getNodeCount() {
+		return positionCount;
+	}
+
+	/**
+	 * Number of octants (leaves and inner octants) currently in the octree.
+	 * Run-time complexity: O(1)
+	 * @return number of octants
+	 */
+	public int getOctantCount() {
+		return octantCount;
+	}
+
+	/**
+	 * Number of positions a leaf holds before it is subdivided.
+	 * Run-time complexity: O(1)
+	 * @return the leaf capacity
+	 */
+	public int getLeafCapacity() {
+		return leafCapacity;
+	}
+
+	/**
+	 * Depth of the deepest octant (the root is depth 0).
+	 * Run-time complexity: O(number of octants)
+	 * @return current maximum depth of the octree
+	 */
+	public int getMaxDepth() {
+		return maxDepth(rootNode);
+	}
+
+	/**
+	 * Private helper method, height of the subtree below an octant.
+	 * @param node the octant
+	 * @return height of the subtree, -1 for an unoccupied octant
+	 */
+	private int maxDepth(OctantNode node) {
+		if (node == null) {
+			return -1;
+		}
+		int depth = 0;
+		if (!node.isLeaf()) {
+			for (int i = 0; i < 8; i++) {
+				depth = Math.max(depth, 1 + maxDepth(node.children[i]));
+			}
+		}
+		return depth;
+	}
+
+}
@@ -0,0 +1,821 @@
+package comp3506.assn1.adts;
+
+/**
+ * A bounded cube whose 3D binary search tree (kd-tree) is persistent: nodes are never changed once
+ * created. An add or remove copies only the nodes on the path to the changed position (path copying)
+ * and publishes the new root with a single volatile write, so old roots stay valid and unchanged.
+ *
+ * Readers never block: every read takes the current root once, and snapshot() hands out a read-only
+ * cube over the current root in O(1). Versions nobody refers to any more are reclaimed by the garbage
+ * collector. Writers are serialized with each other (one writer at a time).
+ *
+ * The tree uses the same splitting rule as BoundedCube and is kept alpha weight balanced (each node
+ * records its subtree size, so an unbalanced subtree on the new path is rebuilt), so a write allocates
+ * O(logn) new nodes amortised.
+ *
+ * Memory Efficiency: O(n + p) for the current version (NOTE: n = number of positions, p = number of planes)
+ *
+ * @author Peter Baldry
+ * @param <T> The type of element held in the data structure.
+ */
+public class PersistentBoundedCube<T> implements Cube<T> {
+	private static final double BALANCE_ALPHA = 0.7;
+	private static final double LOG_INVERSE_ALPHA = Math.log(1 / BALANCE_ALPHA);
+	private static final Object[] NO_ELEMENTS = new Object[0];
+
+	private final int cubeLength;
+	private final int cubeBreadth;
+	private final int cubeHeight;
+	private final boolean readOnly;
+	private volatile Node<T> rootNode;
+	private int maxNodeCount;
+
+	/**
+	 * Immutable node of the tree. The planes at the position are held oldest first.
+	 * @author Peter Baldry
+	 * @param <T> The type of element held in the node.
+	 */
+	private static final class Node<T> {
+		final int x;
+		final int y;
+		final int z;
+		final int size;
+		final Object[] elements;
+		final Node<T> leftNode;
+		final Node<T> rightNode;
+
+		/**
+		 * Node constructor
+		 * @param x x coordinate of the node
+		 * @param y y coordinate of the node
+		 * @param z z coordinate of the node
+		 * @param elements planes at the position, oldest first (never changed after this)
+		 * @param leftNode the left branched node of this node
+		 * @param rightNode the right branched node of this node
+		 */
+		Node(int x, int y, int z, Object[] elements, Node<T> leftNode, Node<T> rightNode) {
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.elements = elements;
+			this.leftNode = leftNode;
+			this.rightNode = rightNode;
+			this.size = 1 + sizeOf(leftNode) + sizeOf(rightNode);
+		}
+
+		/**
+		 * Copy of this node with different children.
+		 * @param left the new left child
+		 * @param right the new right child
+		 * @return the new node
+		 */
+		Node<T> withChildren(Node<T> left, Node<T> right) {
+			return new Node<T>(x, y, z, elements, left, right);
+		}
+
+		/**
+		 * @param x x coordinate
+		 * @param y y coordinate
+		 * @param z z coordinate
+		 * @return true if coordinates match, false if not
+		 */
+		boolean isEquals(int x, int y, int z) {
+			return ((this.x == x) && (this.y == y) && (this.z == z));
+		}
+	}
+
+	/**
+	 * PersistentBoundedCube Constructor
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @throws IllegalArgumentException if provided dimension sizes are not positive.
+	 */
+	public PersistentBoundedCube(int length, int breadth, int height) throws IllegalArgumentException {
+		if ((length <= 0) || (breadth <= 0) || (height <=0)) {
+			throw new IllegalArgumentException();
+		}
+		cubeLength = length;
+		cubeBreadth = breadth;
+		cubeHeight = height;
+		readOnly = false;
+	}
+
+	/**
+	 * Private snapshot constructor, a read-only cube over one version of the tree.
+	 * @param source the cube the snapshot is taken from
+	 * @param root the version to read
+	 */
+	private PersistentBoundedCube(PersistentBoundedCube<T> source, Node<T> root) {
+		cubeLength = source.cubeLength;
+		cubeBreadth = source.cubeBreadth;
+		cubeHeight = source.cubeHeight;
+		readOnly = true;
+		rootNode = root;
+	}
+
+	/**
+	 * Takes an immutable snapshot of the cube. Later adds and removes on this cube are not seen by the snapshot;
+	 * adding to or removing from the snapshot throws UnsupportedOperationException.
+	 * Run-time complexity: O(1) (one volatile read)
+	 * @return read-only cube holding the current contents
+	 */
+	public PersistentBoundedCube<T> snapshot() {
+		return new PersistentBoundedCube<T>(this, rootNode);
+	}
+
+	/**
+	 * Run-time complexity: O(1)
+	 * @return true if this cube is a snapshot (read-only)
+	 */
+	public boolean isSnapshot() {
+		return readOnly;
+	}
+
+	/**
+	 * Private helper method, size of a possibly empty subtree.
+	 * @param node root of the subtree
+	 * @return number of nodes in the subtree
+	 */
+	private static int sizeOf(Node<?> node) {
+		return (node == null) ? 0 : node.size;
+	}
+
+	/**
+	 * Private helper method for getting the value to be compared at each node (x, then y, then z, repeating).
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param depth the depth of the tree
+	 * @return value to be compared at that depth.
+	 */
+	private static int getSplittingValueByDepth(int x, int y, int z, int depth) {
+		int level = depth % 3;
+		if (level == 0) return x;
+		else if (level == 1) return y;
+		else return z;
+	}
+
+	/**
+	 * Private helper method, splitting value of a node at a depth.
+	 * @param node the node
+	 * @param depth the depth
+	 * @return the node's coordinate on the splitting axis of the depth
+	 */
+	private static int splittingValue(Node<?> node, int depth) {
+		return getSplittingValueByDepth(node.x, node.y, node.z, depth);
+	}
+
+	/**
+	 * Private helper method, determines if valid input coordinates
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @throws IndexOutOfBoundsException if coordinates are negative or outside cube.
+	 */
+	private void indexBoundException(int x, int y, int z) {
+		CubeSupport.checkPosition(x, y, z, cubeLength, cubeBreadth, cubeHeight);
+	}
+
+	/**
+	 * Private helper method, throws if this cube is a read-only snapshot.
+	 * @throws UnsupportedOperationException if this cube is a snapshot.
+	 */
+	private void writeCheck() {
+		if (readOnly) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	/**
+	 * Private helper method, finds the node at a position in one version of the tree.
+	 * Run-time complexity: O(logn)
+	 * @param root the version to search
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return the node, null if the position is not in the tree
+	 */
+	private Node<T> findNode(Node<T> root, int x, int y, int z) {
+		Node<T> node = root;
+		int depth = 0;
+		while (node != null) {
+			if (node.isEquals(x, y, z)) {
+				return node;
+			}
+			if (getSplittingValueByDepth(x, y, z, depth) <= splittingValue(node, depth)) {
+				node = node.leftNode;
+			} else {
+				node = node.rightNode;
+			}
+			depth += 1;
+		}
+		return null;
+	}
+
+	/**
+	 * Adds an element to a specified position, publishing a new version of the tree.
+	 * Run-time complexity: amortised O(logn + q) (q = planes already at the position, which are copied)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param element plane to be added
+	 * @throws IndexOutOfBoundsException if coordinates are negative or outside cube.
+	 * @throws UnsupportedOperationException if this cube is a snapshot.
+	 */
+	@Override
+	public synchronized void add(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		writeCheck();
+		indexBoundException(x,y,z);
+		rootNode = insert(rootNode, x, y, z, element);
+	}
+
+	/**
+	 * Adds a batch of elements, each at the matching position of the coordinate arrays.
+	 * The whole batch is published as one new version, so readers see all of it or none of it.
+	 * Run-time complexity: amortised O(blogn + bq), b = batch size
+	 * @param xs x coordinate of each element
+	 * @param ys y coordinate of each element
+	 * @param zs z coordinate of each element
+	 * @param elements planes to be added
+	 * @throws IndexOutOfBoundsException if any coordinates are negative or outside cube (nothing is added).
+	 * @throws IllegalArgumentException if the arrays differ in length.
+	 * @throws UnsupportedOperationException if this cube is a snapshot.
+	 */
+	@Override
+	public synchronized void addAll(int[] xs, int[] ys, int[] zs, T[] elements) 
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		writeCheck();
+		CubeSupport.checkBatch(xs, ys, zs, elements, cubeLength, cubeBreadth, cubeHeight);
+		Node<T> root = rootNode;
+		for (int i = 0; i < elements.length; i++) {
+			root = insert(root, xs[i], ys[i], zs[i], elements[i]);
+		}
+		rootNode = root;
+	}
+
+	/**
+	 * Private helper method, a new version of the tree with one more plane.
+	 * Run-time complexity: amortised O(logn + q)
+	 * @param root the current version
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param element plane to be added
+	 * @return root of the new version
+	 */
+	private Node<T> insert(Node<T> root, int x, int y, int z, Object element) {
+		int before = sizeOf(root);
+		Node<T> updated = insertCopy(root, x, y, z, element, 0);
+		if (updated.size > before) {
+			// a new position was added, rebuild the highest unbalanced subtree on its path if it is too deep
+			maxNodeCount = Math.max(maxNodeCount, updated.size);
+			if (depthOf(updated, x, y, z) > Math.floor(Math.log(updated.size) / LOG_INVERSE_ALPHA)) {
+				updated = rebalancePath(updated, x, y, z, 0);
+			}
+		}
+		return updated;
+	}
+
+	/**
+	 * Private helper method, copies the path to a position, adding a plane at the end of it.
+	 * @param node root of the subtree
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param element plane to be added
+	 * @param depth depth of the node
+	 * @return root of the copied subtree
+	 */
+	private Node<T> insertCopy(Node<T> node, int x, int y, int z, Object element, int depth) {
+		if (node == null) {
+			return new Node<T>(x, y, z, new Object[] {element}, null, null);
+		}
+		if (node.isEquals(x, y, z)) {
+			Object[] elements = new Object[node.elements.length + 1];
+			System.arraycopy(node.elements, 0, elements, 0, node.elements.length);
+			elements[node.elements.length] = element;
+			return new Node<T>(x, y, z, elements, node.leftNode, node.rightNode);
+		}
+		if (getSplittingValueByDepth(x, y, z, depth) <= splittingValue(node, depth)) {
+			return node.withChildren(insertCopy(node.leftNode, x, y, z, element, depth + 1), node.rightNode);
+		} else {
+			return node.withChildren(node.leftNode, insertCopy(node.rightNode, x, y, z, element, depth + 1));
+		}
+	}
+
+	/**
+	 * Private helper method, depth of a position in a version of the tree.
+	 * @param root the version
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return depth of the position (which must be in the tree)
+	 */
+	private int depthOf(Node<T> root, int x, int y, int z) {
+		Node<T> node = root;
+		int depth = 0;
+		while (!node.isEquals(x, y, z)) {
+			if (getSplittingValueByDepth(x, y, z, depth) <= splittingValue(node, depth)) {
+				node = node.leftNode;
+			} else {
+				node = node.rightNode;
+			}
+			depth += 1;
+		}
+		return depth;
+	}
+
+	/**
+	 * Private helper method, rebuilds the highest subtree on the path to a position where one child holds
+	 * more than alpha of the nodes (copying the path above it).
+	 * @param node root of the subtree
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param depth depth of the node
+	 * @return root of the rebalanced subtree
+	 */
+	private Node<T> rebalancePath(Node<T> node, int x, int y, int z, int depth) {
+		if (Math.max(sizeOf(node.leftNode), sizeOf(node.rightNode)) > BALANCE_ALPHA * node.size) {
+			return rebuild(node, depth);
+		}
+		if (node.isEquals(x, y, z)) {
+			return node;
+		}
+		if (getSplittingValueByDepth(x, y, z, depth) <= splittingValue(node, depth)) {
+			return node.withChildren(rebalancePath(node.leftNode, x, y, z, depth + 1), node.rightNode);
+		} else {
+			return node.withChildren(node.leftNode, rebalancePath(node.rightNode, x, y, z, depth + 1));
+		}
+	}
+
+	/**
+	 * Private helper method, a balanced copy of a subtree (median split on each level's axis).
+	 * Run-time complexity: O(mlogm), m = number of nodes in the subtree
+	 * @param node root of the subtree
+	 * @param depth depth of the node
+	 * @return root of the balanced copy
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private Node<T> rebuild(Node<T> node, int depth) {
+		Node<T>[] nodes = (Node<T>[]) new Node[sizeOf(node)];
+		collectSubtree(node, nodes, 0);
+		return buildBalanced(nodes, 0, nodes.length - 1, depth);
+	}
+
+	/**
+	 * Private helper method, copies every node of a subtree into an array.
+	 * @param node root of the subtree
+	 * @param nodes array to fill
+	 * @param index next free slot in the array
+	 * @return next free slot after the subtree has been copied
+	 */
+	private int collectSubtree(Node<T> node, Node<T>[] nodes, int index) {
+		if (node == null) {
+			return index;
+		}
+		nodes[index] = node;
+		index = collectSubtree(node.leftNode, nodes, index + 1);
+		return collectSubtree(node.rightNode, nodes, index);
+	}
+
+	/**
+	 * Private helper method, builds new balanced nodes for the positions in nodes[lo..hi].
+	 * Positions sharing the median's splitting value go left, as in BoundedCube.
+	 * @param nodes the positions (reordered in place)
+	 * @param lo lowest index (inclusive)
+	 * @param hi highest index (inclusive)
+	 * @param depth depth of the subtree root
+	 * @return root of the new subtree, null if lo > hi
+	 */
+	private Node<T> buildBalanced(Node<T>[] nodes, int lo, int hi, int depth) {
+		if (lo > hi) {
+			return null;
+		}
+		int split = selectSplit(nodes, lo, hi, depth);
+		Node<T> left = buildBalanced(nodes, lo, split - 1, depth + 1);
+		Node<T> right = buildBalanced(nodes, split + 1, hi, depth + 1);
+		return nodes[split].withChildren(left, right);
+	}
+
+	/**
+	 * Private helper method, three way quickselect of the median on the splitting axis of the depth.
+	 * @param nodes the positions to order
+	 * @param lo lowest index (inclusive)
+	 * @param hi highest index (inclusive)
+	 * @param depth depth deciding the splitting axis
+	 * @return index of the splitting position
+	 */
+	private int selectSplit(Node<T>[] nodes, int lo, int hi, int depth) {
+		int median = (lo + hi) >>> 1;
+		while (lo < hi) {
+			int pivot = splittingValue(nodes[(lo + hi) >>> 1], depth);
+			int lessThan = lo;
+			int greaterThan = hi;
+			int i = lo;
+			while (i <= greaterThan) {
+				int value = splittingValue(nodes[i], depth);
+				if (value < pivot) {
+					swap(nodes, lessThan++, i++);
+				} else if (value > pivot) {
+					swap(nodes, i, greaterThan--);
+				} else {
+					i++;
+				}
+			}
+			if (median < lessThan) {
+				hi = lessThan - 1;
+			} else if (median > greaterThan) {
+				lo = greaterThan + 1;
+			} else {
+				return greaterThan;
+			}
+		}
+		return median;
+	}
+
+	/**
+	 * Private helper method, swaps two entries of a node array.
+	 * @param nodes the array
+	 * @param i first index
+	 * @param j second index
+	 */
+	private void swap(Node<T>[] nodes, int i, int j) {
+		Node<T> temp = nodes[i];
+		nodes[i] = nodes[j];
+		nodes[j] = temp;
+	}
+
+	/**
+	 * Gets the oldest element (plane) from specified position.
+	 * Run-time complexity: O(logn), never blocks
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return oldest plane at the position, null if there are none
+	 * @throws IndexOutOfBoundsException if coordinates are out of cube bounds
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public T get(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		Node<T> node = findNode(rootNode, x, y, z);
+		if (node == null) {
+			return null;
+		}
+		return (T) node.elements[0];
+	}
+
+	/**
+	 * Gets all the elements at a specified position. The queue is a copy, so changing it does not change the cube.
+	 * Run-time complexity: O(logn + q), never blocks
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return copy of the planes at the position, null if there are none
+	 * @throws IndexOutOfBoundsException if coordinates are out of cube bounds
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public IterableQueue<T> getAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		Node<T> node = findNode(rootNode, x, y, z);
+		if (node == null) {
+			return null;
+		}
+		IterableQueue<T> copy = new TraversableQueue<T>();
+		for (int i = 0; i < node.elements.length; i++) {
+			copy.enqueue((T) node.elements[i]);
+		}
+		return copy;
+	}
+
+	/**
+	 * Visits every plane at a specified position, oldest first, without copying them into a queue.
+	 * Run-time complexity: O(logn + q), never blocks
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param visitor called for each plane at the position
+	 * @throws IndexOutOfBoundsException if coordinates are out of cube bounds
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void forEachAt(int x, int y, int z, CellVisitor<? super T> visitor) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		Node<T> node = findNode(rootNode, x, y, z);
+		if (node == null) {
+			return;
+		}
+		for (int i = 0; i < node.elements.length; i++) {
+			visitor.visit(x, y, z, (T) node.elements[i]);
+		}
+	}
+
+	/**
+	 * Determines if there are multiple elements at a particular position.
+	 * Run-time complexity: O(logn), never blocks
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return true if multiple elements at position, false if 0 or 1 elements at position
+	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 */
+	@Override
+	public boolean isMultipleElementsAt(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		Node<T> node = findNode(rootNode, x, y, z);
+		return (node != null) && (node.elements.length > 1);
+	}
+
+	/**
+	 * Removes element/plane from specified position in cube, publishing a new version of the tree.
+	 * The position is deleted once its last plane is removed.
+	 * Run-time complexity: amortised O(logn + q)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param element plane to be removed
+	 * @return true if removed correctly, false if not
+	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 * @throws UnsupportedOperationException if this cube is a snapshot.
+	 */
+	@Override
+	public synchronized boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		writeCheck();
+		indexBoundException(x,y,z);
+		Node<T> root = rootNode;
+		Node<T> node = findNode(root, x, y, z);
+		if (node == null) {
+			return false;
+		}
+		for (int i = 0; i < node.elements.length; i++) {
+			if (node.elements[i].hashCode() == element.hashCode()) {
+				rootNode = withoutElement(root, x, y, z, i);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Moves an element (plane) from one position to another, publishing both changes as one new version,
+	 * so no reader sees the plane at both positions or at neither.
+	 * Run-time complexity: amortised O(logn + q)
+	 * @param element plane to be moved (matched by hash code, as in remove)
+	 * @param fromX x coordinate of the old position
+	 * @param fromY y coordinate of the old position
+	 * @param fromZ z coordinate of the old position
+	 * @param toX x coordinate of the new position
+	 * @param toY y coordinate of the new position
+	 * @param toZ z coordinate of the new position
+	 * @return true if the plane was moved, false if it was not at the old position (nothing changes)
+	 * @throws IndexOutOfBoundsException if either position is outside cube.
+	 * @throws UnsupportedOperationException if this cube is a snapshot.
+	 */
+	@Override
+	public synchronized boolean move(T element, int fromX, int fromY, int fromZ, int toX, int toY, int toZ) 
+			throws IndexOutOfBoundsException {
+		writeCheck();
+		indexBoundException(fromX, fromY, fromZ);
+		indexBoundException(toX, toY, toZ);
+		Node<T> root = rootNode;
+		Node<T> node = findNode(root, fromX, fromY, fromZ);
+		if (node == null) {
+			return false;
+		}
+		for (int i = 0; i < node.elements.length; i++) {
+			if (node.elements[i].hashCode() == element.hashCode()) {
+				if (!node.isEquals(toX, toY, toZ)) {
+					root = withoutElement(root, fromX, fromY, fromZ, i);
+					rootNode = insert(root, toX, toY, toZ, element);
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Private helper method, a new version of the tree without one plane at a position
+	 * (and without the position, if that was its last plane).
+	 * @param root the current version
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param index index of the plane in the position's elements
+	 * @return root of the new version
+	 */
+	private Node<T> withoutElement(Node<T> root, int x, int y, int z, int index) {
+		Node<T> updated = removeCopy(root, x, y, z, index, 0);
+		if (sizeOf(updated) < BALANCE_ALPHA * maxNodeCount) {
+			// the tree has shrunk well below its largest size => rebuild it balanced
+			updated = (updated == null) ? null : rebuild(updated, 0);
+			maxNodeCount = sizeOf(updated);
+		}
+		return updated;
+	}
+
+	/**
+	 * Private helper method, copies the path to a position, removing one of its planes (or the position).
+	 * @param node root of the subtree (the position must be in it)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param index index of the plane to remove, -1 to remove the whole position
+	 * @param depth depth of the node
+	 * @return root of the copied subtree
+	 */
+	private Node<T> removeCopy(Node<T> node, int x, int y, int z, int index, int depth) {
+		if (node.isEquals(x, y, z)) {
+			if ((index < 0) || (node.elements.length == 1)) {
+				return replaceRoot(node, depth);
+			}
+			Object[] elements = new Object[node.elements.length - 1];
+			System.arraycopy(node.elements, 0, elements, 0, index);
+			System.arraycopy(node.elements, index + 1, elements, index, elements.length - index);
+			return new Node<T>(x, y, z, elements, node.leftNode, node.rightNode);
+		}
+		if (getSplittingValueByDepth(x, y, z, depth) <= splittingValue(node, depth)) {
+			return node.withChildren(removeCopy(node.leftNode, x, y, z, index, depth + 1), node.rightNode);
+		} else {
+			return node.withChildren(node.leftNode, removeCopy(node.rightNode, x, y, z, index, depth + 1));
+		}
+	}
+
+	/**
+	 * Private helper method, a copy of a subtree without its root: the node with the largest value on the
+	 * root's splitting axis is taken from the left subtree (a lone right subtree is moved left first).
+	 * @param node root of the subtree, to be removed
+	 * @param depth depth of the node
+	 * @return root of the new subtree, null if the node was a leaf
+	 */
+	private Node<T> replaceRoot(Node<T> node, int depth) {
+		Node<T> left = node.leftNode;
+		Node<T> right = node.rightNode;
+		if (left == null) {
+			if (right == null) {
+				return null;
+			}
+			left = right;
+			right = null;
+		}
+		Node<T> replacement = maxOnAxis(left, depth + 1, depth);
+		left = removeCopy(left, replacement.x, replacement.y, replacement.z, -1, depth + 1);
+		return replacement.withChildren(left, right);
+	}
+
+	/**
+	 * Private helper method, finds the node with the largest value on the splitting axis of axisDepth.
+	 * @param node root of the subtree
+	 * @param depth depth of the node
+	 * @param axisDepth depth whose splitting axis is being compared
+	 * @return node with the largest value on the axis, null for an empty subtree
+	 */
+	private Node<T> maxOnAxis(Node<T> node, int depth, int axisDepth) {
+		if (node == null) {
+			return null;
+		}
+		if ((depth % 3) == (axisDepth % 3)) {
+			if (node.rightNode == null) {
+				return node;
+			}
+			return maxOnAxis(node.rightNode, depth + 1, axisDepth);
+		}
+		Node<T> best = node;
+		Node<T> leftBest = maxOnAxis(node.leftNode, depth + 1, axisDepth);
+		Node<T> rightBest = maxOnAxis(node.rightNode, depth + 1, axisDepth);
+		if ((leftBest != null) && (splittingValue(leftBest, axisDepth) > splittingValue(best, axisDepth))) {
+			best = leftBest;
+		}
+		if ((rightBest != null) && (splittingValue(rightBest, axisDepth) > splittingValue(best, axisDepth))) {
+			best = rightBest;
+		}
+		return best;
+	}
+
+	/**
+	 * Removes all planes from a specified position in cube (and the position), publishing a new version.
+	 * Run-time complexity: amortised O(logn)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 * @throws UnsupportedOperationException if this cube is a snapshot.
+	 */
+	@Override
+	public synchronized void removeAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		writeCheck();
+		indexBoundException(x,y,z);
+		Node<T> root = rootNode;
+		if (findNode(root, x, y, z) != null) {
+			rootNode = withoutElement(root, x, y, z, -1);
+		}
+	}
+
+	/**
+	 * Gets all the planes inside an axis aligned box, from one version of the tree.
+	 * Run-time complexity: O(n^(2/3) + k) for a balanced tree, k = number of positions in the box
+	 * @param minX lowest x coordinate
+	 * @param minY lowest y coordinate
+	 * @param minZ lowest z coordinate
+	 * @param maxX highest x coordinate
+	 * @param maxY highest y coordinate
+	 * @param maxZ highest z coordinate
+	 * @return queue of every plane in the box, empty if there are none
+	 * @throws IndexOutOfBoundsException if either corner is outside cube.
+	 * @throws IllegalArgumentException if a minimum is greater than its maximum.
+	 */
+	@Override
+	public IterableQueue<T> getRange(int minX, int minY, int minZ, int maxX, int maxY, int maxZ)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		IterableQueue<T> found = new TraversableQueue<T>();
+		forEachInRange(minX, minY, minZ, maxX, maxY, maxZ, CubeSupport.enqueueInto(found));
+		return found;
+	}
+
+	/**
+	 * Visits every plane inside an axis aligned box along with its position, from one version of the tree
+	 * (writes made while the visit runs are not seen).
+	 * Run-time complexity: O(n^(2/3) + k) for a balanced tree, k = number of positions in the box
+	 * @param minX lowest x coordinate
+	 * @param minY lowest y coordinate
+	 * @param minZ lowest z coordinate
+	 * @param maxX highest x coordinate
+	 * @param maxY highest y coordinate
+	 * @param maxZ highest z coordinate
+	 * @param visitor called for each plane in the box
+	 * @throws IndexOutOfBoundsException if either corner is outside cube.
+	 * @throws IllegalArgumentException if a minimum is greater than its maximum.
+	 */
+	@Override
+	public void forEachInRange(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, CellVisitor<? super T> visitor)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		indexBoundException(minX, minY, minZ);
+		indexBoundException(maxX, maxY, maxZ);
+		if ((minX > maxX) || (minY > maxY) || (minZ > maxZ)) {
+			throw new IllegalArgumentException();
+		}
+		rangeSearch(rootNode, 0, minX, minY, minZ, maxX, maxY, maxZ, visitor);
+	}
+
+	/**
+	 * Private helper method, visits every plane in a box below (and including) a node.
+	 * @param node root of the subtree
+	 * @param depth depth of the node
+	 * @param minX lowest x coordinate
+	 * @param minY lowest y coordinate
+	 * @param minZ lowest z coordinate
+	 * @param maxX highest x coordinate
+	 * @param maxY highest y coordinate
+	 * @param maxZ highest z coordinate
+	 * @param visitor called for each plane in the box
+	 */
+	@SuppressWarnings("unchecked")
+	private void rangeSearch(Node<T> node, int depth, int minX, int minY, int minZ,
+			int maxX, int maxY, int maxZ, CellVisitor<? super T> visitor) {
+		while (node != null) {
+			if ((node.x >= minX) && (node.x <= maxX) && (node.y >= minY) && (node.y <= maxY)
+					&& (node.z >= minZ) && (node.z <= maxZ)) {
+				for (int i = 0; i < node.elements.length; i++) {
+					visitor.visit(node.x, node.y, node.z, (T) node.elements[i]);
+				}
+			}
+			int treeNodeCompareValue = splittingValue(node, depth);
+			boolean searchLeft = getSplittingValueByDepth(minX, minY, minZ, depth) <= treeNodeCompareValue;
+			boolean searchRight = getSplittingValueByDepth(maxX, maxY, maxZ, depth) > treeNodeCompareValue;
+			depth += 1;
+			if (searchLeft && searchRight) {
+				rangeSearch(node.leftNode, depth, minX, minY, minZ, maxX, maxY, maxZ, visitor);
+				node = node.rightNode;
+			} else if (searchLeft) {
+				node = node.leftNode;
+			} else {
+				node = node.rightNode;
+			}
+		}
+	}
+
+	/**
+	 * Clears all the planes from the cube (existing snapshots keep their contents).
+	 * Run-time complexity: O(1)
+	 * @throws UnsupportedOperationException if this cube is a snapshot.
+	 */
+	@Override
+	public synchronized void clear() {
+		writeCheck();
+		rootNode = null;
+		maxNodeCount = 0;
+	}
+
+	/**
+	 * Number of positions (tree nodes) in the current version.
+	 * Run-time complexity: O(1)
+	 * @return number of tree nodes
+	 */
+	public int getNodeCount() {
+		return sizeOf(rootNode);
+	}
+
+}
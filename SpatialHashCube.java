@@ -0,0 +1,670 @@
+package comp3506.assn1.adts;
+
+import java.util.Arrays;
+
+/**
+ * A bounded cube backed by a uniform spatial hash, for traffic where every plane moves every tick.
+ * The cube is divided into coarse buckets of bucketLength * bucketBreadth * bucketHeight cells. Occupied buckets
+ * are held in an open addressing hash table keyed by a primitive long (the bucket's index in the coarse grid, 
+ * see LongKeyTable),
+ * and each bucket holds its occupied positions (with their queues of planes) in parallel arrays.
+ *
+ * There is no tree to rebalance: adding, removing and moving a plane touch only the buckets involved, so a move
+ * costs the same however many planes the cube holds. Range and radius queries scan the buckets overlapping the
+ * query box (or every occupied bucket, if there are fewer of those).
+ *
+ * Memory Efficiency: O(n + b) (NOTE: n = number of positions held, b = number of occupied buckets)
+ *
+ * NOTE: For all time complexities in this class:
+ * 		c = number of positions in one bucket (at most the bucket's number of cells)
+ * 		q = number of planes in one position
+ *
+ * SpatialHashCube is not thread safe.
+ *
+ * @author Peter Baldry
+ * @param <T> The type of element held in the data structure.
+ */
+public class SpatialHashCube<T> implements Cube<T> {
+	private static final int DEFAULT_BUCKET_SIZE = 8;
+	private static final int INITIAL_BUCKET_SIZE = 4;
+
+	private int cubeLength;
+	private int cubeBreadth;
+	private int cubeHeight;
+	private int bucketLength;
+	private int bucketBreadth;
+	private int bucketHeight;
+	private long bucketsAlongX;
+	private long bucketsAlongY;
+
+	private LongKeyTable<Bucket> buckets;
+	private int positionCount;
+
+	/**
+	 * Private inner class, the occupied positions of one bucket
+	 * @author Peter Baldry
+	 */
+	private class Bucket {
+		int[] xs = new int[INITIAL_BUCKET_SIZE];
+		int[] ys = new int[INITIAL_BUCKET_SIZE];
+		int[] zs = new int[INITIAL_BUCKET_SIZE];
+		Object[] queues = new Object[INITIAL_BUCKET_SIZE];
+		int positions = 0;
+
+		/**
+		 * Finds a position in this bucket.
+		 * Run-time complexity: O(c)
+		 * @param x x coordinate
+		 * @param y y coordinate
+		 * @param z z coordinate
+		 * @return index of the position, -1 if it is not held
+		 */
+		public int find(int x, int y, int z) {
+			for (int i = 0; i < positions; i++) {
+				if ((xs[i] == x) && (ys[i] == y) && (zs[i] == z)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Adds a position (with its queue) to the end of this bucket, growing the arrays if full.
+		 * Run-time complexity: amortised O(1)
+		 * @param x x coordinate
+		 * @param y y coordinate
+		 * @param z z coordinate
+		 * @param queue planes at the position
+		 */
+		public void append(int x, int y, int z, Object queue) {
+			if (positions == xs.length) {
+				int size = xs.length * 2;
+				xs = Arrays.copyOf(xs, size);
+				ys = Arrays.copyOf(ys, size);
+				zs = Arrays.copyOf(zs, size);
+				queues = Arrays.copyOf(queues, size);
+			}
+			xs[positions] = x;
+			ys[positions] = y;
+			zs[positions] = z;
+			queues[positions] = queue;
+			positions += 1;
+		}
+
+		/**
+		 * Removes a position from this bucket (the last position takes its place).
+		 * Run-time complexity: O(1)
+		 * @param index index of the position
+		 */
+		public void removeAt(int index) {
+			int last = positions - 1;
+			xs[index] = xs[last];
+			ys[index] = ys[last];
+			zs[index] = zs[last];
+			queues[index] = queues[last];
+			queues[last] = null;
+			positions -= 1;
+		}
+	}
+
+	/**
+	 * SpatialHashCube Constructor, with buckets of 8 * 8 * 8 cells.
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @throws IllegalArgumentException if provided dimension sizes are not positive.
+	 */
+	public SpatialHashCube(int length, int breadth, int height) throws IllegalArgumentException {
+		this(length, breadth, height, DEFAULT_BUCKET_SIZE, DEFAULT_BUCKET_SIZE, DEFAULT_BUCKET_SIZE);
+	}
+
+	/**
+	 * SpatialHashCube Constructor
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @param bucketLength number of cells along x in one bucket
+	 * @param bucketBreadth number of cells along y in one bucket
+	 * @param bucketHeight number of cells along z in one bucket
+	 * @throws IllegalArgumentException if provided dimension or bucket sizes are not positive.
+	 */
+	public SpatialHashCube(int length, int breadth, int height, int bucketLength, int bucketBreadth, int bucketHeight)
+			throws IllegalArgumentException {
+		if ((length <= 0) || (breadth <= 0) || (height <= 0)) {
+			throw new IllegalArgumentException();
+		}
+		if ((bucketLength <= 0) || (bucketBreadth <= 0) || (bucketHeight <= 0)) {
+			throw new IllegalArgumentException();
+		}
+		cubeLength = length;
+		cubeBreadth = breadth;
+		cubeHeight = height;
+		this.bucketLength = bucketLength;
+		this.bucketBreadth = bucketBreadth;
+		this.bucketHeight = bucketHeight;
+		bucketsAlongX = (length + (long) bucketLength - 1) / bucketLength;
+		bucketsAlongY = (breadth + (long) bucketBreadth - 1) / bucketBreadth;
+		clear();
+	}
+
+	/**
+	 * Private helper method, the planes held at a position of a bucket.
+	 * @param bucket the bucket
+	 * @param index index of the position in the bucket
+	 * @return the position's queue
+	 */
+	@SuppressWarnings("unchecked")
+	private TraversableQueue<T> queue(Bucket bucket, int index) {
+		return (TraversableQueue<T>) bucket.queues[index];
+	}
+
+	/**
+	 * Private helper method, determines if valid input coordinates
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @throws IndexOutOfBoundsException if coordinates are negative or outside cube.
+	 */
+	private void indexBoundException(int x, int y, int z) {
+		CubeSupport.checkPosition(x, y, z, cubeLength, cubeBreadth, cubeHeight);
+	}
+
+	/**
+	 * Private helper method, the key of the bucket at a coarse grid index.
+	 * @param bucketX bucket index along x
+	 * @param bucketY bucket index along y
+	 * @param bucketZ bucket index along z
+	 * @return the bucket's key
+	 */
+	private long bucketKey(int bucketX, int bucketY, int bucketZ) {
+		return bucketX + bucketsAlongX * (bucketY + bucketsAlongY * bucketZ);
+	}
+
+	/**
+	 * Private helper method, the key of the bucket covering a position.
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return the bucket's key
+	 */
+	private long keyOf(int x, int y, int z) {
+		return bucketKey(x / bucketLength, y / bucketBreadth, z / bucketHeight);
+	}
+
+	/**
+	 * Private helper method, finds an occupied bucket.
+	 * Run-time complexity: O(1) expected
+	 * @param key the bucket key
+	 * @return the bucket, null if it is not occupied
+	 */
+	private Bucket findBucket(long key) {
+		return buckets.get(key);
+	}
+
+	/**
+	 * Private helper method, finds a bucket, creating it if it is not occupied yet.
+	 * Run-time complexity: amortised O(1) expected
+	 * @param key the bucket key
+	 * @return the bucket
+	 */
+	private Bucket bucketFor(long key) {
+		Bucket bucket = findBucket(key);
+		if (bucket != null) {
+			return bucket;
+		}
+		bucket = new Bucket();
+		buckets.put(key, bucket);
+		return bucket;
+	}
+
+	/**
+	 * Private helper method, removes an (empty) position from its bucket, and the bucket once it is empty.
+	 * Run-time complexity: O(1) expected
+	 * @param key the bucket key
+	 * @param bucket the bucket
+	 * @param index index of the position in the bucket
+	 */
+	private void positionRemoved(long key, Bucket bucket, int index) {
+		bucket.removeAt(index);
+		positionCount -= 1;
+		if (bucket.positions == 0) {
+			buckets.remove(key);
+		}
+	}
+
+	/**
+	 * Adds an element to a specified position.
+	 * Run-time complexity: O(c) (amortised, expected)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param element plane to be added
+	 * @throws IndexOutOfBoundsException if coordinates are negative or outside cube.
+	 */
+	@Override
+	public void add(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		Bucket bucket = bucketFor(keyOf(x, y, z));
+		int index = bucket.find(x, y, z);
+		if (index >= 0) {
+			queue(bucket, index).enqueue(element);
+			return;
+		}
+		TraversableQueue<T> newQueue = new TraversableQueue<T>();
+		newQueue.enqueue(element);
+		bucket.append(x, y, z, newQueue);
+		positionCount += 1;
+	}
+
+	/**
+	 * Adds a batch of elements, each at the matching position of the coordinate arrays.
+	 * Every position is checked before anything is added. Elements sharing a position keep their batch order.
+	 * Run-time complexity: O(bc) (expected), b = batch size
+	 * @param xs x coordinate of each element
+	 * @param ys y coordinate of each element
+	 * @param zs z coordinate of each element
+	 * @param elements planes to be added
+	 * @throws IndexOutOfBoundsException if any coordinates are negative or outside cube (nothing is added).
+	 * @throws IllegalArgumentException if the arrays differ in length.
+	 */
+	@Override
+	public void addAll(int[] xs, int[] ys, int[] zs, T[] elements)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		CubeSupport.addEach(this, xs, ys, zs, elements, cubeLength, cubeBreadth, cubeHeight);
+	}
+
+	/**
+	 * Gets the oldest element (plane) from specified position.
+	 * Run-time complexity: O(c) (expected)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return the oldest plane at the position, null if there is none
+	 * @throws IndexOutOfBoundsException if coordinates are out of cube bounds
+	 */
+	@Override
+	public T get(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		Bucket bucket = findBucket(keyOf(x, y, z));
+		if (bucket == null) {
+			return null;
+		}
+		int index = bucket.find(x, y, z);
+		if (index < 0) {
+			return null;
+		}
+		return queue(bucket, index).peek();
+	}
+
+	/**
+	 * Gets all the elements (in the form of an iterablequeue) at a specified position.
+	 * The queue is the position's live queue, so changing it changes the cube.
+	 * Run-time complexity: O(c) (expected)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return the live queue of planes at the position, null if there are none
+	 * @throws IndexOutOfBoundsException if coordinates are out of cube bounds
+	 */
+	@Override
+	public IterableQueue<T> getAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		Bucket bucket = findBucket(keyOf(x, y, z));
+		if (bucket == null) {
+			return null;
+		}
+		int index = bucket.find(x, y, z);
+		if (index < 0) {
+			return null;
+		}
+		return queue(bucket, index);
+	}
+
+	/**
+	 * Visits every plane at a specified position, oldest first. Nothing is allocated.
+	 * Run-time complexity: O(c + q) (expected)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param visitor called for each plane at the position
+	 * @throws IndexOutOfBoundsException if coordinates are out of cube bounds
+	 */
+	@Override
+	public void forEachAt(int x, int y, int z, CellVisitor<? super T> visitor) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		Bucket bucket = findBucket(keyOf(x, y, z));
+		if (bucket == null) {
+			return;
+		}
+		int index = bucket.find(x, y, z);
+		if (index >= 0) {
+			queue(bucket, index).visitAll(x, y, z, visitor);
+		}
+	}
+
+	/**
+	 * Determines if there are multiple elements at a particular position.
+	 * Run-time complexity: O(c) (expected)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @return true if multiple elements at position, false if 0 or 1 elements at position
+	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 */
+	@Override
+	public boolean isMultipleElementsAt(int x, int y, int z) throws IndexOutOfBoundsException {
+		IterableQueue<T> planes = getAll(x, y, z);
+		return (planes != null) && (planes.size() > 1);
+	}
+
+	/**
+	 * Removes element/plane from specified position in cube.
+	 * If this was the last plane at the position, the position is removed from its bucket.
+	 * Run-time complexity: O(c + q) (expected)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @param element plane to be removed (matched by hash code)
+	 * @return true if removed correctly, false if not
+	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 */
+	@Override
+	public boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		long key = keyOf(x, y, z);
+		Bucket bucket = findBucket(key);
+		if (bucket == null) {
+			return false;
+		}
+		int index = bucket.find(x, y, z);
+		if ((index < 0) || !CubeSupport.removeFromQueue(queue(bucket, index), element)) {
+			return false;
+		}
+		if (queue(bucket, index).size() == 0) {
+			positionRemoved(key, bucket, index);
+		}
+		return true;
+	}
+
+	/**
+	 * Moves an element (plane) from one position to another.
+	 * When the plane is alone at its old position and the new position is an empty cell of the same bucket,
+	 * the position is simply given the new coordinates (no queue or bucket is created or removed).
+	 * Run-time complexity: O(c + q) (expected), independent of the number of planes in the cube
+	 * @param element plane to be moved (matched by hash code, as in remove)
+	 * @param fromX x coordinate of the old position
+	 * @param fromY y coordinate of the old position
+	 * @param fromZ z coordinate of the old position
+	 * @param toX x coordinate of the new position
+	 * @param toY y coordinate of the new position
+	 * @param toZ z coordinate of the new position
+	 * @return true if the plane was moved, false if it was not at the old position (nothing changes)
+	 * @throws IndexOutOfBoundsException if either position is outside cube.
+	 */
+	@Override
+	public boolean move(T element, int fromX, int fromY, int fromZ, int toX, int toY, int toZ)
+			throws IndexOutOfBoundsException {
+		indexBoundException(fromX, fromY, fromZ);
+		indexBoundException(toX, toY, toZ);
+		long fromKey = keyOf(fromX, fromY, fromZ);
+		Bucket from = findBucket(fromKey);
+		if (from == null) {
+			return false;
+		}
+		int index = from.find(fromX, fromY, fromZ);
+		if (index < 0) {
+			return false;
+		}
+		TraversableQueue<T> planes = queue(from, index);
+		if ((fromX == toX) && (fromY == toY) && (fromZ == toZ)) {
+			return CubeSupport.holds(planes, element);
+		}
+		long toKey = keyOf(toX, toY, toZ);
+		if ((fromKey == toKey) && (planes.size() == 1) && (planes.peek().hashCode() == element.hashCode())
+				&& (from.find(toX, toY, toZ) < 0)) {
+			// same bucket, empty target cell => relabel the position
+			planes.dequeue();
+			planes.enqueue(element);
+			from.xs[index] = toX;
+			from.ys[index] = toY;
+			from.zs[index] = toZ;
+			return true;
+		}
+		if (!CubeSupport.removeFromQueue(planes, element)) {
+			return false;
+		}
+		if (planes.size() == 0) {
+			positionRemoved(fromKey, from, index);
+		}
+		add(toX, toY, toZ, element);
+		return true;
+	}
+
+	/**
+	 * Removes all planes from a specified position in cube.
+	 * Run-time complexity: O(c + q) (expected)
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 * @throws IndexOutOfBoundsException if invalid coordinates.
+	 */
+	@Override
+	public void removeAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		indexBoundException(x,y,z);
+		long key = keyOf(x, y, z);
+		Bucket bucket = findBucket(key);
+		if (bucket == null) {
+			return;
+		}
+		int index = bucket.find(x, y, z);
+		if (index < 0) {
+			return;
+		}
+		TraversableQueue<T> planes = queue(bucket, index);
+		while (planes.size() > 0) {
+			planes.dequeue();
+		}
+		positionRemoved(key, bucket, index);
+	}
+
+	/**
+	 * Gets all the planes inside an axis aligned box (see forEachInRange).
+	 * Run-time complexity: O(min(r, b) + k), r = number of buckets overlapping the box, b = number of occupied
+	 * 						buckets, k = number of positions in the buckets scanned
+	 * @param minX lowest x coordinate
+	 * @param minY lowest y coordinate
+	 * @param minZ lowest z coordinate
+	 * @param maxX highest x coordinate
+	 * @param maxY highest y coordinate
+	 * @param maxZ highest z coordinate
+	 * @return queue of every plane in the box, empty if there are none
+	 * @throws IndexOutOfBoundsException if either corner is outside cube.
+	 * @throws IllegalArgumentException if a minimum is greater than its maximum.
+	 */
+	@Override
+	public IterableQueue<T> getRange(int minX, int minY, int minZ, int maxX, int maxY, int maxZ)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		IterableQueue<T> found = new TraversableQueue<T>();
+		forEachInRange(minX, minY, minZ, maxX, maxY, maxZ, CubeSupport.enqueueInto(found));
+		return found;
+	}
+
+	/**
+	 * Visits every plane inside an axis aligned box along with its position.
+	 * Run-time complexity: O(min(r, b) + k), r = number of buckets overlapping the box, b = number of occupied
+	 * 						buckets, k = number of positions in the buckets scanned
+	 * @param minX lowest x coordinate
+	 * @param minY lowest y coordinate
+	 * @param minZ lowest z coordinate
+	 * @param maxX highest x coordinate
+	 * @param maxY highest y coordinate
+	 * @param maxZ highest z coordinate
+	 * @param visitor called for each plane in the box
+	 * @throws IndexOutOfBoundsException if either corner is outside cube.
+	 * @throws IllegalArgumentException if a minimum is greater than its maximum.
+	 */
+	@Override
+	public void forEachInRange(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, CellVisitor<? super T> visitor)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		indexBoundException(minX, minY, minZ);
+		indexBoundException(maxX, maxY, maxZ);
+		if ((minX > maxX) || (minY > maxY) || (minZ > maxZ)) {
+			throw new IllegalArgumentException();
+		}
+		scan(minX, minY, minZ, maxX, maxY, maxZ, 0, 0, 0, -1, visitor);
+	}
+
+	/**
+	 * Gets the planes in every position within a (Euclidean) radius of a point (see the visitor form).
+	 * Run-time complexity: O(min(r, b) + k), r = number of buckets overlapping the sphere's bounding box,
+	 * 						b = number of occupied buckets, k = number of positions in the buckets scanned
+	 * @param x x coordinate of the centre
+	 * @param y y coordinate of the centre
+	 * @param z z coordinate of the centre
+	 * @param radius the radius, in cells
+	 * @return queue of every plane within the radius, empty if there are none
+	 * @throws IndexOutOfBoundsException if the centre is outside cube.
+	 * @throws IllegalArgumentException if radius is negative.
+	 */
+	public IterableQueue<T> withinRadius(int x, int y, int z, int radius)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		IterableQueue<T> found = new TraversableQueue<T>();
+		withinRadius(x, y, z, radius, CubeSupport.enqueueInto(found));
+		return found;
+	}
+
+	/**
+	 * Visits every plane whose position is within a (Euclidean) radius of a point (eg. separation checks),
+	 * scanning only the buckets overlapping the sphere's bounding box.
+	 * Run-time complexity: O(min(r, b) + k), r = number of buckets overlapping the sphere's bounding box,
+	 * 						b = number of occupied buckets, k = number of positions in the buckets scanned
+	 * @param x x coordinate of the centre
+	 * @param y y coordinate of the centre
+	 * @param z z coordinate of the centre
+	 * @param radius the radius, in cells
+	 * @param visitor called for each plane within the radius
+	 * @throws IndexOutOfBoundsException if the centre is outside cube.
+	 * @throws IllegalArgumentException if radius is negative.
+	 */
+	public void withinRadius(int x, int y, int z, int radius, CellVisitor<? super T> visitor)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		indexBoundException(x, y, z);
+		if (radius < 0) {
+			throw new IllegalArgumentException();
+		}
+		scan((int) Math.max(0, (long) x - radius), (int) Math.max(0, (long) y - radius), (int) Math.max(0, (long) z - radius),
+				(int) Math.min(cubeLength - 1, (long) x + radius), (int) Math.min(cubeBreadth - 1, (long) y + radius),
+				(int) Math.min(cubeHeight - 1, (long) z + radius), x, y, z, (long) radius * radius, visitor);
+	}
+
+	/**
+	 * Private helper method, visits every plane in a box (and, unless squaredRadius is negative, within a
+	 * squared distance of a centre). Looks up each bucket overlapping the box, or walks every occupied bucket
+	 * when there are fewer of those.
+	 * @param minX lowest x coordinate
+	 * @param minY lowest y coordinate
+	 * @param minZ lowest z coordinate
+	 * @param maxX highest x coordinate
+	 * @param maxY highest y coordinate
+	 * @param maxZ highest z coordinate
+	 * @param x x coordinate of the centre
+	 * @param y y coordinate of the centre
+	 * @param z z coordinate of the centre
+	 * @param squaredRadius the radius squared, negative for the whole box
+	 * @param visitor called for each plane found
+	 */
+	private void scan(int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+			int x, int y, int z, long squaredRadius, CellVisitor<? super T> visitor) {
+		int lowX = minX / bucketLength;
+		int lowY = minY / bucketBreadth;
+		int lowZ = minZ / bucketHeight;
+		int highX = maxX / bucketLength;
+		int highY = maxY / bucketBreadth;
+		int highZ = maxZ / bucketHeight;
+		long overlapping = (highX - lowX + 1L) * (highY - lowY + 1L) * (highZ - lowZ + 1L);
+		if (overlapping > buckets.size()) {
+			for (int i = 0; i < buckets.capacity(); i++) {
+				Bucket bucket = buckets.valueAt(i);
+				if (bucket != null) {
+					scanBucket(bucket, minX, minY, minZ, maxX, maxY, maxZ, x, y, z, squaredRadius, visitor);
+				}
+			}
+			return;
+		}
+		for (int bucketZ = lowZ; bucketZ <= highZ; bucketZ++) {
+			for (int bucketY = lowY; bucketY <= highY; bucketY++) {
+				for (int bucketX = lowX; bucketX <= highX; bucketX++) {
+					Bucket bucket = findBucket(bucketKey(bucketX, bucketY, bucketZ));
+					if (bucket != null) {
+						scanBucket(bucket, minX, minY, minZ, maxX, maxY, maxZ, x, y, z, squaredRadius, visitor);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Private helper method, visits the planes of one bucket that are in a box (and sphere, see scan).
+	 * @param bucket the bucket
+	 * @param minX lowest x coordinate
+	 * @param minY lowest y coordinate
+	 * @param minZ lowest z coordinate
+	 * @param maxX highest x coordinate
+	 * @param maxY highest y coordinate
+	 * @param maxZ highest z coordinate
+	 * @param x x coordinate of the centre
+	 * @param y y coordinate of the centre
+	 * @param z z coordinate of the centre
+	 * @param squaredRadius the radius squared, negative for the whole box
+	 * @param visitor called for each plane found
+	 */
+	private void scanBucket(Bucket bucket, int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+			int x, int y, int z, long squaredRadius, CellVisitor<? super T> visitor) {
+		for (int i = 0; i < bucket.positions; i++) {
+			int px = bucket.xs[i];
+			int py = bucket.ys[i];
+			int pz = bucket.zs[i];
+			if ((px < minX) || (px > maxX) || (py < minY) || (py > maxY) || (pz < minZ) || (pz > maxZ)) {
+				continue;
+			}
+			if (squaredRadius >= 0) {
+				long dx = px - x;
+				long dy = py - y;
+				long dz = pz - z;
+				if (dx * dx + dy * dy + dz * dz > squaredRadius) {
+					continue;
+				}
+			}
+			queue(bucket, i).visitAll(px, py, pz, visitor);
+		}
+	}
+
+	/**
+	 * Clears all the planes from the cube.
+	 * Run-time complexity: O(1)
+	 */
+	@Override
+	public void clear() {
+		buckets = new LongKeyTable<Bucket>();
+		positionCount = 0;
+	}
+
+	/**
+	 * Number of positions currently held in the cube.
+	 * Run-time complexity: O(1)
+	 * @return number of positions
+	 */
+	public int getNodeCount() {
+		return positionCount;
+	}
+
+	/**
+	 * Number of occupied buckets.
+	 * Run-time complexity: O(1)
+	 * @return number of buckets holding at least one position
+	 */
+	public int getBucketCount() {
+		return buckets.size();
+	}
+
+}
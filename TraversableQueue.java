@@ -5,6 +5,7 @@ import java.util.Iterator;
 /**
  * A TraversablQueue
  * Memory Usage Efficiency: O(n) (NOTE: n = elements in the queue = number of nodes in the linked list)
+ * The list is doubly linked, so a node handed out by enqueueNode can later be unlinked in O(1).
  * @author Peter Baldry
  * @param <T> The type of element held in the Queue.
  */
@@ -16,9 +17,10 @@ public class TraversableQueue<T> implements IterableQueue<T> {
 	 * A node of the queue / linked list
 	 * @author Peter Baldry
 	 */
-	private class Node {
+	class Node {
 		public T nodeElement;
 		public Node nextNode;
+		public Node previousNode;
 	}
 	
 	/**
@@ -86,6 +88,7 @@ public class TraversableQueue<T> implements IterableQueue<T> {
 				if (currentNode.nextNode != null) {
 					// not the last element
 					previousNode.nextNode = currentNode.nextNode;
+					currentNode.nextNode.previousNode = previousNode;
 				} else {
 					previousNode.nextNode = null;
 					tail = previousNode;
@@ -94,6 +97,7 @@ public class TraversableQueue<T> implements IterableQueue<T> {
 				// first element
 				if (size > 1) {
 					head = currentNode.nextNode;
+					head.previousNode = null;
 					currentNode = null;
 				} else {
 					head = null;
@@ -125,11 +129,22 @@ public class TraversableQueue<T> implements IterableQueue<T> {
 	 */
 	@Override
 	public void enqueue(T element) throws IllegalStateException {
+		enqueueNode(element);
+	}
+	
+	/**
+	 * Enqueues an element and returns its node, which can later be passed to unlinkNode.
+	 * Run-time complexity: O(1)
+	 * @param element the element to enqueue
+	 * @return the node now holding the element
+	 */
+	Node enqueueNode(T element) {
 		Node newNode = new Node();
 		newNode.nodeElement = element;
 		
 		if (size > 0) {
 			tail.nextNode = newNode;
+			newNode.previousNode = tail;
 		}
 		
 		tail = newNode;
@@ -139,6 +154,7 @@ public class TraversableQueue<T> implements IterableQueue<T> {
 		}
 		
 		size += 1;
+		return newNode;
 		//all constant time complexity
 	}
 	
@@ -159,14 +175,108 @@ public class TraversableQueue<T> implements IterableQueue<T> {
 			size -= 1;
 			if (size == 0) {
 				tail = null;
+			} else {
+				head.previousNode = null;
 			}
 			return nodeElement;
 		}
 		//all constant time complexity
 	}
 	
+	/**
+	 * Gets the oldest element without removing it (and without creating an iterator).
+	 * Run-time complexity: O(1)
+	 * @return the oldest element, null if the queue is empty
+	 */
+	public T peek() {
+		if (size == 0) {
+			return null;
+		}
+		return head.nodeElement;
+	}
+	
 		
 	
+	/**
+	 * Determines whether a node returned by enqueueNode is still in this queue 
+	 * (it may since have been dequeued or removed through an iterator).
+	 * Run-time complexity: O(1)
+	 * @param node the node
+	 * @return true if the node is still linked into the queue
+	 */
+	boolean isLinked(Node node) {
+		if (node.previousNode == null) {
+			return head == node;
+		}
+		return node.previousNode.nextNode == node;
+	}
+	
+	/**
+	 * Removes a node (returned by enqueueNode and still linked) from anywhere in the queue.
+	 * Run-time complexity: O(1)
+	 * @param node the node to remove
+	 */
+	void unlinkNode(Node node) {
+		if (node.previousNode == null) {
+			head = node.nextNode;
+		} else {
+			node.previousNode.nextNode = node.nextNode;
+		}
+		if (node.nextNode == null) {
+			tail = node.previousNode;
+		} else {
+			node.nextNode.previousNode = node.previousNode;
+		}
+		size -= 1;
+	}
+	
+	/**
+	 * Moves every element of another queue to the end of this one (in order), leaving the other queue empty.
+	 * The lists are spliced together, nothing is copied.
+	 * Run-time complexity: O(1)
+	 * @param other the queue to take the elements from
+	 */
+	void append(TraversableQueue<T> other) {
+		if (other.size == 0) {
+			return;
+		}
+		if (size == 0) {
+			head = other.head;
+		} else {
+			tail.nextNode = other.head;
+			other.head.previousNode = tail;
+		}
+		tail = other.tail;
+		size += other.size;
+		other.head = null;
+		other.tail = null;
+		other.size = 0;
+	}
+	
+	/**
+	 * Run-time complexity: O(1)
+	 * @return the oldest node, null if the queue is empty
+	 */
+	Node headNode() {
+		return head;
+	}
+	
+	/**
+	 * Passes every element (oldest first) to a visitor along with a position, without creating an iterator.
+	 * Run-time complexity: O(n)
+	 * @param x x coordinate handed to the visitor
+	 * @param y y coordinate handed to the visitor
+	 * @param z z coordinate handed to the visitor
+	 * @param visitor called once for each element
+	 */
+	void visitAll(int x, int y, int z, CellVisitor<? super T> visitor) {
+		Node node = head;
+		for (int i = 0; i < size; i++) {
+			visitor.visit(x, y, z, node.nodeElement);
+			node = node.nextNode;
+		}
+	}
+	
 	/**
 	 * Finds the size of the queue
 	 * Run-time complexity: O(1)
@@ -198,7 +308,9 @@ public class TraversableQueue<T> implements IterableQueue<T> {
  * 		before applying the constant remove method on that plane/element (see above). In the worst 
  * 		case, the search could require n iterations, causing this request to be o(n) time complexity. 
  * 		This inefficiency is discussed further in the BoundedCube implementation as this is where 
- * 		the iterator is actually used and the time complexity is compromised. 
+ * 		the iterator is actually used and the time complexity is compromised. When BoundedCube's element 
+ * 		index is enabled it already holds the plane's node, and the backward links let that node be 
+ * 		unlinked directly in O(1), at the cost of one extra reference per node. 
  * 		
  * 		Other data structures considered:
  * 
@@ -0,0 +1,105 @@
+package comp3506.assn1.adts.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import comp3506.assn1.adts.BoundedCube;
+import comp3506.assn1.adts.benchmarks.Workload.Distribution;
+
+/**
+ * Building a BoundedCube from a batch of planes three ways: one add per plane, addAll (one traversal per 
+ * run of planes in the same cell) and bulkLoad (sort and build balanced). One operation is one whole build.
+ * The batch is in cell order, as a feed reporting several planes per cell would deliver it.
+ *
+ * @author Peter Baldry
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchAddBenchmark {
+	
+	@Param({"1024"})
+	public int cubeSize;
+	
+	@Param({"100000"})
+	public int elementCount;
+	
+	@Param({"1", "8"})
+	public int multiplicity;
+	
+	@Param({"UNIFORM", "CLUSTERED"})
+	public Distribution distribution;
+	
+	private int[] xs;
+	private int[] ys;
+	private int[] zs;
+	private Integer[] elements;
+	
+	/**
+	 * Generates the batch, with each cell's planes next to each other.
+	 */
+	@Setup
+	public void setUp() {
+		Workload workload = new Workload(distribution, cubeSize, elementCount, multiplicity, 42);
+		int count = workload.count();
+		xs = new int[count];
+		ys = new int[count];
+		zs = new int[count];
+		elements = new Integer[count];
+		int i = 0;
+		for (int cell = 0; cell < workload.cells; cell++) {
+			for (int plane = cell; plane < count; plane += workload.cells) {
+				xs[i] = workload.xs[plane];
+				ys[i] = workload.ys[plane];
+				zs[i] = workload.zs[plane];
+				elements[i] = workload.elements[plane];
+				i += 1;
+			}
+		}
+	}
+	
+	/**
+	 * @return a cube built by adding each plane in turn
+	 */
+	@Benchmark
+	public BoundedCube<Integer> addEach() {
+		BoundedCube<Integer> cube = new BoundedCube<Integer>(cubeSize, cubeSize, cubeSize);
+		for (int i = 0; i < elements.length; i++) {
+			cube.add(xs[i], ys[i], zs[i], elements[i]);
+		}
+		return cube;
+	}
+	
+	/**
+	 * @return a cube built by one addAll of the batch
+	 */
+	@Benchmark
+	public BoundedCube<Integer> addAll() {
+		BoundedCube<Integer> cube = new BoundedCube<Integer>(cubeSize, cubeSize, cubeSize);
+		cube.addAll(xs, ys, zs, elements);
+		return cube;
+	}
+	
+	/**
+	 * @return a cube bulk loaded from the batch
+	 */
+	@Benchmark
+	public BoundedCube<Integer> bulkLoad() {
+		return BoundedCube.bulkLoad(cubeSize, cubeSize, cubeSize, xs, ys, zs, elements);
+	}
+	
+}
@@ -0,0 +1,119 @@
+package comp3506.assn1.adts.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import comp3506.assn1.adts.BoundedCube;
+import comp3506.assn1.adts.benchmarks.Workload.Distribution;
+
+/**
+ * One batch of planes added to a cube that already holds planes: one add per plane against one addAll 
+ * (which merges the batch and rebuilds the tree once the batch's scapegoat rebuilds get too costly). 
+ * The cube is rebuilt before every operation (not timed), so each operation adds the batch to the same tree.
+ *
+ * @author Peter Baldry
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchMergeBenchmark {
+	
+	@Param({"1024"})
+	public int cubeSize;
+	
+	@Param({"0", "10000", "100000"})
+	public int filled;
+	
+	@Param({"10000"})
+	public int batchSize;
+	
+	@Param({"UNIFORM", "CLUSTERED", "CORNER"})
+	public Distribution distribution;
+	
+	private int[] baseXs;
+	private int[] baseYs;
+	private int[] baseZs;
+	private Integer[] baseElements;
+	private int[] xs;
+	private int[] ys;
+	private int[] zs;
+	private Integer[] elements;
+	private BoundedCube<Integer> cube;
+	
+	/**
+	 * Generates the planes already in the cube and the batch (drawn separately, so clusters differ).
+	 */
+	@Setup
+	public void setUp() {
+		baseXs = new int[filled];
+		baseYs = new int[filled];
+		baseZs = new int[filled];
+		baseElements = new Integer[filled];
+		if (filled > 0) {
+			Workload base = new Workload(distribution, cubeSize, filled, 1, 42);
+			for (int i = 0; i < filled; i++) {
+				int plane = base.order[i];
+				baseXs[i] = base.xs[plane];
+				baseYs[i] = base.ys[plane];
+				baseZs[i] = base.zs[plane];
+				baseElements[i] = base.elements[plane];
+			}
+		}
+		Workload batch = new Workload(distribution, cubeSize, batchSize, 1, 43);
+		xs = new int[batchSize];
+		ys = new int[batchSize];
+		zs = new int[batchSize];
+		elements = new Integer[batchSize];
+		for (int i = 0; i < batchSize; i++) {
+			int plane = batch.order[i];
+			xs[i] = batch.xs[plane];
+			ys[i] = batch.ys[plane];
+			zs[i] = batch.zs[plane];
+			elements[i] = filled + batch.elements[plane];
+		}
+	}
+	
+	/**
+	 * Rebuilds the filled cube before each operation.
+	 */
+	@Setup(Level.Invocation)
+	public void fill() {
+		cube = BoundedCube.bulkLoad(cubeSize, cubeSize, cubeSize, baseXs, baseYs, baseZs, baseElements);
+	}
+	
+	/**
+	 * @return the cube after adding each plane of the batch in turn
+	 */
+	@Benchmark
+	public BoundedCube<Integer> addEach() {
+		for (int i = 0; i < elements.length; i++) {
+			cube.add(xs[i], ys[i], zs[i], elements[i]);
+		}
+		return cube;
+	}
+	
+	/**
+	 * @return the cube after one addAll of the batch
+	 */
+	@Benchmark
+	public BoundedCube<Integer> addAll() {
+		cube.addAll(xs, ys, zs, elements);
+		return cube;
+	}
+	
+}
@@ -0,0 +1,36 @@
+package comp3506.assn1.adts.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of benchmarks.jar: runs JMH with the same options as org.openjdk.jmh.Main, except that results 
+ * are written as JSON (to jmh-result.json unless -rff is given) when no -rf result format is asked for, 
+ * so runs of two versions can be compared directly.
+ *
+ * @author Peter Baldry
+ */
+public final class BenchmarkMain {
+	
+	/**
+	 * Private constructor, not instantiated.
+	 */
+	private BenchmarkMain() {
+	}
+	
+	/**
+	 * Runs JMH.
+	 * @param args JMH command line options (see -h)
+	 * @throws Exception if JMH fails
+	 */
+	public static void main(String[] args) throws Exception {
+		List<String> options = new ArrayList<String>(Arrays.asList(args));
+		if (!options.contains("-rf") && !options.contains("-h") && !options.contains("-l")) {
+			options.add(0, "-rf");
+			options.add(1, "json");
+		}
+		org.openjdk.jmh.Main.main(options.toArray(new String[options.size()]));
+	}
+	
+}
@@ -0,0 +1,149 @@
+package comp3506.assn1.adts.benchmarks;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import comp3506.assn1.adts.BoundedCube;
+import comp3506.assn1.adts.IterableQueue;
+import comp3506.assn1.adts.benchmarks.Workload.Distribution;
+
+/**
+ * Single operations on a filled BoundedCube: add, get, getAll, remove and removeAll.
+ * Each call works on the next plane of the workload in turn, and the mutating benchmarks put back what they 
+ * take out, so the cube stays the same size for the whole run.
+ *
+ * @author Peter Baldry
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BoundedCubeBenchmark {
+	
+	@Param({"1024", "65536"})
+	public int cubeSize;
+	
+	@Param({"10000", "1000000"})
+	public int elementCount;
+	
+	@Param({"1", "8"})
+	public int multiplicity;
+	
+	@Param({"UNIFORM", "CLUSTERED", "CORNER"})
+	public Distribution distribution;
+	
+	private Workload workload;
+	private BoundedCube<Integer> cube;
+	private int cursor;
+	
+	/**
+	 * Generates the workload and adds every plane, in the workload's shuffled order.
+	 */
+	@Setup
+	public void setUp() {
+		workload = new Workload(distribution, cubeSize, elementCount, multiplicity, 42);
+		cube = new BoundedCube<Integer>(cubeSize, cubeSize, cubeSize);
+		for (int i = 0; i < workload.count(); i++) {
+			int j = workload.order[i];
+			cube.add(workload.xs[j], workload.ys[j], workload.zs[j], workload.elements[j]);
+		}
+	}
+	
+	/**
+	 * @return the next plane to work on, cycling through the shuffled order
+	 */
+	private int nextPlane() {
+		int i = cursor;
+		cursor = (i + 1 == workload.order.length) ? 0 : i + 1;
+		return workload.order[i];
+	}
+	
+	/**
+	 * get of an occupied cell.
+	 * @return the oldest plane in the cell
+	 */
+	@Benchmark
+	public Integer get() {
+		int j = nextPlane();
+		return cube.get(workload.xs[j], workload.ys[j], workload.zs[j]);
+	}
+	
+	/**
+	 * get of a cell that is (almost always) empty, ie. a miss that walks to a leaf.
+	 * @return the oldest plane in the cell, almost always null
+	 */
+	@Benchmark
+	public Integer getMiss() {
+		int j = nextPlane();
+		return cube.get(workload.ys[j], workload.zs[j], workload.xs[j]);
+	}
+	
+	/**
+	 * getAll of an occupied cell, iterating every plane in it.
+	 * @param blackhole consumes the planes
+	 */
+	@Benchmark
+	public void getAll(Blackhole blackhole) {
+		int j = nextPlane();
+		IterableQueue<Integer> planes = cube.getAll(workload.xs[j], workload.ys[j], workload.zs[j]);
+		Iterator<Integer> planeIterator = planes.iterator();
+		for (int i = planes.size(); i > 0; i--) {
+			blackhole.consume(planeIterator.next());
+		}
+	}
+	
+	/**
+	 * add of a plane to an occupied cell, then remove of the same plane.
+	 * @return whether the remove succeeded
+	 */
+	@Benchmark
+	public boolean addThenRemove() {
+		int j = nextPlane();
+		Integer extra = Integer.valueOf(-1 - j);
+		cube.add(workload.xs[j], workload.ys[j], workload.zs[j], extra);
+		return cube.remove(workload.xs[j], workload.ys[j], workload.zs[j], extra);
+	}
+	
+	/**
+	 * remove of a plane, then add of it back (to the back of its cell's queue). With a multiplicity of 1 
+	 * this deletes and re-inserts the cell's tree node.
+	 * @return whether the remove succeeded
+	 */
+	@Benchmark
+	public boolean removeThenAdd() {
+		int j = nextPlane();
+		boolean removed = cube.remove(workload.xs[j], workload.ys[j], workload.zs[j], workload.elements[j]);
+		cube.add(workload.xs[j], workload.ys[j], workload.zs[j], workload.elements[j]);
+		return removed;
+	}
+	
+	/**
+	 * removeAll of a cell, then add of every plane it held back into it.
+	 * Reported per cell, so this includes multiplicity adds.
+	 */
+	@Benchmark
+	public void removeAllThenRefill() {
+		int j = nextPlane();
+		int cell = j % workload.cells;
+		cube.removeAll(workload.xs[cell], workload.ys[cell], workload.zs[cell]);
+		for (int plane = cell; plane < workload.count(); plane += workload.cells) {
+			cube.add(workload.xs[plane], workload.ys[plane], workload.zs[plane], workload.elements[plane]);
+		}
+	}
+	
+}
@@ -0,0 +1,83 @@
+package comp3506.assn1.adts.benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import comp3506.assn1.adts.BoundedCube;
+import comp3506.assn1.adts.benchmarks.Workload.Distribution;
+
+/**
+ * Scaling of the parallel bulkLoad with the number of worker threads. A parallelism of 0 is the sequential 
+ * bulkLoad; otherwise the build runs in a ForkJoinPool of that many workers. One operation is one build.
+ * The sort, the grouping into positions and the subtree builds split across workers, but the last merges of the 
+ * sort and the median selections at the top of the tree each run in one task, so expect speed up well short of 
+ * the number of workers. Only single core runs have been made so far, which show no speed up.
+ *
+ * @author Peter Baldry
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class BulkLoadBenchmark {
+	
+	@Param({"0", "1", "2", "4", "8"})
+	public int parallelism;
+	
+	@Param({"1000000", "5000000"})
+	public int elementCount;
+	
+	@Param({"65536"})
+	public int cubeSize;
+	
+	private Workload workload;
+	private ForkJoinPool pool;
+	
+	/**
+	 * Generates the batch and starts the pool.
+	 */
+	@Setup
+	public void setUp() {
+		workload = new Workload(Distribution.UNIFORM, cubeSize, elementCount, 1, 42);
+		pool = (parallelism > 0) ? new ForkJoinPool(parallelism) : null;
+	}
+	
+	/**
+	 * Stops the pool.
+	 */
+	@TearDown
+	public void tearDown() {
+		if (pool != null) {
+			pool.shutdown();
+		}
+	}
+	
+	/**
+	 * @return the cube built
+	 */
+	@Benchmark
+	public BoundedCube<Integer> bulkLoad() {
+		if (pool == null) {
+			return BoundedCube.bulkLoad(cubeSize, cubeSize, cubeSize, workload.xs, workload.ys, workload.zs, 
+					workload.elements);
+		}
+		return BoundedCube.bulkLoad(cubeSize, cubeSize, cubeSize, workload.xs, workload.ys, workload.zs, 
+				workload.elements, pool);
+	}
+	
+}
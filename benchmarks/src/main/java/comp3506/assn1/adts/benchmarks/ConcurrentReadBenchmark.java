@@ -0,0 +1,136 @@
+package comp3506.assn1.adts.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+
+import comp3506.assn1.adts.ConcurrentBoundedCube;
+import comp3506.assn1.adts.benchmarks.Workload.Distribution;
+
+/**
+ * Read scaling of ConcurrentBoundedCube. 'get' is read only: run it with -t 1, 2, 4 ... (or through 
+ * ScalingSweep) to see how reads scale with threads. 'mixed' runs three readers against one writer moving planes back and forth between two 
+ * cells (the writer is reported separately as mixed:move). Throughput is summed over threads.
+ *
+ * @author Peter Baldry
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentReadBenchmark {
+	
+	@Param({"1", "16"})
+	public int stripes;
+	
+	@Param({"1024"})
+	public int cubeSize;
+	
+	@Param({"500000"})
+	public int elementCount;
+	
+	private Workload workload;
+	private ConcurrentBoundedCube<Integer> cube;
+	
+	/**
+	 * Each thread's position in the workload, started at a different place per thread.
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+		private static int started = 0;
+		int position;
+		boolean away;
+		
+		/**
+		 * Spreads threads over the workload.
+		 */
+		@Setup
+		public void setUp() {
+			synchronized (Cursor.class) {
+				position = (started += 7919);
+			}
+		}
+		
+		/**
+		 * @param workload the workload
+		 * @return the next plane to work on
+		 */
+		int next(Workload workload) {
+			position = (position + 1) % workload.count();
+			return workload.order[position];
+		}
+	}
+	
+	/**
+	 * Generates the workload (one plane per cell) and fills the cube.
+	 */
+	@Setup
+	public void setUp() {
+		workload = new Workload(Distribution.UNIFORM, cubeSize, elementCount, 1, 42);
+		cube = new ConcurrentBoundedCube<Integer>(cubeSize, cubeSize, cubeSize, stripes);
+		for (int i = 0; i < workload.count(); i++) {
+			int j = workload.order[i];
+			cube.add(workload.xs[j], workload.ys[j], workload.zs[j], workload.elements[j]);
+		}
+	}
+	
+	/**
+	 * get of an occupied cell.
+	 * @param cursor this thread's position
+	 * @return the plane in the cell
+	 */
+	@Benchmark
+	public Integer get(Cursor cursor) {
+		int j = cursor.next(workload);
+		return cube.get(workload.xs[j], workload.ys[j], workload.zs[j]);
+	}
+	
+	/**
+	 * get while another thread writes.
+	 * @param cursor this thread's position
+	 * @return the plane in the cell, null if it has been moved away
+	 */
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(3)
+	public Integer mixedGet(Cursor cursor) {
+		int j = cursor.next(workload);
+		return cube.get(workload.xs[j], workload.ys[j], workload.zs[j]);
+	}
+	
+	/**
+	 * Moves plane 0 to the cell of plane 1 and back on alternate calls.
+	 * @param cursor this thread's state
+	 * @return whether the move succeeded
+	 */
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(1)
+	public boolean mixedMove(Cursor cursor) {
+		boolean moved;
+		if (cursor.away) {
+			moved = cube.move(workload.elements[0], workload.xs[1], workload.ys[1], workload.zs[1], 
+					workload.xs[0], workload.ys[0], workload.zs[0]);
+		} else {
+			moved = cube.move(workload.elements[0], workload.xs[0], workload.ys[0], workload.zs[0], 
+					workload.xs[1], workload.ys[1], workload.zs[1]);
+		}
+		cursor.away = !cursor.away;
+		return moved;
+	}
+	
+}
@@ -0,0 +1,55 @@
+package comp3506.assn1.adts.benchmarks;
+
+import comp3506.assn1.adts.BoundedCube;
+import comp3506.assn1.adts.Cube;
+import comp3506.assn1.adts.OctreeCube;
+import comp3506.assn1.adts.SpatialHashCube;
+
+/**
+ * Creates the Cube implementations compared by the benchmarks, by name.
+ *
+ * @author Peter Baldry
+ */
+public final class Cubes {
+	
+	/**
+	 * Private constructor, static methods only.
+	 */
+	private Cubes() {
+	}
+	
+	/**
+	 * Creates an empty cube.
+	 * @param implementation BoundedCube, OctreeCube or SpatialHashCube
+	 * @param size side length of the cube
+	 * @return the cube
+	 * @throws IllegalArgumentException if the implementation is not known.
+	 */
+	public static Cube<Integer> create(String implementation, int size) throws IllegalArgumentException {
+		if (implementation.equals("BoundedCube")) {
+			return new BoundedCube<Integer>(size, size, size);
+		} else if (implementation.equals("OctreeCube")) {
+			return new OctreeCube<Integer>(size, size, size);
+		} else if (implementation.equals("SpatialHashCube")) {
+			return new SpatialHashCube<Integer>(size, size, size);
+		}
+		throw new IllegalArgumentException(implementation);
+	}
+	
+	/**
+	 * Creates a cube holding every plane of a workload, added in the workload's order.
+	 * @param implementation BoundedCube, OctreeCube or SpatialHashCube
+	 * @param workload the planes
+	 * @return the cube
+	 * @throws IllegalArgumentException if the implementation is not known.
+	 */
+	public static Cube<Integer> fill(String implementation, Workload workload) throws IllegalArgumentException {
+		Cube<Integer> cube = create(implementation, workload.size);
+		for (int i = 0; i < workload.count(); i++) {
+			int j = workload.order[i];
+			cube.add(workload.xs[j], workload.ys[j], workload.zs[j], workload.elements[j]);
+		}
+		return cube;
+	}
+	
+}
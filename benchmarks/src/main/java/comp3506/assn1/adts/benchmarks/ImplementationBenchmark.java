@@ -0,0 +1,101 @@
+package comp3506.assn1.adts.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import comp3506.assn1.adts.CellVisitor;
+import comp3506.assn1.adts.Cube;
+import comp3506.assn1.adts.benchmarks.Workload.Distribution;
+
+/**
+ * BoundedCube against OctreeCube and SpatialHashCube on the same workloads, uniform and clustered:
+ * exact lookups and box queries (a box of boxSide cells per side placed at an occupied cell).
+ *
+ * @author Peter Baldry
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ImplementationBenchmark {
+	
+	@Param({"BoundedCube", "OctreeCube", "SpatialHashCube"})
+	public String implementation;
+	
+	@Param({"UNIFORM", "CLUSTERED"})
+	public Distribution distribution;
+	
+	@Param({"1024"})
+	public int cubeSize;
+	
+	@Param({"500000"})
+	public int elementCount;
+	
+	@Param({"16"})
+	public int boxSide;
+	
+	private Workload workload;
+	private Cube<Integer> cube;
+	private int cursor;
+	
+	/**
+	 * Generates the workload (one plane per cell) and fills the cube.
+	 */
+	@Setup
+	public void setUp() {
+		workload = new Workload(distribution, cubeSize, elementCount, 1, 42);
+		cube = Cubes.fill(implementation, workload);
+	}
+	
+	/**
+	 * @return the next plane to work on, cycling through the shuffled order
+	 */
+	private int nextPlane() {
+		int i = cursor;
+		cursor = (i + 1 == workload.order.length) ? 0 : i + 1;
+		return workload.order[i];
+	}
+	
+	/**
+	 * get of an occupied cell.
+	 * @return the plane in the cell
+	 */
+	@Benchmark
+	public Integer get() {
+		int j = nextPlane();
+		return cube.get(workload.xs[j], workload.ys[j], workload.zs[j]);
+	}
+	
+	/**
+	 * forEachInRange over a box with one corner at an occupied cell.
+	 * @param blackhole consumes the planes
+	 */
+	@Benchmark
+	public void range(final Blackhole blackhole) {
+		int j = nextPlane();
+		int maxX = Math.min(cubeSize - 1, workload.xs[j] + boxSide - 1);
+		int maxY = Math.min(cubeSize - 1, workload.ys[j] + boxSide - 1);
+		int maxZ = Math.min(cubeSize - 1, workload.zs[j] + boxSide - 1);
+		cube.forEachInRange(workload.xs[j], workload.ys[j], workload.zs[j], maxX, maxY, maxZ, new CellVisitor<Integer>() {
+			@Override
+			public void visit(int x, int y, int z, Integer element) {
+				blackhole.consume(element);
+			}
+		});
+	}
+	
+}
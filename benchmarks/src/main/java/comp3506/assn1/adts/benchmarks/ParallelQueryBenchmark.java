@@ -0,0 +1,122 @@
+package comp3506.assn1.adts.benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import comp3506.assn1.adts.BoundedCube;
+import comp3506.assn1.adts.IterableQueue;
+import comp3506.assn1.adts.benchmarks.Workload.Distribution;
+
+/**
+ * Scaling of the parallel getRange and withinRadius with the number of worker threads. A pool size of 0 runs 
+ * the sequential query; otherwise the query runs in a ForkJoinPool of that many workers. Each operation is one 
+ * query, a box of querySide cells per side (or a sphere of radius querySide / 2) centred on an occupied cell, 
+ * so querySide sets how many planes a query returns and so how much work there is to split.
+ *
+ * @author Peter Baldry
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class ParallelQueryBenchmark {
+	
+	@Param({"0", "1", "2", "4", "8"})
+	public int poolSize;
+	
+	@Param({"1000000"})
+	public int elementCount;
+	
+	@Param({"4096"})
+	public int cubeSize;
+	
+	@Param({"128", "512", "2048"})
+	public int querySide;
+	
+	@Param({"UNIFORM", "CLUSTERED"})
+	public Distribution distribution;
+	
+	private Workload workload;
+	private BoundedCube<Integer> cube;
+	private ForkJoinPool pool;
+	private int cursor;
+	
+	/**
+	 * Generates the workload (one plane per cell), bulk loads the cube and starts the pool.
+	 */
+	@Setup
+	public void setUp() {
+		workload = new Workload(distribution, cubeSize, elementCount, 1, 42);
+		cube = BoundedCube.bulkLoad(cubeSize, cubeSize, cubeSize, workload.xs, workload.ys, workload.zs, 
+				workload.elements);
+		pool = (poolSize > 0) ? new ForkJoinPool(poolSize) : null;
+	}
+	
+	/**
+	 * Stops the pool.
+	 */
+	@TearDown
+	public void tearDown() {
+		if (pool != null) {
+			pool.shutdown();
+		}
+	}
+	
+	/**
+	 * @return the next plane to centre a query on, cycling through the shuffled order
+	 */
+	private int nextPlane() {
+		int i = cursor;
+		cursor = (i + 1 == workload.order.length) ? 0 : i + 1;
+		return workload.order[i];
+	}
+	
+	/**
+	 * getRange over a box centred on an occupied cell (clipped to the cube).
+	 * @return the planes in the box
+	 */
+	@Benchmark
+	public IterableQueue<Integer> getRange() {
+		int j = nextPlane();
+		int half = querySide / 2;
+		int minX = Math.max(0, workload.xs[j] - half);
+		int minY = Math.max(0, workload.ys[j] - half);
+		int minZ = Math.max(0, workload.zs[j] - half);
+		int maxX = Math.min(cubeSize - 1, workload.xs[j] + half);
+		int maxY = Math.min(cubeSize - 1, workload.ys[j] + half);
+		int maxZ = Math.min(cubeSize - 1, workload.zs[j] + half);
+		if (pool == null) {
+			return cube.getRange(minX, minY, minZ, maxX, maxY, maxZ);
+		}
+		return cube.getRange(minX, minY, minZ, maxX, maxY, maxZ, pool);
+	}
+	
+	/**
+	 * withinRadius of an occupied cell.
+	 * @return the planes in the sphere
+	 */
+	@Benchmark
+	public IterableQueue<Integer> withinRadius() {
+		int j = nextPlane();
+		if (pool == null) {
+			return cube.withinRadius(workload.xs[j], workload.ys[j], workload.zs[j], querySide / 2);
+		}
+		return cube.withinRadius(workload.xs[j], workload.ys[j], workload.zs[j], querySide / 2, pool);
+	}
+	
+}
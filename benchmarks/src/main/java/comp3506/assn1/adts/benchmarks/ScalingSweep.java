@@ -0,0 +1,73 @@
+package comp3506.assn1.adts.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs one read benchmark at 1, 2, 4 ... up to a maximum number of threads and prints the speedup and 
+ * parallel efficiency (speedup / threads) against one thread. Each thread count's results are also written 
+ * as JSON (scaling-t&lt;threads&gt;.json) so sweeps on different machines can be compared.
+ * 
+ * Run with: java -cp benchmarks/target/benchmarks.jar comp3506.assn1.adts.benchmarks.ScalingSweep 
+ * [benchmark regex] [max threads] [stripes]. The defaults are ConcurrentReadBenchmark.get, 32 and 16.
+ * 
+ * Thread counts above the number of available processors are still run but marked as oversubscribed: 
+ * they measure time slicing, not scaling, so a near linear result can only be shown on a machine with at 
+ * least that many cores.
+ *
+ * @author Peter Baldry
+ */
+public final class ScalingSweep {
+	
+	/**
+	 * Private constructor, not instantiated.
+	 */
+	private ScalingSweep() {
+	}
+	
+	/**
+	 * Runs the sweep.
+	 * @param args optional benchmark regex, maximum number of threads and number of stripes
+	 * @throws Exception if JMH fails
+	 */
+	public static void main(String[] args) throws Exception {
+		String benchmark = (args.length > 0) ? args[0] : "ConcurrentReadBenchmark.get$";
+		int maxThreads = (args.length > 1) ? Integer.parseInt(args[1]) : 32;
+		String stripes = (args.length > 2) ? args[2] : "16";
+		int processors = Runtime.getRuntime().availableProcessors();
+		
+		List<Integer> threads = new ArrayList<Integer>();
+		List<Double> scores = new ArrayList<Double>();
+		for (int t = 1; t <= maxThreads; t *= 2) {
+			Options options = new OptionsBuilder()
+					.include(benchmark)
+					.param("stripes", stripes)
+					.threads(t)
+					.resultFormat(ResultFormatType.JSON)
+					.result("scaling-t" + t + ".json")
+					.build();
+			double score = 0;
+			for (RunResult result : new Runner(options).run()) {
+				score += result.getPrimaryResult().getScore();
+			}
+			threads.add(t);
+			scores.add(score);
+		}
+		
+		System.out.println();
+		System.out.println("Scaling of " + benchmark + " (stripes = " + stripes + ", " + processors + " processors)");
+		System.out.printf("%8s %14s %9s %11s%n", "threads", "ops/us", "speedup", "efficiency");
+		for (int i = 0; i < threads.size(); i++) {
+			double speedup = scores.get(i) / scores.get(0);
+			System.out.printf("%8d %14.3f %9.2f %10.0f%%%s%n", threads.get(i), scores.get(i), speedup, 
+					100 * speedup / threads.get(i), (threads.get(i) > processors) ? "  oversubscribed" : "");
+		}
+	}
+	
+}
@@ -0,0 +1,142 @@
+package comp3506.assn1.adts.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import comp3506.assn1.adts.BoundedCube;
+import comp3506.assn1.adts.ElementCodec;
+import comp3506.assn1.adts.benchmarks.Workload.Distribution;
+
+/**
+ * Writing and reading BoundedCube snapshots in memory, against rebuilding the cube by adding every plane. 
+ * One operation is one whole snapshot or rebuild, reported in operations per second. write and read also 
+ * report the snapshot bytes they move per second (as write:bytes and read:bytes).
+ *
+ * @author Peter Baldry
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Thread)
+public class SnapshotBenchmark {
+	
+	private static final ElementCodec<Integer> CODEC = new ElementCodec<Integer>() {
+		@Override
+		public void write(Integer element, DataOutput out) throws IOException {
+			out.writeInt(element.intValue());
+		}
+		
+		@Override
+		public Integer read(DataInput in) throws IOException {
+			return Integer.valueOf(in.readInt());
+		}
+	};
+	
+	@Param({"65536"})
+	public int cubeSize;
+	
+	@Param({"1000000"})
+	public int elementCount;
+	
+	@Param({"1", "8"})
+	public int multiplicity;
+	
+	private Workload workload;
+	private BoundedCube<Integer> cube;
+	private byte[] snapshot;
+	
+	/**
+	 * Snapshot bytes written or read, reported by JMH as a rate next to the operations.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Bytes {
+		public long bytes;
+		
+		/**
+		 * Starts each iteration from zero.
+		 */
+		@Setup(Level.Iteration)
+		public void reset() {
+			bytes = 0;
+		}
+	}
+	
+	/**
+	 * Builds the cube by adding each plane, and takes its snapshot.
+	 * @throws IOException never (in memory streams)
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		workload = new Workload(Distribution.UNIFORM, cubeSize, elementCount, multiplicity, 42);
+		cube = rebuild();
+		snapshot = snapshot();
+	}
+	
+	/**
+	 * @return the cube's snapshot
+	 * @throws IOException never (in memory streams)
+	 */
+	private byte[] snapshot() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream((snapshot == null) ? 1 << 16 : snapshot.length);
+		cube.writeSnapshot(out, CODEC);
+		return out.toByteArray();
+	}
+	
+	/**
+	 * @param counter counts the bytes written
+	 * @return the cube's snapshot
+	 * @throws IOException never (in memory streams)
+	 */
+	@Benchmark
+	public byte[] write(Bytes counter) throws IOException {
+		byte[] written = snapshot();
+		counter.bytes += written.length;
+		return written;
+	}
+	
+	/**
+	 * @param counter counts the bytes read
+	 * @return the cube read back from the snapshot
+	 * @throws IOException never (in memory streams)
+	 */
+	@Benchmark
+	public BoundedCube<Integer> read(Bytes counter) throws IOException {
+		counter.bytes += snapshot.length;
+		return BoundedCube.readSnapshot(new ByteArrayInputStream(snapshot), CODEC);
+	}
+	
+	/**
+	 * @return the cube built by adding every plane in the workload's order
+	 */
+	@Benchmark
+	public BoundedCube<Integer> rebuild() {
+		BoundedCube<Integer> rebuilt = new BoundedCube<Integer>(cubeSize, cubeSize, cubeSize);
+		for (int i = 0; i < workload.count(); i++) {
+			int j = workload.order[i];
+			rebuilt.add(workload.xs[j], workload.ys[j], workload.zs[j], workload.elements[j]);
+		}
+		return rebuilt;
+	}
+	
+}
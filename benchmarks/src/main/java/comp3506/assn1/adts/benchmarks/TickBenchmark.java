@@ -0,0 +1,106 @@
+package comp3506.assn1.adts.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import comp3506.assn1.adts.Cube;
+import comp3506.assn1.adts.benchmarks.Workload.Distribution;
+
+/**
+ * A simulation tick: every plane is moved by a small step (up to 2 cells along each axis), as planes in 
+ * flight are between radar updates. One operation is one whole tick over every plane.
+ *
+ * @author Peter Baldry
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TickBenchmark {
+	
+	private static final int STEPS = 4096;
+	private static final int MAX_STEP = 2;
+	
+	@Param({"BoundedCube", "OctreeCube", "SpatialHashCube"})
+	public String implementation;
+	
+	@Param({"UNIFORM", "CLUSTERED"})
+	public Distribution distribution;
+	
+	@Param({"1024"})
+	public int cubeSize;
+	
+	@Param({"100000"})
+	public int elementCount;
+	
+	private Workload workload;
+	private Cube<Integer> cube;
+	private int[] xs;
+	private int[] ys;
+	private int[] zs;
+	private int[] steps;
+	private int stepCursor;
+	
+	/**
+	 * Fills the cube and draws a fixed table of steps, so every implementation makes the same moves.
+	 */
+	@Setup
+	public void setUp() {
+		workload = new Workload(distribution, cubeSize, elementCount, 1, 42);
+		cube = Cubes.fill(implementation, workload);
+		xs = workload.xs.clone();
+		ys = workload.ys.clone();
+		zs = workload.zs.clone();
+		Random random = new Random(7);
+		steps = new int[STEPS * 3];
+		for (int i = 0; i < steps.length; i++) {
+			steps[i] = random.nextInt(2 * MAX_STEP + 1) - MAX_STEP;
+		}
+	}
+	
+	/**
+	 * Moves every plane once.
+	 * @return number of planes moved
+	 */
+	@Benchmark
+	public int tick() {
+		int moved = 0;
+		for (int j = 0; j < xs.length; j++) {
+			int s = stepCursor;
+			stepCursor = (s + 3 == steps.length) ? 0 : s + 3;
+			int toX = clamp(xs[j] + steps[s]);
+			int toY = clamp(ys[j] + steps[s + 1]);
+			int toZ = clamp(zs[j] + steps[s + 2]);
+			if (cube.move(workload.elements[j], xs[j], ys[j], zs[j], toX, toY, toZ)) {
+				moved += 1;
+			}
+			xs[j] = toX;
+			ys[j] = toY;
+			zs[j] = toZ;
+		}
+		return moved;
+	}
+	
+	/**
+	 * @param value a coordinate
+	 * @return value clamped inside the cube
+	 */
+	private int clamp(int value) {
+		return Math.max(0, Math.min(cubeSize - 1, value));
+	}
+	
+}
@@ -0,0 +1,102 @@
+package comp3506.assn1.adts.benchmarks;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import comp3506.assn1.adts.TraversableQueue;
+
+/**
+ * TraversableQueue on its own: enqueue/dequeue in steady state, iteration, and filling then draining a queue.
+ * The length parameter is the number of planes held (ie. the multiplicity of a cell).
+ *
+ * @author Peter Baldry
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TraversableQueueBenchmark {
+	
+	@Param({"1", "16", "1024"})
+	public int length;
+	
+	private TraversableQueue<Integer> queue;
+	private Integer[] elements;
+	
+	/**
+	 * Fills the queue with length planes.
+	 */
+	@Setup
+	public void setUp() {
+		elements = new Integer[length];
+		queue = new TraversableQueue<Integer>();
+		for (int i = 0; i < length; i++) {
+			elements[i] = Integer.valueOf(i);
+			queue.enqueue(elements[i]);
+		}
+	}
+	
+	/**
+	 * One enqueue and one dequeue, leaving the queue its original length.
+	 * @return the dequeued plane
+	 */
+	@Benchmark
+	public Integer enqueueDequeue() {
+		queue.enqueue(elements[0]);
+		return queue.dequeue();
+	}
+	
+	/**
+	 * Iterates the whole queue with its iterator.
+	 * @param blackhole consumes the planes
+	 */
+	@Benchmark
+	public void iterate(Blackhole blackhole) {
+		Iterator<Integer> queueIterator = queue.iterator();
+		for (int i = queue.size(); i > 0; i--) {
+			blackhole.consume(queueIterator.next());
+		}
+	}
+	
+	/**
+	 * Reads the oldest plane without an iterator.
+	 * @return the oldest plane
+	 */
+	@Benchmark
+	public Integer peek() {
+		return queue.peek();
+	}
+	
+	/**
+	 * Builds a new queue of length planes and dequeues them all.
+	 * @return the last plane dequeued
+	 */
+	@Benchmark
+	public Integer fillAndDrain() {
+		TraversableQueue<Integer> fresh = new TraversableQueue<Integer>();
+		for (int i = 0; i < length; i++) {
+			fresh.enqueue(elements[i]);
+		}
+		Integer last = null;
+		while (fresh.size() > 0) {
+			last = fresh.dequeue();
+		}
+		return last;
+	}
+	
+}
@@ -0,0 +1,155 @@
+package comp3506.assn1.adts.benchmarks;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * A reproducible set of planes for the benchmarks, spread over a size x size x size cube.
+ * Planes are generated cell by cell: there are 'cells' distinct occupied cells, and plane j is held at 
+ * cell j % cells, so every cell holds count / cells planes (the multiplicity), give or take one. 
+ * The order planes are added in is a seeded shuffle, so cells are not filled one after another.
+ *
+ * @author Peter Baldry
+ */
+public final class Workload {
+	
+	/**
+	 * How occupied cells are spread over the cube.
+	 */
+	public enum Distribution {
+		/** every cell equally likely */
+		UNIFORM,
+		/** Gaussian clusters (eg. planes around airports), sigma 1/64 of the cube side */
+		CLUSTERED,
+		/** each coordinate drawn as size * u^3, crowding cells into the corner at the origin */
+		CORNER
+	}
+	
+	private static final int CLUSTERS = 16;
+	private static final int MAX_ATTEMPTS = 64;
+	
+	/** side length of the cube */
+	public final int size;
+	/** number of distinct occupied cells */
+	public final int cells;
+	/** coordinates of plane j */
+	public final int[] xs;
+	/** coordinates of plane j */
+	public final int[] ys;
+	/** coordinates of plane j */
+	public final int[] zs;
+	/** plane j (its hash code is j) */
+	public final Integer[] elements;
+	/** the order planes are added in */
+	public final int[] order;
+	
+	/**
+	 * Workload constructor, generates the planes.
+	 * Run-time complexity: O(n), n = count (expected)
+	 * @param distribution how occupied cells are spread
+	 * @param size side length of the cube
+	 * @param count number of planes
+	 * @param multiplicity planes per occupied cell
+	 * @param seed random seed, the same seed gives the same workload
+	 * @throws IllegalArgumentException if size, count or multiplicity are not positive, or there are more 
+	 * 		   cells than the cube holds.
+	 */
+	public Workload(Distribution distribution, int size, int count, int multiplicity, long seed) 
+			throws IllegalArgumentException {
+		if ((size <= 0) || (count <= 0) || (multiplicity <= 0)) {
+			throw new IllegalArgumentException();
+		}
+		this.size = size;
+		this.cells = (count + multiplicity - 1) / multiplicity;
+		if ((long) cells > (long) size * size * size / 2) {
+			throw new IllegalArgumentException();
+		}
+		Random random = new Random(seed);
+		int[][] centres = new int[CLUSTERS][];
+		for (int i = 0; i < CLUSTERS; i++) {
+			centres[i] = new int[] {random.nextInt(size), random.nextInt(size), random.nextInt(size)};
+		}
+		int[] cellXs = new int[cells];
+		int[] cellYs = new int[cells];
+		int[] cellZs = new int[cells];
+		Set<Long> taken = new HashSet<Long>();
+		int[] cell = new int[3];
+		for (int c = 0; c < cells; c++) {
+			// redraw cells already taken, falling back to uniform if a dense distribution runs out of room
+			int attempts = 0;
+			do {
+				drawCell((attempts < MAX_ATTEMPTS) ? distribution : Distribution.UNIFORM, centres, random, cell);
+				attempts += 1;
+			} while (!taken.add(((long) cell[0] * size + cell[1]) * size + cell[2]));
+			cellXs[c] = cell[0];
+			cellYs[c] = cell[1];
+			cellZs[c] = cell[2];
+		}
+		xs = new int[count];
+		ys = new int[count];
+		zs = new int[count];
+		elements = new Integer[count];
+		order = new int[count];
+		for (int j = 0; j < count; j++) {
+			xs[j] = cellXs[j % cells];
+			ys[j] = cellYs[j % cells];
+			zs[j] = cellZs[j % cells];
+			elements[j] = Integer.valueOf(j);
+			order[j] = j;
+		}
+		for (int j = count - 1; j > 0; j--) {
+			int swap = random.nextInt(j + 1);
+			int held = order[j];
+			order[j] = order[swap];
+			order[swap] = held;
+		}
+	}
+	
+	/**
+	 * Private helper method, draws one cell.
+	 * @param distribution how to draw it
+	 * @param centres cluster centres
+	 * @param random source of randomness
+	 * @param cell receives x, y and z
+	 */
+	private void drawCell(Distribution distribution, int[][] centres, Random random, int[] cell) {
+		switch (distribution) {
+		case CLUSTERED:
+			int[] centre = centres[random.nextInt(CLUSTERS)];
+			double sigma = Math.max(1.0, size / 64.0);
+			for (int axis = 0; axis < 3; axis++) {
+				cell[axis] = clamp((int) Math.round(centre[axis] + (random.nextGaussian() * sigma)));
+			}
+			break;
+		case CORNER:
+			for (int axis = 0; axis < 3; axis++) {
+				double u = random.nextDouble();
+				cell[axis] = clamp((int) (size * u * u * u));
+			}
+			break;
+		default:
+			for (int axis = 0; axis < 3; axis++) {
+				cell[axis] = random.nextInt(size);
+			}
+		}
+	}
+	
+	/**
+	 * Private helper method, keeps a coordinate inside the cube.
+	 * @param value the coordinate
+	 * @return value clamped to 0..size-1
+	 */
+	private int clamp(int value) {
+		return Math.max(0, Math.min(size - 1, value));
+	}
+	
+	/**
+	 * Run-time complexity: O(1)
+	 * @return number of planes
+	 */
+	public int count() {
+		return elements.length;
+	}
+	
+}
@@ -0,0 +1,175 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests AdaptiveCube's migrations: the policy picks HASH for exact reads, TREE for range queries and GRID for a
+ * well occupied small cube, with different enter and exit thresholds; reads counted from several threads drive
+ * the policy; a writer adapts once the interval is reached; and every migration keeps every plane at its
+ * position in order.
+ *
+ * @author Peter Baldry
+ */
+public class AdaptiveCubeTest {
+
+	/* larger than the biggest cube held as a grid, so only TREE and HASH are ever chosen */
+	private static final int LARGE = 256;
+
+	private static void exactReads(AdaptiveCube<Integer> cube, int count) {
+		for (int i = 0; i < count; i++) {
+			cube.get(i % 10, 0, 0);
+		}
+	}
+
+	private static void rangeReads(AdaptiveCube<Integer> cube, int count) {
+		for (int i = 0; i < count; i++) {
+			cube.getRange(0, 0, 0, 9, 9, 9);
+		}
+	}
+
+	/**
+	 * Lists the planes at every position of a small box, position by position, oldest first at each.
+	 * @param cube the cube
+	 * @param size length of each side of the box (from the origin)
+	 * @return the planes, with -1 after each position's planes
+	 */
+	private static List<Integer> contents(Cube<Integer> cube, int size) {
+		List<Integer> planes = new ArrayList<Integer>();
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				for (int z = 0; z < size; z++) {
+					IterableQueue<Integer> all = cube.getAll(x, y, z);
+					if (all != null) {
+						Iterator<Integer> iterator = all.iterator();
+						for (int i = all.size(); i > 0; i--) {
+							planes.add(iterator.next());
+						}
+					}
+					planes.add(-1);
+				}
+			}
+		}
+		return planes;
+	}
+
+	@Test
+	public void exactReadsSwitchToHashAndRangeReadsBack() {
+		AdaptiveCube<Integer> cube = new AdaptiveCube<Integer>(LARGE, LARGE, LARGE);
+		for (int i = 0; i < 10; i++) {
+			cube.add(i, 0, 0, i);
+		}
+		assertEquals(AdaptiveCube.Representation.TREE, cube.getRepresentation());
+		exactReads(cube, 100);
+		cube.adapt();
+		assertEquals(AdaptiveCube.Representation.HASH, cube.getRepresentation());
+		assertEquals(1, cube.getSwitchCount());
+		assertEquals(10, cube.getLastSwitchPlanes());
+		rangeReads(cube, 100);
+		cube.adapt();
+		assertEquals(AdaptiveCube.Representation.TREE, cube.getRepresentation());
+		assertEquals(2, cube.getSwitchCount());
+		assertTrue(cube.getTotalSwitchNanos() >= cube.getLastSwitchNanos());
+	}
+
+	@Test
+	public void hashThresholdsDiffer() {
+		AdaptiveCube<Integer> cube = new AdaptiveCube<Integer>(LARGE, LARGE, LARGE);
+		cube.add(1, 0, 0, 1);
+		// 60% exact reads is below the share needed to enter HASH ...
+		exactReads(cube, 60);
+		rangeReads(cube, 40);
+		cube.adapt();
+		assertEquals(AdaptiveCube.Representation.TREE, cube.getRepresentation());
+		cube.migrateTo(AdaptiveCube.Representation.HASH);
+		// ... but above the share needed to leave it
+		exactReads(cube, 60);
+		rangeReads(cube, 40);
+		cube.adapt();
+		assertEquals(AdaptiveCube.Representation.HASH, cube.getRepresentation());
+		// counts are reset by each check, so no reads keeps the current tree
+		cube.adapt();
+		assertEquals(AdaptiveCube.Representation.HASH, cube.getRepresentation());
+	}
+
+	@Test
+	public void occupancySwitchesToGridAndBack() {
+		AdaptiveCube<Integer> cube = new AdaptiveCube<Integer>(10, 10, 10);
+		for (int i = 0; i < 120; i++) {
+			cube.add(i % 10, (i / 10) % 10, i / 100, i);
+		}
+		cube.adapt();
+		assertEquals(AdaptiveCube.Representation.GRID, cube.getRepresentation());
+		// between the exit and enter occupancy, the grid is kept
+		for (int i = 119; i >= 80; i--) {
+			cube.removeAll(i % 10, (i / 10) % 10, i / 100);
+		}
+		cube.adapt();
+		assertEquals(AdaptiveCube.Representation.GRID, cube.getRepresentation());
+		for (int i = 79; i >= 40; i--) {
+			cube.removeAll(i % 10, (i / 10) % 10, i / 100);
+		}
+		cube.adapt();
+		assertEquals(AdaptiveCube.Representation.TREE, cube.getRepresentation());
+		assertEquals(0.04, cube.getOccupancy(), 1e-9);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void largeCubeCannotBeGrid() {
+		new AdaptiveCube<Integer>(LARGE, LARGE, LARGE).migrateTo(AdaptiveCube.Representation.GRID);
+	}
+
+	@Test
+	public void writerAdaptsOnceIntervalIsReached() {
+		AdaptiveCube<Integer> cube = new AdaptiveCube<Integer>(LARGE, LARGE, LARGE);
+		cube.add(1, 0, 0, 1);
+		exactReads(cube, 5000);
+		assertEquals(AdaptiveCube.Representation.TREE, cube.getRepresentation());
+		cube.add(2, 0, 0, 2);
+		assertEquals(AdaptiveCube.Representation.HASH, cube.getRepresentation());
+	}
+
+	@Test
+	public void readsFromSeveralThreadsAreCounted() throws InterruptedException {
+		final AdaptiveCube<Integer> cube = new AdaptiveCube<Integer>(LARGE, LARGE, LARGE);
+		cube.add(1, 0, 0, 1);
+		Thread[] readers = new Thread[4];
+		for (int t = 0; t < readers.length; t++) {
+			readers[t] = new Thread(() -> exactReads(cube, 1000));
+			readers[t].start();
+		}
+		for (Thread reader : readers) {
+			reader.join();
+		}
+		rangeReads(cube, 1000);
+		// 4000 exact reads against 1000 range queries is an 80% exact share, enough to enter HASH
+		cube.adapt();
+		assertEquals(AdaptiveCube.Representation.HASH, cube.getRepresentation());
+	}
+
+	@Test
+	public void migrationsKeepEveryPlaneInOrder() {
+		Random random = new Random(9);
+		AdaptiveCube<Integer> cube = new AdaptiveCube<Integer>(8, 8, 8);
+		for (int i = 0; i < 300; i++) {
+			cube.add(random.nextInt(8), random.nextInt(8), random.nextInt(8), i);
+		}
+		List<Integer> expected = contents(cube, 8);
+		for (AdaptiveCube.Representation target : new AdaptiveCube.Representation[] {
+				AdaptiveCube.Representation.GRID, AdaptiveCube.Representation.HASH, AdaptiveCube.Representation.GRID,
+				AdaptiveCube.Representation.TREE, AdaptiveCube.Representation.HASH, AdaptiveCube.Representation.TREE}) {
+			cube.migrateTo(target);
+			assertEquals(target, cube.getRepresentation());
+			assertEquals(300, cube.getLastSwitchPlanes());
+			assertEquals(expected, contents(cube, 8));
+		}
+	}
+
+}
@@ -0,0 +1,169 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests BoundedCube.addAll, both inserting one plane at a time and merging a batch into the tree and rebuilding 
+ * it: the cube ends up holding the same planes, in the same order at each position, as adding them one by one.
+ *
+ * @author Peter Baldry
+ */
+public class AddAllTest {
+
+	private static final int SIZE = 8192;
+
+	private static Map<Long, List<Integer>> contents(Cube<Integer> cube) {
+		final Map<Long, List<Integer>> contents = new HashMap<Long, List<Integer>>();
+		cube.forEachInRange(0, 0, 0, SIZE - 1, SIZE - 1, SIZE - 1, new CellVisitor<Integer>() {
+			@Override
+			public void visit(int x, int y, int z, Integer element) {
+				long key = ((long) x << 42) | ((long) y << 21) | z;
+				List<Integer> planes = contents.get(key);
+				if (planes == null) {
+					planes = new ArrayList<Integer>();
+					contents.put(key, planes);
+				}
+				planes.add(element);
+			}
+		});
+		return contents;
+	}
+
+	/**
+	 * A batch along one diagonal (every position distinct on every axis), which makes one plane at a time 
+	 * insertion rebuild over and over, so addAll merges it.
+	 */
+	private static int[][] diagonal(int size, int offset) {
+		int[][] batch = new int[3][size];
+		for (int i = 0; i < size; i++) {
+			batch[0][i] = offset + i;
+			batch[1][i] = (offset + i * 7) % SIZE;
+			batch[2][i] = (offset + i * 13) % SIZE;
+		}
+		return batch;
+	}
+
+	private static Integer[] ids(int from, int size) {
+		Integer[] ids = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			ids[i] = from + i;
+		}
+		return ids;
+	}
+
+	private static void addEach(Cube<Integer> cube, int[][] batch, Integer[] elements) {
+		for (int i = 0; i < elements.length; i++) {
+			cube.add(batch[0][i], batch[1][i], batch[2][i], elements[i]);
+		}
+	}
+
+	private static int floorLog2(int n) {
+		return 31 - Integer.numberOfLeadingZeros(n);
+	}
+
+	@Test
+	public void mergedBatchMatchesAddingEachPlane() {
+		BoundedCube<Integer> merged = new BoundedCube<Integer>(SIZE, SIZE, SIZE);
+		BoundedCube<Integer> added = new BoundedCube<Integer>(SIZE, SIZE, SIZE);
+		Random random = new Random(31);
+		int[][] base = new int[3][200];
+		for (int i = 0; i < 200; i++) {
+			base[0][i] = random.nextInt(SIZE);
+			base[1][i] = random.nextInt(SIZE);
+			base[2][i] = random.nextInt(SIZE);
+		}
+		addEach(merged, base, ids(0, 200));
+		addEach(added, base, ids(0, 200));
+		int[][] batch = diagonal(5000, 3);
+		// some planes of the batch join positions already in the tree, some share a position with each other
+		for (int i = 0; i < 5000; i += 50) {
+			batch[0][i] = base[0][i / 50];
+			batch[1][i] = base[1][i / 50];
+			batch[2][i] = base[2][i / 50];
+			batch[0][i + 1] = batch[0][i + 2];
+			batch[1][i + 1] = batch[1][i + 2];
+			batch[2][i + 1] = batch[2][i + 2];
+		}
+		merged.addAll(batch[0], batch[1], batch[2], ids(1000, 5000));
+		addEach(added, batch, ids(1000, 5000));
+		assertEquals(contents(added), contents(merged));
+		// the merge rebuilt the whole tree around medians, leaving it perfectly balanced
+		assertEquals(floorLog2(merged.getNodeCount()), merged.getMaxDepth());
+		assertTrue(added.getMaxDepth() > merged.getMaxDepth());
+	}
+
+	@Test
+	public void evenBatchIsInsertedWithoutMerging() {
+		BoundedCube<Integer> cube = new BoundedCube<Integer>(SIZE, SIZE, SIZE);
+		BoundedCube<Integer> added = new BoundedCube<Integer>(SIZE, SIZE, SIZE);
+		Random random = new Random(32);
+		int[][] batch = new int[3][10000];
+		for (int i = 0; i < 10000; i++) {
+			batch[0][i] = random.nextInt(SIZE);
+			batch[1][i] = random.nextInt(SIZE);
+			batch[2][i] = random.nextInt(SIZE);
+		}
+		cube.addAll(batch[0], batch[1], batch[2], ids(0, 10000));
+		addEach(added, batch, ids(0, 10000));
+		assertEquals(contents(added), contents(cube));
+		assertEquals(added.getRebuildCount(), cube.getRebuildCount());
+		// the initial (empty) middle position is only dropped by a rebuild of the whole tree
+		assertEquals(added.getNodeCount(), cube.getNodeCount());
+	}
+
+	@Test
+	public void mergeKeepsNodesIndexesAndLiveQueues() {
+		BoundedCube<Integer> cube = new BoundedCube<Integer>(SIZE, SIZE, SIZE);
+		cube.enableCellIndex();
+		cube.enableElementIndex();
+		cube.add(500, 500, 500, -1);
+		cube.add(1, 1, 1, -2);
+		IterableQueue<Integer> queue = cube.getAll(500, 500, 500);
+		int[][] batch = diagonal(3000, 2);
+		batch[0][10] = 500;
+		batch[1][10] = 500;
+		batch[2][10] = 500;
+		cube.addAll(batch[0], batch[1], batch[2], ids(0, 3000));
+		assertSame(queue, cube.getAll(500, 500, 500));
+		assertEquals(2, queue.size());
+		// the empty middle position made by the constructor was dropped by the rebuild
+		assertEquals(3001, cube.getNodeCount());
+		for (int i = 0; i < 3000; i++) {
+			assertEquals(i == 10, cube.isMultipleElementsAt(batch[0][i], batch[1][i], batch[2][i]));
+		}
+		assertTrue(cube.remove(Integer.valueOf(1234)));
+		assertTrue(cube.remove(Integer.valueOf(-2)));
+		assertEquals(Integer.valueOf(-1), cube.get(500, 500, 500));
+		BoundedCube.Entry<Integer> located = cube.locate(Integer.valueOf(10));
+		assertEquals(500, located.getX());
+		assertEquals(500, located.getY());
+		assertEquals(500, located.getZ());
+	}
+
+	@Test
+	public void badPositionLeavesTheCubeUnchanged() {
+		BoundedCube<Integer> cube = new BoundedCube<Integer>(SIZE, SIZE, SIZE);
+		cube.add(5, 5, 5, -1);
+		int[][] batch = diagonal(1000, 0);
+		batch[2][999] = SIZE;
+		try {
+			cube.addAll(batch[0], batch[1], batch[2], ids(0, 1000));
+			fail("position outside the cube");
+		} catch (IndexOutOfBoundsException expected) {
+			// expected
+		}
+		assertEquals(1, contents(cube).size());
+	}
+
+}
@@ -0,0 +1,108 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the scapegoat rebalancing of BoundedCube: one sided insertions that would make a plain kd-tree a
+ * linked list trigger partial rebuilds that keep the depth within the alpha weight bound, and every plane
+ * stays reachable through the rebuilt subtrees.
+ *
+ * @author Peter Baldry
+ */
+public class BoundedCubeBalanceTest {
+
+	/* depth bound of an alpha weight balanced tree (alpha = 0.7), with one level of slack for the rebuilt median.
+	 * It only holds when the coordinates on each axis are distinct enough to split evenly (ties go left). */
+	private static int depthBound(int nodes) {
+		return (int) Math.ceil(Math.log(nodes) / Math.log(1 / 0.7)) + 1;
+	}
+
+	@Test
+	public void sortedInsertionsStayBalanced() {
+		int n = 10000;
+		BoundedCube<Integer> cube = new BoundedCube<Integer>(n, n, n);
+		for (int i = 0; i < n; i++) {
+			cube.add(i, i, i, i);
+		}
+		assertTrue("no partial rebuilds", cube.getRebuildCount() > 0);
+		assertTrue("depth " + cube.getMaxDepth(), cube.getMaxDepth() <= depthBound(cube.getNodeCount()));
+		for (int i = 0; i < n; i++) {
+			assertEquals(Integer.valueOf(i), cube.get(i, i, i));
+		}
+	}
+
+	@Test
+	public void oneSidedInsertionsStayBalanced() {
+		BoundedCube<Integer> cube = new BoundedCube<Integer>(500, 500, 50);
+		int id = 0;
+		for (int x = 0; x < 250; x += 5) {
+			for (int y = 0; y < 250; y += 5) {
+				for (int z = 0; z < 25; z += 5) {
+					cube.add(x, y, z, id++);
+				}
+			}
+		}
+		// only 5 distinct heights, so z splits cannot always be even, but the tree is nowhere near a chain
+		assertTrue("depth " + cube.getMaxDepth(), cube.getMaxDepth() <= 3 * depthBound(cube.getNodeCount()));
+		assertEquals(1 + id, cube.getNodeCount());
+		for (int x = 0, check = 0; x < 250; x += 5) {
+			for (int y = 0; y < 250; y += 5) {
+				for (int z = 0; z < 25; z += 5) {
+					assertEquals(Integer.valueOf(check++), cube.get(x, y, z));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void oneSidedDistinctInsertionsStayWithinTheBound() {
+		BoundedCube<Integer> cube = new BoundedCube<Integer>(5000, 5000, 5000);
+		for (int i = 0; i < 2500; i++) {
+			cube.add(2499 - i, (i * 7) % 2500, (i * 13) % 2500, i);
+		}
+		assertTrue("no partial rebuilds", cube.getRebuildCount() > 0);
+		assertTrue("depth " + cube.getMaxDepth(), cube.getMaxDepth() <= depthBound(cube.getNodeCount()));
+	}
+
+	@Test
+	public void randomInsertionsRarelyRebuild() {
+		Random random = new Random(1);
+		BoundedCube<Integer> cube = new BoundedCube<Integer>(1 << 16, 1 << 16, 1 << 16);
+		for (int i = 0; i < 20000; i++) {
+			cube.add(random.nextInt(1 << 16), random.nextInt(1 << 16), random.nextInt(1 << 16), i);
+		}
+		assertTrue("depth " + cube.getMaxDepth(), cube.getMaxDepth() <= depthBound(cube.getNodeCount()));
+		assertTrue("rebuilds " + cube.getRebuildCount(), cube.getRebuildCount() < 2000);
+	}
+
+	@Test
+	public void depthOfEmptyAndSingleTrees() {
+		BoundedCube<Integer> cube = new BoundedCube<Integer>(10, 10, 10);
+		assertEquals("the initial (empty) root", 0, cube.getMaxDepth());
+		cube.clear();
+		assertEquals(-1, cube.getMaxDepth());
+		cube.add(1, 1, 1, 1);
+		assertEquals(0, cube.getMaxDepth());
+		cube.add(0, 0, 0, 2);
+		assertEquals(1, cube.getMaxDepth());
+	}
+
+	@Test
+	public void compactCountsAsARebuild() {
+		BoundedCube<Integer> cube = new BoundedCube<Integer>(100, 100, 100);
+		for (int i = 0; i < 100; i++) {
+			cube.add(i, 99 - i, i % 10, i);
+		}
+		int rebuilds = cube.getRebuildCount();
+		assertEquals("the empty initial root", 1, cube.compact());
+		assertEquals(rebuilds + 1, cube.getRebuildCount());
+		assertEquals(100, cube.getNodeCount());
+		assertTrue(cube.getMaxDepth() <= depthBound(100));
+	}
+
+}
@@ -0,0 +1,126 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+import org.junit.Test;
+
+/**
+ * Tests BoundedCube.cells and cellSpliterator: every occupied position is reported exactly once with all of its
+ * planes, sequentially, in parallel and when the spliterator is split repeatedly, and empty positions are skipped.
+ *
+ * @author Peter Baldry
+ */
+public class CellStreamTest {
+
+	private static final int LENGTH = 1000;
+	private static final int BREADTH = 1000;
+	private static final int HEIGHT = 100;
+
+	/**
+	 * Fills a cube with n random planes, then removes every position of about a third of them.
+	 * @param cube the cube
+	 * @param model filled with the number of planes at each occupied position
+	 * @param random source of positions
+	 * @param n number of planes
+	 */
+	private static void fill(BoundedCube<Integer> cube, Map<Long, Integer> model, Random random, int n) {
+		for (int i = 0; i < n; i++) {
+			int x = random.nextInt(LENGTH);
+			int y = random.nextInt(BREADTH);
+			int z = random.nextInt(HEIGHT);
+			cube.add(x, y, z, i);
+			Integer count = model.get(key(x, y, z));
+			model.put(key(x, y, z), (count == null) ? 1 : count + 1);
+		}
+		for (int i = 0; i < n / 3; i++) {
+			int x = random.nextInt(LENGTH);
+			int y = random.nextInt(BREADTH);
+			int z = random.nextInt(HEIGHT);
+			if (model.remove(key(x, y, z)) != null) {
+				cube.removeAll(x, y, z);
+			}
+		}
+	}
+
+	private static long key(int x, int y, int z) {
+		return ((long) x << 42) | ((long) y << 21) | z;
+	}
+
+	/**
+	 * Splits a spliterator down to the given depth and drains every part, recording each cell seen.
+	 * @param cells the spliterator
+	 * @param seen number of planes reported at each position
+	 * @param depth remaining splits
+	 * @return number of parts drained
+	 */
+	private static int drain(Spliterator<CubeCell<Integer>> cells, Map<Long, Integer> seen, int depth) {
+		if (depth > 0) {
+			Spliterator<CubeCell<Integer>> prefix = cells.trySplit();
+			if (prefix != null) {
+				return drain(prefix, seen, depth - 1) + drain(cells, seen, depth - 1);
+			}
+		}
+		Iterator<CubeCell<Integer>> iterator = Spliterators.iterator(cells);
+		while (iterator.hasNext()) {
+			CubeCell<Integer> cell = iterator.next();
+			assertNull("position reported twice",
+					seen.put(key(cell.getX(), cell.getY(), cell.getZ()), cell.getElements().size()));
+		}
+		return 1;
+	}
+
+	@Test
+	public void streamsReportEveryOccupiedPosition() {
+		Random random = new Random(3);
+		for (int n : new int[] {0, 1, 2, 3, 10, 1000, 100000}) {
+			BoundedCube<Integer> cube = new BoundedCube<Integer>(LENGTH, BREADTH, HEIGHT);
+			Map<Long, Integer> model = new HashMap<Long, Integer>();
+			fill(cube, model, random, n);
+			long planes = 0;
+			for (int count : model.values()) {
+				planes += count;
+			}
+			assertEquals(model.size(), cube.cells().count());
+			assertEquals(planes, cube.cells().mapToLong(cell -> cell.getElements().size()).sum());
+			assertEquals(planes, cube.cells().parallel().mapToLong(cell -> cell.getElements().size()).sum());
+			Set<Long> positions = new HashSet<Long>();
+			cube.cells().forEach(cell -> positions.add(key(cell.getX(), cell.getY(), cell.getZ())));
+			assertEquals(model.keySet(), positions);
+		}
+	}
+
+	@Test
+	public void splitsCoverEveryPositionOnce() {
+		Random random = new Random(3);
+		BoundedCube<Integer> cube = new BoundedCube<Integer>(LENGTH, BREADTH, HEIGHT);
+		Map<Long, Integer> model = new HashMap<Long, Integer>();
+		fill(cube, model, random, 100000);
+		Map<Long, Integer> seen = new HashMap<Long, Integer>();
+		int parts = drain(cube.cellSpliterator(), seen, 12);
+		assertEquals(model, seen);
+		assertTrue("only " + parts + " parts after 12 levels of splits", parts > 1000);
+	}
+
+	@Test
+	public void emptyCubeHasNoCells() {
+		BoundedCube<Integer> cube = new BoundedCube<Integer>(10, 10, 10);
+		assertEquals(0, cube.cells().count());
+		cube.add(5, 5, 5, 1);
+		cube.removeAll(5, 5, 5);
+		assertEquals(0, cube.cells().count());
+		cube.clear();
+		assertEquals(0, cube.cells().count());
+	}
+
+}
@@ -0,0 +1,143 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import comp3506.assn1.adts.CubeMetrics.Operation;
+
+/**
+ * Tests the optional BoundedCube metrics: one record per operation, snapshots independent of the cube, and
+ * operations run from inside a visitor not disturbing the node count of the operation that called them.
+ *
+ * @author Peter Baldry
+ */
+public class CubeMetricsTest {
+
+	private static final int SIZE = 1000;
+	private static final int HEIGHT = 100;
+
+	private BoundedCube<Integer> cube;
+	private Random random;
+
+	@Before
+	public void setUp() {
+		random = new Random(5);
+		cube = new BoundedCube<Integer>(SIZE, SIZE, HEIGHT);
+		for (int i = 0; i < 20000; i++) {
+			cube.add(random.nextInt(SIZE), random.nextInt(SIZE), random.nextInt(HEIGHT), i);
+		}
+	}
+
+	@Test
+	public void disabledByDefault() {
+		assertFalse(cube.isMetricsEnabled());
+		assertNull(cube.getMetrics());
+		cube.enableMetrics();
+		assertTrue(cube.isMetricsEnabled());
+		cube.disableMetrics();
+		assertNull(cube.getMetrics());
+	}
+
+	@Test
+	public void countsOneRecordPerOperation() {
+		cube.enableMetrics();
+		for (int i = 0; i < 1000; i++) {
+			cube.add(random.nextInt(SIZE), random.nextInt(SIZE), random.nextInt(HEIGHT), -i);
+			cube.get(random.nextInt(SIZE), random.nextInt(SIZE), random.nextInt(HEIGHT));
+			cube.nearest(random.nextInt(SIZE), random.nextInt(SIZE), random.nextInt(HEIGHT), 4);
+			cube.withinRadius(random.nextInt(SIZE), random.nextInt(SIZE), random.nextInt(HEIGHT), 10);
+			cube.getRange(0, 0, 0, 50, 50, 10);
+			cube.move(i, 0, 0, 0, 1, 1, 1);
+			cube.removeAll(random.nextInt(SIZE), random.nextInt(SIZE), random.nextInt(HEIGHT));
+		}
+		CubeMetrics metrics = cube.getMetrics();
+		for (Operation operation : Operation.values()) {
+			assertEquals(operation.toString(), 1000, metrics.getCount(operation));
+			assertEquals(operation.toString(), 1000, metrics.getLatency(operation).getCount());
+			assertEquals(operation.toString(), 1000, metrics.getNodesVisited(operation).getCount());
+		}
+		assertTrue(metrics.getNodesVisited(Operation.GET).getMin() > 0);
+		cube.get(1, 2, 3);
+		assertEquals("a snapshot does not change", 1000, metrics.getCount(Operation.GET));
+		assertEquals(1001, cube.getMetrics().getCount(Operation.GET));
+	}
+
+	@Test
+	public void nestedOperationsKeepTheEnclosingNodeCount() {
+		final int x = SIZE / 3;
+		final int y = SIZE / 4;
+		final int z = HEIGHT / 2;
+		final CellVisitor<Integer> ignore = new CellVisitor<Integer>() {
+			@Override
+			public void visit(int atX, int atY, int atZ, Integer element) {
+			}
+		};
+		cube.enableMetrics();
+		cube.nearest(x, y, z, 8, ignore);
+		cube.forEachInRange(0, 0, 0, 200, 200, 50, ignore);
+		long nearestAlone = cube.getMetrics().getNodesVisited(Operation.NEAREST).getMax();
+		long rangeAlone = cube.getMetrics().getNodesVisited(Operation.RANGE).getMax();
+
+		cube.disableMetrics();
+		cube.enableMetrics();
+		CellVisitor<Integer> callBack = new CellVisitor<Integer>() {
+			@Override
+			public void visit(int atX, int atY, int atZ, Integer element) {
+				cube.get(SIZE - 1, SIZE - 1, HEIGHT - 1);
+				cube.withinRadius(atX, atY, atZ, 3);
+			}
+		};
+		cube.nearest(x, y, z, 8, callBack);
+		cube.forEachInRange(0, 0, 0, 200, 200, 50, callBack);
+		CubeMetrics metrics = cube.getMetrics();
+		assertEquals(1, metrics.getCount(Operation.NEAREST));
+		assertEquals(1, metrics.getCount(Operation.RANGE));
+		assertTrue(metrics.getCount(Operation.GET) > 0);
+		assertEquals(nearestAlone, metrics.getNodesVisited(Operation.NEAREST).getMax());
+		assertEquals(rangeAlone, metrics.getNodesVisited(Operation.RANGE).getMax());
+	}
+
+	@Test
+	public void visitorThatThrowsLeavesLaterCountsExact() {
+		final int x = SIZE / 2;
+		final int y = SIZE / 5;
+		final int z = HEIGHT / 3;
+		final CellVisitor<Integer> ignore = new CellVisitor<Integer>() {
+			@Override
+			public void visit(int atX, int atY, int atZ, Integer element) {
+			}
+		};
+		cube.enableMetrics();
+		cube.nearest(x, y, z, 8, ignore);
+		long nearestAlone = cube.getMetrics().getNodesVisited(Operation.NEAREST).getMax();
+
+		cube.disableMetrics();
+		cube.enableMetrics();
+		CellVisitor<Integer> thrower = new CellVisitor<Integer>() {
+			@Override
+			public void visit(int atX, int atY, int atZ, Integer element) {
+				cube.withinRadius(atX, atY, atZ, 2, ignore);
+				throw new IllegalStateException();
+			}
+		};
+		for (int i = 0; i < 100; i++) {
+			try {
+				cube.nearest(x, y, z, 8, thrower);
+			} catch (IllegalStateException expected) {
+				// the operations interrupted are not recorded
+			}
+		}
+		assertEquals(0, cube.getMetrics().getCount(Operation.NEAREST));
+		cube.nearest(x, y, z, 8, ignore);
+		assertEquals(1, cube.getMetrics().getCount(Operation.NEAREST));
+		assertEquals(nearestAlone, cube.getMetrics().getNodesVisited(Operation.NEAREST).getMax());
+	}
+
+}
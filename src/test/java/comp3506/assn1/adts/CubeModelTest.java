@@ -0,0 +1,338 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Model test for every Cube implementation: a long random run of adds, batch adds, removes, moves, range queries
+ * and exact reads (get, getAll, forEachAt, isMultipleElementsAt), each checked against a map from position to the
+ * list of planes there, oldest first. The cube is cleared half way so the run also covers reuse after clear.
+ *
+ * @author Peter Baldry
+ */
+public class CubeModelTest {
+
+	/**
+	 * Creates a fresh cube for one run.
+	 */
+	private interface CubeFactory {
+		Cube<Integer> create();
+	}
+
+	/**
+	 * Runs the random operations against a cube and the model.
+	 * @param factory creates the cube
+	 * @param length size in the 'x' dimension
+	 * @param breadth size in the 'y' dimension
+	 * @param height size in the 'z' dimension
+	 * @param steps number of random operations
+	 */
+	private static void run(CubeFactory factory, int length, int breadth, int height, int steps) {
+		Random random = new Random(7);
+		Cube<Integer> cube = factory.create();
+		Map<Long, List<Integer>> model = new HashMap<Long, List<Integer>>();
+		int nextId = 0;
+		for (int step = 0; step < steps; step++) {
+			final int x = random.nextInt(length);
+			final int y = random.nextInt(breadth);
+			final int z = random.nextInt(height);
+			long key = key(x, y, z);
+			List<Integer> planes = model.get(key);
+			int operation = random.nextInt(14);
+			if (operation < 5) {
+				cube.add(x, y, z, nextId);
+				planesAt(model, key).add(nextId);
+				nextId += 1;
+			} else if (operation < 8) {
+				if (planes == null) {
+					assertFalse(cube.remove(x, y, z, -1));
+				} else {
+					Integer plane = planes.remove(random.nextInt(planes.size()));
+					assertTrue(cube.remove(x, y, z, plane));
+					dropIfEmpty(model, key);
+				}
+			} else if (operation < 9) {
+				cube.removeAll(x, y, z);
+				model.remove(key);
+			} else if (operation < 10) {
+				assertEquals((planes != null) && (planes.size() > 1), cube.isMultipleElementsAt(x, y, z));
+			} else if (operation < 11) {
+				checkRange(cube, model, x, y, z, Math.min(length - 1, x + random.nextInt(8)),
+						Math.min(breadth - 1, y + random.nextInt(8)), Math.min(height - 1, z + random.nextInt(4)));
+			} else if (operation < 12) {
+				checkExactReads(cube, planes, x, y, z);
+			} else if (operation < 13) {
+				if (random.nextInt(20) == 0) {
+					nextId = addBatch(cube, model, random, x, y, length, breadth, height, nextId);
+				}
+			} else {
+				int toX = random.nextBoolean() ? x : random.nextInt(length);
+				int toY = random.nextBoolean() ? y : random.nextInt(breadth);
+				int toZ = random.nextBoolean() ? z : random.nextInt(height);
+				if (random.nextInt(8) == 0) {
+					toX = x;
+					toY = y;
+					toZ = z;
+				}
+				if (planes == null) {
+					assertFalse(cube.move(-1, x, y, z, toX, toY, toZ));
+				} else {
+					Integer plane = planes.get(random.nextInt(planes.size()));
+					assertTrue(cube.move(plane, x, y, z, toX, toY, toZ));
+					long toKey = key(toX, toY, toZ);
+					if (toKey != key) {
+						planes.remove(plane);
+						dropIfEmpty(model, key);
+						planesAt(model, toKey).add(plane);
+					}
+				}
+			}
+			if (step == steps / 2) {
+				cube.clear();
+				model.clear();
+			}
+		}
+	}
+
+	/**
+	 * Checks get, getAll and forEachAt at a position against the model.
+	 * @param cube the cube
+	 * @param planes the model's planes at the position, null if none
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @param z z coordinate
+	 */
+	private static void checkExactReads(Cube<Integer> cube, List<Integer> planes, final int x, final int y, final int z) {
+		List<Integer> expected = (planes == null) ? new ArrayList<Integer>() : planes;
+		assertEquals(expected.isEmpty() ? null : expected.get(0), cube.get(x, y, z));
+		IterableQueue<Integer> all = cube.getAll(x, y, z);
+		List<Integer> queued = new ArrayList<Integer>();
+		if (all != null) {
+			Iterator<Integer> iterator = all.iterator();
+			for (int i = all.size(); i > 0; i--) {
+				queued.add(iterator.next());
+			}
+		}
+		assertEquals(expected, queued);
+		final List<Integer> visited = new ArrayList<Integer>();
+		cube.forEachAt(x, y, z, new CellVisitor<Integer>() {
+			@Override
+			public void visit(int atX, int atY, int atZ, Integer element) {
+				assertEquals(x, atX);
+				assertEquals(y, atY);
+				assertEquals(z, atZ);
+				visited.add(element);
+			}
+		});
+		assertEquals(expected, visited);
+	}
+
+	/**
+	 * Checks forEachInRange over a box against the model.
+	 * @param cube the cube
+	 * @param model the model
+	 * @param minX lowest x coordinate
+	 * @param minY lowest y coordinate
+	 * @param minZ lowest z coordinate
+	 * @param maxX highest x coordinate
+	 * @param maxY highest y coordinate
+	 * @param maxZ highest z coordinate
+	 */
+	private static void checkRange(Cube<Integer> cube, Map<Long, List<Integer>> model,
+			int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+		Set<Integer> expected = new HashSet<Integer>();
+		for (Map.Entry<Long, List<Integer>> entry : model.entrySet()) {
+			long key = entry.getKey();
+			int x = (int) (key >>> 42);
+			int y = (int) ((key >>> 21) & 0x1FFFFF);
+			int z = (int) (key & 0x1FFFFF);
+			if ((x >= minX) && (x <= maxX) && (y >= minY) && (y <= maxY) && (z >= minZ) && (z <= maxZ)) {
+				expected.addAll(entry.getValue());
+			}
+		}
+		final Set<Integer> found = new HashSet<Integer>();
+		cube.forEachInRange(minX, minY, minZ, maxX, maxY, maxZ, new CellVisitor<Integer>() {
+			@Override
+			public void visit(int x, int y, int z, Integer element) {
+				found.add(element);
+			}
+		});
+		assertEquals(expected, found);
+	}
+
+	/**
+	 * Adds a batch of planes, mostly around (x, y) so several share positions, through addAll.
+	 * @return the next unused plane id
+	 */
+	private static int addBatch(Cube<Integer> cube, Map<Long, List<Integer>> model, Random random, int x, int y,
+			int length, int breadth, int height, int nextId) {
+		int size = 1 + random.nextInt(random.nextBoolean() ? 40 : 3000);
+		int[] xs = new int[size];
+		int[] ys = new int[size];
+		int[] zs = new int[size];
+		Integer[] elements = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			xs[i] = Math.min(length - 1, x + random.nextInt(5));
+			ys[i] = Math.min(breadth - 1, y + random.nextInt(5));
+			zs[i] = random.nextInt(height);
+			elements[i] = nextId++;
+			planesAt(model, key(xs[i], ys[i], zs[i])).add(elements[i]);
+		}
+		cube.addAll(xs, ys, zs, elements);
+		return nextId;
+	}
+
+	private static long key(int x, int y, int z) {
+		return ((long) x << 42) | ((long) y << 21) | z;
+	}
+
+	private static List<Integer> planesAt(Map<Long, List<Integer>> model, long key) {
+		List<Integer> planes = model.get(key);
+		if (planes == null) {
+			planes = new ArrayList<Integer>();
+			model.put(key, planes);
+		}
+		return planes;
+	}
+
+	private static void dropIfEmpty(Map<Long, List<Integer>> model, long key) {
+		if (model.get(key).isEmpty()) {
+			model.remove(key);
+		}
+	}
+
+	@Test
+	public void boundedCube() {
+		run(new CubeFactory() {
+			@Override
+			public Cube<Integer> create() {
+				return new BoundedCube<Integer>(60, 60, 20);
+			}
+		}, 60, 60, 20, 40000);
+	}
+
+	@Test
+	public void boundedCubeWithCellIndex() {
+		run(new CubeFactory() {
+			@Override
+			public Cube<Integer> create() {
+				BoundedCube<Integer> cube = new BoundedCube<Integer>(60, 60, 20);
+				cube.enableCellIndex();
+				return cube;
+			}
+		}, 60, 60, 20, 40000);
+	}
+
+	@Test
+	public void boundedCubeWithElementIndex() {
+		run(new CubeFactory() {
+			@Override
+			public Cube<Integer> create() {
+				BoundedCube<Integer> cube = new BoundedCube<Integer>(60, 60, 20);
+				cube.enableElementIndex();
+				return cube;
+			}
+		}, 60, 60, 20, 40000);
+	}
+
+	@Test
+	public void arrayBoundedCube() {
+		run(new CubeFactory() {
+			@Override
+			public Cube<Integer> create() {
+				return new ArrayBoundedCube<Integer>(60, 60, 20);
+			}
+		}, 60, 60, 20, 40000);
+	}
+
+	@Test
+	public void concurrentBoundedCube() {
+		run(new CubeFactory() {
+			@Override
+			public Cube<Integer> create() {
+				return new ConcurrentBoundedCube<Integer>(60, 60, 20, 7);
+			}
+		}, 60, 60, 20, 40000);
+	}
+
+	@Test
+	public void persistentBoundedCube() {
+		run(new CubeFactory() {
+			@Override
+			public Cube<Integer> create() {
+				return new PersistentBoundedCube<Integer>(60, 60, 20);
+			}
+		}, 60, 60, 20, 40000);
+	}
+
+	@Test
+	public void octreeCube() {
+		run(new CubeFactory() {
+			@Override
+			public Cube<Integer> create() {
+				return new OctreeCube<Integer>(60, 60, 20);
+			}
+		}, 60, 60, 20, 40000);
+		run(new CubeFactory() {
+			@Override
+			public Cube<Integer> create() {
+				return new OctreeCube<Integer>(7, 1, 3, 2);
+			}
+		}, 7, 1, 3, 20000);
+	}
+
+	@Test
+	public void denseGridCube() {
+		run(new CubeFactory() {
+			@Override
+			public Cube<Integer> create() {
+				return new DenseGridCube<Integer>(60, 60, 20);
+			}
+		}, 60, 60, 20, 40000);
+	}
+
+	@Test
+	public void spatialHashCube() {
+		run(new CubeFactory() {
+			@Override
+			public Cube<Integer> create() {
+				return new SpatialHashCube<Integer>(60, 60, 20);
+			}
+		}, 60, 60, 20, 40000);
+		run(new CubeFactory() {
+			@Override
+			public Cube<Integer> create() {
+				return new SpatialHashCube<Integer>(60, 60, 20, 1, 3, 7);
+			}
+		}, 60, 60, 20, 40000);
+	}
+
+	@Test
+	public void adaptiveCube() {
+		run(new CubeFactory() {
+			@Override
+			public Cube<Integer> create() {
+				return new AdaptiveCube<Integer>(60, 60, 20);
+			}
+		}, 60, 60, 20, 40000);
+		run(new CubeFactory() {
+			@Override
+			public Cube<Integer> create() {
+				return new AdaptiveCube<Integer>(20, 20, 10);
+			}
+		}, 20, 20, 10, 40000);
+	}
+
+}
@@ -0,0 +1,131 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests the getAll contract of Cube: single threaded implementations return the position's live queue, thread 
+ * safe and persistent ones a copy. Also covers ArrayBoundedCube's view going stale once its position is deleted.
+ *
+ * @author Peter Baldry
+ */
+public class GetAllTest {
+
+	private static List<Integer> planes(IterableQueue<Integer> queue) {
+		List<Integer> planes = new ArrayList<Integer>();
+		Iterator<Integer> iterator = queue.iterator();
+		for (int i = queue.size(); i > 0; i--) {
+			planes.add(iterator.next());
+		}
+		return planes;
+	}
+
+	private static List<Integer> planesAt(Cube<Integer> cube, int x, int y, int z) {
+		final List<Integer> planes = new ArrayList<Integer>();
+		cube.forEachAt(x, y, z, new CellVisitor<Integer>() {
+			@Override
+			public void visit(int atX, int atY, int atZ, Integer element) {
+				planes.add(element);
+			}
+		});
+		return planes;
+	}
+
+	private static void checkLive(Cube<Integer> cube) {
+		cube.add(1, 2, 3, 10);
+		cube.add(1, 2, 3, 11);
+		IterableQueue<Integer> queue = cube.getAll(1, 2, 3);
+		cube.add(1, 2, 3, 12);
+		assertEquals(Arrays.asList(10, 11, 12), planes(queue));
+		queue.enqueue(13);
+		assertEquals(Arrays.asList(10, 11, 12, 13), planesAt(cube, 1, 2, 3));
+		assertEquals(Integer.valueOf(10), queue.dequeue());
+		assertEquals(Integer.valueOf(11), cube.get(1, 2, 3));
+		assertEquals(Arrays.asList(11, 12, 13), planesAt(cube, 1, 2, 3));
+		assertEquals(3, queue.size());
+	}
+
+	private static void checkCopy(Cube<Integer> cube) {
+		cube.add(1, 2, 3, 10);
+		cube.add(1, 2, 3, 11);
+		IterableQueue<Integer> queue = cube.getAll(1, 2, 3);
+		cube.add(1, 2, 3, 12);
+		assertEquals(Arrays.asList(10, 11), planes(queue));
+		queue.enqueue(13);
+		assertEquals(Integer.valueOf(10), queue.dequeue());
+		assertEquals(Arrays.asList(10, 11, 12), planesAt(cube, 1, 2, 3));
+	}
+
+	@Test
+	public void singleThreadedCubesReturnTheLiveQueue() {
+		checkLive(new BoundedCube<Integer>(10, 10, 10));
+		checkLive(new ArrayBoundedCube<Integer>(10, 10, 10));
+		checkLive(new DenseGridCube<Integer>(10, 10, 10));
+		checkLive(new OctreeCube<Integer>(10, 10, 10));
+		checkLive(new SpatialHashCube<Integer>(10, 10, 10));
+	}
+
+	@Test
+	public void sharedCubesReturnACopy() {
+		checkCopy(new ConcurrentBoundedCube<Integer>(10, 10, 10, 3));
+		checkCopy(new PersistentBoundedCube<Integer>(10, 10, 10));
+		checkCopy(new AdaptiveCube<Integer>(10, 10, 10));
+	}
+
+	@Test
+	public void arrayViewGoesStaleOnceThePositionIsDeleted() {
+		ArrayBoundedCube<Integer> cube = new ArrayBoundedCube<Integer>(10, 10, 10);
+		cube.add(1, 1, 1, 1);
+		cube.add(2, 2, 2, 2);
+		IterableQueue<Integer> view = cube.getAll(1, 1, 1);
+		cube.removeAll(1, 1, 1);
+		// the freed node is reused by the next new position
+		cube.add(3, 3, 3, 3);
+		assertEquals(0, view.size());
+		assertFalse(view.iterator().hasNext());
+		try {
+			view.enqueue(4);
+			fail("enqueue on a deleted position");
+		} catch (IllegalStateException expected) {
+			// expected
+		}
+		try {
+			view.dequeue();
+			fail("dequeue on a deleted position");
+		} catch (IndexOutOfBoundsException expected) {
+			// expected
+		}
+		assertEquals(Arrays.asList(3), planesAt(cube, 3, 3, 3));
+		assertNull(cube.get(1, 1, 1));
+
+		IterableQueue<Integer> cleared = cube.getAll(2, 2, 2);
+		cube.clear();
+		cube.add(2, 2, 2, 5);
+		assertEquals(0, cleared.size());
+	}
+
+	@Test
+	public void arrayViewDequeuesToEmpty() {
+		ArrayBoundedCube<Integer> cube = new ArrayBoundedCube<Integer>(10, 10, 10);
+		cube.add(4, 4, 4, 1);
+		cube.add(4, 4, 4, 2);
+		IterableQueue<Integer> view = cube.getAll(4, 4, 4);
+		assertEquals(Integer.valueOf(1), view.dequeue());
+		assertEquals(Integer.valueOf(2), view.dequeue());
+		assertEquals(0, view.size());
+		assertNull(cube.get(4, 4, 4));
+		view.enqueue(3);
+		assertEquals(Integer.valueOf(3), cube.get(4, 4, 4));
+		assertFalse(cube.isMultipleElementsAt(4, 4, 4));
+	}
+
+}
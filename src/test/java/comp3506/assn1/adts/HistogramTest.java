@@ -0,0 +1,67 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests Histogram: percentiles are within the bucket precision (1/16 of the value) above the exact value,
+ * and the minimum, maximum and extreme values are kept exactly.
+ *
+ * @author Peter Baldry
+ */
+public class HistogramTest {
+
+	@Test
+	public void percentilesAreWithinBucketPrecision() {
+		Random random = new Random(5);
+		Histogram histogram = new Histogram();
+		long[] values = new long[100000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = (long) Math.exp(random.nextDouble() * 30);
+			histogram.record(values[i]);
+		}
+		Arrays.sort(values);
+		for (double percentile : new double[] {0, 1, 50, 90, 99, 99.9, 100}) {
+			int rank = (int) Math.max(0, Math.ceil(percentile / 100 * values.length) - 1);
+			long exact = values[rank];
+			long reported = histogram.getValueAtPercentile(percentile);
+			assertTrue(percentile + ": " + reported + " < " + exact, reported >= exact);
+			assertTrue(percentile + ": " + reported + " >> " + exact, reported <= exact + exact / 16 + 1);
+		}
+		assertEquals(values[0], histogram.getMin());
+		assertEquals(values[values.length - 1], histogram.getMax());
+		assertEquals(values.length, histogram.getCount());
+	}
+
+	@Test
+	public void largestValueIsKept() {
+		Histogram histogram = new Histogram();
+		histogram.record(3);
+		histogram.record(Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+		assertEquals(3, histogram.getValueAtPercentile(0));
+	}
+
+	@Test
+	public void copyIsIndependent() {
+		Histogram histogram = new Histogram();
+		histogram.record(10);
+		Histogram copy = histogram.copy();
+		histogram.record(20);
+		histogram.reset();
+		assertEquals(1, copy.getCount());
+		assertEquals(10, copy.getMax());
+		assertEquals(0, histogram.getCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeValuesAreRejected() {
+		new Histogram().record(-1);
+	}
+
+}
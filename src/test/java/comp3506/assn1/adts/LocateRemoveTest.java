@@ -0,0 +1,204 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests BoundedCube.locate and remove(element), both through the element index and by searching every queue 
+ * (index disabled), against a map from plane to position. Also checks the index drops its entry for a plane 
+ * taken out by remove(x, y, z, element), move or the queue returned by getAll, so it never reports a stale 
+ * position and does not keep the entry.
+ *
+ * @author Peter Baldry
+ */
+public class LocateRemoveTest {
+
+	private static final int LENGTH = 40;
+	private static final int BREADTH = 40;
+	private static final int HEIGHT = 10;
+	/* approx. bytes the element index charges per entry (see BoundedCube.ElementIndex) */
+	private static final int ENTRY_BYTES = 16 + 3 * 8;
+
+	private static long key(int x, int y, int z) {
+		return ((long) x << 42) | ((long) y << 21) | z;
+	}
+
+	/**
+	 * Checks locate agrees with the model for a plane.
+	 * @param cube the cube
+	 * @param model position of every plane in the cube
+	 * @param plane the plane
+	 */
+	private static void checkLocate(BoundedCube<Integer> cube, Map<Integer, Long> model, int plane) {
+		BoundedCube.Entry<Integer> entry = cube.locate(plane);
+		Long position = model.get(plane);
+		if (position == null) {
+			assertNull(entry);
+		} else {
+			assertEquals(Integer.valueOf(plane), entry.getElement());
+			assertEquals(position.longValue(), key(entry.getX(), entry.getY(), entry.getZ()));
+		}
+	}
+
+	/**
+	 * Runs random adds, removes (by position and by element), moves and locates against the model.
+	 * @param indexed true to enable the element index
+	 */
+	private static void run(boolean indexed) {
+		Random random = new Random(11);
+		BoundedCube<Integer> cube = new BoundedCube<Integer>(LENGTH, BREADTH, HEIGHT);
+		if (indexed) {
+			cube.enableElementIndex();
+		}
+		Map<Integer, Long> model = new HashMap<Integer, Long>();
+		List<Integer> planes = new ArrayList<Integer>();
+		int nextId = 0;
+		for (int step = 0; step < 20000; step++) {
+			int operation = random.nextInt(10);
+			if ((operation < 4) || planes.isEmpty()) {
+				int x = random.nextInt(LENGTH);
+				int y = random.nextInt(BREADTH);
+				int z = random.nextInt(HEIGHT);
+				cube.add(x, y, z, nextId);
+				model.put(nextId, key(x, y, z));
+				planes.add(nextId);
+				nextId += 1;
+			} else if (operation < 6) {
+				Integer plane = planes.remove(random.nextInt(planes.size()));
+				assertTrue(cube.remove(plane));
+				model.remove(plane);
+				assertFalse(cube.remove(plane));
+			} else if (operation < 7) {
+				Integer plane = planes.remove(random.nextInt(planes.size()));
+				long position = model.remove(plane);
+				assertTrue(cube.remove((int) (position >>> 42), (int) ((position >>> 21) & 0x1FFFFF), 
+						(int) (position & 0x1FFFFF), plane));
+			} else if (operation < 8) {
+				Integer plane = planes.get(random.nextInt(planes.size()));
+				long position = model.get(plane);
+				int toX = random.nextInt(LENGTH);
+				int toY = random.nextInt(BREADTH);
+				int toZ = random.nextInt(HEIGHT);
+				assertTrue(cube.move(plane, (int) (position >>> 42), (int) ((position >>> 21) & 0x1FFFFF), 
+						(int) (position & 0x1FFFFF), toX, toY, toZ));
+				model.put(plane, key(toX, toY, toZ));
+			} else {
+				checkLocate(cube, model, random.nextInt(nextId + 1));
+			}
+		}
+		for (int plane = 0; plane <= nextId; plane++) {
+			checkLocate(cube, model, plane);
+		}
+	}
+
+	@Test
+	public void locateAndRemoveBySearch() {
+		run(false);
+	}
+
+	@Test
+	public void locateAndRemoveByIndex() {
+		run(true);
+	}
+
+	@Test
+	public void missingPlane() {
+		for (boolean indexed : new boolean[] {false, true}) {
+			BoundedCube<Integer> cube = new BoundedCube<Integer>(10, 10, 10);
+			if (indexed) {
+				cube.enableElementIndex();
+			}
+			assertNull(cube.locate(1));
+			assertFalse(cube.remove(Integer.valueOf(1)));
+			cube.add(1, 2, 3, 1);
+			assertNull(cube.locate(2));
+			assertFalse(cube.remove(Integer.valueOf(2)));
+			assertEquals(1, cube.getAll(1, 2, 3).size());
+		}
+	}
+
+	@Test
+	public void removingLastPlaneDeletesPosition() {
+		for (boolean indexed : new boolean[] {false, true}) {
+			BoundedCube<Integer> cube = new BoundedCube<Integer>(10, 10, 10);
+			if (indexed) {
+				cube.enableElementIndex();
+			}
+			cube.add(4, 5, 6, 1);
+			cube.add(4, 5, 6, 2);
+			cube.add(7, 7, 7, 3);
+			assertTrue(cube.remove(Integer.valueOf(1)));
+			assertEquals(Integer.valueOf(2), cube.get(4, 5, 6));
+			assertTrue(cube.remove(Integer.valueOf(2)));
+			assertNull(cube.getAll(4, 5, 6));
+			assertEquals(1, cube.cells().count());
+		}
+	}
+
+	@Test
+	public void removeByPositionDropsIndexEntry() {
+		BoundedCube<Integer> cube = new BoundedCube<Integer>(10, 10, 10);
+		cube.enableElementIndex();
+		cube.add(1, 1, 1, 1);
+		cube.add(1, 1, 1, 2);
+		long bytes = cube.getElementIndexMemoryBytes();
+		assertTrue(cube.remove(1, 1, 1, 1));
+		assertEquals(bytes - ENTRY_BYTES, cube.getElementIndexMemoryBytes());
+		assertNull(cube.locate(1));
+		assertFalse(cube.remove(Integer.valueOf(1)));
+		cube.removeAll(1, 1, 1);
+		assertEquals(bytes - 2 * ENTRY_BYTES, cube.getElementIndexMemoryBytes());
+		assertNull(cube.locate(2));
+	}
+
+	@Test
+	public void moveDropsIndexEntry() {
+		BoundedCube<Integer> cube = new BoundedCube<Integer>(10, 10, 10);
+		cube.enableElementIndex();
+		cube.add(1, 1, 1, 1);
+		cube.add(8, 8, 8, 2);
+		cube.add(8, 8, 8, 3);
+		long bytes = cube.getElementIndexMemoryBytes();
+		// alone at its position (relabelled in place) and shared with another plane (unlinked and added again)
+		assertTrue(cube.move(1, 1, 1, 1, 1, 1, 2));
+		assertTrue(cube.move(2, 8, 8, 8, 0, 9, 0));
+		assertEquals(bytes, cube.getElementIndexMemoryBytes());
+		BoundedCube.Entry<Integer> first = cube.locate(1);
+		assertEquals(1, first.getX());
+		assertEquals(1, first.getY());
+		assertEquals(2, first.getZ());
+		BoundedCube.Entry<Integer> second = cube.locate(2);
+		assertEquals(0, second.getX());
+		assertEquals(9, second.getY());
+		assertEquals(0, second.getZ());
+		assertTrue(cube.remove(Integer.valueOf(2)));
+		assertNull(cube.getAll(0, 9, 0));
+		assertEquals(Integer.valueOf(3), cube.get(8, 8, 8));
+	}
+
+	@Test
+	public void planeTakenThroughQueueIsPurgedOnSearch() {
+		BoundedCube<Integer> cube = new BoundedCube<Integer>(10, 10, 10);
+		cube.enableElementIndex();
+		cube.add(3, 3, 3, 1);
+		cube.add(3, 3, 3, 2);
+		long bytes = cube.getElementIndexMemoryBytes();
+		assertEquals(Integer.valueOf(1), cube.getAll(3, 3, 3).dequeue());
+		assertEquals(bytes, cube.getElementIndexMemoryBytes());
+		assertNull(cube.locate(1));
+		assertEquals(bytes - ENTRY_BYTES, cube.getElementIndexMemoryBytes());
+		assertFalse(cube.remove(Integer.valueOf(1)));
+		assertEquals(3, cube.locate(2).getX());
+	}
+
+}
@@ -0,0 +1,75 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests LongKeyTable against a HashMap through random puts, replacements and removes, with keys drawn from a
+ * small range (long probe runs, so removal has entries to shift back) and from the whole long range.
+ *
+ * @author Peter Baldry
+ */
+public class LongKeyTableTest {
+
+	private static void run(Random random, long range) {
+		LongKeyTable<Integer> table = new LongKeyTable<Integer>();
+		Map<Long, Integer> model = new HashMap<Long, Integer>();
+		for (int step = 0; step < 200000; step++) {
+			long key = (range > 0) ? (long) (random.nextDouble() * range) : random.nextLong();
+			if (random.nextInt(5) < 3) {
+				table.put(key, step);
+				model.put(key, step);
+			} else {
+				table.remove(key);
+				model.remove(key);
+			}
+			assertEquals(model.get(key), table.get(key));
+			assertEquals(model.size(), table.size());
+		}
+		int values = 0;
+		for (int slot = 0; slot < table.capacity(); slot++) {
+			if (table.valueAt(slot) != null) {
+				values += 1;
+			}
+		}
+		assertEquals(model.size(), values);
+		for (Map.Entry<Long, Integer> entry : model.entrySet()) {
+			assertEquals(entry.getValue(), table.get(entry.getKey()));
+		}
+		table.clear();
+		assertEquals(0, table.size());
+		for (long key : model.keySet()) {
+			assertNull(table.get(key));
+		}
+	}
+
+	@Test
+	public void matchesHashMap() {
+		Random random = new Random(21);
+		run(random, 1000);
+		run(random, 100000);
+		run(random, 0);
+	}
+
+	@Test
+	public void neighbouringKeys() {
+		LongKeyTable<Integer> table = new LongKeyTable<Integer>();
+		for (int i = 0; i < 5000; i++) {
+			table.put(i, i);
+		}
+		for (int i = 0; i < 5000; i += 2) {
+			table.remove(i);
+		}
+		assertEquals(2500, table.size());
+		for (int i = 0; i < 5000; i++) {
+			assertEquals((i % 2 == 0) ? null : Integer.valueOf(i), table.get(i));
+		}
+	}
+
+}
@@ -0,0 +1,168 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests BoundedCube.nearest against a brute force search: the distances of the positions visited match the k 
+ * smallest distances of the occupied positions, each position's planes are visited together and oldest first, 
+ * k larger than the tree (up to Integer.MAX_VALUE) visits every position, and a visitor may call nearest again.
+ *
+ * @author Peter Baldry
+ */
+public class NearestTest {
+
+	private static final int LENGTH = 200;
+	private static final int BREADTH = 200;
+	private static final int HEIGHT = 50;
+
+	private static long key(int x, int y, int z) {
+		return ((long) x << 42) | ((long) y << 21) | z;
+	}
+
+	private static long squaredDistance(long key, int x, int y, int z) {
+		long dx = (key >>> 42) - x;
+		long dy = ((key >>> 21) & 0x1FFFFF) - y;
+		long dz = (key & 0x1FFFFF) - z;
+		return (dx * dx) + (dy * dy) + (dz * dz);
+	}
+
+	/**
+	 * Fills a cube with random planes (some positions shared), then removes about a fifth of the positions.
+	 * @return the planes held at each occupied position, oldest first
+	 */
+	private static Map<Long, List<Integer>> fill(BoundedCube<Integer> cube, Random random, int n) {
+		Map<Long, List<Integer>> model = new HashMap<Long, List<Integer>>();
+		for (int i = 0; i < n; i++) {
+			int x = random.nextInt(LENGTH);
+			int y = random.nextInt(BREADTH);
+			int z = random.nextInt(HEIGHT);
+			cube.add(x, y, z, i);
+			List<Integer> planes = model.get(key(x, y, z));
+			if (planes == null) {
+				planes = new ArrayList<Integer>();
+				model.put(key(x, y, z), planes);
+			}
+			planes.add(i);
+		}
+		for (int i = 0; i < n / 5; i++) {
+			int x = random.nextInt(LENGTH);
+			int y = random.nextInt(BREADTH);
+			int z = random.nextInt(HEIGHT);
+			if (model.remove(key(x, y, z)) != null) {
+				cube.removeAll(x, y, z);
+			}
+		}
+		return model;
+	}
+
+	/**
+	 * Runs nearest and checks it against the brute force answer.
+	 */
+	private static void check(BoundedCube<Integer> cube, Map<Long, List<Integer>> model, final int x, final int y,
+			final int z, int k) {
+		final List<Long> positions = new ArrayList<Long>();
+		final Map<Long, List<Integer>> visited = new HashMap<Long, List<Integer>>();
+		cube.nearest(x, y, z, k, new CellVisitor<Integer>() {
+			@Override
+			public void visit(int atX, int atY, int atZ, Integer element) {
+				long key = key(atX, atY, atZ);
+				if (positions.isEmpty() || (positions.get(positions.size() - 1) != key)) {
+					positions.add(key);
+					visited.put(key, new ArrayList<Integer>());
+				}
+				visited.get(key).add(element);
+			}
+		});
+		List<Long> expected = new ArrayList<Long>();
+		for (long key : model.keySet()) {
+			expected.add(squaredDistance(key, x, y, z));
+		}
+		Collections.sort(expected);
+		expected = expected.subList(0, Math.min(k, expected.size()));
+		List<Long> distances = new ArrayList<Long>();
+		for (long key : positions) {
+			distances.add(squaredDistance(key, x, y, z));
+			assertEquals(model.get(key), visited.get(key));
+		}
+		assertEquals("each position visited once", positions.size(), visited.size());
+		assertEquals(expected, distances);
+	}
+
+	@Test
+	public void matchesBruteForce() {
+		Random random = new Random(11);
+		for (int n : new int[] {1, 2, 10, 500, 20000}) {
+			BoundedCube<Integer> cube = new BoundedCube<Integer>(LENGTH, BREADTH, HEIGHT);
+			Map<Long, List<Integer>> model = fill(cube, random, n);
+			for (int query = 0; query < 50; query++) {
+				int k = 1 + random.nextInt(query % 2 == 0 ? 5 : 100);
+				check(cube, model, random.nextInt(LENGTH), random.nextInt(BREADTH), random.nextInt(HEIGHT), k);
+			}
+		}
+	}
+
+	@Test
+	public void largeKVisitsEveryPosition() {
+		Random random = new Random(12);
+		BoundedCube<Integer> cube = new BoundedCube<Integer>(LENGTH, BREADTH, HEIGHT);
+		Map<Long, List<Integer>> model = fill(cube, random, 3000);
+		check(cube, model, 0, 0, 0, cube.getNodeCount() + 1);
+		check(cube, model, 100, 100, 25, 5 * cube.getNodeCount());
+		check(cube, model, LENGTH - 1, BREADTH - 1, HEIGHT - 1, Integer.MAX_VALUE);
+	}
+
+	@Test
+	public void emptyTreeVisitsNothing() {
+		BoundedCube<Integer> cube = new BoundedCube<Integer>(LENGTH, BREADTH, HEIGHT);
+		assertEquals(0, cube.nearest(0, 0, 0, Integer.MAX_VALUE).size());
+		cube.add(3, 4, 5, 1);
+		cube.clear();
+		assertEquals(0, cube.getNodeCount());
+		assertEquals(0, cube.nearest(3, 4, 5, Integer.MAX_VALUE).size());
+		cube.add(3, 4, 5, 1);
+		assertEquals(Integer.valueOf(1), cube.nearest(0, 0, 0, Integer.MAX_VALUE).dequeue());
+	}
+
+	@Test
+	public void visitorMayQueryAgain() {
+		Random random = new Random(13);
+		final BoundedCube<Integer> cube = new BoundedCube<Integer>(LENGTH, BREADTH, HEIGHT);
+		final Map<Long, List<Integer>> model = fill(cube, random, 2000);
+		final List<Integer> outer = new ArrayList<Integer>();
+		final int[] innerQueries = new int[1];
+		cube.nearest(50, 50, 10, 40, new CellVisitor<Integer>() {
+			@Override
+			public void visit(int x, int y, int z, Integer element) {
+				outer.add(element);
+				if (outer.size() % 7 == 1) {
+					// a different k (and a larger heap) than the enclosing query
+					check(cube, model, x, y, z, 10 + outer.size());
+					innerQueries[0] += 1;
+				}
+			}
+		});
+		List<Integer> expected = new ArrayList<Integer>();
+		for (Integer element : cube.nearest(50, 50, 10, 40)) {
+			expected.add(element);
+		}
+		assertEquals(expected, outer);
+		assertTrue(innerQueries[0] > 1);
+		check(cube, model, 50, 50, 10, 40);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void kMustBePositive() {
+		new BoundedCube<Integer>(LENGTH, BREADTH, HEIGHT).nearest(0, 0, 0, 0);
+	}
+
+}
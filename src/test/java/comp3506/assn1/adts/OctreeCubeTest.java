@@ -0,0 +1,105 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests OctreeCube's shape as positions come and go: leaves are subdivided once over full, an emptied leaf is
+ * unlinked from its parent, an octant brought down to half the leaf capacity is merged back into one leaf, and
+ * getOctantCount and getMaxDepth follow each change.
+ *
+ * @author Peter Baldry
+ */
+public class OctreeCubeTest {
+
+	@Test
+	public void emptyCubeIsOneLeaf() {
+		OctreeCube<Integer> cube = new OctreeCube<Integer>(8, 8, 8, 2);
+		assertEquals(1, cube.getOctantCount());
+		assertEquals(0, cube.getMaxDepth());
+		cube.add(0, 0, 0, 1);
+		cube.add(7, 7, 7, 2);
+		cube.add(7, 7, 7, 3);
+		assertEquals(2, cube.getNodeCount());
+		assertEquals(1, cube.getOctantCount());
+		assertEquals(0, cube.getMaxDepth());
+	}
+
+	@Test
+	public void emptiedLeafIsUnlinkedThenOctantMerged() {
+		OctreeCube<Integer> cube = new OctreeCube<Integer>(8, 8, 8, 2);
+		cube.add(0, 0, 0, 1);
+		cube.add(7, 7, 7, 2);
+		cube.add(0, 7, 0, 3);
+		// root plus a leaf for each of the three occupied octants
+		assertEquals(4, cube.getOctantCount());
+		assertEquals(1, cube.getMaxDepth());
+		cube.removeAll(7, 7, 7);
+		// the root still holds more than half the leaf capacity, so only the empty leaf goes
+		assertEquals(3, cube.getOctantCount());
+		assertEquals(1, cube.getMaxDepth());
+		assertTrue(cube.remove(0, 7, 0, 3));
+		assertEquals(1, cube.getOctantCount());
+		assertEquals(0, cube.getMaxDepth());
+		assertEquals(1, cube.getNodeCount());
+		assertEquals(Integer.valueOf(1), cube.get(0, 0, 0));
+		assertNull(cube.get(0, 7, 0));
+	}
+
+	@Test
+	public void crowdedCornerSubdividesToCells() {
+		OctreeCube<Integer> cube = new OctreeCube<Integer>(8, 8, 8, 2);
+		cube.add(0, 0, 0, 1);
+		cube.add(1, 0, 0, 2);
+		cube.add(0, 1, 0, 3);
+		// the three cells share an octant at every level down to single cells
+		assertEquals(6, cube.getOctantCount());
+		assertEquals(3, cube.getMaxDepth());
+		// two positions are left, more than half the leaf capacity: only the emptied cell's leaf goes
+		assertTrue(cube.move(3, 0, 1, 0, 0, 0, 0));
+		assertEquals(5, cube.getOctantCount());
+		assertEquals(3, cube.getMaxDepth());
+		assertEquals(2, cube.getAll(0, 0, 0).size());
+		cube.removeAll(1, 0, 0);
+		assertEquals(1, cube.getOctantCount());
+		assertEquals(0, cube.getMaxDepth());
+		assertEquals(2, cube.getAll(0, 0, 0).size());
+	}
+
+	@Test
+	public void removingEverythingLeavesOneLeaf() {
+		Random random = new Random(5);
+		for (int capacity : new int[] {1, 2, 8}) {
+			OctreeCube<Integer> cube = new OctreeCube<Integer>(50, 30, 20, capacity);
+			List<int[]> positions = new ArrayList<int[]>();
+			for (int i = 0; i < 2000; i++) {
+				int[] position = {random.nextInt(50), random.nextInt(30), random.nextInt(20)};
+				cube.add(position[0], position[1], position[2], i);
+				positions.add(position);
+			}
+			assertTrue(cube.getOctantCount() > cube.getNodeCount() / capacity);
+			int depth = cube.getMaxDepth();
+			assertTrue("depth " + depth, (depth > 0) && (depth <= 6));
+			int octants = cube.getOctantCount();
+			for (int i = 0; i < positions.size() / 2; i++) {
+				int[] position = positions.get(i);
+				cube.removeAll(position[0], position[1], position[2]);
+			}
+			assertTrue(cube.getOctantCount() < octants);
+			for (int[] position : positions) {
+				cube.removeAll(position[0], position[1], position[2]);
+			}
+			assertEquals(0, cube.getNodeCount());
+			assertEquals(1, cube.getOctantCount());
+			assertEquals(0, cube.getMaxDepth());
+		}
+	}
+
+}
@@ -0,0 +1,143 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+/**
+ * Tests the parallel bulkLoad against the sequential one: the snapshot of a cube holds every node in pre-order 
+ * with its child flags, position and planes in queue order, so equal snapshots mean the same tree shape and the 
+ * same cell contents. Covers empty input, a single position, batches with many planes per position and batches 
+ * large enough that every parallel step (sort, grouping and build) splits.
+ *
+ * @author Peter Baldry
+ */
+public class ParallelBulkLoadTest {
+
+	private static final int SIZE = 1024;
+
+	private static final ElementCodec<Integer> CODEC = new ElementCodec<Integer>() {
+		@Override
+		public void write(Integer element, DataOutput out) throws IOException {
+			out.writeInt(element.intValue());
+		}
+
+		@Override
+		public Integer read(DataInput in) throws IOException {
+			return Integer.valueOf(in.readInt());
+		}
+	};
+
+	private static byte[] snapshot(BoundedCube<Integer> cube) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		cube.writeSnapshot(out, CODEC);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Bulk loads a batch sequentially and in pools of several sizes, and checks every cube matches.
+	 * @param xs x coordinate of each plane
+	 * @param ys y coordinate of each plane
+	 * @param zs z coordinate of each plane
+	 * @param elements the planes
+	 * @param positions number of distinct positions in the batch
+	 * @throws IOException never (snapshots are written to memory)
+	 */
+	private static void check(int[] xs, int[] ys, int[] zs, Integer[] elements, int positions) throws IOException {
+		BoundedCube<Integer> sequential = BoundedCube.bulkLoad(SIZE, SIZE, SIZE, xs, ys, zs, elements);
+		assertEquals(positions, sequential.getNodeCount());
+		byte[] expected = snapshot(sequential);
+		for (int poolSize : new int[] {1, 2, 3, 8}) {
+			ForkJoinPool pool = new ForkJoinPool(poolSize);
+			try {
+				BoundedCube<Integer> parallel = BoundedCube.bulkLoad(SIZE, SIZE, SIZE, xs, ys, zs, elements, pool);
+				assertEquals(positions, parallel.getNodeCount());
+				assertArrayEquals(expected, snapshot(parallel));
+			} finally {
+				pool.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * Checks a random batch in which planes share positions drawn from a limited set.
+	 * @param random source of positions
+	 * @param planes number of planes
+	 * @param distinct number of positions to draw from
+	 * @throws IOException never (snapshots are written to memory)
+	 */
+	private static void checkRandom(Random random, int planes, int distinct) throws IOException {
+		int[] cellXs = new int[distinct];
+		int[] cellYs = new int[distinct];
+		int[] cellZs = new int[distinct];
+		Set<Long> taken = new HashSet<Long>();
+		for (int c = 0; c < distinct; c++) {
+			do {
+				cellXs[c] = random.nextInt(SIZE);
+				cellYs[c] = random.nextInt(SIZE);
+				cellZs[c] = random.nextInt(8);
+			} while (!taken.add(((long) cellXs[c] << 42) | ((long) cellYs[c] << 21) | cellZs[c]));
+		}
+		int[] xs = new int[planes];
+		int[] ys = new int[planes];
+		int[] zs = new int[planes];
+		Integer[] elements = new Integer[planes];
+		for (int i = 0; i < planes; i++) {
+			int c = (i < distinct) ? i : random.nextInt(distinct);
+			xs[i] = cellXs[c];
+			ys[i] = cellYs[c];
+			zs[i] = cellZs[c];
+			elements[i] = i;
+		}
+		check(xs, ys, zs, elements, Math.min(planes, distinct));
+	}
+
+	@Test
+	public void emptyBatch() throws IOException {
+		check(new int[0], new int[0], new int[0], new Integer[0], 0);
+	}
+
+	@Test
+	public void singlePosition() throws IOException {
+		int planes = 30000;
+		int[] xs = new int[planes];
+		int[] ys = new int[planes];
+		int[] zs = new int[planes];
+		Integer[] elements = new Integer[planes];
+		for (int i = 0; i < planes; i++) {
+			xs[i] = 7;
+			ys[i] = 8;
+			zs[i] = 9;
+			elements[i] = i;
+		}
+		check(xs, ys, zs, elements, 1);
+	}
+
+	@Test
+	public void smallBatches() throws IOException {
+		Random random = new Random(23);
+		checkRandom(random, 1, 1);
+		checkRandom(random, 10, 3);
+		checkRandom(random, 1000, 1000);
+	}
+
+	@Test
+	public void largeBatchesWithDuplicates() throws IOException {
+		Random random = new Random(29);
+		checkRandom(random, 100000, 100000);
+		checkRandom(random, 200000, 40000);
+		// a handful of crowded positions, each spanning several grouping chunks
+		checkRandom(random, 100000, 5);
+	}
+
+}
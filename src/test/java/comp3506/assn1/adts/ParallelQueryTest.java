@@ -0,0 +1,86 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+/**
+ * Tests the parallel getRange and withinRadius against the sequential queries: for trees large enough to fork
+ * and trees too small to, in pools of several sizes, both return the same planes in the same order.
+ *
+ * @author Peter Baldry
+ */
+public class ParallelQueryTest {
+
+	private static final int SIZE = 512;
+
+	private static List<Integer> list(IterableQueue<Integer> queue) {
+		List<Integer> planes = new ArrayList<Integer>();
+		Iterator<Integer> iterator = queue.iterator();
+		for (int i = queue.size(); i > 0; i--) {
+			planes.add(iterator.next());
+		}
+		return planes;
+	}
+
+	/**
+	 * Fills a cube with n random planes, some sharing positions, added one at a time (so the tree is not
+	 * perfectly balanced) with a few positions removed again.
+	 * @param random source of positions
+	 * @param n number of planes
+	 * @return the cube
+	 */
+	private static BoundedCube<Integer> fill(Random random, int n) {
+		BoundedCube<Integer> cube = new BoundedCube<Integer>(SIZE, SIZE, SIZE);
+		for (int i = 0; i < n; i++) {
+			int x = random.nextInt(SIZE);
+			int y = random.nextInt(SIZE);
+			int z = random.nextInt(SIZE / 8);
+			cube.add(x, y, z, i);
+			if (random.nextInt(10) == 0) {
+				cube.add(x, y, z, -i);
+			}
+		}
+		for (int i = 0; i < n / 20; i++) {
+			cube.removeAll(random.nextInt(SIZE), random.nextInt(SIZE), random.nextInt(SIZE / 8));
+		}
+		return cube;
+	}
+
+	@Test
+	public void parallelMatchesSequentialInOrder() {
+		Random random = new Random(17);
+		for (int n : new int[] {0, 1, 100, 5000, 200000}) {
+			BoundedCube<Integer> cube = fill(random, n);
+			for (int poolSize : new int[] {1, 2, 4}) {
+				ForkJoinPool pool = new ForkJoinPool(poolSize);
+				try {
+					for (int query = 0; query < 40; query++) {
+						int x = random.nextInt(SIZE);
+						int y = random.nextInt(SIZE);
+						int z = random.nextInt(SIZE / 8);
+						int side = 1 << random.nextInt(10);
+						int maxX = Math.min(SIZE - 1, x + side);
+						int maxY = Math.min(SIZE - 1, y + side);
+						int maxZ = Math.min(SIZE - 1, z + side);
+						assertEquals(list(cube.getRange(x, y, z, maxX, maxY, maxZ)),
+								list(cube.getRange(x, y, z, maxX, maxY, maxZ, pool)));
+						assertEquals(list(cube.withinRadius(x, y, z, side)), list(cube.withinRadius(x, y, z, side, pool)));
+					}
+					List<Integer> all = list(cube.getRange(0, 0, 0, SIZE - 1, SIZE - 1, SIZE - 1, pool));
+					assertEquals(list(cube.getRange(0, 0, 0, SIZE - 1, SIZE - 1, SIZE - 1)), all);
+					assertEquals(cube.cells().mapToLong(cell -> cell.getElements().size()).sum(), all.size());
+				} finally {
+					pool.shutdown();
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,151 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests PersistentBoundedCube.snapshot: a snapshot keeps the contents it was taken with through every kind of 
+ * write to the live cube (including from another thread while it is being read), and rejects writes itself.
+ *
+ * @author Peter Baldry
+ */
+public class PersistentSnapshotTest {
+
+	private static final int LENGTH = 100;
+	private static final int BREADTH = 100;
+	private static final int HEIGHT = 20;
+
+	/**
+	 * @return the planes held at each occupied position of a cube, oldest first
+	 */
+	private static Map<Long, List<Integer>> contents(Cube<Integer> cube) {
+		final Map<Long, List<Integer>> contents = new HashMap<Long, List<Integer>>();
+		cube.forEachInRange(0, 0, 0, LENGTH - 1, BREADTH - 1, HEIGHT - 1, new CellVisitor<Integer>() {
+			@Override
+			public void visit(int x, int y, int z, Integer element) {
+				long key = ((long) x << 42) | ((long) y << 21) | z;
+				List<Integer> planes = contents.get(key);
+				if (planes == null) {
+					planes = new ArrayList<Integer>();
+					contents.put(key, planes);
+				}
+				planes.add(element);
+			}
+		});
+		return contents;
+	}
+
+	private static PersistentBoundedCube<Integer> filled(Random random, int n) {
+		PersistentBoundedCube<Integer> cube = new PersistentBoundedCube<Integer>(LENGTH, BREADTH, HEIGHT);
+		for (int i = 0; i < n; i++) {
+			cube.add(random.nextInt(LENGTH), random.nextInt(BREADTH), random.nextInt(HEIGHT), i);
+		}
+		return cube;
+	}
+
+	@Test
+	public void snapshotIgnoresLaterWrites() {
+		Random random = new Random(21);
+		PersistentBoundedCube<Integer> cube = filled(random, 5000);
+		cube.add(1, 1, 1, -1);
+		cube.add(1, 1, 1, -2);
+		PersistentBoundedCube<Integer> snapshot = cube.snapshot();
+		Map<Long, List<Integer>> before = contents(snapshot);
+		assertEquals(contents(cube), before);
+		assertTrue(snapshot.isSnapshot());
+		assertFalse(cube.isSnapshot());
+
+		cube.add(1, 1, 1, -3);
+		assertTrue(cube.remove(1, 1, 1, -1));
+		assertTrue(cube.move(-2, 1, 1, 1, 2, 2, 2));
+		cube.removeAll(random.nextInt(LENGTH), random.nextInt(BREADTH), random.nextInt(HEIGHT));
+		cube.addAll(new int[] {5, 6}, new int[] {5, 6}, new int[] {5, 6}, new Integer[] {-4, -5});
+		for (int i = 0; i < 5000; i++) {
+			cube.remove(random.nextInt(LENGTH), random.nextInt(BREADTH), random.nextInt(HEIGHT), i);
+		}
+		assertEquals(before, contents(snapshot));
+		assertEquals(Integer.valueOf(-1), snapshot.get(1, 1, 1));
+		assertTrue(snapshot.isMultipleElementsAt(1, 1, 1));
+
+		PersistentBoundedCube<Integer> later = cube.snapshot();
+		cube.clear();
+		assertEquals(before, contents(snapshot));
+		assertEquals(Integer.valueOf(-3), later.get(1, 1, 1));
+		assertEquals(0, contents(cube).size());
+	}
+
+	@Test
+	public void getAllOfASnapshotIsACopy() {
+		PersistentBoundedCube<Integer> cube = new PersistentBoundedCube<Integer>(LENGTH, BREADTH, HEIGHT);
+		cube.add(3, 3, 3, 1);
+		PersistentBoundedCube<Integer> snapshot = cube.snapshot();
+		IterableQueue<Integer> planes = snapshot.getAll(3, 3, 3);
+		planes.enqueue(2);
+		assertEquals(Integer.valueOf(1), planes.dequeue());
+		assertFalse(snapshot.isMultipleElementsAt(3, 3, 3));
+		assertEquals(Integer.valueOf(1), snapshot.get(3, 3, 3));
+	}
+
+	@Test
+	public void snapshotRejectsWrites() {
+		PersistentBoundedCube<Integer> cube = new PersistentBoundedCube<Integer>(LENGTH, BREADTH, HEIGHT);
+		cube.add(3, 3, 3, 1);
+		PersistentBoundedCube<Integer> snapshot = cube.snapshot();
+		List<Runnable> writes = new ArrayList<Runnable>();
+		writes.add(() -> snapshot.add(4, 4, 4, 2));
+		writes.add(() -> snapshot.addAll(new int[] {4}, new int[] {4}, new int[] {4}, new Integer[] {2}));
+		writes.add(() -> snapshot.remove(3, 3, 3, 1));
+		writes.add(() -> snapshot.move(1, 3, 3, 3, 4, 4, 4));
+		writes.add(() -> snapshot.removeAll(3, 3, 3));
+		writes.add(() -> snapshot.clear());
+		for (Runnable write : writes) {
+			try {
+				write.run();
+				fail("a snapshot accepted a write");
+			} catch (UnsupportedOperationException expected) {
+				// expected
+			}
+		}
+		assertEquals(Integer.valueOf(1), snapshot.get(3, 3, 3));
+		assertEquals(Integer.valueOf(1), cube.get(3, 3, 3));
+		assertTrue(snapshot.snapshot().isSnapshot());
+	}
+
+	@Test
+	public void snapshotIsStableWhileAnotherThreadWrites() throws InterruptedException {
+		Random random = new Random(22);
+		final PersistentBoundedCube<Integer> cube = filled(random, 3000);
+		PersistentBoundedCube<Integer> snapshot = cube.snapshot();
+		Map<Long, List<Integer>> before = contents(snapshot);
+		Thread writer = new Thread(() -> {
+			Random writes = new Random(23);
+			for (int i = 0; i < 20000; i++) {
+				int x = writes.nextInt(LENGTH);
+				int y = writes.nextInt(BREADTH);
+				int z = writes.nextInt(HEIGHT);
+				if (writes.nextBoolean()) {
+					cube.add(x, y, z, 10000 + i);
+				} else {
+					cube.removeAll(x, y, z);
+				}
+			}
+		});
+		writer.start();
+		for (int i = 0; i < 20; i++) {
+			assertEquals(before, contents(snapshot));
+		}
+		writer.join();
+		assertEquals(before, contents(snapshot));
+	}
+
+}
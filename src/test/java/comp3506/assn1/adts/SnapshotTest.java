@@ -0,0 +1,195 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests BoundedCube.writeSnapshot and readSnapshot: a cube read back holds the same planes at every position
+ * and the same tree (writing it again gives the same bytes), and truncated or foreign streams are rejected.
+ *
+ * @author Peter Baldry
+ */
+public class SnapshotTest {
+
+	private static final int LENGTH = 40;
+	private static final int BREADTH = 30;
+	private static final int HEIGHT = 20;
+
+	private static final ElementCodec<Integer> CODEC = new ElementCodec<Integer>() {
+		@Override
+		public void write(Integer element, DataOutput out) throws IOException {
+			out.writeInt(element.intValue());
+		}
+
+		@Override
+		public Integer read(DataInput in) throws IOException {
+			return Integer.valueOf(in.readInt());
+		}
+	};
+
+	private static byte[] write(BoundedCube<Integer> cube) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		cube.writeSnapshot(out, CODEC);
+		return out.toByteArray();
+	}
+
+	private static BoundedCube<Integer> read(byte[] snapshot) throws IOException {
+		return BoundedCube.readSnapshot(new ByteArrayInputStream(snapshot), CODEC);
+	}
+
+	private static List<Integer> planes(IterableQueue<Integer> queue) {
+		List<Integer> planes = new ArrayList<Integer>();
+		if (queue != null) {
+			Iterator<Integer> iterator = queue.iterator();
+			for (int i = queue.size(); i > 0; i--) {
+				planes.add(iterator.next());
+			}
+		}
+		return planes;
+	}
+
+	/**
+	 * Checks a cube survives a write and read unchanged.
+	 * @param cube the cube
+	 * @throws IOException never (in memory streams)
+	 */
+	private static void assertRoundTrip(BoundedCube<Integer> cube) throws IOException {
+		byte[] snapshot = write(cube);
+		BoundedCube<Integer> loaded = read(snapshot);
+		assertEquals(cube.getNodeCount(), loaded.getNodeCount());
+		assertEquals(cube.getMaxDepth(), loaded.getMaxDepth());
+		for (int x = 0; x < LENGTH; x++) {
+			for (int y = 0; y < BREADTH; y++) {
+				for (int z = 0; z < HEIGHT; z++) {
+					assertEquals(planes(cube.getAll(x, y, z)), planes(loaded.getAll(x, y, z)));
+				}
+			}
+		}
+		assertArrayEquals("the tree read back is written the same", snapshot, write(loaded));
+	}
+
+	/**
+	 * Fills a cube through a random mix of adds, removes, moves and removeAlls.
+	 * @return the cube
+	 */
+	private static BoundedCube<Integer> randomCube(Random random, int steps) {
+		BoundedCube<Integer> cube = new BoundedCube<Integer>(LENGTH, BREADTH, HEIGHT);
+		for (int id = 0; id < steps; id++) {
+			int x = random.nextInt(LENGTH);
+			int y = random.nextInt(BREADTH);
+			int z = random.nextInt(HEIGHT);
+			int operation = random.nextInt(10);
+			Integer oldest = cube.get(x, y, z);
+			if (operation < 6) {
+				cube.add(x, y, z, id);
+			} else if ((operation < 8) && (oldest != null)) {
+				cube.remove(x, y, z, oldest);
+			} else if ((operation < 9) && (oldest != null)) {
+				cube.move(oldest, x, y, z, random.nextInt(LENGTH), y, z);
+			} else {
+				cube.removeAll(x, y, z);
+			}
+		}
+		return cube;
+	}
+
+	@Test
+	public void roundTripKeepsPlanesAndTree() throws IOException {
+		Random random = new Random(3);
+		for (int steps : new int[] {0, 1, 10, 1000, 30000}) {
+			BoundedCube<Integer> cube = randomCube(random, steps);
+			assertRoundTrip(cube);
+			cube.compact();
+			assertRoundTrip(cube);
+		}
+	}
+
+	@Test
+	public void roundTripOfClearedCube() throws IOException {
+		BoundedCube<Integer> cube = randomCube(new Random(4), 500);
+		cube.clear();
+		assertRoundTrip(cube);
+		BoundedCube<Integer> loaded = read(write(cube));
+		assertNull(loaded.get(0, 0, 0));
+		loaded.add(1, 2, 3, 7);
+		assertEquals(Integer.valueOf(7), loaded.get(1, 2, 3));
+	}
+
+	@Test
+	public void loadedCubeAcceptsFurtherChanges() throws IOException {
+		Random random = new Random(5);
+		BoundedCube<Integer> cube = randomCube(random, 5000);
+		BoundedCube<Integer> loaded = read(write(cube));
+		loaded.enableCellIndex();
+		for (int i = 0; i < 2000; i++) {
+			int x = random.nextInt(LENGTH);
+			int y = random.nextInt(BREADTH);
+			int z = random.nextInt(HEIGHT);
+			cube.add(x, y, z, -i);
+			loaded.add(x, y, z, -i);
+		}
+		assertArrayEquals(write(cube), write(loaded));
+	}
+
+	@Test
+	public void truncatedSnapshotsAreRejected() throws IOException {
+		byte[] snapshot = write(randomCube(new Random(6), 3000));
+		for (int length : new int[] {0, 3, 20, 28, snapshot.length / 2, snapshot.length - 1}) {
+			try {
+				read(Arrays.copyOf(snapshot, length));
+				fail("read a snapshot cut to " + length + " bytes");
+			} catch (EOFException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void badMagicIsRejected() throws IOException {
+		byte[] snapshot = write(randomCube(new Random(7), 100));
+		snapshot[0] ^= 1;
+		read(snapshot);
+	}
+
+	@Test(expected = IOException.class)
+	public void unknownVersionIsRejected() throws IOException {
+		byte[] snapshot = write(randomCube(new Random(7), 100));
+		snapshot[7] += 1;
+		read(snapshot);
+	}
+
+	@Test(expected = IOException.class)
+	public void wrongNodeCountIsRejected() throws IOException {
+		byte[] snapshot = write(randomCube(new Random(7), 100));
+		snapshot[23] += 1;
+		read(snapshot);
+	}
+
+	@Test(expected = IOException.class)
+	public void positionOutsideCubeIsRejected() throws IOException {
+		byte[] snapshot = write(randomCube(new Random(7), 100));
+		// shrink the cube's length (header bytes 8 to 11) to 1, so most positions fall outside it
+		snapshot[8] = 0;
+		snapshot[9] = 0;
+		snapshot[10] = 0;
+		snapshot[11] = 1;
+		read(snapshot);
+	}
+
+}
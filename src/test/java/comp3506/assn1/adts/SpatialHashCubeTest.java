@@ -0,0 +1,127 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests SpatialHashCube's buckets: a bucket is created with its first position and removed with its last, a
+ * plane alone at its position is relabelled when it moves to an empty cell of the same bucket, and the bucket
+ * table (see LongKeyTable) keeps finding every bucket through heavy churn.
+ *
+ * @author Peter Baldry
+ */
+public class SpatialHashCubeTest {
+
+	@Test
+	public void bucketsComeAndGoWithPositions() {
+		SpatialHashCube<Integer> cube = new SpatialHashCube<Integer>(16, 16, 16, 4, 4, 4);
+		assertEquals(0, cube.getBucketCount());
+		cube.add(0, 0, 0, 1);
+		cube.add(3, 3, 3, 2);
+		assertEquals(1, cube.getBucketCount());
+		cube.add(4, 0, 0, 3);
+		assertEquals(2, cube.getBucketCount());
+		assertEquals(3, cube.getNodeCount());
+		assertTrue(cube.remove(4, 0, 0, 3));
+		assertEquals(1, cube.getBucketCount());
+		cube.removeAll(0, 0, 0);
+		assertEquals(1, cube.getBucketCount());
+		assertEquals(Integer.valueOf(2), cube.get(3, 3, 3));
+		cube.removeAll(3, 3, 3);
+		assertEquals(0, cube.getBucketCount());
+		assertEquals(0, cube.getNodeCount());
+		assertEquals(0, cube.getRange(0, 0, 0, 15, 15, 15).size());
+	}
+
+	@Test
+	public void moveWithinBucketRelabelsPosition() {
+		SpatialHashCube<Integer> cube = new SpatialHashCube<Integer>(16, 16, 16, 4, 4, 4);
+		cube.add(1, 1, 1, 1);
+		cube.add(2, 2, 2, 2);
+		assertTrue(cube.move(1, 1, 1, 1, 0, 3, 2));
+		assertEquals(1, cube.getBucketCount());
+		assertEquals(2, cube.getNodeCount());
+		assertNull(cube.get(1, 1, 1));
+		assertEquals(Integer.valueOf(1), cube.get(0, 3, 2));
+		// onto an occupied cell of the same bucket, the plane joins the end of its queue
+		assertTrue(cube.move(1, 0, 3, 2, 2, 2, 2));
+		assertEquals(1, cube.getNodeCount());
+		assertEquals(Integer.valueOf(2), cube.getAll(2, 2, 2).dequeue());
+		assertEquals(Integer.valueOf(1), cube.get(2, 2, 2));
+	}
+
+	@Test
+	public void moveBetweenBucketsReplacesBucket() {
+		SpatialHashCube<Integer> cube = new SpatialHashCube<Integer>(16, 16, 16, 4, 4, 4);
+		cube.add(1, 1, 1, 1);
+		cube.add(1, 1, 1, 2);
+		assertTrue(cube.move(1, 1, 1, 1, 15, 15, 15));
+		assertEquals(2, cube.getBucketCount());
+		assertTrue(cube.move(2, 1, 1, 1, 12, 12, 12));
+		assertEquals(1, cube.getBucketCount());
+		assertEquals(2, cube.getNodeCount());
+		assertEquals(2, cube.getRange(12, 12, 12, 15, 15, 15).size());
+		assertEquals(0, cube.getRange(0, 0, 0, 11, 11, 11).size());
+	}
+
+	@Test
+	public void bucketTableSurvivesChurn() {
+		Random random = new Random(13);
+		SpatialHashCube<Integer> cube = new SpatialHashCube<Integer>(300, 300, 30, 3, 3, 3);
+		Map<Long, Integer> model = new HashMap<Long, Integer>();
+		for (int step = 0; step < 60000; step++) {
+			int x = random.nextInt(300);
+			int y = random.nextInt(300);
+			int z = random.nextInt(30);
+			long key = ((long) x << 42) | ((long) y << 21) | z;
+			if ((step < 30000) ? random.nextInt(3) > 0 : random.nextInt(3) == 0) {
+				cube.add(x, y, z, step);
+				Integer count = model.get(key);
+				model.put(key, (count == null) ? 1 : count + 1);
+			} else {
+				cube.removeAll(x, y, z);
+				model.remove(key);
+			}
+			if (step % 5000 == 0) {
+				check(cube, model);
+			}
+		}
+		check(cube, model);
+		for (long key : new HashSet<Long>(model.keySet())) {
+			cube.removeAll((int) (key >>> 42), (int) ((key >>> 21) & 0x1FFFFF), (int) (key & 0x1FFFFF));
+		}
+		assertEquals(0, cube.getBucketCount());
+	}
+
+	/**
+	 * Checks the bucket count, the position count and the plane count of the whole cube against the model.
+	 * @param cube the cube (buckets of 3 * 3 * 3 cells)
+	 * @param model number of planes at each occupied position
+	 */
+	private static void check(SpatialHashCube<Integer> cube, Map<Long, Integer> model) {
+		Set<Long> buckets = new HashSet<Long>();
+		int planes = 0;
+		for (Map.Entry<Long, Integer> entry : model.entrySet()) {
+			long key = entry.getKey();
+			buckets.add((((key >>> 42) / 3) << 42) | ((((key >>> 21) & 0x1FFFFF) / 3) << 21) | ((key & 0x1FFFFF) / 3));
+			planes += entry.getValue();
+		}
+		assertEquals(buckets.size(), cube.getBucketCount());
+		assertEquals(model.size(), cube.getNodeCount());
+		assertEquals(planes, cube.getRange(0, 0, 0, 299, 299, 29).size());
+		for (long key : model.keySet()) {
+			assertEquals(model.get(key).intValue(),
+					cube.getAll((int) (key >>> 42), (int) ((key >>> 21) & 0x1FFFFF), (int) (key & 0x1FFFFF)).size());
+		}
+	}
+
+}
@@ -0,0 +1,138 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Tests the visitor queries: they visit the same planes as the matching queries that return a queue (nearest and
+ * withinRadius in the same order, SpatialHashCube.withinRadius the same set as BoundedCube's), and once warmed
+ * up the exact, range, radius and nearest visitor queries of BoundedCube allocate nothing.
+ *
+ * @author Peter Baldry
+ */
+public class VisitorQueryTest {
+
+	private static final int SIZE = 200;
+
+	/**
+	 * Records every plane visited, in order.
+	 */
+	private static class Recorder implements CellVisitor<Integer> {
+		final List<Integer> planes = new ArrayList<Integer>();
+
+		@Override
+		public void visit(int x, int y, int z, Integer element) {
+			planes.add(element);
+		}
+	}
+
+	/**
+	 * Counts the planes visited and sums their coordinates, allocating nothing.
+	 */
+	private static class Counter implements CellVisitor<Integer> {
+		long visits;
+		long coordinates;
+
+		@Override
+		public void visit(int x, int y, int z, Integer element) {
+			visits += 1;
+			coordinates += x + y + z;
+		}
+	}
+
+	private static List<Integer> list(IterableQueue<Integer> queue) {
+		List<Integer> planes = new ArrayList<Integer>();
+		Iterator<Integer> iterator = queue.iterator();
+		for (int i = queue.size(); i > 0; i--) {
+			planes.add(iterator.next());
+		}
+		return planes;
+	}
+
+	private static void fill(Random random, Cube<Integer> first, Cube<Integer> second, int planes) {
+		for (int i = 0; i < planes; i++) {
+			int x = random.nextInt(SIZE);
+			int y = random.nextInt(SIZE);
+			int z = random.nextInt(SIZE / 10);
+			first.add(x, y, z, i);
+			second.add(x, y, z, i);
+		}
+	}
+
+	@Test
+	public void visitorsMatchQueueQueries() {
+		Random random = new Random(31);
+		BoundedCube<Integer> tree = new BoundedCube<Integer>(SIZE, SIZE, SIZE / 10);
+		SpatialHashCube<Integer> hash = new SpatialHashCube<Integer>(SIZE, SIZE, SIZE / 10);
+		fill(random, tree, hash, 20000);
+		for (int query = 0; query < 200; query++) {
+			int x = random.nextInt(SIZE);
+			int y = random.nextInt(SIZE);
+			int z = random.nextInt(SIZE / 10);
+			int k = 1 + random.nextInt(50);
+			int radius = random.nextInt(30);
+			Recorder nearest = new Recorder();
+			tree.nearest(x, y, z, k, nearest);
+			assertEquals(list(tree.nearest(x, y, z, k)), nearest.planes);
+			Recorder treeRadius = new Recorder();
+			tree.withinRadius(x, y, z, radius, treeRadius);
+			assertEquals(list(tree.withinRadius(x, y, z, radius)), treeRadius.planes);
+			Recorder hashRadius = new Recorder();
+			hash.withinRadius(x, y, z, radius, hashRadius);
+			assertEquals(treeRadius.planes.size(), hashRadius.planes.size());
+			assertEquals(new HashSet<Integer>(treeRadius.planes), new HashSet<Integer>(hashRadius.planes));
+		}
+		Recorder zOrder = new Recorder();
+		tree.forEachInZOrder(zOrder);
+		Set<Integer> all = new HashSet<Integer>(zOrder.planes);
+		assertEquals(20000, zOrder.planes.size());
+		assertEquals(20000, all.size());
+	}
+
+	@Test
+	public void warmVisitorQueriesAllocateNothing() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+		Assume.assumeTrue(allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled());
+		Random random = new Random(37);
+		BoundedCube<Integer> cube = new BoundedCube<Integer>(SIZE, SIZE, SIZE / 10);
+		fill(random, cube, new DenseGridCube<Integer>(SIZE, SIZE, SIZE / 10), 20000);
+		int[] xs = new int[1000];
+		int[] ys = new int[1000];
+		int[] zs = new int[1000];
+		for (int i = 0; i < xs.length; i++) {
+			xs[i] = random.nextInt(SIZE - 10);
+			ys[i] = random.nextInt(SIZE - 10);
+			zs[i] = random.nextInt(SIZE / 10 - 2);
+		}
+		Counter counter = new Counter();
+		long allocated = 0;
+		for (int round = 0; round < 20; round++) {
+			long before = allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+			for (int i = 0; i < xs.length; i++) {
+				cube.forEachAt(xs[i], ys[i], zs[i], counter);
+				cube.forEachInRange(xs[i], ys[i], zs[i], xs[i] + 10, ys[i] + 10, zs[i] + 2, counter);
+				cube.withinRadius(xs[i], ys[i], zs[i], 8, counter);
+				cube.nearest(xs[i], ys[i], zs[i], 16, counter);
+			}
+			allocated = allocations.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+		}
+		assertTrue(counter.visits > 0);
+		// 4000 queries in the last round: allow a few stray bytes (eg. from the JVM) but nothing per query
+		assertTrue(allocated + " bytes allocated by 4000 warm queries", allocated < 4000);
+	}
+
+}